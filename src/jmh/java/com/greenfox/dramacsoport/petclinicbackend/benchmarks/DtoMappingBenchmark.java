@@ -0,0 +1,95 @@
+package com.greenfox.dramacsoport.petclinicbackend.benchmarks;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.ClinicDTO;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.PetDTO;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.user.register.RegisterRequestDTO;
+import com.greenfox.dramacsoport.petclinicbackend.mappers.*;
+import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
+import com.greenfox.dramacsoport.petclinicbackend.models.Clinic;
+import com.greenfox.dramacsoport.petclinicbackend.models.Pet;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>Entity/DTO mapping throughput, ModelMapper against the generated mappers.</h2>
+ * <ul>
+ *     <li>modelMapper*: reflective mapping with a warmed up ModelMapper, like the services did before</li>
+ *     <li>generated*: the MapStruct implementations the services use now</li>
+ * </ul>
+ * The gc profiler, enabled in build.gradle, reports the bytes allocated per call as gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DtoMappingBenchmark {
+
+    private final ModelMapper modelMapper = new ModelMapper();
+    private final PetMapper petMapper = new PetMapperImpl();
+    private final ClinicMapper clinicMapper = new ClinicMapperImpl();
+    private final AppUserMapper appUserMapper = new AppUserMapperImpl();
+
+    private Pet pet;
+    private PetDTO petDTO;
+    private Clinic clinic;
+    private RegisterRequestDTO registerRequestDTO;
+
+    @Setup
+    public void setUp() {
+        pet = new Pet(1L, "Max", "dog", "Male", LocalDate.of(2020, 1, 1), LocalDate.of(2024, 1, 1),
+                LocalDate.of(2025, 1, 1), "none", new AppUser());
+        petDTO = petMapper.toDto(pet);
+        clinic = new Clinic(1L, "Pet Clinic", "1 Main Street", 47.4979, 19.0402);
+        registerRequestDTO = new RegisterRequestDTO("bench", "bench@example.com", "password");
+
+        // the type maps are discovered lazily, so the first (slow) mapping is not measured
+        modelMapper.map(pet, PetDTO.class);
+        modelMapper.map(petDTO, Pet.class);
+        modelMapper.map(clinic, ClinicDTO.class);
+        modelMapper.map(registerRequestDTO, AppUser.class);
+    }
+
+    @Benchmark
+    public PetDTO modelMapperPetToDto() {
+        return modelMapper.map(pet, PetDTO.class);
+    }
+
+    @Benchmark
+    public PetDTO generatedPetToDto() {
+        return petMapper.toDto(pet);
+    }
+
+    @Benchmark
+    public Pet modelMapperPetUpdate() {
+        modelMapper.map(petDTO, pet);
+        return pet;
+    }
+
+    @Benchmark
+    public Pet generatedPetUpdate() {
+        petMapper.update(petDTO, pet);
+        return pet;
+    }
+
+    @Benchmark
+    public ClinicDTO modelMapperClinicToDto() {
+        return modelMapper.map(clinic, ClinicDTO.class);
+    }
+
+    @Benchmark
+    public ClinicDTO generatedClinicToDto() {
+        return clinicMapper.toDto(clinic);
+    }
+
+    @Benchmark
+    public AppUser modelMapperRegisterToUser() {
+        return modelMapper.map(registerRequestDTO, AppUser.class);
+    }
+
+    @Benchmark
+    public AppUser generatedRegisterToUser() {
+        return appUserMapper.toEntity(registerRequestDTO);
+    }
+}
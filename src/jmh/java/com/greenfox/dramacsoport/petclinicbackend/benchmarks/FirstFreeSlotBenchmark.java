@@ -0,0 +1,174 @@
+package com.greenfox.dramacsoport.petclinicbackend.benchmarks;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.slots.BookedSlot;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.slots.FreeSlot;
+import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
+import com.greenfox.dramacsoport.petclinicbackend.models.Appointment;
+import com.greenfox.dramacsoport.petclinicbackend.models.Clinic;
+import com.greenfox.dramacsoport.petclinicbackend.models.Pet;
+import com.greenfox.dramacsoport.petclinicbackend.models.Role;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.AppointmentRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.AvailabilitySnapshotRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.SlotChangeRepository;
+import com.greenfox.dramacsoport.petclinicbackend.services.appointments.AppointmentSchedule;
+import com.greenfox.dramacsoport.petclinicbackend.services.appointments.AvailabilityCalendar;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>The first free slot of a clinic in the next 30 days, from the appointments against the bitsets.</h2>
+ * <ul>
+ *     <li>query: reads the booked slots of the clinic's vets for the 30 days and checks every slot against them,
+ *     like the slots endpoint did before the availability calendar</li>
+ *     <li>calendar: ORs the free bits of the vets day by day, no database access</li>
+ * </ul>
+ * 20 vets with every slot of the 30 days booked except the last one, so both have to look at every day.
+ * The appointments are in an in-memory H2 database, without a Spring context, so a real database adds a
+ * network round trip to the query side.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FirstFreeSlotBenchmark {
+
+    private static final int VETS = 20;
+
+    private static final int DAYS = 30;
+
+    private final AppointmentSchedule schedule = new AppointmentSchedule("08:00", "18:00", Duration.ofMinutes(30),
+            Period.ofDays(60));
+
+    private LocalContainerEntityManagerFactoryBean entityManagerFactoryBean;
+    private EntityManager entityManager;
+    private AppointmentRepository appointmentRepository;
+    private AvailabilityCalendar availabilityCalendar;
+    private List<Long> vetIds;
+    private LocalDate today;
+
+    @Setup
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:firstfree;DB_CLOSE_DELAY=-1");
+        Properties jpaProperties = new Properties();
+        jpaProperties.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+        jpaProperties.setProperty("hibernate.physical_naming_strategy",
+                "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy");
+        entityManagerFactoryBean = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactoryBean.setDataSource(dataSource);
+        entityManagerFactoryBean.setPackagesToScan("com.greenfox.dramacsoport.petclinicbackend.models");
+        entityManagerFactoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        entityManagerFactoryBean.setJpaProperties(jpaProperties);
+        entityManagerFactoryBean.afterPropertiesSet();
+
+        EntityManagerFactory entityManagerFactory = entityManagerFactoryBean.getObject();
+        entityManager = entityManagerFactory.createEntityManager();
+        JpaRepositoryFactory repositoryFactory = new JpaRepositoryFactory(entityManager);
+        appointmentRepository = repositoryFactory.getRepository(AppointmentRepository.class);
+
+        today = LocalDate.now();
+        entityManager.getTransaction().begin();
+        Clinic clinic = new Clinic(null, "Busy Clinic", "1 Main Street", null, null);
+        entityManager.persist(clinic);
+        AppUser owner = AppUser.builder()
+                .email("owner@example.com")
+                .displayName("owner")
+                .password("password")
+                .build();
+        entityManager.persist(owner);
+        Pet pet = new Pet(null, "Rex", "dog", "Male", null, null, null, null, owner);
+        entityManager.persist(pet);
+        List<AppUser> vets = new ArrayList<>();
+        for (int i = 0; i < VETS; i++) {
+            AppUser vet = AppUser.builder()
+                    .email("vet" + i + "@example.com")
+                    .displayName("vet" + i)
+                    .password("password")
+                    .role(Role.VET)
+                    .clinic(clinic)
+                    .build();
+            entityManager.persist(vet);
+            vets.add(vet);
+        }
+        vetIds = vets.stream().map(AppUser::getId).toList();
+        LocalDateTime lastSlot = schedule.slotStart(today.plusDays(DAYS - 1), schedule.getSlotsPerDay() - 1);
+        for (int day = 0; day < DAYS; day++) {
+            for (LocalDateTime slot : schedule.slotsOf(today.plusDays(day))) {
+                for (AppUser vet : vets) {
+                    if (slot.equals(lastSlot) && vet == vets.get(VETS - 1)) {
+                        continue;
+                    }
+                    entityManager.persist(Appointment.builder()
+                            .clinic(clinic)
+                            .vet(vet)
+                            .pet(pet)
+                            .startsAt(slot)
+                            .activeSlot(slot)
+                            .build());
+                }
+            }
+            entityManager.flush();
+        }
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+
+        availabilityCalendar = new AvailabilityCalendar(appointmentRepository,
+                repositoryFactory.getRepository(SlotChangeRepository.class),
+                repositoryFactory.getRepository(AvailabilitySnapshotRepository.class), schedule,
+                new TransactionTemplate(new JpaTransactionManager(entityManagerFactory)), event -> {
+        }, Duration.ofMinutes(1), Duration.ofDays(1));
+        availabilityCalendar.load();
+        entityManager.clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManager.close();
+        entityManagerFactoryBean.destroy();
+    }
+
+    @Benchmark
+    public FreeSlot query() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            Set<BookedSlot> booked = new HashSet<>(appointmentRepository.findBookedSlots(vetIds,
+                    now, today.plusDays(DAYS).atStartOfDay()));
+            for (int day = 0; day < DAYS; day++) {
+                for (LocalDateTime slot : schedule.slotsOf(today.plusDays(day))) {
+                    if (!slot.isAfter(now)) {
+                        continue;
+                    }
+                    for (Long vetId : vetIds) {
+                        if (!booked.contains(new BookedSlot(vetId, slot))) {
+                            return new FreeSlot(vetId, slot);
+                        }
+                    }
+                }
+            }
+            return null;
+        } finally {
+            entityManager.clear();
+        }
+    }
+
+    @Benchmark
+    public FreeSlot calendar() {
+        return availabilityCalendar.firstFree(vetIds, DAYS, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,102 @@
+package com.greenfox.dramacsoport.petclinicbackend.benchmarks;
+
+import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
+import com.greenfox.dramacsoport.petclinicbackend.models.Role;
+import com.greenfox.dramacsoport.petclinicbackend.services.JwtService;
+import com.greenfox.dramacsoport.petclinicbackend.services.token.VerifiedTokenCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.SecretKey;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>Token generation and verification throughput, before and after sharing one SigningContext.</h2>
+ * The legacy methods rebuild the key (and the parser) on every call, like JwtService did before.
+ * The nested classes run the same benchmarks with 1, 8 and 32 threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public abstract class JwtSigningBenchmark {
+
+    private static final long VALIDITY = TimeUnit.MINUTES.toMillis(30);
+
+    private String secret;
+    private JwtService jwtService;
+    private AppUser user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        secret = Base64.getEncoder().encodeToString(key);
+
+        jwtService = new JwtService(new VerifiedTokenCache(10_000), null); // logout (token revocation) is not benchmarked
+        jwtService.updateSigningKey(secret);
+        user = AppUser.builder()
+                .id(1L)
+                .email("bench@example.com")
+                .displayName("bench")
+                .password("password")
+                .role(Role.USER)
+                .build();
+        token = jwtService.generateToken(user);
+    }
+
+    private SecretKey legacyKey() {
+        return Keys.hmacShaKeyFor(Base64.getDecoder().decode(secret));
+    }
+
+    @Benchmark
+    public String legacyGenerate() {
+        Instant now = Instant.now();
+        return Jwts.builder()
+                .claims(Map.of("role", "user", "displayName", user.getDisplayName(),
+                        "email", user.getUsername(), "id", String.valueOf(user.getId())))
+                .subject(user.getUsername())
+                .issuedAt(Date.from(now))
+                .expiration(Date.from(now.plusMillis(VALIDITY)))
+                .signWith(legacyKey())
+                .compact();
+    }
+
+    @Benchmark
+    public Claims legacyVerify() {
+        return Jwts.parser()
+                .verifyWith(legacyKey())
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public Claims verify() {
+        return jwtService.getClaims(token);
+    }
+
+    @Threads(1)
+    public static class OneThread extends JwtSigningBenchmark {
+    }
+
+    @Threads(8)
+    public static class EightThreads extends JwtSigningBenchmark {
+    }
+
+    @Threads(32)
+    public static class ThirtyTwoThreads extends JwtSigningBenchmark {
+    }
+}
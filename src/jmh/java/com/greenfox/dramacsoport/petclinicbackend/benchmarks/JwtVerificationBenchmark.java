@@ -0,0 +1,59 @@
+package com.greenfox.dramacsoport.petclinicbackend.benchmarks;
+
+import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
+import com.greenfox.dramacsoport.petclinicbackend.models.Role;
+import com.greenfox.dramacsoport.petclinicbackend.services.JwtService;
+import com.greenfox.dramacsoport.petclinicbackend.services.token.VerifiedToken;
+import com.greenfox.dramacsoport.petclinicbackend.services.token.VerifiedTokenCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>CPU cost of authenticating one request from its bearer token.</h2>
+ * <ul>
+ *     <li>doubleParse: what the filter used to do (isTokenValid, then extractUsername)</li>
+ *     <li>verifyFirstSeen: one full parse of a token that is not cached yet</li>
+ *     <li>verifyCached: the same token on every following request</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtVerificationBenchmark {
+
+    private VerifiedTokenCache cache;
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cache = new VerifiedTokenCache(10_000);
+        jwtService = new JwtService(cache, null); // logout (token revocation) is not benchmarked
+        AppUser user = AppUser.builder()
+                .id(1L)
+                .email("bench@example.com")
+                .displayName("bench")
+                .password("password")
+                .role(Role.USER)
+                .build();
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String doubleParse() {
+        jwtService.getClaims(token).getExpiration();
+        return jwtService.extractUsername(token);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyFirstSeen() {
+        cache.clear();
+        return jwtService.verify(token).orElseThrow();
+    }
+
+    @Benchmark
+    public VerifiedToken verifyCached() {
+        return jwtService.verify(token).orElseThrow();
+    }
+}
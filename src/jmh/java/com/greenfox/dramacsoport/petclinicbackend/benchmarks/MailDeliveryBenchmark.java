@@ -0,0 +1,84 @@
+package com.greenfox.dramacsoport.petclinicbackend.benchmarks;
+
+import com.greenfox.dramacsoport.petclinicbackend.services.email.FakeSmtpServer;
+import com.greenfox.dramacsoport.petclinicbackend.services.email.MailDeliveryEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * <h2>Emails sent per second to a local fake SMTP server.</h2>
+ * <ul>
+ *     <li>connectionPerMessage: how the registration email used to be sent (JavaMailSender.send per message)</li>
+ *     <li>pooledBatch: the same messages as one batch through MailDeliveryEngine</li>
+ * </ul>
+ * The fake server answers instantly and has no TLS, so a real server (with handshakes and network latency)
+ * widens the gap between the two.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MailDeliveryBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"1", "4"})
+    public int poolSize;
+
+    private FakeSmtpServer smtpServer;
+    private JavaMailSenderImpl mailSender;
+    private MailDeliveryEngine mailDeliveryEngine;
+    private List<SimpleMailMessage> batch;
+
+    @Setup
+    public void setUp() {
+        smtpServer = FakeSmtpServer.start();
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtpServer.getPort());
+        mailDeliveryEngine = new MailDeliveryEngine(mailSender, poolSize, Duration.ofMinutes(1), 1000,
+                new SimpleMeterRegistry());
+        batch = IntStream.range(0, BATCH_SIZE)
+                .mapToObj(i -> {
+                    SimpleMailMessage message = new SimpleMailMessage();
+                    message.setFrom("bench@example.com");
+                    message.setTo("user" + i + "@example.com");
+                    message.setSubject("Registration successful - Pet Clinic");
+                    message.setText("Dear user" + i + ",\n\nThank you for registering to our Pet Clinic application!");
+                    return message;
+                })
+                .toList();
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearReceivedMessages() {
+        smtpServer.reset();
+    }
+
+    @TearDown
+    public void tearDown() {
+        mailDeliveryEngine.close();
+        smtpServer.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void connectionPerMessage() {
+        for (SimpleMailMessage message : batch) {
+            mailSender.send(message);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public Map<SimpleMailMessage, Exception> pooledBatch() {
+        return mailDeliveryEngine.send(batch);
+    }
+}
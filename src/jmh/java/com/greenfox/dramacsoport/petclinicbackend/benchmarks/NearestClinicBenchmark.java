@@ -0,0 +1,129 @@
+package com.greenfox.dramacsoport.petclinicbackend.benchmarks;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.nearest.NearbyClinicDTO;
+import com.greenfox.dramacsoport.petclinicbackend.models.Clinic;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.ClinicRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.ListVersionRepository;
+import com.greenfox.dramacsoport.petclinicbackend.services.clinics.ClinicSpatialIndex;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>The 5 nearest of 50 000 clinics within 50 km.</h2>
+ * <ul>
+ *     <li>sqlScan: the haversine distance of every clinic computed by the database, filtered, sorted and
+ *     limited to 5</li>
+ *     <li>kdTree: the in-memory index of the nearest clinic endpoint</li>
+ * </ul>
+ * The clinics are spread randomly (but repeatably) over Europe, and every call searches around another one of
+ * 1024 random locations. The database is an in-memory H2, so the scan has no network or disk cost here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NearestClinicBenchmark {
+
+    private static final int CLINICS = 50_000;
+
+    private static final int COUNT = 5;
+
+    private static final double RADIUS_KM = 50;
+
+    private static final String SCAN = """
+            select * from (
+                select id, name, address, latitude, longitude,
+                       2 * :earthRadius * asin(sqrt(
+                           power(sin(radians(latitude - :latitude) / 2), 2)
+                           + cos(radians(:latitude)) * cos(radians(latitude))
+                             * power(sin(radians(longitude - :longitude) / 2), 2))) as distance_km
+                from clinic
+                where latitude is not null and longitude is not null
+            ) located
+            where distance_km <= :maxDistance
+            order by distance_km
+            limit :count
+            """;
+
+    private LocalContainerEntityManagerFactoryBean entityManagerFactoryBean;
+    private EntityManager entityManager;
+    private ClinicSpatialIndex clinicSpatialIndex;
+    private double[][] locations;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:nearest;DB_CLOSE_DELAY=-1");
+        Properties jpaProperties = new Properties();
+        jpaProperties.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+        jpaProperties.setProperty("hibernate.physical_naming_strategy",
+                "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy");
+        entityManagerFactoryBean = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactoryBean.setDataSource(dataSource);
+        entityManagerFactoryBean.setPackagesToScan("com.greenfox.dramacsoport.petclinicbackend.models");
+        entityManagerFactoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        entityManagerFactoryBean.setJpaProperties(jpaProperties);
+        entityManagerFactoryBean.afterPropertiesSet();
+        entityManager = entityManagerFactoryBean.getObject().createEntityManager();
+
+        Random random = new Random(42);
+        entityManager.getTransaction().begin();
+        for (int i = 0; i < CLINICS; i++) {
+            entityManager.persist(new Clinic(null, "Clinic " + i, i + " Main Street",
+                    36 + random.nextDouble() * 34, -10 + random.nextDouble() * 40));
+            if (i % 500 == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+
+        locations = new double[1024][];
+        for (int i = 0; i < locations.length; i++) {
+            locations[i] = new double[]{36 + random.nextDouble() * 34, -10 + random.nextDouble() * 40};
+        }
+
+        JpaRepositoryFactory repositoryFactory = new JpaRepositoryFactory(entityManager);
+        clinicSpatialIndex = new ClinicSpatialIndex(repositoryFactory.getRepository(ClinicRepository.class),
+                repositoryFactory.getRepository(ListVersionRepository.class));
+        clinicSpatialIndex.rebuild();
+        entityManager.clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManager.close();
+        entityManagerFactoryBean.destroy();
+    }
+
+    private double[] nextLocation() {
+        return locations[next++ & (locations.length - 1)];
+    }
+
+    @Benchmark
+    public List<?> sqlScan() {
+        double[] location = nextLocation();
+        return entityManager.createNativeQuery(SCAN)
+                .setParameter("earthRadius", ClinicSpatialIndex.EARTH_RADIUS_KM)
+                .setParameter("latitude", location[0])
+                .setParameter("longitude", location[1])
+                .setParameter("maxDistance", RADIUS_KM)
+                .setParameter("count", COUNT)
+                .getResultList();
+    }
+
+    @Benchmark
+    public List<NearbyClinicDTO> kdTree() {
+        double[] location = nextLocation();
+        return clinicSpatialIndex.findNearest(location[0], location[1], COUNT, RADIUS_KM);
+    }
+}
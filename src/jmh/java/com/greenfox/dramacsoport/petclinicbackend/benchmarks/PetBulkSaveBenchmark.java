@@ -0,0 +1,132 @@
+package com.greenfox.dramacsoport.petclinicbackend.benchmarks;
+
+import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
+import com.greenfox.dramacsoport.petclinicbackend.models.Pet;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.time.LocalDate;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>Pets written per second, one transaction per pet against one batched transaction.</h2>
+ * <ul>
+ *     <li>onePerTransaction: like hundreds of separate POST /api/v1/user/pet calls</li>
+ *     <li>batched: like one POST /api/v1/user/pets, the inserts go out in JDBC batches of 50</li>
+ * </ul>
+ * The nested classes save 50, 500 and 5000 pets per call, and the score is in pets (rows) per second.
+ * batchSize is hibernate.jdbc.batch_size (50 in application.properties), 1 turns batching off. It only changes
+ * how the batched inserts are grouped, onePerTransaction sends one insert per transaction whatever its value.
+ * Runs on an in-memory H2 database, so the network round trips a real database adds per statement are not
+ * part of the numbers, and the gap is wider in production.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public abstract class PetBulkSaveBenchmark {
+
+    @Param({"1", "10", "50", "100", "500"})
+    public int batchSize;
+
+    private LocalContainerEntityManagerFactoryBean entityManagerFactoryBean;
+    private EntityManager entityManager;
+    private Long ownerId;
+
+    protected abstract int pets();
+
+    @Setup
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:bulk;DB_CLOSE_DELAY=-1");
+        Properties jpaProperties = new Properties();
+        jpaProperties.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+        jpaProperties.setProperty("hibernate.physical_naming_strategy",
+                "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy");
+        jpaProperties.setProperty("hibernate.jdbc.batch_size", String.valueOf(batchSize));
+        jpaProperties.setProperty("hibernate.order_inserts", "true");
+        jpaProperties.setProperty("hibernate.order_updates", "true");
+        entityManagerFactoryBean = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactoryBean.setDataSource(dataSource);
+        entityManagerFactoryBean.setPackagesToScan("com.greenfox.dramacsoport.petclinicbackend.models");
+        entityManagerFactoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        entityManagerFactoryBean.setJpaProperties(jpaProperties);
+        entityManagerFactoryBean.afterPropertiesSet();
+        entityManager = entityManagerFactoryBean.getObject().createEntityManager();
+
+        entityManager.getTransaction().begin();
+        AppUser owner = AppUser.builder()
+                .email("shelter@example.com")
+                .displayName("shelter")
+                .password("password")
+                .build();
+        entityManager.persist(owner);
+        entityManager.getTransaction().commit();
+        ownerId = owner.getId();
+        entityManager.clear();
+    }
+
+    @TearDown(Level.Iteration)
+    public void deletePets() {
+        entityManager.getTransaction().begin();
+        entityManager.createQuery("delete from Pet").executeUpdate();
+        entityManager.getTransaction().commit();
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManager.close();
+        entityManagerFactoryBean.destroy();
+    }
+
+    private Pet newPet(int i) {
+        return new Pet(null, "Puppy" + i, "dog", "Female", LocalDate.now(), null, null, null,
+                entityManager.getReference(AppUser.class, ownerId));
+    }
+
+    @Benchmark
+    public void onePerTransaction() {
+        for (int i = 0; i < pets(); i++) {
+            entityManager.getTransaction().begin();
+            entityManager.persist(newPet(i));
+            entityManager.getTransaction().commit();
+            entityManager.clear();
+        }
+    }
+
+    @Benchmark
+    public void batched() {
+        entityManager.getTransaction().begin();
+        for (int i = 0; i < pets(); i++) {
+            entityManager.persist(newPet(i));
+        }
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+    }
+
+    @OperationsPerInvocation(50)
+    public static class Fifty extends PetBulkSaveBenchmark {
+        @Override
+        protected int pets() {
+            return 50;
+        }
+    }
+
+    @OperationsPerInvocation(500)
+    public static class FiveHundred extends PetBulkSaveBenchmark {
+        @Override
+        protected int pets() {
+            return 500;
+        }
+    }
+
+    @OperationsPerInvocation(5000)
+    public static class FiveThousand extends PetBulkSaveBenchmark {
+        @Override
+        protected int pets() {
+            return 5000;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.greenfox.dramacsoport.petclinicbackend.benchmarks;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.search.PetSearchDocument;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.PetChangeRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.PetRepository;
+import com.greenfox.dramacsoport.petclinicbackend.services.petHandling.search.PetSearchIndex;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Limit;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>Finding the first page (21 pets) of a fragment search among 1 000 000 pets.</h2>
+ * <ul>
+ *     <li>scan: a case-insensitive contains over the fields of every pet in id order, until the page is full,
+ *     like <code>LIKE '%x%'</code> without the I/O of a real table scan</li>
+ *     <li>index: the trigram index of the search endpoint</li>
+ * </ul>
+ * The queries go from a common breed (the page fills up quickly in both) to a rare condition and a fragment no
+ * pet contains (the scan reads every pet). The names, breeds and conditions are random but repeatable.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PetSearchBenchmark {
+
+    private static final int PETS = 1_000_000;
+
+    private static final int PAGE = 21;
+
+    private static final String[] SYLLABLES = {"ba", "be", "bo", "ca", "ko", "la", "li", "lu", "ma", "mi", "na",
+            "no", "pa", "po", "ra", "re", "ro", "sa", "si", "ta", "to", "vi", "xa", "zu"};
+
+    private static final String[] BREEDS = {"Labrador Retriever", "Golden Retriever", "German Shepherd", "Beagle",
+            "Bulldog", "Poodle", "Dachshund", "Boxer", "Siberian Husky", "Chihuahua", "Persian", "Maine Coon",
+            "Siamese", "Ragdoll", "Sphynx", "British Shorthair", "Holland Lop", "Budgerigar", "Cockatiel",
+            "Mixed"};
+
+    private static final String[] CONDITIONS = {"Diabetes", "Allergic to chicken", "Hip dysplasia", "Epilepsy",
+            "Blind in one eye", "Kidney disease", "Heart murmur", "Hyperthyroidism"};
+
+    @Param({"retriever", "hyperthyr", "zuxaviba", "qqq"})
+    public String query;
+
+    private PetSearchIndex searchIndex;
+
+    private List<PetSearchDocument> pets;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        pets = new ArrayList<>(PETS);
+        for (long id = 1; id <= PETS; id++) {
+            StringBuilder name = new StringBuilder();
+            for (int syllables = 2 + random.nextInt(3); syllables > 0; syllables--) {
+                name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+            // one pet in a hundred has a condition
+            String condition = random.nextInt(100) == 0 ? CONDITIONS[random.nextInt(CONDITIONS.length)] : null;
+            pets.add(new PetSearchDocument(id, name.toString(), BREEDS[random.nextInt(BREEDS.length)], condition));
+        }
+
+        // the startup build reads the pets in id order, one chunk at a time, and finds no change to replay
+        PetRepository petRepository = (PetRepository) Proxy.newProxyInstance(PetRepository.class.getClassLoader(),
+                new Class<?>[]{PetRepository.class}, (proxy, method, args) -> {
+                    int from = ((Long) args[0]).intValue();
+                    return pets.subList(from, Math.min(from + ((Limit) args[1]).max(), PETS));
+                });
+        PetChangeRepository petChangeRepository = (PetChangeRepository) Proxy.newProxyInstance(
+                PetChangeRepository.class.getClassLoader(), new Class<?>[]{PetChangeRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "currentTime" -> Instant.now();
+                    case "findMaxIdCreatedBefore" -> Optional.empty();
+                    case "findByIdGreaterThanOrderById" -> List.of();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        searchIndex = new PetSearchIndex(petRepository, petChangeRepository, 10_000, Duration.ofMinutes(1),
+                Duration.ofDays(1));
+        searchIndex.build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        searchIndex.close();
+    }
+
+    @Benchmark
+    public List<Long> scan() {
+        String needle = query.toLowerCase(Locale.ROOT);
+        List<Long> ids = new ArrayList<>(PAGE);
+        for (PetSearchDocument pet : pets) {
+            if (contains(pet.petName(), needle) || contains(pet.petBreed(), needle)
+                    || contains(pet.specialCondition(), needle)) {
+                ids.add(pet.id());
+                if (ids.size() == PAGE) {
+                    break;
+                }
+            }
+        }
+        return ids;
+    }
+
+    @Benchmark
+    public List<Long> index() {
+        return searchIndex.search(query, 0, PAGE);
+    }
+
+    private static boolean contains(String field, String needle) {
+        return field != null && field.toLowerCase(Locale.ROOT).contains(needle);
+    }
+}
@@ -0,0 +1,144 @@
+package com.greenfox.dramacsoport.petclinicbackend.benchmarks;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.ClinicDTO;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.PetDTO;
+import com.greenfox.dramacsoport.petclinicbackend.mappers.ClinicMapper;
+import com.greenfox.dramacsoport.petclinicbackend.mappers.ClinicMapperImpl;
+import com.greenfox.dramacsoport.petclinicbackend.mappers.PetMapper;
+import com.greenfox.dramacsoport.petclinicbackend.mappers.PetMapperImpl;
+import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
+import com.greenfox.dramacsoport.petclinicbackend.models.Clinic;
+import com.greenfox.dramacsoport.petclinicbackend.models.Pet;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.ClinicRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.PetRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>Reading 10 000 rows as managed entities and mapping them, against reading DTO projections.</h2>
+ * <ul>
+ *     <li>entities*: the repository loads entities (with snapshots for dirty checking, and an owner proxy for
+ *     every pet), then the mapper copies them into DTOs, like the read endpoints did before</li>
+ *     <li>projection*: the constructor expression queries the endpoints use now</li>
+ * </ul>
+ * The repositories run on an in-memory H2 database, without a Spring context. The persistence context is cleared
+ * after every call, like at the end of a request. The gc profiler, enabled in build.gradle, reports the bytes
+ * allocated per call as gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReadProjectionBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    private static final String OWNER_EMAIL = "shelter@example.com";
+
+    private final PetMapper petMapper = new PetMapperImpl();
+    private final ClinicMapper clinicMapper = new ClinicMapperImpl();
+
+    private LocalContainerEntityManagerFactoryBean entityManagerFactoryBean;
+    private EntityManager entityManager;
+    private PetRepository petRepository;
+    private ClinicRepository clinicRepository;
+    private Long ownerId;
+
+    @Setup
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:projection;DB_CLOSE_DELAY=-1");
+        Properties jpaProperties = new Properties();
+        jpaProperties.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+        jpaProperties.setProperty("hibernate.physical_naming_strategy",
+                "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy");
+        entityManagerFactoryBean = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactoryBean.setDataSource(dataSource);
+        entityManagerFactoryBean.setPackagesToScan("com.greenfox.dramacsoport.petclinicbackend.models");
+        entityManagerFactoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        entityManagerFactoryBean.setJpaProperties(jpaProperties);
+        entityManagerFactoryBean.afterPropertiesSet();
+
+        EntityManagerFactory entityManagerFactory = entityManagerFactoryBean.getObject();
+        entityManager = entityManagerFactory.createEntityManager();
+        JpaRepositoryFactory repositoryFactory = new JpaRepositoryFactory(entityManager);
+        petRepository = repositoryFactory.getRepository(PetRepository.class);
+        clinicRepository = repositoryFactory.getRepository(ClinicRepository.class);
+
+        entityManager.getTransaction().begin();
+        AppUser owner = AppUser.builder()
+                .email(OWNER_EMAIL)
+                .displayName("shelter")
+                .password("password")
+                .build();
+        entityManager.persist(owner);
+        ownerId = owner.getId();
+        for (int i = 0; i < ROWS; i++) {
+            entityManager.persist(new Pet(null, "Pet" + i, "dog", "Female", LocalDate.of(2020, 1, 1),
+                    LocalDate.of(2024, 1, 1), LocalDate.now().plusYears(1), null, owner));
+            entityManager.persist(new Clinic(null, "Clinic " + i, i + " Main Street", null, null));
+            if (i % 500 == 0) {
+                entityManager.flush();
+                entityManager.clear();
+                owner = entityManager.getReference(AppUser.class, ownerId);
+            }
+        }
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManager.close();
+        entityManagerFactoryBean.destroy();
+    }
+
+    @Benchmark
+    public List<PetDTO> entitiesPets() {
+        try {
+            return petRepository.findAllByOwnerId(ownerId).stream()
+                    .map(petMapper::toDto)
+                    .toList();
+        } finally {
+            entityManager.clear();
+        }
+    }
+
+    @Benchmark
+    public List<PetDTO> projectionPets() {
+        try {
+            return petRepository.findPetPageByOwnerEmail(OWNER_EMAIL, 0L, Limit.of(ROWS));
+        } finally {
+            entityManager.clear();
+        }
+    }
+
+    @Benchmark
+    public List<ClinicDTO> entitiesClinics() {
+        try {
+            return clinicRepository.findAll().stream()
+                    .map(clinicMapper::toDto)
+                    .toList();
+        } finally {
+            entityManager.clear();
+        }
+    }
+
+    @Benchmark
+    public List<ClinicDTO> projectionClinics() {
+        try {
+            return clinicRepository.findAllClinicDTOs();
+        } finally {
+            entityManager.clear();
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.greenfox.dramacsoport.petclinicbackend.config;
 import com.greenfox.dramacsoport.petclinicbackend.dtos.ErrorResponse;
 import com.greenfox.dramacsoport.petclinicbackend.exceptions.*;
 import jakarta.validation.ValidationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -37,6 +38,14 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
     }
 
+    // the jakarta ValidationException imported above shadows the one of this project, hence the full name
+    @ExceptionHandler(com.greenfox.dramacsoport.petclinicbackend.exceptions.ValidationException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidRequest(
+            com.greenfox.dramacsoport.petclinicbackend.exceptions.ValidationException ex) {
+        ErrorResponse errorResponse = new ErrorResponse("Invalid Request", ex.getMessage());
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(InvalidPasswordException.class)
     public ResponseEntity<ErrorResponse> handleInvalidPasswordException(InvalidPasswordException ex) {
         ErrorResponse errorResponse = new ErrorResponse("Invalid Password", ex.getMessage());
@@ -57,12 +66,36 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.FORBIDDEN);
     }
 
+    @ExceptionHandler(TooManyLoginAttemptsException.class)
+    public ResponseEntity<ErrorResponse> handleTooManyLoginAttempts(TooManyLoginAttemptsException ex) {
+        ErrorResponse errorResponse = new ErrorResponse("Too Many Requests", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(errorResponse);
+    }
+
+    @ExceptionHandler(InvalidRefreshTokenException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidRefreshToken(InvalidRefreshTokenException ex) {
+        ErrorResponse errorResponse = new ErrorResponse("Invalid Refresh Token", ex.getMessage());
+        return new ResponseEntity<>(errorResponse, HttpStatus.FORBIDDEN);
+    }
+
     @ExceptionHandler(UnauthorizedActionException.class)
     public ResponseEntity<ErrorResponse> handleUnauthorizedAction(UnauthorizedActionException ex) {
         ErrorResponse errorResponse = new ErrorResponse("Unauthorized", ex.getMessage());
         return new ResponseEntity<>(errorResponse, HttpStatus.FORBIDDEN);
     }
 
+    //Capacity exceptions
+
+    @ExceptionHandler(HashingCapacityExceededException.class)
+    public ResponseEntity<ErrorResponse> handleHashingCapacityExceeded(HashingCapacityExceededException ex) {
+        ErrorResponse errorResponse = new ErrorResponse("Service Unavailable", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(errorResponse);
+    }
+
     //Database exceptions
 
     @ExceptionHandler(UsernameNotFoundException.class)
@@ -77,6 +110,18 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(ResourceNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleResourceNotFound(ResourceNotFoundException ex) {
+        ErrorResponse errorResponse = new ErrorResponse("Not Found", ex.getMessage());
+        return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(SlotAlreadyBookedException.class)
+    public ResponseEntity<ErrorResponse> handleSlotAlreadyBooked(SlotAlreadyBookedException ex) {
+        ErrorResponse errorResponse = new ErrorResponse("Slot Already Booked", ex.getMessage());
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(DeletionException.class)
     public ResponseEntity<ErrorResponse> handleDeletionError(DeletionException ex) {
         ErrorResponse errorResponse = new ErrorResponse("Deletion Error", ex.getMessage());
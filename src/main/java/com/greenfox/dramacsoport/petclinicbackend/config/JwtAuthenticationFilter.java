@@ -1,15 +1,22 @@
 package com.greenfox.dramacsoport.petclinicbackend.config;
 
 import com.greenfox.dramacsoport.petclinicbackend.errors.AppServiceErrors;
+import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
 import com.greenfox.dramacsoport.petclinicbackend.repositories.AppUserRepository;
 import com.greenfox.dramacsoport.petclinicbackend.services.JwtService;
+import com.greenfox.dramacsoport.petclinicbackend.services.token.TokenRevocationService;
+import com.greenfox.dramacsoport.petclinicbackend.services.token.TokenVersionRegistry;
+import com.greenfox.dramacsoport.petclinicbackend.services.token.VerifiedToken;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -18,6 +25,9 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Configuration
 @RequiredArgsConstructor
@@ -27,6 +37,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final AppUserRepository appUserRepository;
 
+    private final TokenVersionRegistry tokenVersionRegistry;
+
+    private final TokenRevocationService tokenRevocationService;
+
+    /**
+     * When enabled, the user is authenticated straight from the claims of the verified token, without loading
+     * the user from the database. Only the token version of the user is checked (see TokenVersionRegistry).
+     */
+    @Value("${jwt.stateless-auth.enabled:false}")
+    private boolean statelessAuth;
+
     UserDetailsService userDetailsService() {
         return (username) -> appUserRepository.findByEmail(username).orElseThrow(() -> new UsernameNotFoundException(AppServiceErrors.USERNAME_NOT_FOUND + username));
     }
@@ -42,25 +63,60 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
-        //Remove the Bearer prefix, validate the token and check if the user is authenticated
+        //Remove the Bearer prefix, verify the token once, check that it is not revoked and that the user is not authenticated yet
         String jwt = authHeader.substring(bearer.length());
-        if (!jwtService.isTokenValid(jwt) || SecurityContextHolder.getContext().getAuthentication() != null) {
+        Optional<VerifiedToken> verifiedToken = jwtService.verify(jwt)
+                .filter(token -> !tokenRevocationService.isRevoked(token));
+        if (verifiedToken.isEmpty() || SecurityContextHolder.getContext().getAuthentication() != null) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        // Extract the username from the token and load the user details
-        String username = jwtService.extractUsername(jwt);
-        UserDetails userDetails = userDetailsService().loadUserByUsername(username);
+        // Take the authorities from the token (stateless mode) or from the user details in the database
+        VerifiedToken token = verifiedToken.get();
+        Collection<? extends GrantedAuthority> authorities = statelessAuth
+                ? authoritiesFromClaims(token)
+                : authoritiesFromDatabase(token);
+        if (authorities == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
 
-        // Set user details into the security context, and authenticate the user
+        // Set the verified token into the security context, and authenticate the user
         UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-                username,
-                userDetails.getPassword(),
-                userDetails.getAuthorities()
+                token.username(),
+                token,
+                authorities
         );
         authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
         SecurityContextHolder.getContext().setAuthentication(authenticationToken);
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * @return the authorities of the user, or <code>null</code> if the token was issued before its last
+     * password or role change
+     */
+    private Collection<? extends GrantedAuthority> authoritiesFromDatabase(VerifiedToken token) {
+        UserDetails userDetails = userDetailsService().loadUserByUsername(token.username());
+        if (userDetails instanceof AppUser appUser && appUser.getTokenVersion() != token.tokenVersion()) {
+            return null;
+        }
+        return userDetails.getAuthorities();
+    }
+
+    /**
+     * @return the authority stored in the token, or <code>null</code> if the token was issued before the last
+     * password or role change of the user
+     */
+    private Collection<? extends GrantedAuthority> authoritiesFromClaims(VerifiedToken token) {
+        if (token.username() == null || !tokenVersionRegistry.isCurrent(token.userId(), token.tokenVersion())) {
+            return null;
+        }
+        try {
+            return List.of(new SimpleGrantedAuthority("ROLE_" + token.role()));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
 }
@@ -2,7 +2,10 @@ package com.greenfox.dramacsoport.petclinicbackend.config;
 
 import com.greenfox.dramacsoport.petclinicbackend.errors.AppServiceErrors;
 import com.greenfox.dramacsoport.petclinicbackend.repositories.AppUserRepository;
+import com.greenfox.dramacsoport.petclinicbackend.services.password.BulkheadPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -24,6 +27,7 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 
@@ -38,6 +42,17 @@ public class SecurityConfig implements WebMvcConfigurer {
 
     private final AppUserRepository appUserRepository;
 
+    private final MeterRegistry meterRegistry;
+
+    @Value("${security.password-hashing.threads:0}")
+    private int hashingThreads;
+
+    @Value("${security.password-hashing.queue-capacity:32}")
+    private int hashingQueueCapacity;
+
+    @Value("${security.password-hashing.retry-after:PT1S}")
+    private Duration hashingRetryAfter;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity httpSecurity) throws Exception {
         return httpSecurity
@@ -47,6 +62,7 @@ public class SecurityConfig implements WebMvcConfigurer {
                     registry.requestMatchers("/", "/api/v1/auth/**").permitAll();
                     registry.requestMatchers("/api/v1/admin/**").hasRole("ADMIN");
                     registry.requestMatchers("/api/v1/user/**").hasAnyRole("USER", "ADMIN");
+                    registry.requestMatchers("/api/v1/vet/**").hasAnyRole("VET", "ADMIN");
                     registry.anyRequest().authenticated();
                 })
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
@@ -84,8 +100,12 @@ public class SecurityConfig implements WebMvcConfigurer {
         return new ProviderManager(authenticationProvider());
     }
 
+    /**
+     * BCrypt runs on its own bounded pool, so a login storm cannot occupy every request thread.
+     */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BulkheadPasswordEncoder(new BCryptPasswordEncoder(), hashingThreads, hashingQueueCapacity,
+                hashingRetryAfter, meterRegistry);
     }
 }
@@ -0,0 +1,63 @@
+package com.greenfox.dramacsoport.petclinicbackend.controllers;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.BookAppointmentRequest;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.RescheduleAppointmentRequest;
+import com.greenfox.dramacsoport.petclinicbackend.services.appointments.AppointmentService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+import java.time.LocalDate;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("api/v1/user")
+public class AppointmentController {
+
+    private final AppointmentService appointmentService;
+    private final Logger logger = LoggerFactory.getLogger(AppointmentController.class);
+
+    @GetMapping("/clinics/{clinicId}/slots")
+    public ResponseEntity<?> getAvailableSlots(@PathVariable Long clinicId,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                                               LocalDate date) {
+        return new ResponseEntity<>(appointmentService.getAvailableSlots(clinicId, date), HttpStatus.OK);
+    }
+
+    @GetMapping("/clinics/{clinicId}/first-free-slot")
+    public ResponseEntity<?> getFirstFreeSlot(@PathVariable Long clinicId, @RequestParam(required = false) Integer days) {
+        return new ResponseEntity<>(appointmentService.findFirstFreeSlot(clinicId, days), HttpStatus.OK);
+    }
+
+    @GetMapping("/appointments")
+    public ResponseEntity<?> getAppointments(Principal user) {
+        logger.info("Getting appointments for user: {}", user.getName());
+        return new ResponseEntity<>(appointmentService.getUserAppointments(user.getName()), HttpStatus.OK);
+    }
+
+    @PostMapping("/appointment")
+    public ResponseEntity<?> bookAppointment(Principal user, @Valid @RequestBody BookAppointmentRequest request) {
+        logger.info("Booking vet {} at {} for user: {}", request.vetId(), request.startsAt(), user.getName());
+        return new ResponseEntity<>(appointmentService.bookAppointment(user.getName(), request), HttpStatus.OK);
+    }
+
+    @PatchMapping("/appointment/{id}")
+    public ResponseEntity<?> rescheduleAppointment(Principal user, @PathVariable Long id,
+                                                   @Valid @RequestBody RescheduleAppointmentRequest request) {
+        logger.info("Moving appointment {} to {}", id, request.startsAt());
+        return new ResponseEntity<>(appointmentService.rescheduleAppointment(user.getName(), id, request),
+                HttpStatus.OK);
+    }
+
+    @DeleteMapping("/appointment/{id}")
+    public ResponseEntity<?> cancelAppointment(Principal user, @PathVariable Long id) {
+        logger.info("Cancelling appointment {}", id);
+        return new ResponseEntity<>(appointmentService.cancelAppointment(user.getName(), id), HttpStatus.OK);
+    }
+}
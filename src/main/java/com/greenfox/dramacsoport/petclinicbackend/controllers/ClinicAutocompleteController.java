@@ -0,0 +1,27 @@
+package com.greenfox.dramacsoport.petclinicbackend.controllers;
+
+import com.greenfox.dramacsoport.petclinicbackend.services.clinics.ClinicService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Called on every keystroke, so it does not log the requests.
+ */
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("api/v1/user")
+public class ClinicAutocompleteController {
+
+    private final ClinicService clinicService;
+
+    @GetMapping("/clinics/autocomplete")
+    public ResponseEntity<?> autocompleteClinics(@RequestParam String query,
+                                                 @RequestParam(required = false) Integer limit) {
+        return new ResponseEntity<>(clinicService.suggestClinics(query, limit), HttpStatus.OK);
+    }
+}
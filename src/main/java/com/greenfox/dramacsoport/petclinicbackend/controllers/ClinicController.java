@@ -3,12 +3,15 @@ package com.greenfox.dramacsoport.petclinicbackend.controllers;
 import com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.ClinicDTO;
 import com.greenfox.dramacsoport.petclinicbackend.exceptions.DeletionException;
 import com.greenfox.dramacsoport.petclinicbackend.services.clinics.ClinicService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.naming.NameAlreadyBoundException;
 import java.security.Principal;
@@ -21,14 +24,28 @@ public class ClinicController {
     private final ClinicService clinicService;
     private final Logger logger = LoggerFactory.getLogger(PetController.class);
 
+    /**
+     * The body is sent as the cached JSON bytes, Jackson is not involved.
+     */
     @GetMapping("/clinics")
-    public ResponseEntity<?> getClinics(Principal user){
+    public ResponseEntity<?> getClinics(Principal user,
+                                        @RequestParam(required = false) Integer page,
+                                        @RequestParam(required = false) Integer size,
+                                        @RequestParam(required = false) String sort,
+                                        WebRequest request){
         logger.info("Getting clinics list for admin: {}", user.getName());
-        return new ResponseEntity<>(clinicService.getClinics(user.getName()), HttpStatus.OK);
+        String eTag = clinicService.getClinicsETag(page, size, sort);
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(clinicService.getClinicsJson(page, size, sort));
     }
 
     @PostMapping("/clinic")
-    public ResponseEntity<?> addClinic(Principal user, @RequestBody ClinicDTO clinicDTO) throws NameAlreadyBoundException {
+    public ResponseEntity<?> addClinic(Principal user, @Valid @RequestBody ClinicDTO clinicDTO) throws NameAlreadyBoundException {
         logger.info("Adding new clinic: {}", clinicDTO.getName());
         return new ResponseEntity<>(clinicService.addClinic(user.getName(), clinicDTO), HttpStatus.OK);
     }
@@ -39,5 +56,11 @@ public class ClinicController {
         return new ResponseEntity<>(clinicService.deleteClinic(id), HttpStatus.OK);
     }
 
+    @PutMapping("/clinic/{clinicId}/vet/{vetId}")
+    public ResponseEntity<?> assignVet(@PathVariable Long clinicId, @PathVariable Long vetId) {
+        logger.info("Assigning vet {} to clinic {}", vetId, clinicId);
+        return new ResponseEntity<>(clinicService.assignVet(clinicId, vetId), HttpStatus.OK);
+    }
+
 
 }
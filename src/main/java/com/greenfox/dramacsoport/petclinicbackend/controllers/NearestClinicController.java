@@ -0,0 +1,34 @@
+package com.greenfox.dramacsoport.petclinicbackend.controllers;
+
+import com.greenfox.dramacsoport.petclinicbackend.services.clinics.ClinicService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.security.Principal;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("api/v1/user")
+public class NearestClinicController {
+
+    private final ClinicService clinicService;
+    private final Logger logger = LoggerFactory.getLogger(NearestClinicController.class);
+
+    @GetMapping("/clinics/nearest")
+    public ResponseEntity<?> getNearestClinics(Principal user,
+                                               @RequestParam double latitude,
+                                               @RequestParam double longitude,
+                                               @RequestParam(required = false) Integer count,
+                                               @RequestParam(required = false) Double radiusKm) {
+        logger.info("Getting nearest clinics for user: {}", user.getName());
+        return new ResponseEntity<>(clinicService.findNearestClinics(latitude, longitude, count, radiusKm),
+                HttpStatus.OK);
+    }
+}
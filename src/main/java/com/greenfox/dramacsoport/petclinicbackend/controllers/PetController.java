@@ -1,6 +1,7 @@
 package com.greenfox.dramacsoport.petclinicbackend.controllers;
 
 import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.PetDTO;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.bulk.SavePetsRequest;
 import com.greenfox.dramacsoport.petclinicbackend.services.petHandling.PetService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -9,6 +10,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.security.Principal;
 
@@ -21,9 +23,16 @@ public class PetController {
     private final Logger logger = LoggerFactory.getLogger(PetController.class);
 
     @GetMapping("/pets")
-    public ResponseEntity<?> getPets(Principal user) {
+    public ResponseEntity<?> getPets(Principal user,
+                                     @RequestParam(required = false) Integer pageSize,
+                                     @RequestParam(required = false) String pageToken,
+                                     WebRequest request) {
         logger.info("Getting pets for user: {}", user.getName());
-        return new ResponseEntity<>(petService.getUserPets(user.getName()), HttpStatus.OK);
+        String eTag = petService.getUserPetsETag(user.getName(), pageSize, pageToken);
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(petService.getUserPets(user.getName(), pageSize, pageToken));
     }
 
     @PostMapping("/pet")
@@ -31,6 +40,12 @@ public class PetController {
         return new ResponseEntity<>(petService.addPet(user.getName(), petDTO), HttpStatus.OK);
     }
 
+    @PostMapping("/pets")
+    public ResponseEntity<?> savePets(Principal user, @Valid @RequestBody SavePetsRequest request) {
+        logger.info("Saving {} pets for user: {}", request.pets().size(), user.getName());
+        return new ResponseEntity<>(petService.savePets(user.getName(), request.pets()), HttpStatus.OK);
+    }
+
     @PatchMapping({"/pet/update"})
     public ResponseEntity<?> editPetData(Principal user, @Valid @RequestBody PetDTO petDTO) {
         logger.info("Updating data for pet: {}", petDTO.getPetName());
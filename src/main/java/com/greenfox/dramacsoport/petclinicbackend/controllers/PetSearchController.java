@@ -0,0 +1,32 @@
+package com.greenfox.dramacsoport.petclinicbackend.controllers;
+
+import com.greenfox.dramacsoport.petclinicbackend.services.petHandling.PetService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.security.Principal;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("api/v1/vet")
+public class PetSearchController {
+
+    private final PetService petService;
+    private final Logger logger = LoggerFactory.getLogger(PetSearchController.class);
+
+    @GetMapping("/pets/search")
+    public ResponseEntity<?> searchPets(Principal user,
+                                        @RequestParam(required = false) String query,
+                                        @RequestParam(required = false) Integer pageSize,
+                                        @RequestParam(required = false) String pageToken) {
+        logger.info("Searching pets for: {}", user.getName());
+        return new ResponseEntity<>(petService.searchPets(query, pageSize, pageToken), HttpStatus.OK);
+    }
+}
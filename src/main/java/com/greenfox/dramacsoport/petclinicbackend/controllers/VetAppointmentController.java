@@ -0,0 +1,37 @@
+package com.greenfox.dramacsoport.petclinicbackend.controllers;
+
+import com.greenfox.dramacsoport.petclinicbackend.services.appointments.AppointmentService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.security.Principal;
+import java.time.LocalDate;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("api/v1/vet")
+public class VetAppointmentController {
+
+    private final AppointmentService appointmentService;
+    private final Logger logger = LoggerFactory.getLogger(VetAppointmentController.class);
+
+    /**
+     * The appointments of the logged-in vet, of today if no date is given.
+     */
+    @GetMapping("/appointments")
+    public ResponseEntity<?> getAppointments(Principal user,
+                                             @RequestParam(required = false)
+                                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        logger.info("Getting appointments for vet: {}", user.getName());
+        return new ResponseEntity<>(appointmentService.getVetAppointments(user.getName(),
+                date == null ? LocalDate.now() : date), HttpStatus.OK);
+    }
+}
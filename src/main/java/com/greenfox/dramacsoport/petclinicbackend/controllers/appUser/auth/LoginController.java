@@ -1,7 +1,10 @@
 package com.greenfox.dramacsoport.petclinicbackend.controllers.appUser.auth;
 
 import com.greenfox.dramacsoport.petclinicbackend.dtos.user.login.LoginRequestDTO;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.user.refresh.RefreshTokenRequestDTO;
 import com.greenfox.dramacsoport.petclinicbackend.services.appUser.auth.AuthService;
+import com.greenfox.dramacsoport.petclinicbackend.services.ratelimit.LoginRateLimiter;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -19,11 +22,19 @@ import org.springframework.web.bind.annotation.RestController;
 public class LoginController {
 
     private final AuthService authService;
+    private final LoginRateLimiter loginRateLimiter;
     private final Logger logger = LoggerFactory.getLogger(LoginController.class);
 
     @PostMapping("/login")
-    public ResponseEntity<?> loginUser(@Valid @RequestBody LoginRequestDTO requestDTO) {
+    public ResponseEntity<?> loginUser(@Valid @RequestBody LoginRequestDTO requestDTO, HttpServletRequest request) {
+        loginRateLimiter.acquire(requestDTO.email(), request.getRemoteAddr());
         logger.info("Login request successful: {}", requestDTO.email());
         return new ResponseEntity<>(authService.login(requestDTO), HttpStatus.OK);
     }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refreshToken(@Valid @RequestBody RefreshTokenRequestDTO requestDTO) {
+        logger.info("Refresh token request");
+        return new ResponseEntity<>(authService.refresh(requestDTO), HttpStatus.OK);
+    }
 }
\ No newline at end of file
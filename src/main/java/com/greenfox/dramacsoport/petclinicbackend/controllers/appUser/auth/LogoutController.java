@@ -0,0 +1,28 @@
+package com.greenfox.dramacsoport.petclinicbackend.controllers.appUser.auth;
+
+import com.greenfox.dramacsoport.petclinicbackend.services.appUser.auth.AuthService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("api/v1/auth")
+public class LogoutController {
+
+    private final AuthService authService;
+
+    private final Logger logger = LoggerFactory.getLogger(LogoutController.class);
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logoutUser() {
+        authService.logout();
+        logger.info("Logout request successful");
+        return new ResponseEntity<>("User logged out", HttpStatus.OK);
+    }
+}
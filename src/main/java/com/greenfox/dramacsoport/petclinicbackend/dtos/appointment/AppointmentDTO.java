@@ -0,0 +1,9 @@
+package com.greenfox.dramacsoport.petclinicbackend.dtos.appointment;
+
+import com.greenfox.dramacsoport.petclinicbackend.models.AppointmentStatus;
+
+import java.time.LocalDateTime;
+
+public record AppointmentDTO(Long id, Long clinicId, String clinicName, Long vetId, String vetName, Long petId,
+                             String petName, LocalDateTime startsAt, AppointmentStatus status) {
+}
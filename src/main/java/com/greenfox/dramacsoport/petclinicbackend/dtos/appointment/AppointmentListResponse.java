@@ -0,0 +1,9 @@
+package com.greenfox.dramacsoport.petclinicbackend.dtos.appointment;
+
+import java.util.List;
+
+/**
+ * Appointments in the order of their start.
+ */
+public record AppointmentListResponse(List<AppointmentDTO> appointments) {
+}
@@ -0,0 +1,19 @@
+package com.greenfox.dramacsoport.petclinicbackend.dtos.appointment;
+
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDateTime;
+
+/**
+ * @param startsAt the start of a free slot of the vet
+ */
+public record BookAppointmentRequest(
+        @NotNull(message = "Pet id field is required.")
+        Long petId,
+        @NotNull(message = "Vet id field is required.")
+        Long vetId,
+        @NotNull(message = "Start field is required.")
+        @Future(message = "Appointment should start in the future.")
+        LocalDateTime startsAt) {
+}
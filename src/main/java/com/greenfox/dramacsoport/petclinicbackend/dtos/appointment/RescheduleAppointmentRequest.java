@@ -0,0 +1,17 @@
+package com.greenfox.dramacsoport.petclinicbackend.dtos.appointment;
+
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDateTime;
+
+/**
+ * @param vetId    another vet of the same clinic, the current vet if <code>null</code>
+ * @param startsAt the start of a free slot of the vet
+ */
+public record RescheduleAppointmentRequest(
+        Long vetId,
+        @NotNull(message = "Start field is required.")
+        @Future(message = "Appointment should start in the future.")
+        LocalDateTime startsAt) {
+}
@@ -0,0 +1,4 @@
+package com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.cancel;
+
+public record CancelAppointmentResponse(String message) {
+}
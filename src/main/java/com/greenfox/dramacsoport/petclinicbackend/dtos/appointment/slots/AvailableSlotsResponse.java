@@ -0,0 +1,7 @@
+package com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.slots;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record AvailableSlotsResponse(Long clinicId, LocalDate date, List<VetSlotsDTO> vets) {
+}
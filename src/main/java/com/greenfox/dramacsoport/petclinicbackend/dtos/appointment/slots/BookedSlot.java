@@ -0,0 +1,9 @@
+package com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.slots;
+
+import java.time.LocalDateTime;
+
+/**
+ * A slot of a vet taken by a booked appointment.
+ */
+public record BookedSlot(Long vetId, LocalDateTime startsAt) {
+}
@@ -0,0 +1,10 @@
+package com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.slots;
+
+import java.time.LocalDateTime;
+
+/**
+ * The earliest free slot at any vet of the clinic. The vet and the start are <code>null</code> if every slot
+ * of the searched days is taken.
+ */
+public record FirstFreeSlotResponse(Long clinicId, Long vetId, String vetName, LocalDateTime startsAt) {
+}
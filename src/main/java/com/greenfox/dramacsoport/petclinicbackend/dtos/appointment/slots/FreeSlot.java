@@ -0,0 +1,6 @@
+package com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.slots;
+
+import java.time.LocalDateTime;
+
+public record FreeSlot(Long vetId, LocalDateTime startsAt) {
+}
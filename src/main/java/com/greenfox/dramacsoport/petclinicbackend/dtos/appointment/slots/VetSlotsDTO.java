@@ -0,0 +1,10 @@
+package com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.slots;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The free slots of one vet, earliest first.
+ */
+public record VetSlotsDTO(Long vetId, String vetName, List<LocalDateTime> freeSlots) {
+}
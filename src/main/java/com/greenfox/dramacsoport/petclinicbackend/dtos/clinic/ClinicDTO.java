@@ -1,10 +1,24 @@
 package com.greenfox.dramacsoport.petclinicbackend.dtos.clinic;
 
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class ClinicDTO {
     private Long id;
     private String name;
     private String address;
+
+    @DecimalMin(value = "-90", message = "Latitude must be between -90 and 90.")
+    @DecimalMax(value = "90", message = "Latitude must be between -90 and 90.")
+    private Double latitude;
+
+    @DecimalMin(value = "-180", message = "Longitude must be between -180 and 180.")
+    @DecimalMax(value = "180", message = "Longitude must be between -180 and 180.")
+    private Double longitude;
 }
@@ -12,4 +12,15 @@ import java.util.List;
 @Data
 public class ClinicListResponse {
     private List<ClinicDTO> clinics;
+
+    /**
+     * Number of the page, starting from 0.
+     */
+    private int page;
+
+    private int size;
+
+    private long totalClinics;
+
+    private int totalPages;
 }
@@ -0,0 +1,7 @@
+package com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.autocomplete;
+
+/**
+ * A clinic offered while the user types its name or address.
+ */
+public record ClinicSuggestionDTO(Long id, String name, String address) {
+}
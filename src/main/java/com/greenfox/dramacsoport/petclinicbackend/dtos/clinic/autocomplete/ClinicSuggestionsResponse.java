@@ -0,0 +1,9 @@
+package com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.autocomplete;
+
+import java.util.List;
+
+/**
+ * The clinics matching the typed prefix, best first.
+ */
+public record ClinicSuggestionsResponse(List<ClinicSuggestionDTO> clinics) {
+}
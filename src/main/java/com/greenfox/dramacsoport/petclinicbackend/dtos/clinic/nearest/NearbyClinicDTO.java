@@ -0,0 +1,8 @@
+package com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.nearest;
+
+/**
+ * A clinic with its great-circle distance from the searched location.
+ */
+public record NearbyClinicDTO(Long id, String name, String address, Double latitude, Double longitude,
+                              double distanceKm) {
+}
@@ -0,0 +1,9 @@
+package com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.nearest;
+
+import java.util.List;
+
+/**
+ * The nearest clinics, closest first.
+ */
+public record NearestClinicsResponse(List<NearbyClinicDTO> clinics) {
+}
@@ -9,4 +9,9 @@ import java.util.List;
 @Data
 public class PetListResponse {
     private List<PetDTO> pets;
+
+    /**
+     * Pass it back as <code>pageToken</code> to get the next page. <code>null</code> on the last page.
+     */
+    private String nextPageToken;
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.greenfox.dramacsoport.petclinicbackend.dtos.pet;
+
+/**
+ * Version of an owner's pet list, read without touching the pet table.
+ */
+public record PetListVersion(Long ownerId, long version) {
+}
@@ -0,0 +1,21 @@
+package com.greenfox.dramacsoport.petclinicbackend.dtos.pet.bulk;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.PetDTO;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Pets to save in one request. A pet without id is created, a pet with id updates the user's existing pet.
+ */
+public record SavePetsRequest(
+        @NotEmpty(message = "Pets field is required.")
+        @Size(max = SavePetsRequest.MAX_PETS,
+                message = "At most " + SavePetsRequest.MAX_PETS + " pets can be saved at once.")
+        List<@NotNull @Valid PetDTO> pets) {
+
+    public static final int MAX_PETS = 5000;
+}
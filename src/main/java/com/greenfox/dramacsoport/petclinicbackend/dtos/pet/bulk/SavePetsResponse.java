@@ -0,0 +1,11 @@
+package com.greenfox.dramacsoport.petclinicbackend.dtos.pet.bulk;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.PetDTO;
+
+import java.util.List;
+
+/**
+ * The saved pets, with their ids, in the order of the request.
+ */
+public record SavePetsResponse(List<PetDTO> pets) {
+}
@@ -0,0 +1,10 @@
+package com.greenfox.dramacsoport.petclinicbackend.dtos.pet.reminder;
+
+import java.time.LocalDate;
+
+/**
+ * A pet with an upcoming check-up, together with the owner to remind.
+ */
+public record DueCheckUp(Long ownerId, String ownerEmail, String ownerDisplayName,
+                         Long petId, String petName, LocalDate nextCheckUp) {
+}
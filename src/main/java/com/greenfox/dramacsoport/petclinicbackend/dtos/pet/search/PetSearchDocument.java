@@ -0,0 +1,7 @@
+package com.greenfox.dramacsoport.petclinicbackend.dtos.pet.search;
+
+/**
+ * The searchable fields of a pet.
+ */
+public record PetSearchDocument(Long id, String petName, String petBreed, String specialCondition) {
+}
@@ -0,0 +1,23 @@
+package com.greenfox.dramacsoport.petclinicbackend.dtos.user.login;
+
+import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
+import com.greenfox.dramacsoport.petclinicbackend.models.Role;
+
+/**
+ * Projection of the user columns needed to check a password and to issue tokens.
+ * Loaded in a single query at login, without the lazy collections of {@link AppUser}.
+ * Contains the password hash, so it must never be sent to the client.
+ */
+public record LoginCredentials(
+        Long id,
+        String email,
+        String password,
+        String displayName,
+        Role role,
+        int tokenVersion) {
+
+    public static LoginCredentials from(AppUser user) {
+        return new LoginCredentials(user.getId(), user.getEmail(), user.getPassword(), user.getDisplayName(),
+                user.getRole(), user.getTokenVersion());
+    }
+}
@@ -1,4 +1,4 @@
 package com.greenfox.dramacsoport.petclinicbackend.dtos.user.login;
 
-public record LoginResponseDTO(String token) {
+public record LoginResponseDTO(String token, String refreshToken) {
 }
@@ -0,0 +1,8 @@
+package com.greenfox.dramacsoport.petclinicbackend.dtos.user.refresh;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record RefreshTokenRequestDTO(
+        @NotBlank(message = "Refresh token field is required.")
+        String refreshToken) {
+}
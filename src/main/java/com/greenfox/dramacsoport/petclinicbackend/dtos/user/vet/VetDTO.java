@@ -0,0 +1,7 @@
+package com.greenfox.dramacsoport.petclinicbackend.dtos.user.vet;
+
+/**
+ * A vet as shown to the owners: no email, no role.
+ */
+public record VetDTO(Long id, String displayName, Long clinicId) {
+}
@@ -5,12 +5,40 @@ public class AppServiceErrors {
     // Validation errors
     public static final String EMAIL_FIELD_NOT_VALID = "Email field is not a valid email address";
     public static final String SHORT_PASSWORD = "Password must be longer than 3 characters.";
+    public static final String INVALID_PAGE_SIZE = "Page size must be at least 1.";
+    public static final String INVALID_PAGE_TOKEN = "Page token is not valid.";
+    public static final String INVALID_PAGE_NUMBER = "Page number must not be negative.";
+    public static final String INVALID_COORDINATES = "Latitude must be between -90 and 90, longitude between -180 and 180.";
+    public static final String INVALID_NEAREST_COUNT = "The number of clinics must be at least 1.";
+    public static final String INVALID_RADIUS = "Radius must be a positive number of kilometres.";
+    public static final String INVALID_CLINIC_SORT = "Clinics can only be sorted by id, name or address, asc or desc (e.g. name,desc).";
+    public static final String SEARCH_QUERY_TOO_SHORT = "Search query must be at least 3 characters long.";
+    public static final String AUTOCOMPLETE_QUERY_EMPTY = "Query must contain at least one letter or digit.";
+    public static final String INVALID_SUGGESTION_LIMIT = "The number of suggestions must be at least 1.";
+    public static final String INVALID_APPOINTMENT_SLOT = "Appointments start at the beginning of a slot, within the opening hours.";
+    public static final String APPOINTMENT_IN_THE_PAST = "Appointments can only be booked for slots that have not started yet.";
+    public static final String APPOINTMENT_TOO_FAR_AHEAD = "Appointments cannot be booked that far ahead.";
+    public static final String INVALID_APPOINTMENT_DAY = "Day must be between today and the last bookable day.";
+    public static final String INVALID_SEARCH_DAYS = "The number of days searched must be at least 1.";
+    public static final String APPOINTMENT_NOT_CHANGEABLE = "Cancelled and past appointments cannot be changed.";
+    public static final String VET_WITHOUT_CLINIC = "The vet does not work at a clinic, so it cannot be booked.";
+    public static final String VET_NOT_AT_CLINIC = "The vet does not work at the clinic of the appointment.";
 
     // Authentication errors
     public static final String AUTHENTICATION_FAILED_BAD_CREDENTIALS = "Authentication failed! Bad credentials.";
     public static final String INCORRECT_PASSWORD = "Incorrect password!";
+    public static final String TOO_MANY_LOGIN_ATTEMPTS = "Too many login attempts. Please try again later.";
+    public static final String INVALID_REFRESH_TOKEN = "Refresh token is invalid, expired or already used. Please log in again.";
+
+    // Capacity errors
+    public static final String HASHING_CAPACITY_EXCEEDED = "The server is busy processing credentials. Please try again shortly.";
 
     // Database errors
+    public static final String SLOT_ALREADY_BOOKED = "This slot of the vet has just been booked. Please choose another one.";
+    public static final String CLINIC_NOT_FOUND = "Clinic cannot be found with this id: ";
+    public static final String VET_NOT_FOUND = "Vet cannot be found with this id: ";
+    public static final String PET_NOT_FOUND = "Pet cannot be found with this id: ";
+    public static final String APPOINTMENT_NOT_FOUND = "Appointment cannot be found with this id: ";
     public static final String USERNAME_NOT_FOUND = "User cannot be found with this email: ";
     public static final String USERNAME_ALREADY_EXISTS = "Another user already exists by this email.";
     public static final String CLINIC_ALREADY_EXISTS = "A clinic already exists with this name.";
@@ -0,0 +1,17 @@
+package com.greenfox.dramacsoport.petclinicbackend.exceptions;
+
+import com.greenfox.dramacsoport.petclinicbackend.errors.AppServiceErrors;
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class HashingCapacityExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public HashingCapacityExceededException(Duration retryAfter) {
+        super(AppServiceErrors.HASHING_CAPACITY_EXCEEDED);
+        this.retryAfter = retryAfter;
+    }
+}
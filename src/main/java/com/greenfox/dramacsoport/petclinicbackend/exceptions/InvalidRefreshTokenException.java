@@ -0,0 +1,9 @@
+package com.greenfox.dramacsoport.petclinicbackend.exceptions;
+
+import com.greenfox.dramacsoport.petclinicbackend.errors.AppServiceErrors;
+
+public class InvalidRefreshTokenException extends RuntimeException {
+    public InvalidRefreshTokenException() {
+        super(AppServiceErrors.INVALID_REFRESH_TOKEN);
+    }
+}
@@ -0,0 +1,12 @@
+package com.greenfox.dramacsoport.petclinicbackend.exceptions;
+
+import com.greenfox.dramacsoport.petclinicbackend.errors.AppServiceErrors;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class SlotAlreadyBookedException extends RuntimeException {
+    public SlotAlreadyBookedException() {
+        super(AppServiceErrors.SLOT_ALREADY_BOOKED);
+    }
+}
@@ -0,0 +1,17 @@
+package com.greenfox.dramacsoport.petclinicbackend.exceptions;
+
+import com.greenfox.dramacsoport.petclinicbackend.errors.AppServiceErrors;
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class TooManyLoginAttemptsException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public TooManyLoginAttemptsException(Duration retryAfter) {
+        super(AppServiceErrors.TOO_MANY_LOGIN_ATTEMPTS);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,35 @@
+package com.greenfox.dramacsoport.petclinicbackend.mappers;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.user.register.RegisterRequestDTO;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.user.update.EditUserRequestDTO;
+import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+
+@Mapper(config = MappingConfig.class)
+public interface AppUserMapper {
+
+    /**
+     * The password is copied as it was typed, the service replaces it with the encoded one before saving.
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "tokenVersion", ignore = true)
+    @Mapping(target = "pets", ignore = true)
+    @Mapping(target = "petListVersion", ignore = true)
+    @Mapping(target = "clinic", ignore = true)
+    AppUser toEntity(RegisterRequestDTO registerRequestDTO);
+
+    /**
+     * Copies the new email and display name onto the user. The password is skipped, the service checks,
+     * encodes and sets it itself.
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "password", ignore = true)
+    @Mapping(target = "role", ignore = true)
+    @Mapping(target = "tokenVersion", ignore = true)
+    @Mapping(target = "pets", ignore = true)
+    @Mapping(target = "petListVersion", ignore = true)
+    @Mapping(target = "clinic", ignore = true)
+    void update(EditUserRequestDTO editUserRequestDTO, @MappingTarget AppUser user);
+}
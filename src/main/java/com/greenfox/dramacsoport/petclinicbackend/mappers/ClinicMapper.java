@@ -0,0 +1,13 @@
+package com.greenfox.dramacsoport.petclinicbackend.mappers;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.ClinicDTO;
+import com.greenfox.dramacsoport.petclinicbackend.models.Clinic;
+import org.mapstruct.Mapper;
+
+@Mapper(config = MappingConfig.class)
+public interface ClinicMapper {
+
+    ClinicDTO toDto(Clinic clinic);
+
+    Clinic toEntity(ClinicDTO clinicDTO);
+}
@@ -0,0 +1,18 @@
+package com.greenfox.dramacsoport.petclinicbackend.mappers;
+
+import org.mapstruct.MapperConfig;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * <h2>Shared settings of the generated mappers.</h2>
+ * <ul>
+ *     <li>The implementations are generated at compile time as Spring beans, so mapping needs no reflection.</li>
+ *     <li>A target property that is neither mapped nor explicitly ignored fails the build, so a new entity
+ *     field cannot be silently left out of a mapping.</li>
+ * </ul>
+ */
+@MapperConfig(componentModel = MappingConstants.ComponentModel.SPRING,
+        unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface MappingConfig {
+}
@@ -0,0 +1,25 @@
+package com.greenfox.dramacsoport.petclinicbackend.mappers;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.PetDTO;
+import com.greenfox.dramacsoport.petclinicbackend.models.Pet;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+
+@Mapper(config = MappingConfig.class)
+public interface PetMapper {
+
+    PetDTO toDto(Pet pet);
+
+    /**
+     * The owner is never taken from the request, the service sets it from the logged-in user.
+     */
+    @Mapping(target = "owner", ignore = true)
+    Pet toEntity(PetDTO petDTO);
+
+    /**
+     * Overwrites every field of the pet with the DTO (empty fields included), except the owner.
+     */
+    @Mapping(target = "owner", ignore = true)
+    void update(PetDTO petDTO, @MappingTarget Pet pet);
+}
@@ -33,6 +33,29 @@ public class AppUser implements UserDetails {
     @Enumerated(EnumType.STRING)
     @Builder.Default
     private Role role = Role.USER;
+
+    /**
+     * Stamped into every issued token. Increasing it (e.g. on a password or role change) makes every token
+     * issued before the change invalid.
+     */
+    @Column(nullable = false)
+    private int tokenVersion;
+
+    /**
+     * Increased with every change of the user's pets, drives the ETag of the pet list.
+     * Only changed by a bulk update (see AppUserRepository), so saving a user loaded earlier can never
+     * write an older value back.
+     */
+    @Column(nullable = false, updatable = false)
+    private long petListVersion;
+
+    /**
+     * The clinic a vet works at, the vet can be booked there. Always <code>null</code> for other roles.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "clinic_id")
+    private Clinic clinic;
+
     @Builder.Default
     @OneToMany(mappedBy = "owner", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Pet> pets = new ArrayList<>();
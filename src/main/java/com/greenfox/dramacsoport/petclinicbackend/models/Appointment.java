@@ -0,0 +1,76 @@
+package com.greenfox.dramacsoport.petclinicbackend.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A visit of a pet at a vet, in one slot of the appointment schedule.
+ */
+@Entity
+@Table(uniqueConstraints = {
+        // a vet can only be booked once per slot, checked by the database for every instance
+        @UniqueConstraint(name = "uk_appointment_vet_active_slot", columnNames = {"vet_id", "activeSlot"})
+}, indexes = {
+        // serves the appointments of a pet's owner (WHERE pet_id IN (...))
+        @Index(name = "idx_appointment_pet_id", columnList = "pet_id")
+})
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class Appointment {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "clinic_id")
+    private Clinic clinic;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "vet_id")
+    private AppUser vet;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "pet_id")
+    private Pet pet;
+
+    @Column(nullable = false)
+    private LocalDateTime startsAt;
+
+    /**
+     * The start of the slot while the appointment is booked, <code>null</code> once it is cancelled. Unique
+     * together with the vet, and unique indexes allow any number of nulls, so cancelled appointments do not
+     * keep the slot taken.
+     */
+    private LocalDateTime activeSlot;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    @Builder.Default
+    private AppointmentStatus status = AppointmentStatus.BOOKED;
+
+    /**
+     * Two concurrent changes of the same appointment (e.g. a cancel and a reschedule) cannot both win.
+     */
+    @Version
+    private long version;
+
+    public void cancel() {
+        status = AppointmentStatus.CANCELLED;
+        activeSlot = null;
+    }
+
+    public void moveTo(AppUser vet, LocalDateTime startsAt) {
+        this.vet = vet;
+        this.startsAt = startsAt;
+        this.activeSlot = startsAt;
+    }
+}
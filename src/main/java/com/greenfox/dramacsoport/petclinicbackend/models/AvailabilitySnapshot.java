@@ -0,0 +1,50 @@
+package com.greenfox.dramacsoport.petclinicbackend.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * The availability calendar as of a slot change, so a starting instance only replays the changes after it.
+ */
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class AvailabilitySnapshot {
+    public static final String APPOINTMENTS = "appointments";
+
+    @Id
+    private String name;
+
+    /**
+     * The day of the first bitset of every vet.
+     */
+    @Column(nullable = false)
+    private LocalDate firstDay;
+
+    /**
+     * Every slot change up to this id (inclusive) is in the snapshot.
+     */
+    private long lastChangeId;
+
+    @Column(nullable = false)
+    private Instant takenAt;
+
+    /**
+     * The bitsets, see AvailabilityCalendar. The length makes it a LONGBLOB on MySQL, the default would be a
+     * TINYBLOB of 255 bytes.
+     */
+    @Lob
+    @Column(nullable = false, length = Integer.MAX_VALUE)
+    private byte[] data;
+}
@@ -18,4 +18,10 @@ public class Clinic {
     private Long id;
     private String name;
     private String address;
+
+    /**
+     * WGS84 degrees. A clinic without coordinates is left out of the nearest clinic search.
+     */
+    private Double latitude;
+    private Double longitude;
 }
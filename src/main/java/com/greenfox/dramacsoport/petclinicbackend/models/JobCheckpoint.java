@@ -0,0 +1,58 @@
+package com.greenfox.dramacsoport.petclinicbackend.models;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Version;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Progress of a scheduled job that works through a range of days in chunks. It is saved in the same transaction
+ * as the work of every chunk, so a restarted job continues after the last committed chunk.
+ */
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class JobCheckpoint {
+    public static final String CHECK_UP_REMINDERS = "check-up-reminders";
+
+    @Id
+    private String name;
+
+    /**
+     * Every day up to this one (inclusive) is done. Null before the first finished run.
+     */
+    private LocalDate coveredUntil;
+
+    /**
+     * The days of the run in progress. Both null when no run is in progress.
+     */
+    private LocalDate runFrom;
+    private LocalDate runUntil;
+
+    /**
+     * Keyset of the last row done by the run in progress.
+     */
+    private Long lastOwnerId;
+    private Long lastPetId;
+
+    /**
+     * Two instances running the same job at once cannot both commit the same chunk.
+     */
+    @Version
+    private Long version;
+
+    public JobCheckpoint(String name) {
+        this.name = name;
+    }
+
+    public boolean isRunInProgress() {
+        return runUntil != null;
+    }
+}
@@ -0,0 +1,26 @@
+package com.greenfox.dramacsoport.petclinicbackend.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Version of a list shared by every user (e.g. the clinics). It is increased in the same transaction as every
+ * change of the list, so the list endpoint can answer a conditional request without reading the list itself.
+ */
+@Data
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+public class ListVersion {
+    public static final String CLINICS = "clinics";
+
+    @Id
+    private String name;
+
+    @Column(nullable = false)
+    private long version;
+}
@@ -0,0 +1,61 @@
+package com.greenfox.dramacsoport.petclinicbackend.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * An email written in the same transaction as the change that triggered it, and sent later by the
+ * outbox dispatcher. The email is only sent if that transaction commits.
+ */
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_outbox_email_status_next_attempt", columnList = "status, nextAttemptAt")
+})
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class OutboxEmail {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Lob
+    @Column(nullable = false)
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    @Builder.Default
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    /**
+     * Number of delivery attempts started so far. Also used to claim the email, so two dispatchers never
+     * start the same attempt.
+     */
+    private int attempts;
+
+    @Column(nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    private Instant sentAt;
+
+    @Column(length = 1000)
+    private String lastError;
+}
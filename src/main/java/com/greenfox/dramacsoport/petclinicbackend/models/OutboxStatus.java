@@ -0,0 +1,5 @@
+package com.greenfox.dramacsoport.petclinicbackend.models;
+
+public enum OutboxStatus {
+    PENDING, SENT, FAILED
+}
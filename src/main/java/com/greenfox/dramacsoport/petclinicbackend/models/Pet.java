@@ -9,13 +9,29 @@ import lombok.Setter;
 import java.time.LocalDate;
 
 @Entity
+@Table(indexes = {
+        // serves the keyset-paginated pet list of an owner (WHERE owner_id = ? AND id > ? ORDER BY id)
+        @Index(name = "idx_pet_owner_id_id", columnList = "owner_id, id"),
+        // serves the staging of the check-up reminders (WHERE next_check_up BETWEEN ? AND ?)
+        @Index(name = "idx_pet_next_check_up", columnList = "nextCheckUp")
+})
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
 @Setter
 public class Pet {
+
+    public static final String ID_SEQUENCE = "pet_seq";
+
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    /**
+     * Taken from a sequence in blocks of 50 (a table on MySQL), not from an identity column: Hibernate has to
+     * know the id before the insert to send the inserts in JDBC batches.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false)
@@ -0,0 +1,60 @@
+package com.greenfox.dramacsoport.petclinicbackend.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.SourceType;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Collection;
+
+/**
+ * The pets created or changed by one transaction, written in that transaction. The pet search index of every
+ * instance replays these in id order, and reads the current fields of the changed pets only.
+ */
+@Entity
+@NoArgsConstructor
+@Getter
+public class PetChange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * The ids as 8-byte values, so a bulk save of thousands of pets is still a single row. Not foreign keys, the
+     * change log outlives the pets.
+     */
+    @Lob
+    @Column(nullable = false, length = Integer.MAX_VALUE)
+    @Getter(AccessLevel.NONE)
+    private byte[] petIds;
+
+    /**
+     * Set by the database in the insert, so the changes of every instance are timed by the same clock.
+     */
+    @CreationTimestamp(source = SourceType.DB)
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+
+    public PetChange(Long id, Collection<Long> petIds, Instant createdAt) {
+        ByteBuffer data = ByteBuffer.allocate(petIds.size() * Long.BYTES);
+        petIds.forEach(data::putLong);
+        this.id = id;
+        this.petIds = data.array();
+        this.createdAt = createdAt;
+    }
+
+    public long[] getPetIds() {
+        long[] ids = new long[petIds.length / Long.BYTES];
+        ByteBuffer.wrap(petIds).asLongBuffer().get(ids);
+        return ids;
+    }
+}
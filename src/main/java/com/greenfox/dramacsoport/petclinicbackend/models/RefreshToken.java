@@ -0,0 +1,54 @@
+package com.greenfox.dramacsoport.petclinicbackend.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * A long-lived token that can be exchanged once for a new access token and a new refresh token.
+ * Only the SHA-256 hash of the token is stored. Every refresh token issued from the same login belongs to the
+ * same family, so the whole family can be revoked when a used token is presented again.
+ */
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_refresh_token_family_id", columnList = "familyId"),
+        @Index(name = "idx_refresh_token_expires_at", columnList = "expiresAt")
+})
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class RefreshToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    @Column(nullable = false)
+    private String familyId;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id")
+    private AppUser user;
+
+    /**
+     * The token version of the user at the time of issue. A password change makes the token useless.
+     */
+    @Column(nullable = false)
+    private int tokenVersion;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    private Instant usedAt;
+
+    private boolean revoked;
+}
@@ -0,0 +1,35 @@
+package com.greenfox.dramacsoport.petclinicbackend.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A token that must not be accepted anymore, even though it has not expired yet (e.g. after logout).
+ * The row is deleted once the token expires.
+ */
+@Data
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_revoked_token_expires_at", columnList = "expiresAt"),
+        @Index(name = "idx_revoked_token_revoked_at", columnList = "revokedAt")
+})
+@AllArgsConstructor
+@NoArgsConstructor
+public class RevokedToken {
+    @Id
+    private String tokenId;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    @Column(nullable = false)
+    private Instant revokedAt;
+}
@@ -0,0 +1,39 @@
+package com.greenfox.dramacsoport.petclinicbackend.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One key of the JWT key ring shared by every instance of the application.
+ * <ul>
+ *     <li>activatesAt: from this moment on new tokens are signed with this key</li>
+ *     <li>retiresAt: no new tokens are signed with this key after this moment</li>
+ *     <li>expiresAt: tokens signed with this key are verifiable until this moment</li>
+ * </ul>
+ */
+@Data
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+public class SigningKey {
+    @Id
+    private String keyId;
+
+    @Column(nullable = false)
+    private String secret;
+
+    @Column(nullable = false)
+    private Instant activatesAt;
+
+    @Column(nullable = false)
+    private Instant retiresAt;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+}
@@ -0,0 +1,50 @@
+package com.greenfox.dramacsoport.petclinicbackend.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.SourceType;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * A slot of a vet taken or freed, written in the same transaction as the appointment change. The availability
+ * calendar of every instance replays these in id order.
+ */
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+public class SlotChange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Not a foreign key, the change log outlives the vet.
+     */
+    @Column(nullable = false)
+    private Long vetId;
+
+    @Column(nullable = false)
+    private LocalDateTime slot;
+
+    /**
+     * <code>true</code> if the slot was taken, <code>false</code> if it was freed.
+     */
+    private boolean booked;
+
+    /**
+     * Set by the database in the insert, so the changes of every instance are timed by the same clock.
+     */
+    @CreationTimestamp(source = SourceType.DB)
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+}
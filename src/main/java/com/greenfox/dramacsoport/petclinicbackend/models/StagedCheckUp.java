@@ -0,0 +1,29 @@
+package com.greenfox.dramacsoport.petclinicbackend.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A pet due for a check-up in the reminder run in progress. The due pets are staged once, when the run starts, so
+ * every chunk of the run continues along the (owner, pet) index instead of reading and sorting the whole window
+ * again.
+ */
+@Entity
+@Table(indexes = {
+        // serves the chunks of the run (WHERE (owner_id, pet_id) > (?, ?) ORDER BY owner_id, pet_id)
+        @Index(name = "idx_staged_check_up_owner_id_pet_id", columnList = "ownerId, petId")
+})
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class StagedCheckUp {
+    @Id
+    private Long petId;
+
+    @Column(nullable = false)
+    private Long ownerId;
+}
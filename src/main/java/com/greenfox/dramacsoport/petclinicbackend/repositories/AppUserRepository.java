@@ -1,12 +1,43 @@
 package com.greenfox.dramacsoport.petclinicbackend.repositories;
 
+import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.PetListVersion;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.user.login.LoginCredentials;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.user.vet.VetDTO;
 import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
+import com.greenfox.dramacsoport.petclinicbackend.models.Role;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface AppUserRepository extends JpaRepository<AppUser, Long> {
     Optional<AppUser> findByEmail(String email);
 
     boolean existsByEmail(String email);
+
+    @Query("select new com.greenfox.dramacsoport.petclinicbackend.dtos.user.login.LoginCredentials(" +
+            "u.id, u.email, u.password, u.displayName, u.role, u.tokenVersion) from AppUser u where u.email = :email")
+    Optional<LoginCredentials> findLoginCredentialsByEmail(@Param("email") String email);
+
+    @Query("select u.tokenVersion from AppUser u where u.id = :id")
+    Optional<Integer> findTokenVersionById(@Param("id") Long id);
+
+    @Query("select new com.greenfox.dramacsoport.petclinicbackend.dtos.pet.PetListVersion(u.id, u.petListVersion) " +
+            "from AppUser u where u.email = :email")
+    Optional<PetListVersion> findPetListVersionByEmail(@Param("email") String email);
+
+    @Modifying
+    @Query("update AppUser u set u.petListVersion = u.petListVersion + 1 where u.id = :id")
+    void incrementPetListVersion(@Param("id") Long id);
+
+    Optional<AppUser> findByIdAndRole(Long id, Role role);
+
+    boolean existsByClinicId(Long clinicId);
+
+    @Query("select new com.greenfox.dramacsoport.petclinicbackend.dtos.user.vet.VetDTO(u.id, u.displayName, c.id) " +
+            "from AppUser u join u.clinic c where c.id = :clinicId and u.role = :role order by u.id")
+    List<VetDTO> findVetDTOsByClinicId(@Param("clinicId") Long clinicId, @Param("role") Role role);
 }
@@ -0,0 +1,59 @@
+package com.greenfox.dramacsoport.petclinicbackend.repositories;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.AppointmentDTO;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.slots.BookedSlot;
+import com.greenfox.dramacsoport.petclinicbackend.models.Appointment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
+
+    /**
+     * A lookup on the (vet_id, active_slot) unique index.
+     */
+    boolean existsByVetIdAndActiveSlot(Long vetId, LocalDateTime activeSlot);
+
+    boolean existsByClinicId(Long clinicId);
+
+    boolean existsByVetId(Long vetId);
+
+    @Query("select a.vet.id from Appointment a where a.id = :id")
+    Optional<Long> findVetIdById(@Param("id") Long id);
+
+    /**
+     * The slots taken between the two times (from inclusive, until exclusive), read as ranges of the
+     * (vet_id, active_slot) unique index. Cancelled appointments have no active slot and are skipped.
+     */
+    @Query("select new com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.slots.BookedSlot(" +
+            "a.vet.id, a.activeSlot) from Appointment a " +
+            "where a.vet.id in :vetIds and a.activeSlot >= :from and a.activeSlot < :until")
+    List<BookedSlot> findBookedSlots(@Param("vetIds") Collection<Long> vetIds,
+                                     @Param("from") LocalDateTime from, @Param("until") LocalDateTime until);
+
+    /**
+     * Every slot taken between the two times (from inclusive, until exclusive), for building the availability
+     * calendar.
+     */
+    @Query("select new com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.slots.BookedSlot(" +
+            "a.vet.id, a.activeSlot) from Appointment a where a.activeSlot >= :from and a.activeSlot < :until")
+    List<BookedSlot> findAllBookedSlots(@Param("from") LocalDateTime from, @Param("until") LocalDateTime until);
+
+    @Query("select new com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.AppointmentDTO(" +
+            "a.id, c.id, c.name, v.id, v.displayName, p.id, p.petName, a.startsAt, a.status) " +
+            "from Appointment a join a.clinic c join a.vet v join a.pet p join p.owner o " +
+            "where o.email = :email and a.activeSlot >= :from order by a.activeSlot, a.id")
+    List<AppointmentDTO> findUpcomingByOwnerEmail(@Param("email") String email, @Param("from") LocalDateTime from);
+
+    @Query("select new com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.AppointmentDTO(" +
+            "a.id, c.id, c.name, v.id, v.displayName, p.id, p.petName, a.startsAt, a.status) " +
+            "from Appointment a join a.clinic c join a.vet v join a.pet p " +
+            "where v.email = :email and a.activeSlot >= :from and a.activeSlot < :until order by a.activeSlot")
+    List<AppointmentDTO> findBookedByVetEmail(@Param("email") String email, @Param("from") LocalDateTime from,
+                                              @Param("until") LocalDateTime until);
+}
@@ -0,0 +1,7 @@
+package com.greenfox.dramacsoport.petclinicbackend.repositories;
+
+import com.greenfox.dramacsoport.petclinicbackend.models.AvailabilitySnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface AvailabilitySnapshotRepository extends JpaRepository<AvailabilitySnapshot, String> {
+}
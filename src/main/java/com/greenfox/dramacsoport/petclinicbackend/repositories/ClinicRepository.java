@@ -1,11 +1,38 @@
 package com.greenfox.dramacsoport.petclinicbackend.repositories;
 
+import com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.ClinicDTO;
 import com.greenfox.dramacsoport.petclinicbackend.models.Clinic;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 
 public interface ClinicRepository extends JpaRepository<Clinic, Long> {
     boolean existsByName(String name);
     Clinic findByName(String name);
+
+    /**
+     * Every clinic, read straight into DTOs without loading managed entities.
+     */
+    @Query("select new com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.ClinicDTO(c.id, c.name, c.address, c.latitude, c.longitude) " +
+            "from Clinic c order by c.id")
+    List<ClinicDTO> findAllClinicDTOs();
+
+    /**
+     * One page of the clinics, read straight into DTOs, in the order of the pageable.
+     */
+    @Query(value = "select new com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.ClinicDTO(c.id, c.name, c.address, c.latitude, c.longitude) " +
+            "from Clinic c",
+            countQuery = "select count(c) from Clinic c")
+    Page<ClinicDTO> findClinicDTOs(Pageable pageable);
+
+    /**
+     * Every clinic with coordinates, for building the nearest clinic index.
+     */
+    @Query("select new com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.ClinicDTO(" +
+            "c.id, c.name, c.address, c.latitude, c.longitude) " +
+            "from Clinic c where c.latitude is not null and c.longitude is not null")
+    List<ClinicDTO> findLocatedClinicDTOs();
 }
@@ -0,0 +1,7 @@
+package com.greenfox.dramacsoport.petclinicbackend.repositories;
+
+import com.greenfox.dramacsoport.petclinicbackend.models.JobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, String> {
+}
@@ -0,0 +1,22 @@
+package com.greenfox.dramacsoport.petclinicbackend.repositories;
+
+import com.greenfox.dramacsoport.petclinicbackend.models.ListVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface ListVersionRepository extends JpaRepository<ListVersion, String> {
+
+    @Query("select v.version from ListVersion v where v.name = :name")
+    Optional<Long> findVersionByName(@Param("name") String name);
+
+    /**
+     * @return the number of updated rows, 0 if the list has no version row
+     */
+    @Modifying
+    @Query("update ListVersion v set v.version = v.version + 1 where v.name = :name")
+    int increment(@Param("name") String name);
+}
@@ -0,0 +1,35 @@
+package com.greenfox.dramacsoport.petclinicbackend.repositories;
+
+import com.greenfox.dramacsoport.petclinicbackend.models.OutboxEmail;
+import com.greenfox.dramacsoport.petclinicbackend.models.OutboxStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, Long> {
+
+    List<OutboxEmail> findAllByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(OutboxStatus status, Instant moment,
+                                                                                Limit limit);
+
+    /**
+     * Starts a delivery attempt, unless another dispatcher has already started it.
+     * The attempt counter works as a version: only the caller that saw the current value can increase it.
+     * @param leaseUntil the email is not picked up again before this moment, even if the dispatcher dies
+     * @return 1 if the attempt belongs to the caller, 0 otherwise
+     */
+    @Modifying
+    @Transactional
+    @Query("update OutboxEmail e set e.attempts = e.attempts + 1, e.nextAttemptAt = :leaseUntil " +
+            "where e.id = :id and e.attempts = :attempts " +
+            "and e.status = com.greenfox.dramacsoport.petclinicbackend.models.OutboxStatus.PENDING")
+    int claim(@Param("id") Long id, @Param("attempts") int attempts, @Param("leaseUntil") Instant leaseUntil);
+
+    @Transactional
+    void deleteAllByStatusAndSentAtBefore(OutboxStatus status, Instant moment);
+}
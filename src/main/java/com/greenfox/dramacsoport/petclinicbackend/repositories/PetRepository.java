@@ -1,11 +1,55 @@
 package com.greenfox.dramacsoport.petclinicbackend.repositories;
 
+import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.PetDTO;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.search.PetSearchDocument;
 import com.greenfox.dramacsoport.petclinicbackend.models.Pet;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface PetRepository extends JpaRepository<Pet, Long> {
     List<Pet> findAllByOwnerId(Long ownerId);
+
+    List<Pet> findAllByOwnerIdAndIdIn(Long ownerId, Collection<Long> ids);
+
+    /**
+     * One page of the owner's pets, in id order, starting after the last pet of the previous page.
+     * Read straight into DTOs: no managed entities, no dirty-checking snapshots, no owner proxies.
+     * The owner is matched by email in the same statement, so the owner is not loaded first.
+     */
+    @Query("select new com.greenfox.dramacsoport.petclinicbackend.dtos.pet.PetDTO(" +
+            "p.id, p.petName, p.petBreed, p.petSex, p.petBirthDate, p.lastCheckUp, p.nextCheckUp, p.specialCondition) " +
+            "from Pet p join p.owner o where o.email = :email and p.id > :afterId order by p.id")
+    List<PetDTO> findPetPageByOwnerEmail(@Param("email") String email, @Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * The pets with the given ids, in id order. Ids of pets that no longer exist are skipped.
+     */
+    @Query("select new com.greenfox.dramacsoport.petclinicbackend.dtos.pet.PetDTO(" +
+            "p.id, p.petName, p.petBreed, p.petSex, p.petBirthDate, p.lastCheckUp, p.nextCheckUp, p.specialCondition) " +
+            "from Pet p where p.id in :ids order by p.id")
+    List<PetDTO> findPetDTOsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * One chunk of every pet's searchable fields, in id order, for building the search index.
+     */
+    @Query("select new com.greenfox.dramacsoport.petclinicbackend.dtos.pet.search.PetSearchDocument(" +
+            "p.id, p.petName, p.petBreed, p.specialCondition) from Pet p where p.id > :afterId order by p.id")
+    List<PetSearchDocument> findSearchDocuments(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * The searchable fields of the given pets, for replaying the pet changes into the search index.
+     */
+    @Query("select new com.greenfox.dramacsoport.petclinicbackend.dtos.pet.search.PetSearchDocument(" +
+            "p.id, p.petName, p.petBreed, p.specialCondition) from Pet p where p.id in :ids")
+    List<PetSearchDocument> findSearchDocumentsByIdIn(@Param("ids") Collection<Long> ids);
+
     Pet findPetById(Long petId);
+
+    @Query("select max(p.id) from Pet p")
+    Long findMaxId();
 }
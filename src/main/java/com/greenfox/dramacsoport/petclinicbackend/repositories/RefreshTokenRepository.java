@@ -0,0 +1,48 @@
+package com.greenfox.dramacsoport.petclinicbackend.repositories;
+
+import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
+import com.greenfox.dramacsoport.petclinicbackend.models.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    @Query("select r from RefreshToken r join fetch r.user where r.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHashWithUser(@Param("tokenHash") String tokenHash);
+
+    /**
+     * Marks the token as used, unless another request has already done so.
+     * @return 1 if this call used the token, 0 if it had already been used or revoked
+     */
+    @Modifying
+    @Query("update RefreshToken r set r.usedAt = :now where r.id = :id and r.usedAt is null and r.revoked = false")
+    int markUsed(@Param("id") Long id, @Param("now") Instant now);
+
+    @Modifying
+    @Query("update RefreshToken r set r.revoked = true where r.familyId = :familyId")
+    int revokeFamily(@Param("familyId") String familyId);
+
+    /**
+     * Revokes every token of the user, so no session of the user can be refreshed any more.
+     */
+    @Modifying
+    @Transactional
+    @Query("update RefreshToken r set r.revoked = true where r.user.id = :userId and r.revoked = false")
+    int revokeAllByUserId(@Param("userId") Long userId);
+
+    /**
+     * Removes every token of the user, so the user can be deleted.
+     */
+    @Modifying
+    @Query("delete from RefreshToken r where r.user = :user")
+    int deleteAllByUser(@Param("user") AppUser user);
+
+    @Transactional
+    void deleteAllByExpiresAtBefore(Instant moment);
+}
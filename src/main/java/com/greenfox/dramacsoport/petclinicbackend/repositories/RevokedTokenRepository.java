@@ -0,0 +1,17 @@
+package com.greenfox.dramacsoport.petclinicbackend.repositories;
+
+import com.greenfox.dramacsoport.petclinicbackend.models.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+    List<RevokedToken> findAllByExpiresAtAfter(Instant moment);
+
+    List<RevokedToken> findAllByRevokedAtAfterAndExpiresAtAfter(Instant revokedAfter, Instant expiresAfter);
+
+    @Transactional
+    void deleteAllByExpiresAtBefore(Instant moment);
+}
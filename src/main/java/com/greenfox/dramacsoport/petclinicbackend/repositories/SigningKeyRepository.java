@@ -0,0 +1,15 @@
+package com.greenfox.dramacsoport.petclinicbackend.repositories;
+
+import com.greenfox.dramacsoport.petclinicbackend.models.SigningKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface SigningKeyRepository extends JpaRepository<SigningKey, String> {
+    List<SigningKey> findAllByExpiresAtAfter(Instant moment);
+
+    @Transactional
+    void deleteAllByExpiresAtBefore(Instant moment);
+}
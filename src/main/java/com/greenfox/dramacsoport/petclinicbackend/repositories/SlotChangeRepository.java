@@ -0,0 +1,33 @@
+package com.greenfox.dramacsoport.petclinicbackend.repositories;
+
+import com.greenfox.dramacsoport.petclinicbackend.models.SlotChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface SlotChangeRepository extends JpaRepository<SlotChange, Long> {
+
+    /**
+     * The clock of the database, which times the changes of every instance.
+     */
+    @Query("select current_instant")
+    Instant currentTime();
+
+    List<SlotChange> findByIdGreaterThanOrderById(Long afterId, Limit limit);
+
+    @Query("select max(c.id) from SlotChange c where c.createdAt < :before")
+    Optional<Long> findMaxIdCreatedBefore(@Param("before") Instant before);
+
+    /**
+     * @return the number of deleted changes
+     */
+    @Modifying
+    @Query("delete from SlotChange c where c.id <= :upToId and c.createdAt < :before")
+    int deleteReplayed(@Param("upToId") Long upToId, @Param("before") Instant before);
+}
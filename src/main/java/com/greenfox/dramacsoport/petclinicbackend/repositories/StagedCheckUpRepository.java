@@ -0,0 +1,40 @@
+package com.greenfox.dramacsoport.petclinicbackend.repositories;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.reminder.DueCheckUp;
+import com.greenfox.dramacsoport.petclinicbackend.models.StagedCheckUp;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface StagedCheckUpRepository extends JpaRepository<StagedCheckUp, Long> {
+
+    /**
+     * Stages every pet with a check-up between the two days (inclusive), in one statement. The range is read
+     * through the next_check_up index once per run.
+     * @return the number of staged pets
+     */
+    @Modifying
+    @Query("insert into StagedCheckUp (petId, ownerId) select p.id, p.owner.id from Pet p " +
+            "where p.nextCheckUp between :from and :until and p.owner is not null")
+    int stage(@Param("from") LocalDate from, @Param("until") LocalDate until);
+
+    /**
+     * One chunk of the staged pets, grouped by owner: in owner id, then pet id order, starting after the last pet
+     * of the previous chunk. Only the rows of the chunk are read from the staging index. A pet that was deleted,
+     * given to another owner or moved out of the days of the run since it was staged is skipped.
+     */
+    @Query("select new com.greenfox.dramacsoport.petclinicbackend.dtos.pet.reminder.DueCheckUp(" +
+            "o.id, o.email, o.displayName, p.id, p.petName, p.nextCheckUp) " +
+            "from StagedCheckUp s join Pet p on p.id = s.petId join p.owner o " +
+            "where (s.ownerId > :afterOwnerId or (s.ownerId = :afterOwnerId and s.petId > :afterPetId)) " +
+            "and o.id = s.ownerId and p.nextCheckUp between :from and :until " +
+            "order by s.ownerId, s.petId")
+    List<DueCheckUp> findChunk(@Param("from") LocalDate from, @Param("until") LocalDate until,
+                               @Param("afterOwnerId") Long afterOwnerId, @Param("afterPetId") Long afterPetId,
+                               Limit limit);
+}
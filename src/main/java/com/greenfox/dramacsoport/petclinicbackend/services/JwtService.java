@@ -1,59 +1,98 @@
 package com.greenfox.dramacsoport.petclinicbackend.services;
 
+import com.greenfox.dramacsoport.petclinicbackend.dtos.user.login.LoginCredentials;
 import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
 import com.greenfox.dramacsoport.petclinicbackend.models.Role;
+import com.greenfox.dramacsoport.petclinicbackend.services.token.SigningContext;
+import com.greenfox.dramacsoport.petclinicbackend.services.token.TokenRevocationService;
+import com.greenfox.dramacsoport.petclinicbackend.services.token.VerifiedToken;
+import com.greenfox.dramacsoport.petclinicbackend.services.token.VerifiedTokenCache;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
-import org.springframework.security.core.GrantedAuthority;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
 import java.security.SecureRandom;
 import java.time.Instant;
 import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
+@RequiredArgsConstructor
 public class JwtService {
-    private final String secretKey = secretKeyGenerator();
-    private static final long VALIDITY = TimeUnit.MINUTES.toMillis(30);
+    public static final long VALIDITY = TimeUnit.MINUTES.toMillis(30);
+
+    private final AtomicReference<SigningContext> signingContext =
+            new AtomicReference<>(SigningContext.fromSecret(secretKeyGenerator()));
+
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    private final TokenRevocationService tokenRevocationService;
 
     /**
-     * <h2>Creates a JWT token from a UserDetails object.</h2>
-     * By default, the user roles are stored as a GrantedAuthority with a ROLE_ prefix in the UserDetails object (e.g
-     * . ROLE_USER).
-     * To be stored in the token, it has to be mapped with the Role.getRole() method first.
-     * For easier handling on the frontend, the role is stored as lowercase String in the token.
+     * <h2>Creates a JWT token from a user entity.</h2>
      * @param user to use for creating a JWT token
      * @return a valid JWT token
+     * @see #generateToken(LoginCredentials)
      */
     public String generateToken(AppUser user) {
+        return generateToken(LoginCredentials.from(user));
+    }
+
+    /**
+     * <h2>Creates a JWT token from the login projection of a user.</h2>
+     * For easier handling on the frontend, the role is stored as lowercase String in the token.
+     * @param user to use for creating a JWT token
+     * @return a valid JWT token
+     */
+    public String generateToken(LoginCredentials user) {
         Map<String, String> claims = new HashMap<>();
-        GrantedAuthority firstAuthority = user.getAuthorities().iterator().next();
-        String roleNameAsString = Role.getRole(firstAuthority).toString();
-
-        String roleAsLowercaseString = roleNameAsString.toLowerCase();
-        claims.put("role", roleAsLowercaseString);
-        claims.put("displayName", user.getDisplayName());
-        claims.put("email", user.getUsername());
-        claims.put("id", String.valueOf(user.getId()));
-        return Jwts.builder()
+        claims.put("role", user.role().toString().toLowerCase());
+        claims.put("displayName", user.displayName());
+        claims.put("email", user.email());
+        claims.put("id", String.valueOf(user.id()));
+        claims.put(VerifiedToken.TOKEN_VERSION_CLAIM, String.valueOf(user.tokenVersion()));
+        Instant now = Instant.now();
+        return signingContext.get().newBuilder()
                 .claims(claims)
-                .subject(user.getUsername())
-                .issuedAt(Date.from(Instant.now()))
-                .expiration(Date.from(Instant.now().plusMillis(VALIDITY)))
-                .signWith(generateKey())
+                .id(UUID.randomUUID().toString())
+                .subject(user.email())
+                .issuedAt(Date.from(now))
+                .expiration(Date.from(now.plusMillis(VALIDITY)))
                 .compact();
     }
 
-    private SecretKey generateKey() {
-        byte[] decodedKey = Base64.getDecoder().decode(secretKey);
-        return Keys.hmacShaKeyFor(decodedKey);
+    /**
+     * <h2>Replaces the signing key.</h2>
+     * The new key, parser and builder template are built first and then swapped in with a single atomic write,
+     * so concurrent requests see either the old or the new context, never a mix of the two.
+     * Tokens signed with the old key are no longer accepted, so the cache of verified tokens is cleared as well.
+     * @param base64Secret the new Base64 encoded secret (at least 256 bits)
+     */
+    public void updateSigningKey(String base64Secret) {
+        signingContext.set(SigningContext.fromSecret(base64Secret));
+        verifiedTokenCache.clear();
+    }
+
+    /**
+     * Installs a signing context built from the shared key ring. Unlike {@link #updateSigningKey(String)}, the
+     * previous keys stay verifiable through the new context, so the verified tokens are kept in the cache.
+     * @param context the new context to sign and verify tokens with
+     */
+    public void install(SigningContext context) {
+        signingContext.set(context);
+    }
+
+    public SigningContext getSigningContext() {
+        return signingContext.get();
     }
 
     public String extractUsername(String jwt) {     //jwt is the token without prefix
@@ -69,27 +108,72 @@ public class JwtService {
     }
 
     public Claims getClaims(String jwt) {
-        return Jwts.parser()
-                .verifyWith(generateKey())
-                .build()
+        return signingContext.get().parser()
                 .parseSignedClaims(jwt)
                 .getPayload();
     }
 
+    /**
+     * <h2>Parses and checks a token once.</h2>
+     * The signature and the expiration are only checked the first time a token is seen. The result is cached
+     * under the digest of the token until it expires, so repeated requests with the same token skip the parsing.
+     * @param jwt the token without the Bearer prefix
+     * @return the verified token, or an empty Optional if the token is malformed, forged or expired
+     */
+    public Optional<VerifiedToken> verify(String jwt) {
+        Instant now = Instant.now();
+        String digest = VerifiedTokenCache.digest(jwt);
+        VerifiedToken cachedToken = verifiedTokenCache.get(digest, now);
+        if (cachedToken != null) {
+            return Optional.of(cachedToken);
+        }
+
+        SigningContext context = signingContext.get();
+        try {
+            Claims claims = context.parser().parseSignedClaims(jwt).getPayload();
+            VerifiedToken token = new VerifiedToken(claims.getSubject(), claims.getExpiration().toInstant(), claims);
+            if (token.isExpired(now)) {
+                return Optional.empty();
+            }
+            // do not cache a token that was verified with a key replaced in the meantime
+            if (signingContext.get() == context) {
+                verifiedTokenCache.put(digest, token, now);
+            }
+            return Optional.of(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
     public boolean isTokenValid(String jwt) {
-        Claims claims = getClaims(jwt);
-        return claims.getExpiration().after(Date.from(Instant.now()));
+        return verify(jwt).isPresent();
     }
 
-    private String secretKeyGenerator() {
+    private static String secretKeyGenerator() {
         SecureRandom random = new SecureRandom();
         byte[] key = new byte[32]; // 256 bits
         random.nextBytes(key);
         return Base64.getEncoder().encodeToString(key);
     }
 
+    /**
+     * @return the verified token the current request was authenticated with, or an empty Optional if the request
+     * is anonymous
+     */
+    public Optional<VerifiedToken> currentToken() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getCredentials() instanceof VerifiedToken token) {
+            return Optional.of(token);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Revokes the token of the current request (if it was authenticated with one), then clears the security
+     * context. The revoked token is rejected by every instance until it expires.
+     */
     public boolean logoutUser() {
-        //TODO: write unit test for this method
+        currentToken().ifPresent(tokenRevocationService::revoke);
         SecurityContextHolder.getContext().setAuthentication(null);
         return true;
     }
@@ -0,0 +1,45 @@
+package com.greenfox.dramacsoport.petclinicbackend.services;
+
+import com.greenfox.dramacsoport.petclinicbackend.models.ListVersion;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.ListVersionRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Creates the version rows of the shared lists before the application serves requests, so a change of a list
+ * only ever increments its row. When instances start at the same time, all but one insert fail on the primary
+ * key, and they use the row the winner inserted.
+ */
+@Component
+@RequiredArgsConstructor
+public class ListVersionInitializer {
+
+    private static final List<String> LISTS = List.of(ListVersion.CLINICS);
+
+    private final ListVersionRepository listVersionRepository;
+
+    private final Logger logger = LoggerFactory.getLogger(ListVersionInitializer.class);
+
+    @PostConstruct
+    public void createVersionRows() {
+        LISTS.forEach(this::createVersionRow);
+    }
+
+    private void createVersionRow(String name) {
+        if (listVersionRepository.existsById(name)) {
+            return;
+        }
+        try {
+            listVersionRepository.saveAndFlush(new ListVersion(name, 0));
+            logger.info("Version row of the {} list created", name);
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Version row of the {} list created by another instance", name);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.greenfox.dramacsoport.petclinicbackend.services;
+
+import com.greenfox.dramacsoport.petclinicbackend.models.Pet;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.PetRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.dialect.sequence.SequenceSupport;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * <h2>Moves the pet id sequence past the existing pets before the application serves requests.</h2>
+ * Pet ids used to come from an auto-increment column. On a database upgraded from that schema, the schema update
+ * creates the sequence starting at 1, and the new pets would take the ids of existing ones.
+ * <ul>
+ *     <li>A sequence behind the largest pet id is restarted past it, with the margin of one id block.</li>
+ *     <li>On databases without sequences (e.g. MySQL), Hibernate keeps the next value in a table, which is moved
+ *     forward with a conditional update, so instances starting at the same time cannot move it back.</li>
+ *     <li>A sequence that is already ahead is left alone, so normally this costs one or two queries.</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+public class PetSequenceInitializer {
+
+    private final PetRepository petRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final Logger logger = LoggerFactory.getLogger(PetSequenceInitializer.class);
+
+    @PostConstruct
+    public void seedPetSequence() {
+        Long maxId = petRepository.findMaxId();
+        if (maxId == null) {
+            return;
+        }
+        long nextValue = maxId + Pet.ID_ALLOCATION_SIZE + 1;
+        SequenceSupport sequenceSupport = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getSequenceSupport();
+
+        if (sequenceSupport.supportsSequences()) {
+            Long value = jdbcTemplate.queryForObject(
+                    sequenceSupport.getSequenceNextValString(Pet.ID_SEQUENCE), Long.class);
+            if (value != null && value < nextValue) {
+                jdbcTemplate.execute("alter sequence " + Pet.ID_SEQUENCE + " restart with " + nextValue);
+                logger.warn("Pet id sequence was behind the largest pet id {}, restarted at {}", maxId, nextValue);
+            }
+        } else {
+            int updated = jdbcTemplate.update("update " + Pet.ID_SEQUENCE + " set next_val = ? where next_val < ?",
+                    nextValue, nextValue);
+            if (updated > 0) {
+                logger.warn("Pet id table was behind the largest pet id {}, moved to {}", maxId, nextValue);
+            }
+        }
+    }
+}
@@ -8,16 +8,20 @@ import com.greenfox.dramacsoport.petclinicbackend.exceptions.DeletionException;
 import com.greenfox.dramacsoport.petclinicbackend.exceptions.IncorrectPasswordException;
 import com.greenfox.dramacsoport.petclinicbackend.exceptions.InvalidPasswordException;
 import com.greenfox.dramacsoport.petclinicbackend.exceptions.UnauthorizedActionException;
+import com.greenfox.dramacsoport.petclinicbackend.mappers.AppUserMapper;
 import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
 import com.greenfox.dramacsoport.petclinicbackend.repositories.AppUserRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.AppointmentRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.RefreshTokenRepository;
 import com.greenfox.dramacsoport.petclinicbackend.services.JwtService;
+import com.greenfox.dramacsoport.petclinicbackend.services.token.TokenVersionRegistry;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.naming.NameAlreadyBoundException;
 
@@ -27,12 +31,18 @@ public class AppUserServiceImpl implements AppUserService {
 
     private final AppUserRepository appUserRepository;
 
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    private final AppointmentRepository appointmentRepository;
+
     private final PasswordEncoder passwordEncoder;
 
-    private final ModelMapper modelMapper = new ModelMapper();
+    private final AppUserMapper appUserMapper;
 
     private final JwtService jwtService;
 
+    private final TokenVersionRegistry tokenVersionRegistry;
+
     Logger logger = LoggerFactory.getLogger(AppUserServiceImpl.class);
 
     @Override
@@ -42,12 +52,19 @@ public class AppUserServiceImpl implements AppUserService {
     }
 
     @Override
+    @Transactional
     public DeleteUserResponse deleteUser(String userEmail, Long id) throws DeletionException {
         AppUser userToDelete = loadUserByEmail(userEmail);
 
         if (!userToDelete.getId().equals(id)) {
             throw new UnauthorizedActionException("User is not authorized to delete this account");
+        } else if (appointmentRepository.existsByVetId(id)) {
+            //the appointments of a vet stay in the records of the clinic, they reference the vet
+            throw new DeletionException(
+                    "Unable to delete your profile. Appointments were booked with you as a vet.");
         } else if (userToDelete.getPets().isEmpty()) {
+            //every login leaves refresh tokens behind, they reference the user
+            refreshTokenRepository.deleteAllByUser(userToDelete);
             appUserRepository.delete(userToDelete);
             logger.info("User deleted with email: {}", userToDelete.getEmail());
             return new DeleteUserResponse("Your profile has been successfully deleted.");
@@ -62,12 +79,6 @@ public class AppUserServiceImpl implements AppUserService {
             throws IncorrectPasswordException,
             NameAlreadyBoundException {
 
-        modelMapper.typeMap(EditUserRequestDTO.class, AppUser.class)
-                .addMappings(mapping -> {
-                    mapping.skip(EditUserRequestDTO::password,
-                            (destination, value) -> destination.setPassword((String) value));
-                });
-
         AppUser user = loadUserByEmail(email);
         final String oldEncodedPassword = user.getPassword();
         logger.debug("encoded PW from db: %s".formatted(oldEncodedPassword));
@@ -100,10 +111,21 @@ public class AppUserServiceImpl implements AppUserService {
         user.setPassword(newEncodedPassword);
         logger.info("New password set.");
 
-        modelMapper.map(request, user);
+        //a new password or email invalidates every token issued before (tokens carry the email as subject)
+        boolean credentialsChanged = !newEncodedPassword.equals(oldEncodedPassword)
+                || !request.email().equals(user.getEmail());
+        if (credentialsChanged) {
+            user.setTokenVersion(user.getTokenVersion() + 1);
+        }
+
+        appUserMapper.update(request, user);
 
         //save user
         appUserRepository.save(user);
+        tokenVersionRegistry.update(user.getId(), user.getTokenVersion());
+        if (credentialsChanged) {
+            refreshTokenRepository.revokeAllByUserId(user.getId());
+        }
         logger.info("AppUser entity mapped and updated.");
         logger.debug("encoded PW after mapping and saving in db: %s".formatted(user.getPassword()));
 
@@ -2,9 +2,11 @@ package com.greenfox.dramacsoport.petclinicbackend.services.appUser.auth;
 
 import com.greenfox.dramacsoport.petclinicbackend.dtos.user.login.LoginRequestDTO;
 import com.greenfox.dramacsoport.petclinicbackend.dtos.user.login.LoginResponseDTO;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.user.refresh.RefreshTokenRequestDTO;
 import com.greenfox.dramacsoport.petclinicbackend.dtos.user.register.RegisterRequestDTO;
 import com.greenfox.dramacsoport.petclinicbackend.exceptions.IncorrectLoginCredentialsException;
 import com.greenfox.dramacsoport.petclinicbackend.exceptions.InvalidPasswordException;
+import com.greenfox.dramacsoport.petclinicbackend.exceptions.InvalidRefreshTokenException;
 import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
 
 import javax.naming.NameAlreadyBoundException;
@@ -18,10 +20,23 @@ public interface AuthService {
      * @param requestDTO The DTO, that is created when the user is try to log in.
      *                   Contains the login credentials
      *                   (username & password).
-     * @return A JWT token as a String for further authorization.
+     * @return A JWT token as a String for further authorization, and a refresh token to renew it.
      * @throws IncorrectLoginCredentialsException when the username and/or the
      *                                            password is incorrect.
      */
     LoginResponseDTO login(LoginRequestDTO requestDTO)
             throws IncorrectLoginCredentialsException;
+
+    /**
+     * @param requestDTO contains a refresh token received at login or at the previous refresh.
+     * @return A new JWT token and a new refresh token. The presented refresh token cannot be used again.
+     * @throws InvalidRefreshTokenException when the refresh token is unknown, expired or already used.
+     */
+    LoginResponseDTO refresh(RefreshTokenRequestDTO requestDTO)
+            throws InvalidRefreshTokenException;
+
+    /**
+     * Revokes the token the current request was authenticated with, so it cannot be used again.
+     */
+    void logout();
 }
@@ -1,26 +1,28 @@
 package com.greenfox.dramacsoport.petclinicbackend.services.appUser.auth;
 
+import com.greenfox.dramacsoport.petclinicbackend.dtos.user.login.LoginCredentials;
 import com.greenfox.dramacsoport.petclinicbackend.dtos.user.login.LoginRequestDTO;
 import com.greenfox.dramacsoport.petclinicbackend.dtos.user.login.LoginResponseDTO;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.user.refresh.RefreshTokenRequestDTO;
 import com.greenfox.dramacsoport.petclinicbackend.dtos.user.register.RegisterRequestDTO;
 import com.greenfox.dramacsoport.petclinicbackend.errors.AppServiceErrors;
 import com.greenfox.dramacsoport.petclinicbackend.exceptions.IncorrectLoginCredentialsException;
 import com.greenfox.dramacsoport.petclinicbackend.exceptions.IncorrectPasswordException;
 import com.greenfox.dramacsoport.petclinicbackend.exceptions.InvalidPasswordException;
+import com.greenfox.dramacsoport.petclinicbackend.mappers.AppUserMapper;
 import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
 import com.greenfox.dramacsoport.petclinicbackend.repositories.AppUserRepository;
 import com.greenfox.dramacsoport.petclinicbackend.services.JwtService;
-import com.greenfox.dramacsoport.petclinicbackend.services.appUser.AppUserService;
+import com.greenfox.dramacsoport.petclinicbackend.services.email.EmailOutbox;
+import com.greenfox.dramacsoport.petclinicbackend.services.token.RefreshTokenService;
+import com.greenfox.dramacsoport.petclinicbackend.services.token.VerifiedToken;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.naming.NameAlreadyBoundException;
 
@@ -30,30 +32,19 @@ public class AuthServiceImpl implements AuthService {
 
     private final AppUserRepository appUserRepository;
 
-    private final ModelMapper modelMapper = new ModelMapper();
+    private final AppUserMapper appUserMapper;
 
     private final PasswordEncoder passwordEncoder;
 
     private final JwtService jwtService;
 
-    private final JavaMailSender javaMailSender;
+    private final EmailOutbox emailOutbox;
 
     private final Logger logger = LoggerFactory.getLogger(AuthServiceImpl.class);
 
-    private final AppUserService appUserService;
+    private final RefreshTokenService refreshTokenService;
 
-    @Value("${spring.mail.username}")
-    private String petClinicEmail;
-
-    /**
-     * Convert any user related DTO to the Entity object used by this Service
-     *
-     * @param sourceDTO the DTO, you want to convert
-     * @return MyUser entity
-     */
-    private <T> AppUser convertToEntity(T sourceDTO) {
-        return modelMapper.map(sourceDTO, AppUser.class);
-    }
+    private final TransactionTemplate transactionTemplate;
 
     /**
      * <h3>This method registers a new user.</h3>
@@ -63,8 +54,12 @@ public class AuthServiceImpl implements AuthService {
      * <li>If the user is already created, throws an exception.</li>
      * </ul>
      * Saves the input fields and encodes the password for storage.
-     * After the entity has been created, the application sends a greeting email
-     * to the e-mail address of the new user.
+     * A taken email is rejected before the password is encoded, so duplicate attempts do not use up permits of
+     * the hashing bulkhead. The check runs outside the transaction: the encoder may wait for a permit, and must
+     * not hold a pooled connection meanwhile. The unique constraint on the email still rejects a concurrent
+     * registration with the same email.
+     * A greeting email to the new user is queued in the same transaction as the user,
+     * and sent in the background once the registration is committed.
      *
      * @param userRequest the user object created from the registration form
      */
@@ -77,36 +72,46 @@ public class AuthServiceImpl implements AuthService {
         if (isUserRegistered(userRequest.getEmail())) {
             throw new NameAlreadyBoundException(AppServiceErrors.USERNAME_ALREADY_EXISTS);
         }
+        String encodedPassword = passwordEncoder.encode(userRequest.getPassword());
 
-        AppUser newUser = convertToEntity(userRequest);
-        newUser.setPassword(passwordEncoder.encode(userRequest.getPassword()));
+        AppUser newUser = appUserMapper.toEntity(userRequest);
+        newUser.setPassword(encodedPassword);
 
         try {
-            sendEmailAfterRegistration(userRequest);
-        } catch (Exception e) {
-            logger.error("Failed to send email after registration: {}", e.getMessage());
+            return transactionTemplate.execute(status -> {
+                AppUser savedUser = appUserRepository.save(newUser);
+                sendEmailAfterRegistration(userRequest);
+                return savedUser;
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw new NameAlreadyBoundException(AppServiceErrors.USERNAME_ALREADY_EXISTS);
         }
-
-        return appUserRepository.save(newUser);
     }
 
+    /**
+     * <h3>Logs in a user with a single database query.</h3>
+     * The password hash and the token claims are read together from a narrow projection of the user,
+     * so neither the full entity nor its pets are loaded.
+     */
     public LoginResponseDTO login(LoginRequestDTO requestDTO) throws IncorrectLoginCredentialsException {
-        if (!authenticateUser(requestDTO)) {
-            throw new IncorrectLoginCredentialsException();
-        }
-        AppUser appUser = appUserService.loadUserByEmail(requestDTO.email());
-        String token = jwtService.generateToken(appUser);
-        return new LoginResponseDTO(token);
+        LoginCredentials credentials = appUserRepository.findLoginCredentialsByEmail(requestDTO.email())
+                .filter(user -> passwordEncoder.matches(requestDTO.password(), user.password()))
+                .orElseThrow(IncorrectLoginCredentialsException::new);
+        String token = jwtService.generateToken(credentials);
+        return new LoginResponseDTO(token, refreshTokenService.issue(credentials));
     }
 
-    private boolean authenticateUser(LoginRequestDTO requestDTO) {
-        try {
-            return passwordEncoder.matches(
-                    requestDTO.password(),
-                    appUserService.loadUserByEmail(requestDTO.email()).getPassword());
-        } catch (UsernameNotFoundException ue) {
-            throw new IncorrectLoginCredentialsException();
-        }
+    public LoginResponseDTO refresh(RefreshTokenRequestDTO requestDTO) {
+        return refreshTokenService.refresh(requestDTO.refreshToken());
+    }
+
+    /**
+     * Revokes the access token of the request and every refresh token of the user, so the session cannot be
+     * renewed after logging out.
+     */
+    public void logout() {
+        jwtService.currentToken().map(VerifiedToken::userId).ifPresent(refreshTokenService::revokeAll);
+        jwtService.logoutUser();
     }
 
     public boolean isPasswordLongerThanThreeChar(String password) throws InvalidPasswordException {
@@ -121,20 +126,18 @@ public class AuthServiceImpl implements AuthService {
         return appUserRepository.existsByEmail(email);
     }
 
+    /**
+     * Queues the greeting email in the outbox. It is sent by the outbox dispatcher after the commit.
+     */
     public void sendEmailAfterRegistration(RegisterRequestDTO user) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(petClinicEmail);
-        message.setTo(user.getEmail());
-        message.setSubject("Registration successful - Pet Clinic");
-        message.setText("""
+        emailOutbox.enqueue(user.getEmail(), "Registration successful - Pet Clinic", """
                 Dear %s,
 
                 Thank you for registering to our Pet Clinic application!
 
                 Best regards,
                 Pet Clinic Team""".formatted(user.getDisplayName()));
-        javaMailSender.send(message);
-        logger.info("Email sent successfully");
+        logger.info("Registration email queued");
     }
 
 }
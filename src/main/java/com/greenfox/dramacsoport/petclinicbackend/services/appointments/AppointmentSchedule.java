@@ -0,0 +1,79 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.appointments;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <h2>The slots appointments can be booked in.</h2>
+ * Every vet has the same slots every day: slots of the configured length, back to back from the opening time
+ * to the closing time. Appointments can be booked from now until the end of the booking horizon.
+ */
+@Component
+public class AppointmentSchedule {
+
+    private final LocalTime openingTime;
+
+    private final Duration slotLength;
+
+    private final int slotsPerDay;
+
+    private final Period bookingHorizon;
+
+    public AppointmentSchedule(@Value("${appointments.opening-time:08:00}") String openingTime,
+                               @Value("${appointments.closing-time:18:00}") String closingTime,
+                               @Value("${appointments.slot-length:PT30M}") Duration slotLength,
+                               @Value("${appointments.booking-horizon:P60D}") Period bookingHorizon) {
+        this.openingTime = LocalTime.parse(openingTime);
+        this.slotLength = slotLength;
+        this.bookingHorizon = bookingHorizon;
+        Duration openingHours = Duration.between(this.openingTime, LocalTime.parse(closingTime));
+        if (slotLength.isZero() || slotLength.isNegative() || openingHours.compareTo(slotLength) < 0) {
+            throw new IllegalArgumentException("The opening hours must fit at least one slot");
+        }
+        this.slotsPerDay = (int) openingHours.dividedBy(slotLength);
+    }
+
+    public int getSlotsPerDay() {
+        return slotsPerDay;
+    }
+
+    /**
+     * @return the number of the slot starting at the time (0 for the first slot of the day), or -1 if no slot
+     * starts then
+     */
+    public int slotIndex(LocalDateTime startsAt) {
+        Duration sinceOpening = Duration.between(openingTime, startsAt.toLocalTime());
+        if (sinceOpening.isNegative() || sinceOpening.toNanos() % slotLength.toNanos() != 0) {
+            return -1;
+        }
+        long index = sinceOpening.dividedBy(slotLength);
+        return index < slotsPerDay ? (int) index : -1;
+    }
+
+    public LocalDateTime slotStart(LocalDate day, int slotIndex) {
+        return day.atTime(openingTime).plus(slotLength.multipliedBy(slotIndex));
+    }
+
+    /**
+     * @return the starts of every slot of the day, earliest first
+     */
+    public List<LocalDateTime> slotsOf(LocalDate day) {
+        List<LocalDateTime> slots = new ArrayList<>(slotsPerDay);
+        for (int i = 0; i < slotsPerDay; i++) {
+            slots.add(slotStart(day, i));
+        }
+        return slots;
+    }
+
+    public LocalDate lastBookableDay(LocalDate today) {
+        return today.plus(bookingHorizon);
+    }
+}
@@ -0,0 +1,44 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.appointments;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.AppointmentDTO;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.AppointmentListResponse;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.BookAppointmentRequest;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.RescheduleAppointmentRequest;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.cancel.CancelAppointmentResponse;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.slots.AvailableSlotsResponse;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.slots.FirstFreeSlotResponse;
+
+import java.time.LocalDate;
+
+public interface AppointmentService {
+    /**
+     * @return the free slots of every vet of the clinic on the day. Slots already started are left out.
+     */
+    AvailableSlotsResponse getAvailableSlots(Long clinicId, LocalDate date);
+    /**
+     * @param days the number of days searched from today, the configured default if <code>null</code>, at most
+     *             the booking horizon
+     * @return the earliest free slot at any vet of the clinic
+     */
+    FirstFreeSlotResponse findFirstFreeSlot(Long clinicId, Integer days);
+    /**
+     * Books a slot of a vet for one of the user's pets, at the clinic the vet works at.
+     * @throws com.greenfox.dramacsoport.petclinicbackend.exceptions.SlotAlreadyBookedException if the slot is
+     * taken, also when another request took it at the same time
+     */
+    AppointmentDTO bookAppointment(String email, BookAppointmentRequest request);
+    /**
+     * Moves the user's appointment to another slot, of the same or another vet of the same clinic. The old slot
+     * is freed only if the new one could be booked.
+     */
+    AppointmentDTO rescheduleAppointment(String email, Long id, RescheduleAppointmentRequest request);
+    CancelAppointmentResponse cancelAppointment(String email, Long id);
+    /**
+     * @return the booked appointments of the user's pets that have not started yet
+     */
+    AppointmentListResponse getUserAppointments(String email);
+    /**
+     * @return the booked appointments of the vet on the day
+     */
+    AppointmentListResponse getVetAppointments(String email, LocalDate date);
+}
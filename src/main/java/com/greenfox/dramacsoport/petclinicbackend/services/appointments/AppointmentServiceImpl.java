@@ -0,0 +1,341 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.appointments;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.AppointmentDTO;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.AppointmentListResponse;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.BookAppointmentRequest;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.RescheduleAppointmentRequest;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.cancel.CancelAppointmentResponse;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.slots.AvailableSlotsResponse;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.slots.FirstFreeSlotResponse;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.slots.FreeSlot;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.slots.VetSlotsDTO;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.user.vet.VetDTO;
+import com.greenfox.dramacsoport.petclinicbackend.errors.AppServiceErrors;
+import com.greenfox.dramacsoport.petclinicbackend.exceptions.ResourceNotFoundException;
+import com.greenfox.dramacsoport.petclinicbackend.exceptions.SlotAlreadyBookedException;
+import com.greenfox.dramacsoport.petclinicbackend.exceptions.UnauthorizedActionException;
+import com.greenfox.dramacsoport.petclinicbackend.exceptions.ValidationException;
+import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
+import com.greenfox.dramacsoport.petclinicbackend.models.Appointment;
+import com.greenfox.dramacsoport.petclinicbackend.models.AppointmentStatus;
+import com.greenfox.dramacsoport.petclinicbackend.models.Pet;
+import com.greenfox.dramacsoport.petclinicbackend.models.Role;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.AppUserRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.AppointmentRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.ClinicRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.PetRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * <h2>Books, moves and cancels appointments.</h2>
+ * <ul>
+ *     <li>A reservation takes the striped lock of its slot, then checks, writes and commits in its own
+ *     transaction while holding it. The owners racing for a slot on this instance are served one by one, and
+ *     all but the first see the slot taken before writing anything.</li>
+ *     <li>The unique constraint on the vet and the active slot decides between instances: the loser's insert
+ *     or update fails, is rolled back and reported as a taken slot.</li>
+ *     <li>Reservations are published as metrics under <code>appointments.reservations</code>: booked, taken
+ *     (seen by the check) and conflict (stopped by the constraint).</li>
+ *     <li>Every taken and freed slot is logged for the {@link AvailabilityCalendar} in the same transaction, and
+ *     the free slots are read from the calendar instead of the appointments.</li>
+ * </ul>
+ */
+@Service
+public class AppointmentServiceImpl implements AppointmentService {
+
+    private final AppointmentRepository appointmentRepository;
+
+    private final AppUserRepository appUserRepository;
+
+    private final PetRepository petRepository;
+
+    private final ClinicRepository clinicRepository;
+
+    private final AppointmentSchedule appointmentSchedule;
+
+    private final SlotLocks slotLocks;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final AvailabilityCalendar availabilityCalendar;
+
+    private final int defaultSearchDays;
+
+    private final Counter booked;
+
+    private final Counter taken;
+
+    private final Counter conflicts;
+
+    private final Logger logger = LoggerFactory.getLogger(AppointmentServiceImpl.class);
+
+    public AppointmentServiceImpl(AppointmentRepository appointmentRepository,
+                                  AppUserRepository appUserRepository,
+                                  PetRepository petRepository,
+                                  ClinicRepository clinicRepository,
+                                  AppointmentSchedule appointmentSchedule,
+                                  SlotLocks slotLocks,
+                                  TransactionTemplate transactionTemplate,
+                                  AvailabilityCalendar availabilityCalendar,
+                                  @Value("${appointments.first-free.default-days:30}") int defaultSearchDays,
+                                  MeterRegistry meterRegistry) {
+        this.appointmentRepository = appointmentRepository;
+        this.appUserRepository = appUserRepository;
+        this.petRepository = petRepository;
+        this.clinicRepository = clinicRepository;
+        this.appointmentSchedule = appointmentSchedule;
+        this.slotLocks = slotLocks;
+        this.transactionTemplate = transactionTemplate;
+        this.availabilityCalendar = availabilityCalendar;
+        this.defaultSearchDays = defaultSearchDays;
+        this.booked = reservations("booked", meterRegistry);
+        this.taken = reservations("taken", meterRegistry);
+        this.conflicts = reservations("conflict", meterRegistry);
+    }
+
+    private static Counter reservations(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("appointments.reservations")
+                .description("Slot reservations (bookings and reschedules)")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public AvailableSlotsResponse getAvailableSlots(Long clinicId, LocalDate date) {
+        checkClinic(clinicId);
+        LocalDate today = LocalDate.now();
+        if (date.isBefore(today) || date.isAfter(appointmentSchedule.lastBookableDay(today))) {
+            throw new ValidationException(AppServiceErrors.INVALID_APPOINTMENT_DAY);
+        }
+
+        List<VetDTO> vets = appUserRepository.findVetDTOsByClinicId(clinicId, Role.VET);
+        if (vets.isEmpty()) {
+            return new AvailableSlotsResponse(clinicId, date, List.of());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return new AvailableSlotsResponse(clinicId, date, vets.stream()
+                .map(vet -> new VetSlotsDTO(vet.id(), vet.displayName(),
+                        slotsOf(date, availabilityCalendar.freeSlots(vet.id(), date, now))))
+                .toList());
+    }
+
+    @Override
+    public FirstFreeSlotResponse findFirstFreeSlot(Long clinicId, Integer days) {
+        checkClinic(clinicId);
+        if (days != null && days < 1) {
+            throw new ValidationException(AppServiceErrors.INVALID_SEARCH_DAYS);
+        }
+        LocalDate today = LocalDate.now();
+        int horizon = (int) ChronoUnit.DAYS.between(today, appointmentSchedule.lastBookableDay(today)) + 1;
+        int searched = Math.min(days != null ? days : defaultSearchDays, horizon);
+
+        List<VetDTO> vets = appUserRepository.findVetDTOsByClinicId(clinicId, Role.VET);
+        FreeSlot slot = availabilityCalendar.firstFree(vets.stream().map(VetDTO::id).toList(), searched,
+                LocalDateTime.now());
+        if (slot == null) {
+            return new FirstFreeSlotResponse(clinicId, null, null, null);
+        }
+        String vetName = vets.stream()
+                .filter(vet -> vet.id().equals(slot.vetId()))
+                .map(VetDTO::displayName)
+                .findFirst()
+                .orElse(null);
+        return new FirstFreeSlotResponse(clinicId, slot.vetId(), vetName, slot.startsAt());
+    }
+
+    @Override
+    public AppointmentDTO bookAppointment(String email, BookAppointmentRequest request) {
+        checkBookable(request.startsAt());
+        return slotLocks.withLock(request.vetId(), request.startsAt(), () -> reserve(() -> {
+            Pet pet = ownedPet(email, request.petId());
+            AppUser vet = vet(request.vetId());
+            if (vet.getClinic() == null) {
+                throw new ValidationException(AppServiceErrors.VET_WITHOUT_CLINIC);
+            }
+            checkFree(vet.getId(), request.startsAt());
+
+            Appointment appointment = Appointment.builder()
+                    .clinic(vet.getClinic())
+                    .vet(vet)
+                    .pet(pet)
+                    .startsAt(request.startsAt())
+                    .activeSlot(request.startsAt())
+                    .build();
+            appointmentRepository.saveAndFlush(appointment);
+            availabilityCalendar.recordChange(vet.getId(), appointment.getStartsAt(), true);
+            logger.info("Appointment {} booked for pet {} at {}", appointment.getId(), pet.getId(),
+                    appointment.getStartsAt());
+            return toDto(appointment);
+        }));
+    }
+
+    /**
+     * Only the new slot is locked: freeing the old one cannot conflict with anybody. The vet of the slot is read
+     * before the lock in its own transaction, so no connection is held while waiting for the lock (the session
+     * is not kept open for the view).
+     */
+    @Override
+    public AppointmentDTO rescheduleAppointment(String email, Long id, RescheduleAppointmentRequest request) {
+        checkBookable(request.startsAt());
+        Long vetId = request.vetId() != null ? request.vetId() : appointmentRepository.findVetIdById(id)
+                .orElseThrow(() -> new ResourceNotFoundException(AppServiceErrors.APPOINTMENT_NOT_FOUND + id));
+        return slotLocks.withLock(vetId, request.startsAt(), () -> reserve(() -> {
+            Appointment appointment = changeableAppointment(email, id);
+            AppUser vet = appointment.getVet().getId().equals(vetId) ? appointment.getVet() : vet(vetId);
+            if (!Objects.equals(vet.getClinic() == null ? null : vet.getClinic().getId(),
+                    appointment.getClinic().getId())) {
+                throw new ValidationException(AppServiceErrors.VET_NOT_AT_CLINIC);
+            }
+            if (vet == appointment.getVet() && request.startsAt().equals(appointment.getStartsAt())) {
+                return toDto(appointment);
+            }
+            checkFree(vet.getId(), request.startsAt());
+
+            Long fromVetId = appointment.getVet().getId();
+            LocalDateTime from = appointment.getStartsAt();
+            appointment.moveTo(vet, request.startsAt());
+            appointmentRepository.saveAndFlush(appointment);
+            availabilityCalendar.recordChange(fromVetId, from, false);
+            availabilityCalendar.recordChange(vet.getId(), appointment.getStartsAt(), true);
+            logger.info("Appointment {} moved from {} to {}", id, from, appointment.getStartsAt());
+            return toDto(appointment);
+        }));
+    }
+
+    /**
+     * <h3>Takes no slot lock.</h3>
+     * <ul>
+     *     <li>A cancel only frees its slot (the active slot becomes null), so it cannot break the unique
+     *     constraint on the vet and the active slot, or take a slot from anybody.</li>
+     *     <li>A booking of the freed slot sees it taken until the cancel commits, and is refused. After the
+     *     commit it may take the slot, and its slot change is logged after the one of the cancel.</li>
+     *     <li>A reschedule or another cancel of the same appointment is stopped by the version of the
+     *     appointment.</li>
+     * </ul>
+     */
+    @Override
+    @Transactional
+    public CancelAppointmentResponse cancelAppointment(String email, Long id) {
+        Appointment appointment = changeableAppointment(email, id);
+        appointment.cancel();
+        appointmentRepository.save(appointment);
+        availabilityCalendar.recordChange(appointment.getVet().getId(), appointment.getStartsAt(), false);
+        logger.info("Appointment {} cancelled", id);
+        return new CancelAppointmentResponse("Your appointment has been cancelled.");
+    }
+
+    @Override
+    public AppointmentListResponse getUserAppointments(String email) {
+        return new AppointmentListResponse(
+                appointmentRepository.findUpcomingByOwnerEmail(email, LocalDateTime.now()));
+    }
+
+    @Override
+    public AppointmentListResponse getVetAppointments(String email, LocalDate date) {
+        return new AppointmentListResponse(appointmentRepository.findBookedByVetEmail(email, date.atStartOfDay(),
+                date.plusDays(1).atStartOfDay()));
+    }
+
+    /**
+     * Runs the reservation in its own transaction, committed before the slot lock is released.
+     */
+    private AppointmentDTO reserve(Supplier<AppointmentDTO> reservation) {
+        try {
+            AppointmentDTO appointment = transactionTemplate.execute(status -> reservation.get());
+            booked.increment();
+            return appointment;
+        } catch (DataIntegrityViolationException e) {
+            // another instance booked the slot between the check and the write
+            conflicts.increment();
+            throw new SlotAlreadyBookedException();
+        }
+    }
+
+    /**
+     * @param free bit i set if the i-th slot of the day is free
+     */
+    private List<LocalDateTime> slotsOf(LocalDate day, long free) {
+        List<LocalDateTime> slots = new ArrayList<>(Long.bitCount(free));
+        for (long rest = free; rest != 0; rest &= rest - 1) {
+            slots.add(appointmentSchedule.slotStart(day, Long.numberOfTrailingZeros(rest)));
+        }
+        return slots;
+    }
+
+    private void checkClinic(Long clinicId) {
+        if (!clinicRepository.existsById(clinicId)) {
+            throw new ResourceNotFoundException(AppServiceErrors.CLINIC_NOT_FOUND + clinicId);
+        }
+    }
+
+    private void checkFree(Long vetId, LocalDateTime slot) {
+        if (appointmentRepository.existsByVetIdAndActiveSlot(vetId, slot)) {
+            taken.increment();
+            throw new SlotAlreadyBookedException();
+        }
+    }
+
+    private void checkBookable(LocalDateTime startsAt) {
+        if (appointmentSchedule.slotIndex(startsAt) < 0) {
+            throw new ValidationException(AppServiceErrors.INVALID_APPOINTMENT_SLOT);
+        }
+        if (!startsAt.isAfter(LocalDateTime.now())) {
+            throw new ValidationException(AppServiceErrors.APPOINTMENT_IN_THE_PAST);
+        }
+        if (startsAt.toLocalDate().isAfter(appointmentSchedule.lastBookableDay(LocalDate.now()))) {
+            throw new ValidationException(AppServiceErrors.APPOINTMENT_TOO_FAR_AHEAD);
+        }
+    }
+
+    private Appointment changeableAppointment(String email, Long id) {
+        Appointment appointment = appointmentRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException(AppServiceErrors.APPOINTMENT_NOT_FOUND + id));
+        if (!appointment.getPet().getOwner().getEmail().equals(email)) {
+            logger.error("This appointment is NOT related to this user. Appointment cannot be changed.");
+            throw new UnauthorizedActionException("This appointment is NOT related to this user...not allowed to change it");
+        }
+        if (appointment.getStatus() != AppointmentStatus.BOOKED
+                || !appointment.getStartsAt().isAfter(LocalDateTime.now())) {
+            throw new ValidationException(AppServiceErrors.APPOINTMENT_NOT_CHANGEABLE);
+        }
+        return appointment;
+    }
+
+    private Pet ownedPet(String email, Long petId) {
+        Pet pet = petRepository.findById(petId)
+                .orElseThrow(() -> new ResourceNotFoundException(AppServiceErrors.PET_NOT_FOUND + petId));
+        if (!pet.getOwner().getEmail().equals(email)) {
+            logger.error("This pet is NOT related to this user. Appointment cannot be booked.");
+            throw new UnauthorizedActionException("This pet is NOT related to this user...not allowed to book for it");
+        }
+        return pet;
+    }
+
+    private AppUser vet(Long vetId) {
+        return appUserRepository.findByIdAndRole(vetId, Role.VET)
+                .orElseThrow(() -> new ResourceNotFoundException(AppServiceErrors.VET_NOT_FOUND + vetId));
+    }
+
+    private static AppointmentDTO toDto(Appointment appointment) {
+        return new AppointmentDTO(appointment.getId(), appointment.getClinic().getId(),
+                appointment.getClinic().getName(), appointment.getVet().getId(), appointment.getVet().getDisplayName(),
+                appointment.getPet().getId(), appointment.getPet().getPetName(), appointment.getStartsAt(),
+                appointment.getStatus());
+    }
+}
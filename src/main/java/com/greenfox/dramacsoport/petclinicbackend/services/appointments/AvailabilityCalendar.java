@@ -0,0 +1,470 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.appointments;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.slots.BookedSlot;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.slots.FreeSlot;
+import com.greenfox.dramacsoport.petclinicbackend.models.AvailabilitySnapshot;
+import com.greenfox.dramacsoport.petclinicbackend.models.SlotChange;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.AppointmentRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.AvailabilitySnapshotRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.SlotChangeRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <h2>In-memory bitsets of the booked slots, one long per vet and day.</h2>
+ * <ul>
+ *     <li>Bit i of a day is set when the i-th slot of the day is booked. The free slots of a vet are
+ *     <code>~booked</code> within the day's slots, and the slots where any vet of a clinic is free are the OR of
+ *     those. Searching a month of a clinic is a few hundred word operations, no appointment is read.</li>
+ *     <li>Every appointment change logs a {@link SlotChange} in its transaction. The calendar replays the log in
+ *     id order: on a background thread when a change of this instance commits, and on a timer for the changes of
+ *     other instances. The committing request does not wait for the replay, so the calendar shows a change
+ *     shortly after the commit.</li>
+ *     <li>The calendar is saved as a snapshot on a timer. A starting instance loads the snapshot and replays
+ *     only the changes after it. Without a snapshot it reads the booked slots of the booking horizon once.</li>
+ *     <li>The days run from today to one day past the booking horizon, so a booking made by an instance whose
+ *     day has already turned still fits. Past days are dropped when the day turns.</li>
+ * </ul>
+ */
+@Component
+public class AvailabilityCalendar {
+
+    private static final int REPLAY_CHUNK = 1000;
+
+    private final AppointmentRepository appointmentRepository;
+
+    private final SlotChangeRepository slotChangeRepository;
+
+    private final AvailabilitySnapshotRepository availabilitySnapshotRepository;
+
+    private final AppointmentSchedule appointmentSchedule;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Duration gapTimeout;
+
+    private final Duration changeRetention;
+
+    private final long allSlots;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // one replay (or load, or day turn, or snapshot) at a time; readers only wait while a chunk is applied
+    private final ReentrantLock replay = new ReentrantLock();
+
+    // replays the changes of this instance, off the threads of the requests that committed them
+    private final ExecutorService replayer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "availability-replay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // set while a replay is queued, so the commits until it starts are replayed together
+    private final AtomicBoolean replayQueued = new AtomicBoolean();
+
+    private final Logger logger = LoggerFactory.getLogger(AvailabilityCalendar.class);
+
+    private Map<Long, long[]> booked = new HashMap<>();
+
+    private volatile LocalDate firstDay;
+
+    private int days;
+
+    private long appliedUpTo;
+
+    // the calendar the last snapshot holds, guarded by the replay lock
+    private long snapshotChangeId = -1;
+
+    private LocalDate snapshotDay;
+
+    public AvailabilityCalendar(AppointmentRepository appointmentRepository,
+                                SlotChangeRepository slotChangeRepository,
+                                AvailabilitySnapshotRepository availabilitySnapshotRepository,
+                                AppointmentSchedule appointmentSchedule,
+                                TransactionTemplate transactionTemplate,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${appointments.calendar.gap-timeout:PT1M}") Duration gapTimeout,
+                                @Value("${appointments.calendar.change-retention:P1D}") Duration changeRetention) {
+        if (appointmentSchedule.getSlotsPerDay() > Long.SIZE) {
+            throw new IllegalStateException("At most " + Long.SIZE + " slots a day fit the availability calendar");
+        }
+        this.appointmentRepository = appointmentRepository;
+        this.slotChangeRepository = slotChangeRepository;
+        this.availabilitySnapshotRepository = availabilitySnapshotRepository;
+        this.appointmentSchedule = appointmentSchedule;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.gapTimeout = gapTimeout;
+        this.changeRetention = changeRetention;
+        int slotsPerDay = appointmentSchedule.getSlotsPerDay();
+        this.allSlots = slotsPerDay == Long.SIZE ? -1L : (1L << slotsPerDay) - 1;
+    }
+
+    /**
+     * Logs a taken or freed slot in the caller's transaction. The calendar applies it once the transaction commits.
+     */
+    public void recordChange(Long vetId, LocalDateTime slot, boolean booked) {
+        slotChangeRepository.save(new SlotChange(null, vetId, slot, booked, null));
+        eventPublisher.publishEvent(new SlotsChangedEvent());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        LocalDate today = LocalDate.now();
+        replay.lock();
+        try {
+            AvailabilitySnapshot snapshot = availabilitySnapshotRepository
+                    .findById(AvailabilitySnapshot.APPOINTMENTS).orElse(null);
+            if (snapshot != null) {
+                ByteBuffer data = ByteBuffer.wrap(snapshot.getData());
+                int snapshotDays = data.getInt();
+                Map<Long, long[]> restored = new HashMap<>();
+                for (int vets = data.getInt(); vets > 0; vets--) {
+                    long vetId = data.getLong();
+                    long[] bits = new long[snapshotDays];
+                    data.asLongBuffer().get(bits);
+                    data.position(data.position() + snapshotDays * Long.BYTES);
+                    restored.put(vetId, bits);
+                }
+                install(restored, snapshot.getFirstDay(), snapshotDays, snapshot.getLastChangeId());
+                snapshotChangeId = snapshot.getLastChangeId();
+                snapshotDay = snapshot.getFirstDay();
+                roll(today);
+                logger.info("Availability calendar loaded from the snapshot of {}, replaying changes after {}",
+                        snapshot.getTakenAt(), snapshot.getLastChangeId());
+            } else {
+                // changes this old have committed (or never will), newer ones are replayed over the slots read
+                long upTo = slotChangeRepository.findMaxIdCreatedBefore(
+                        slotChangeRepository.currentTime().minus(gapTimeout)).orElse(0L);
+                int built = daysFrom(today);
+                Map<Long, long[]> bits = new HashMap<>();
+                List<BookedSlot> slots = appointmentRepository.findAllBookedSlots(today.atStartOfDay(),
+                        today.plusDays(built).atStartOfDay());
+                install(bits, today, built, upTo);
+                lock.writeLock().lock();
+                try {
+                    slots.forEach(slot -> apply(slot.vetId(), slot.startsAt(), true));
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                logger.info("Availability calendar built from {} booked slots", slots.size());
+            }
+        } finally {
+            replay.unlock();
+        }
+        catchUp();
+    }
+
+    /**
+     * Queues a replay, unless one is queued and not started yet: that one reads this change too.
+     */
+    @TransactionalEventListener
+    public void onSlotsChanged(SlotsChangedEvent event) {
+        if (replayQueued.compareAndSet(false, true)) {
+            replayer.execute(this::replayQueued);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        replayer.shutdownNow();
+    }
+
+    /**
+     * <h3>Applies the slot changes logged since the last replay, in id order.</h3>
+     * <ul>
+     *     <li>A slot is only freed once its booking has committed, and only booked again once it is freed (see the
+     *     unique slot constraint), so the changes of one slot are logged in the order they commit. Replaying
+     *     them in id order ends in the committed state of every slot.</li>
+     *     <li>Ids are taken before commit, so a change can commit after changes with bigger ids. Replay stops
+     *     counting at the first missing id, and the next replay reads (and applies again) every change after it.
+     *     A missing id is given up as rolled back once the change after it is older than the gap timeout. Both
+     *     times come from the database clock, so the clocks of the instances do not matter.</li>
+     * </ul>
+     */
+    @Scheduled(fixedDelayString = "${appointments.calendar.refresh-interval:PT5S}",
+            initialDelayString = "${appointments.calendar.refresh-interval:PT5S}")
+    public void catchUp() {
+        if (firstDay == null) {
+            return;
+        }
+        replay.lock();
+        try {
+            roll(LocalDate.now());
+            Instant gapDeadline = slotChangeRepository.currentTime().minus(gapTimeout);
+            long afterId = appliedUpTo;
+            long contiguous = appliedUpTo;
+            boolean gap = false;
+            List<SlotChange> changes;
+            do {
+                changes = slotChangeRepository.findByIdGreaterThanOrderById(afterId, Limit.of(REPLAY_CHUNK));
+                lock.writeLock().lock();
+                try {
+                    for (SlotChange change : changes) {
+                        apply(change.getVetId(), change.getSlot(), change.isBooked());
+                        if (!gap && (change.getId() == contiguous + 1 || change.getCreatedAt().isBefore(gapDeadline))) {
+                            contiguous = change.getId();
+                        } else {
+                            gap = true;
+                        }
+                        afterId = change.getId();
+                    }
+                    appliedUpTo = contiguous;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } while (changes.size() == REPLAY_CHUNK);
+        } finally {
+            replay.unlock();
+        }
+    }
+
+    /**
+     * Saves the calendar if it changed since the last snapshot, and deletes the replayed changes older than the
+     * retention. A newer snapshot saved by another instance is kept. The calendar is copied under the replay lock,
+     * which every change of it holds, and written to the database without it.
+     */
+    @Scheduled(fixedDelayString = "${appointments.calendar.snapshot-interval:PT10M}",
+            initialDelayString = "${appointments.calendar.snapshot-interval:PT10M}")
+    public void saveSnapshot() {
+        if (firstDay == null) {
+            return;
+        }
+        LocalDate day;
+        long upTo;
+        ByteBuffer data;
+        replay.lock();
+        try {
+            if (appliedUpTo == snapshotChangeId && firstDay.equals(snapshotDay)) {
+                return;
+            }
+            day = firstDay;
+            upTo = appliedUpTo;
+            long[][] nonEmpty = booked.entrySet().stream()
+                    .filter(entry -> Arrays.stream(entry.getValue()).anyMatch(bits -> bits != 0))
+                    .map(entry -> {
+                        long[] row = new long[days + 1];
+                        row[0] = entry.getKey();
+                        System.arraycopy(entry.getValue(), 0, row, 1, days);
+                        return row;
+                    })
+                    .toArray(long[][]::new);
+            data = ByteBuffer.allocate(2 * Integer.BYTES + nonEmpty.length * (days + 1) * Long.BYTES);
+            data.putInt(days).putInt(nonEmpty.length);
+            for (long[] row : nonEmpty) {
+                data.asLongBuffer().put(row);
+                data.position(data.position() + row.length * Long.BYTES);
+            }
+        } finally {
+            replay.unlock();
+        }
+
+        Integer deleted = transactionTemplate.execute(status -> {
+            AvailabilitySnapshot current = availabilitySnapshotRepository
+                    .findById(AvailabilitySnapshot.APPOINTMENTS).orElse(null);
+            if (current != null && current.getLastChangeId() > upTo) {
+                return 0;
+            }
+            availabilitySnapshotRepository.save(new AvailabilitySnapshot(AvailabilitySnapshot.APPOINTMENTS, day, upTo,
+                    Instant.now(), data.array()));
+            return slotChangeRepository.deleteReplayed(upTo, slotChangeRepository.currentTime().minus(changeRetention));
+        });
+        replay.lock();
+        try {
+            snapshotChangeId = upTo;
+            snapshotDay = day;
+        } finally {
+            replay.unlock();
+        }
+        logger.debug("Availability snapshot saved up to change {}, {} old changes deleted", upTo, deleted);
+    }
+
+    private void replayQueued() {
+        // cleared before reading, so a change committed during the replay queues the next one
+        replayQueued.set(false);
+        try {
+            catchUp();
+        } catch (RuntimeException e) {
+            logger.warn("Replay of the slot changes failed, the timer retries it", e);
+        }
+    }
+
+    /**
+     * @return bit i set if the i-th slot of the day is free at the vet and starts after <code>now</code>
+     */
+    public long freeSlots(Long vetId, LocalDate day, LocalDateTime now) {
+        ensureCurrent(now.toLocalDate());
+        lock.readLock().lock();
+        try {
+            int index = dayIndex(day);
+            if (index < 0 || index >= days) {
+                return 0;
+            }
+            long[] bits = booked.get(vetId);
+            return ~(bits == null ? 0 : bits[index]) & bookable(day, now);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param vetIds the vets searched, a slot free at several of them goes to the first one in the list
+     * @param days   the number of days searched, today included
+     * @return the earliest free slot starting after <code>now</code>, <code>null</code> if there is none
+     */
+    public FreeSlot firstFree(List<Long> vetIds, int days, LocalDateTime now) {
+        LocalDate today = now.toLocalDate();
+        ensureCurrent(today);
+        lock.readLock().lock();
+        try {
+            long[][] vets = vetIds.stream().map(booked::get).toArray(long[][]::new);
+            int start = Math.max(0, dayIndex(today));
+            int end = Math.min(this.days, dayIndex(today) + days);
+            for (int day = start; day < end; day++) {
+                long dayMask = day == dayIndex(today) ? bookable(today, now) : allSlots;
+                long anyFree = 0;
+                for (long[] vet : vets) {
+                    anyFree |= ~(vet == null ? 0 : vet[day]) & dayMask;
+                }
+                if (anyFree == 0) {
+                    continue;
+                }
+                int slot = Long.numberOfTrailingZeros(anyFree);
+                for (int vet = 0; vet < vets.length; vet++) {
+                    if ((vets[vet] == null ? 0 : vets[vet][day] & (1L << slot)) == 0) {
+                        return new FreeSlot(vetIds.get(vet), appointmentSchedule.slotStart(firstDay.plusDays(day), slot));
+                    }
+                }
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureCurrent(LocalDate today) {
+        LocalDate current = firstDay;
+        if (current == null) {
+            load();
+        } else if (today.isAfter(current)) {
+            replay.lock();
+            try {
+                roll(today);
+            } finally {
+                replay.unlock();
+            }
+        }
+    }
+
+    /**
+     * The slots of the day that start after <code>now</code>.
+     */
+    private long bookable(LocalDate day, LocalDateTime now) {
+        if (day.isBefore(now.toLocalDate())) {
+            return 0;
+        }
+        int first = 0;
+        while (first < appointmentSchedule.getSlotsPerDay() && !appointmentSchedule.slotStart(day, first).isAfter(now)) {
+            first++;
+        }
+        return first == Long.SIZE ? 0 : allSlots & (-1L << first);
+    }
+
+    /**
+     * Must hold the replay lock. Drops the days before today and resizes the rows to the current horizon.
+     */
+    private void roll(LocalDate today) {
+        int newDays = daysFrom(today);
+        if (today.equals(firstDay) && newDays == days) {
+            return;
+        }
+        int shift = (int) ChronoUnit.DAYS.between(firstDay, today);
+        lock.writeLock().lock();
+        try {
+            Map<Long, long[]> rolled = new HashMap<>();
+            booked.forEach((vetId, bits) -> {
+                long[] row = new long[newDays];
+                int from = Math.max(0, shift);
+                int to = Math.max(0, -shift);
+                int length = Math.min(bits.length - from, newDays - to);
+                if (length > 0) {
+                    System.arraycopy(bits, from, row, to, length);
+                }
+                if (Arrays.stream(row).anyMatch(day -> day != 0)) {
+                    rolled.put(vetId, row);
+                }
+            });
+            booked = rolled;
+            firstDay = today;
+            days = newDays;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void install(Map<Long, long[]> bits, LocalDate first, int dayCount, long upTo) {
+        lock.writeLock().lock();
+        try {
+            booked = bits;
+            days = dayCount;
+            appliedUpTo = upTo;
+            firstDay = first;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Must hold the write lock. Changes of days outside the calendar are dropped.
+     */
+    private void apply(Long vetId, LocalDateTime slot, boolean taken) {
+        int day = dayIndex(slot.toLocalDate());
+        int index = appointmentSchedule.slotIndex(slot);
+        if (day < 0 || day >= days || index < 0) {
+            return;
+        }
+        long[] bits = booked.computeIfAbsent(vetId, id -> new long[days]);
+        if (taken) {
+            bits[day] |= 1L << index;
+        } else {
+            bits[day] &= ~(1L << index);
+        }
+    }
+
+    private int dayIndex(LocalDate day) {
+        return (int) ChronoUnit.DAYS.between(firstDay, day);
+    }
+
+    private int daysFrom(LocalDate today) {
+        return (int) ChronoUnit.DAYS.between(today, appointmentSchedule.lastBookableDay(today)) + 2;
+    }
+}
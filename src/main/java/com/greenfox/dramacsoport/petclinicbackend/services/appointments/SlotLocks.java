@@ -0,0 +1,58 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.appointments;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * <h2>Striped locks in front of the slot reservations.</h2>
+ * <ul>
+ *     <li>Owners racing for the same slot of a vet on this instance queue on the same lock. The first one books
+ *     the slot, the others see it taken with a cheap index lookup, instead of all of them inserting and all but
+ *     one failing on the unique constraint (and rolling back).</li>
+ *     <li>Reservations of different slots almost always take different locks, so they do not wait for each
+ *     other. The fixed number of stripes keeps the memory bounded, however many slots there are.</li>
+ *     <li>The locks only cover this instance. The unique constraint on the vet and the slot is what keeps a slot
+ *     from being booked twice across instances.</li>
+ * </ul>
+ */
+@Component
+public class SlotLocks {
+
+    private final ReentrantLock[] stripes;
+
+    public SlotLocks(@Value("${appointments.lock-stripes:256}") int stripes) {
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Runs the action holding the lock of the slot. The action must commit its transaction before it returns,
+     * so the next owner waiting for the slot sees the booking.
+     */
+    public <T> T withLock(Long vetId, LocalDateTime slot, Supplier<T> action) {
+        ReentrantLock lock = stripes[stripe(vetId, slot)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int stripe(Long vetId, LocalDateTime slot) {
+        int hash = 31 * Long.hashCode(vetId) + slot.hashCode();
+        // spread the high bits, the mask only keeps the low ones
+        hash ^= hash >>> 16;
+        return hash & (stripes.length - 1);
+    }
+}
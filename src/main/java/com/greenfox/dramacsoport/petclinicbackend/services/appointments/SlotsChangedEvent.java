@@ -0,0 +1,7 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.appointments;
+
+/**
+ * Published with every logged slot change, so the availability calendar replays the log once the change commits.
+ */
+public record SlotsChangedEvent() {
+}
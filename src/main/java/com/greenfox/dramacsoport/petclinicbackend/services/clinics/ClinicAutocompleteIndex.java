@@ -0,0 +1,386 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.clinics;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.ClinicDTO;
+import com.greenfox.dramacsoport.petclinicbackend.models.ListVersion;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.ClinicRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.ListVersionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * <h2>Prefix trie over the words of the clinic names and addresses, for the clinic picker.</h2>
+ * <ul>
+ *     <li>Every word of a name or address starts a key that runs to the end of the field, so a query can match
+ *     the start of any word and go on over the following words. Keys and queries are lower case, without
+ *     accents and with single spaces.</li>
+ *     <li>Every node keeps its best suggestions (one per clinic), so a keystroke costs one step down the trie
+ *     and reading at most the maximum number of results, however many clinics there are.</li>
+ *     <li>Ranking: name matches before address matches, matches at the start of the field before matches
+ *     inside it, then shorter names, then names in alphabetical order.</li>
+ *     <li>Keys are cut at the maximum prefix length. A longer query walks to the node of its cut prefix, and
+ *     filters the few keys cut there.</li>
+ *     <li>Added and deleted clinics are applied when their transaction commits. The trie is built at startup,
+ *     and rebuilt when the clinic list version shows a change of another instance.</li>
+ * </ul>
+ */
+@Component
+public class ClinicAutocompleteIndex {
+
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Comparator<Entry> RANKING = Comparator.comparingInt(Entry::field)
+            .thenComparing(entry -> !entry.fieldStart())
+            .thenComparingInt(entry -> entry.clinic().getName().length())
+            .thenComparing(entry -> entry.clinic().getName(), String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(entry -> entry.clinic().getId());
+
+    private static final int NAME = 0;
+
+    private static final int ADDRESS = 1;
+
+    private final ClinicRepository clinicRepository;
+
+    private final ListVersionRepository listVersionRepository;
+
+    private final int maxResults;
+
+    private final int maxPrefixLength;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Logger logger = LoggerFactory.getLogger(ClinicAutocompleteIndex.class);
+
+    private Node root = new Node();
+
+    private final Map<Long, ClinicDTO> clinics = new HashMap<>();
+
+    private long version = -1;
+
+    public ClinicAutocompleteIndex(ClinicRepository clinicRepository,
+                                   ListVersionRepository listVersionRepository,
+                                   @Value("${clinics.autocomplete.max-results:10}") int maxResults,
+                                   @Value("${clinics.autocomplete.max-prefix-length:16}") int maxPrefixLength) {
+        this.clinicRepository = clinicRepository;
+        this.listVersionRepository = listVersionRepository;
+        this.maxResults = maxResults;
+        this.maxPrefixLength = maxPrefixLength;
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    /**
+     * The version is read before the clinics, so a change in between is picked up by the next refresh. The
+     * built trie is dropped if a change was applied in place or a newer trie was swapped in while it was built:
+     * it would lose that change and put the version back.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long builtVersion = listVersionRepository.findVersionByName(ListVersion.CLINICS).orElse(0L);
+        List<ClinicDTO> all = clinicRepository.findAllClinicDTOs();
+        Node built = new Node();
+        for (ClinicDTO clinic : all) {
+            for (Entry entry : entries(clinic)) {
+                insert(built, entry);
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (version > builtVersion) {
+                logger.debug("Clinic autocomplete index at version {}, build of version {} dropped",
+                        version, builtVersion);
+                return;
+            }
+            root = built;
+            clinics.clear();
+            all.forEach(clinic -> clinics.put(clinic.getId(), clinic));
+            version = builtVersion;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.debug("Clinic autocomplete index built: {} clinics, version {}", all.size(), builtVersion);
+    }
+
+    /**
+     * Applies the change in place. If the version moved by more than this change, another instance changed
+     * the clinics too, and the trie is rebuilt.
+     */
+    @TransactionalEventListener
+    public void onClinicsChanged(ClinicsChangedEvent event) {
+        long current = listVersionRepository.findVersionByName(ListVersion.CLINICS).orElse(0L);
+        boolean missedChange;
+        lock.writeLock().lock();
+        try {
+            if (event.deletedId() != null) {
+                remove(event.deletedId());
+            }
+            if (event.added() != null) {
+                add(event.added());
+            }
+            missedChange = current != version + 1;
+            version = current;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (missedChange) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${clinics.autocomplete.refresh-interval:PT1M}",
+            initialDelayString = "${clinics.autocomplete.refresh-interval:PT1M}")
+    public void refreshIfChanged() {
+        long current = listVersionRepository.findVersionByName(ListVersion.CLINICS).orElse(0L);
+        lock.readLock().lock();
+        boolean changed;
+        try {
+            changed = current != version;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (changed) {
+            rebuild();
+        }
+    }
+
+    /**
+     * @return at most <code>limit</code> (and the configured maximum) clinics with a word of the name or
+     * address starting with the query, best first
+     */
+    public List<ClinicDTO> suggest(String query, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+        int count = Math.min(limit, maxResults);
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < Math.min(prefix.length(), maxPrefixLength) && node != null; i++) {
+                node = node.child(prefix.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+
+            if (prefix.length() <= maxPrefixLength) {
+                return Arrays.stream(node.best).limit(count).map(Entry::clinic).toList();
+            }
+            List<Entry> matching = node.ends.stream()
+                    .filter(entry -> entry.key().startsWith(prefix))
+                    .toList();
+            return Arrays.stream(best(matching)).limit(count).map(Entry::clinic).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Must hold the write lock.
+     */
+    private void add(ClinicDTO clinic) {
+        remove(clinic.getId());
+        clinics.put(clinic.getId(), clinic);
+        for (Entry entry : entries(clinic)) {
+            insert(root, entry);
+        }
+    }
+
+    /**
+     * Must hold the write lock. Recomputes the best suggestions of every node on the paths of the clinic's keys
+     * from the bottom up, as other clinics may move up into the freed places.
+     */
+    private void remove(Long clinicId) {
+        ClinicDTO clinic = clinics.remove(clinicId);
+        if (clinic == null) {
+            return;
+        }
+        for (Entry entry : entries(clinic)) {
+            List<Node> path = new ArrayList<>();
+            Node node = root;
+            path.add(node);
+            String key = cut(entry.key());
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+                path.add(node);
+            }
+            if (node == null) {
+                continue;
+            }
+            node.ends.removeIf(end -> end.clinic().getId().equals(clinicId));
+            for (int i = path.size() - 1; i >= 0; i--) {
+                Node onPath = path.get(i);
+                if (i > 0 && onPath.isEmpty()) {
+                    path.get(i - 1).removeChild(key.charAt(i - 1));
+                } else {
+                    onPath.best = best(onPath.candidates());
+                }
+            }
+        }
+    }
+
+    private void insert(Node root, Entry entry) {
+        Node node = root;
+        offer(node, entry);
+        String key = cut(entry.key());
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childOrNew(key.charAt(i));
+            offer(node, entry);
+        }
+        node.ends.add(entry);
+    }
+
+    /**
+     * Puts the entry among the best suggestions of the node, if it ranks high enough.
+     */
+    private void offer(Node node, Entry entry) {
+        Entry[] best = node.best;
+        for (int i = 0; i < best.length; i++) {
+            if (best[i].clinic().getId().equals(entry.clinic().getId())) {
+                if (RANKING.compare(entry, best[i]) >= 0) {
+                    return;
+                }
+                List<Entry> candidates = new ArrayList<>(Arrays.asList(best));
+                candidates.set(i, entry);
+                node.best = best(candidates);
+                return;
+            }
+        }
+        if (best.length == maxResults && RANKING.compare(entry, best[best.length - 1]) >= 0) {
+            return;
+        }
+        List<Entry> candidates = new ArrayList<>(Arrays.asList(best));
+        candidates.add(entry);
+        node.best = best(candidates);
+    }
+
+    /**
+     * @return the best ranked entry of each clinic, best first, at most the maximum number of results
+     */
+    private Entry[] best(Collection<Entry> candidates) {
+        List<Entry> sorted = new ArrayList<>(candidates);
+        sorted.sort(RANKING);
+        Set<Long> seen = new HashSet<>();
+        List<Entry> best = new ArrayList<>(maxResults);
+        for (Entry entry : sorted) {
+            if (seen.add(entry.clinic().getId())) {
+                best.add(entry);
+                if (best.size() == maxResults) {
+                    break;
+                }
+            }
+        }
+        return best.toArray(new Entry[0]);
+    }
+
+    private String cut(String key) {
+        return key.length() > maxPrefixLength ? key.substring(0, maxPrefixLength) : key;
+    }
+
+    private static List<Entry> entries(ClinicDTO clinic) {
+        List<Entry> entries = new ArrayList<>();
+        addEntries(entries, clinic, NAME, normalize(clinic.getName()));
+        addEntries(entries, clinic, ADDRESS, normalize(clinic.getAddress()));
+        return entries;
+    }
+
+    private static void addEntries(List<Entry> entries, ClinicDTO clinic, int field, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isLetterOrDigit(text.charAt(i)) && (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)))) {
+                entries.add(new Entry(text.substring(i), clinic, field, i == 0));
+            }
+        }
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String withoutAccents = ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return WHITESPACE.matcher(withoutAccents.toLowerCase(Locale.ROOT)).replaceAll(" ").strip();
+    }
+
+    /**
+     * @param key        the normalized field from the start of a word
+     * @param fieldStart whether the key is the whole field
+     */
+    private record Entry(String key, ClinicDTO clinic, int field, boolean fieldStart) {
+    }
+
+    private static final class Node {
+
+        private static final Entry[] NONE = new Entry[0];
+
+        private char[] labels = new char[0];
+
+        private Node[] children = new Node[0];
+
+        // the keys cut at this node
+        private final List<Entry> ends = new ArrayList<>(0);
+
+        private Entry[] best = NONE;
+
+        Node child(char label) {
+            for (int i = 0; i < labels.length; i++) {
+                if (labels[i] == label) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node childOrNew(char label) {
+            Node child = child(label);
+            if (child == null) {
+                child = new Node();
+                labels = Arrays.copyOf(labels, labels.length + 1);
+                children = Arrays.copyOf(children, children.length + 1);
+                labels[labels.length - 1] = label;
+                children[children.length - 1] = child;
+            }
+            return child;
+        }
+
+        void removeChild(char label) {
+            for (int i = 0; i < labels.length; i++) {
+                if (labels[i] == label) {
+                    int last = labels.length - 1;
+                    labels[i] = labels[last];
+                    children[i] = children[last];
+                    labels = Arrays.copyOf(labels, last);
+                    children = Arrays.copyOf(children, last);
+                    return;
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return ends.isEmpty() && labels.length == 0;
+        }
+
+        List<Entry> candidates() {
+            List<Entry> candidates = new ArrayList<>(ends);
+            for (Node child : children) {
+                candidates.addAll(Arrays.asList(child.best));
+            }
+            return candidates;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.clinics;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * <h2>Keeps the pages of the clinic directory as ready-to-send JSON.</h2>
+ * <ul>
+ *     <li>The pages are cached for one version of the clinic list. A request for a newer version drops them,
+ *     so an instance never serves a page another instance has changed since.</li>
+ *     <li>The pages are also dropped as soon as a clinic change of this instance commits.</li>
+ *     <li>A hit reads neither the clinics nor runs Jackson. The number of cached pages is capped, pages
+ *     beyond the cap are built on every request.</li>
+ *     <li>Hits and misses are published as metrics under <code>clinics.directory.cache</code>.</li>
+ * </ul>
+ */
+@Component
+public class ClinicDirectoryCache {
+
+    private final ObjectMapper objectMapper;
+
+    private final int maxPages;
+
+    private final AtomicReference<Pages> pages = new AtomicReference<>(Pages.EMPTY);
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    public ClinicDirectoryCache(ObjectMapper objectMapper,
+                                @Value("${clinics.cache.max-pages:256}") int maxPages,
+                                MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.maxPages = maxPages;
+        this.hits = Counter.builder("clinics.directory.cache")
+                .description("Clinic directory pages requested")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("clinics.directory.cache")
+                .description("Clinic directory pages requested")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param version version of the clinic list, read before calling
+     * @param page    identifies the page within the version
+     * @param loader  reads the page, called on a miss only
+     * @return the page as JSON
+     */
+    public byte[] get(long version, String page, Supplier<?> loader) {
+        Pages current = pages.get();
+        if (current.version < version && pages.compareAndSet(current, new Pages(version))) {
+            current = pages.get();
+        }
+
+        byte[] json = current.version == version ? current.json.get(page) : null;
+        if (json != null) {
+            hits.increment();
+            return json;
+        }
+        misses.increment();
+        json = serialize(loader.get());
+        // a request that read an older version just before a change is answered without caching
+        if (current.version == version && current.json.size() < maxPages) {
+            current.json.putIfAbsent(page, json);
+        }
+        return json;
+    }
+
+    @TransactionalEventListener
+    public void onClinicsChanged(ClinicsChangedEvent event) {
+        invalidate();
+    }
+
+    public void invalidate() {
+        pages.set(Pages.EMPTY);
+    }
+
+    private byte[] serialize(Object page) {
+        try {
+            return objectMapper.writeValueAsBytes(page);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize the clinic directory", e);
+        }
+    }
+
+    private record Pages(long version, Map<String, byte[]> json) {
+        static final Pages EMPTY = new Pages(-1);
+
+        Pages(long version) {
+            this(version, new ConcurrentHashMap<>());
+        }
+    }
+}
@@ -2,14 +2,52 @@ package com.greenfox.dramacsoport.petclinicbackend.services.clinics;
 
 import com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.ClinicDTO;
 import com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.ClinicListResponse;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.autocomplete.ClinicSuggestionsResponse;
 import com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.delete.DeleteClinicResponse;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.nearest.NearestClinicsResponse;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.user.vet.VetDTO;
 import com.greenfox.dramacsoport.petclinicbackend.exceptions.DeletionException;
 
 import javax.naming.NameAlreadyBoundException;
 
 public interface ClinicService {
-    ClinicListResponse getClinics(String email);
+    /**
+     * @param page 0-based number of the page, the first page if <code>null</code>
+     * @param size number of clinics on the page, the configured default if <code>null</code>
+     * @param sort <code>id</code>, <code>name</code> or <code>address</code>, optionally followed by
+     *             <code>,asc</code> or <code>,desc</code>. By id if <code>null</code>.
+     */
+    ClinicListResponse getClinics(Integer page, Integer size, String sort);
+    /**
+     * @return the same page as {@link #getClinics}, serialized to JSON, from the clinic directory cache
+     */
+    byte[] getClinicsJson(Integer page, Integer size, String sort);
+    /**
+     * @return strong ETag of the page, changed by every added or deleted clinic.
+     * Computed without reading the clinics.
+     */
+    String getClinicsETag(Integer page, Integer size, String sort);
+    /**
+     * @param count    maximum number of clinics, the configured default if <code>null</code>
+     * @param radiusKm maximum distance along the surface, the configured default if <code>null</code>
+     * @return the clinics nearest to the location, closest first. Clinics without coordinates are left out.
+     */
+    NearestClinicsResponse findNearestClinics(double latitude, double longitude, Integer count, Double radiusKm);
+    /**
+     * @param query start of any word of the clinic name or address, case and accents do not matter
+     * @param limit maximum number of clinics, the configured maximum if <code>null</code> or more
+     * @return the matching clinics, name matches first
+     */
+    ClinicSuggestionsResponse suggestClinics(String query, Integer limit);
     ClinicDTO addClinic(String email, ClinicDTO clinicDTO) throws NameAlreadyBoundException;
     boolean isClinicRegistered(String name);
+    /**
+     * Refused while the clinic has vets or appointments.
+     */
     DeleteClinicResponse deleteClinic(Long id) throws DeletionException;
+    /**
+     * Makes the clinic the workplace of the vet, where owners can book the vet from now on. The vet's booked
+     * appointments stay where they are.
+     */
+    VetDTO assignVet(Long clinicId, Long vetId);
 }
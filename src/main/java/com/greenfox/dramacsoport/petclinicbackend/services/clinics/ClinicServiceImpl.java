@@ -3,47 +3,153 @@ package com.greenfox.dramacsoport.petclinicbackend.services.clinics;
 
 import com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.ClinicDTO;
 import com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.ClinicListResponse;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.autocomplete.ClinicSuggestionDTO;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.autocomplete.ClinicSuggestionsResponse;
 import com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.delete.DeleteClinicResponse;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.nearest.NearestClinicsResponse;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.user.vet.VetDTO;
 import com.greenfox.dramacsoport.petclinicbackend.errors.AppServiceErrors;
 import com.greenfox.dramacsoport.petclinicbackend.exceptions.DeletionException;
+import com.greenfox.dramacsoport.petclinicbackend.exceptions.ResourceNotFoundException;
+import com.greenfox.dramacsoport.petclinicbackend.exceptions.ValidationException;
+import com.greenfox.dramacsoport.petclinicbackend.mappers.ClinicMapper;
+import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
 import com.greenfox.dramacsoport.petclinicbackend.models.Clinic;
+import com.greenfox.dramacsoport.petclinicbackend.models.ListVersion;
+import com.greenfox.dramacsoport.petclinicbackend.models.Role;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.AppUserRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.AppointmentRepository;
 import com.greenfox.dramacsoport.petclinicbackend.repositories.ClinicRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.ListVersionRepository;
 import com.greenfox.dramacsoport.petclinicbackend.services.appUser.AppUserServiceImpl;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.naming.NameAlreadyBoundException;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class ClinicServiceImpl implements ClinicService {
 
     private final ClinicRepository clinicRepository;
-    private final ModelMapper modelMapper = new ModelMapper();
+    private final ListVersionRepository listVersionRepository;
+    private final AppUserRepository appUserRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final ClinicMapper clinicMapper;
+    private final ClinicDirectoryCache clinicDirectoryCache;
+    private final ClinicSpatialIndex clinicSpatialIndex;
+    private final ClinicAutocompleteIndex clinicAutocompleteIndex;
+    private final ApplicationEventPublisher eventPublisher;
     Logger logger = LoggerFactory.getLogger(AppUserServiceImpl.class);
 
+    private static final Set<String> SORTABLE_PROPERTIES = Set.of("id", "name", "address");
+
+    @Value("${clinics.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${clinics.page.max-size:200}")
+    private int maxPageSize;
+
+    @Value("${clinics.nearest.default-count:5}")
+    private int defaultNearestCount;
+
+    @Value("${clinics.nearest.max-count:50}")
+    private int maxNearestCount;
+
+    @Value("${clinics.nearest.default-radius-km:50}")
+    private double defaultRadiusKm;
+
+    /**
+     * Clinics with the same name or address are ordered by id, so every clinic is on exactly one page.
+     */
+    @Override
+    public ClinicListResponse getClinics(Integer page, Integer size, String sort) {
+        ClinicPage clinicPage = clinicPage(page, size, sort);
+        Sort order = Sort.by(clinicPage.direction(), clinicPage.property());
+        if (!clinicPage.property().equals("id")) {
+            order = order.and(Sort.by("id"));
+        }
+        Page<ClinicDTO> clinics = clinicRepository.findClinicDTOs(
+                PageRequest.of(clinicPage.page(), clinicPage.size(), order));
+        return new ClinicListResponse(clinics.getContent(), clinicPage.page(), clinicPage.size(),
+                clinics.getTotalElements(), clinics.getTotalPages());
+    }
+
+    /**
+     * The version is read before the page, like for the ETag, so the page is never older than the version
+     * it is cached for.
+     */
+    @Override
+    public byte[] getClinicsJson(Integer page, Integer size, String sort) {
+        ClinicPage clinicPage = clinicPage(page, size, sort);
+        return clinicDirectoryCache.get(clinicsVersion(), clinicPage.key(),
+                () -> getClinics(clinicPage.page(), clinicPage.size(), clinicPage.sort()));
+    }
+
+    /**
+     * The version is read before the list, so a clinic saved in between can only make the ETag older than the
+     * content, never newer.
+     */
+    @Override
+    public String getClinicsETag(Integer page, Integer size, String sort) {
+        return "\"clinics-%d-%s\"".formatted(clinicsVersion(), clinicPage(page, size, sort).key());
+    }
+
+    /**
+     * Answered from the in-memory spatial index, without reading the database.
+     */
+    @Override
+    public NearestClinicsResponse findNearestClinics(double latitude, double longitude, Integer count,
+                                                     Double radiusKm) {
+        if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+            throw new ValidationException(AppServiceErrors.INVALID_COORDINATES);
+        }
+        if (count != null && count < 1) {
+            throw new ValidationException(AppServiceErrors.INVALID_NEAREST_COUNT);
+        }
+        if (radiusKm != null && !(radiusKm > 0)) {
+            throw new ValidationException(AppServiceErrors.INVALID_RADIUS);
+        }
+        return new NearestClinicsResponse(clinicSpatialIndex.findNearest(latitude, longitude,
+                Math.min(count == null ? defaultNearestCount : count, maxNearestCount),
+                radiusKm == null ? defaultRadiusKm : radiusKm));
+    }
+
     @Override
-    public ClinicListResponse getClinics(String email) {
-        List<Clinic> clinics = clinicRepository.findAll();
-        List<ClinicDTO> clinicDTOList = clinics.stream()
-                .map(clinic -> modelMapper.map(clinic, ClinicDTO.class))
-                .collect(Collectors.toList());
-        return new ClinicListResponse(clinicDTOList);
+    public ClinicSuggestionsResponse suggestClinics(String query, Integer limit) {
+        if (ClinicAutocompleteIndex.normalize(query).chars().noneMatch(Character::isLetterOrDigit)) {
+            throw new ValidationException(AppServiceErrors.AUTOCOMPLETE_QUERY_EMPTY);
+        }
+        if (limit != null && limit < 1) {
+            throw new ValidationException(AppServiceErrors.INVALID_SUGGESTION_LIMIT);
+        }
+        int count = limit == null ? clinicAutocompleteIndex.getMaxResults() : limit;
+        return new ClinicSuggestionsResponse(clinicAutocompleteIndex.suggest(query, count).stream()
+                .map(clinic -> new ClinicSuggestionDTO(clinic.getId(), clinic.getName(), clinic.getAddress()))
+                .toList());
     }
 
     @Override
+    @Transactional
     public ClinicDTO addClinic(String email, ClinicDTO clinicDTO) throws NameAlreadyBoundException {
         if(isClinicRegistered(clinicDTO.getName())){
             throw new NameAlreadyBoundException(AppServiceErrors.CLINIC_ALREADY_EXISTS);
         }
-        Clinic clinic = modelMapper.map(clinicDTO, Clinic.class);
+        Clinic clinic = clinicMapper.toEntity(clinicDTO);
         clinicRepository.save(clinic);
-        return modelMapper.map(clinic, ClinicDTO.class);
+        ClinicDTO added = clinicMapper.toDto(clinic);
+        incrementClinicsVersion(ClinicsChangedEvent.added(added));
+        return added;
     }
 
     @Override
@@ -52,10 +158,15 @@ public class ClinicServiceImpl implements ClinicService {
     }
 
     @Override
+    @Transactional
     public DeleteClinicResponse deleteClinic(Long id) throws DeletionException {
         Clinic clinic = clinicRepository.findById(id).orElse(null);
+        if (clinic != null && (appUserRepository.existsByClinicId(id) || appointmentRepository.existsByClinicId(id))) {
+            throw new DeletionException("Unable to delete clinic with id: " + id + ", it still has vets or appointments.");
+        }
         if(clinic != null) {
             clinicRepository.delete(clinic);
+            incrementClinicsVersion(ClinicsChangedEvent.deleted(id));
             logger.info("Clinic deleted with id: {}", id);
             return new DeleteClinicResponse(id + " clinic has been successfully deleted.");
         } else {
@@ -63,5 +174,66 @@ public class ClinicServiceImpl implements ClinicService {
         }
     }
 
+    @Override
+    @Transactional
+    public VetDTO assignVet(Long clinicId, Long vetId) {
+        Clinic clinic = clinicRepository.findById(clinicId)
+                .orElseThrow(() -> new ResourceNotFoundException(AppServiceErrors.CLINIC_NOT_FOUND + clinicId));
+        AppUser vet = appUserRepository.findByIdAndRole(vetId, Role.VET)
+                .orElseThrow(() -> new ResourceNotFoundException(AppServiceErrors.VET_NOT_FOUND + vetId));
+        vet.setClinic(clinic);
+        appUserRepository.save(vet);
+        logger.info("Vet {} assigned to clinic {}", vetId, clinicId);
+        return new VetDTO(vet.getId(), vet.getDisplayName(), clinic.getId());
+    }
+
+    private long clinicsVersion() {
+        return listVersionRepository.findVersionByName(ListVersion.CLINICS).orElse(0L);
+    }
+
+    private void incrementClinicsVersion(ClinicsChangedEvent event) {
+        // the row is created at startup (see ListVersionInitializer)
+        if (listVersionRepository.increment(ListVersion.CLINICS) == 0) {
+            throw new IllegalStateException("The version row of the clinic list is missing");
+        }
+        eventPublisher.publishEvent(event);
+    }
 
+    private ClinicPage clinicPage(Integer page, Integer size, String sort) {
+        if (page != null && page < 0) {
+            throw new ValidationException(AppServiceErrors.INVALID_PAGE_NUMBER);
+        }
+        if (size != null && size < 1) {
+            throw new ValidationException(AppServiceErrors.INVALID_PAGE_SIZE);
+        }
+
+        String property = "id";
+        Sort.Direction direction = Sort.Direction.ASC;
+        if (sort != null) {
+            String[] parts = sort.toLowerCase(Locale.ROOT).split(",", -1);
+            property = parts[0].strip();
+            if (!SORTABLE_PROPERTIES.contains(property) || parts.length > 2) {
+                throw new ValidationException(AppServiceErrors.INVALID_CLINIC_SORT);
+            }
+            if (parts.length == 2) {
+                direction = Sort.Direction.fromOptionalString(parts[1].strip())
+                        .orElseThrow(() -> new ValidationException(AppServiceErrors.INVALID_CLINIC_SORT));
+            }
+        }
+        return new ClinicPage(page == null ? 0 : page,
+                Math.min(size == null ? defaultPageSize : size, maxPageSize), property, direction);
+    }
+
+    /**
+     * A validated page request. Requests that mean the same page get the same key.
+     */
+    private record ClinicPage(int page, int size, String property, Sort.Direction direction) {
+        String sort() {
+            return property + "," + direction.name().toLowerCase(Locale.ROOT);
+        }
+
+        String key() {
+            return page + "-" + size + "-" + sort();
+        }
+    }
 }
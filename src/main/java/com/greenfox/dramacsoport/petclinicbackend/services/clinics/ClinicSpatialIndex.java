@@ -0,0 +1,305 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.clinics;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.ClinicDTO;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.nearest.NearbyClinicDTO;
+import com.greenfox.dramacsoport.petclinicbackend.models.ListVersion;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.ClinicRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.ListVersionRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <h2>In-memory k-d tree of the clinics with coordinates, for the nearest clinic search.</h2>
+ * <ul>
+ *     <li>The clinics are points on the unit sphere (x, y, z). The straight line between two points grows with
+ *     the distance along the surface, so the nearest points of the tree are the nearest clinics, without
+ *     special cases at the poles or the antimeridian.</li>
+ *     <li>A search walks the side of every split the location is on first, and only visits the other side
+ *     when the split is closer than the radius and the k-th nearest clinic found so far.</li>
+ *     <li>The tree is immutable and rebuilt from the database: at startup, when a clinic change of this
+ *     instance commits, and when the clinic list version shows a change of another instance.</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+public class ClinicSpatialIndex {
+
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private final ClinicRepository clinicRepository;
+
+    private final ListVersionRepository listVersionRepository;
+
+    private final Logger logger = LoggerFactory.getLogger(ClinicSpatialIndex.class);
+
+    private volatile Tree tree = new Tree(List.of(), -1);
+
+    /**
+     * The version is read before the clinics, so a change in between is picked up by the next refresh.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long version = listVersionRepository.findVersionByName(ListVersion.CLINICS).orElse(0L);
+        List<ClinicDTO> clinics = clinicRepository.findLocatedClinicDTOs();
+        tree = new Tree(clinics, version);
+        logger.debug("Clinic spatial index built: {} clinics, version {}", clinics.size(), version);
+    }
+
+    @TransactionalEventListener
+    public void onClinicsChanged(ClinicsChangedEvent event) {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${clinics.nearest.refresh-interval:PT1M}",
+            initialDelayString = "${clinics.nearest.refresh-interval:PT1M}")
+    public void refreshIfChanged() {
+        if (listVersionRepository.findVersionByName(ListVersion.CLINICS).orElse(0L) != tree.version) {
+            rebuild();
+        }
+    }
+
+    /**
+     * @return at most <code>count</code> clinics within <code>radiusKm</code> of the location, closest first
+     */
+    public List<NearbyClinicDTO> findNearest(double latitude, double longitude, int count, double radiusKm) {
+        double[] location = toUnitVector(latitude, longitude);
+        // the straight line through the sphere belonging to the radius along the surface
+        double angle = Math.min(radiusKm / EARTH_RADIUS_KM, Math.PI);
+        double chord = 2 * Math.sin(angle / 2);
+        return tree.findNearest(location, count, chord * chord);
+    }
+
+    static double[] toUnitVector(double latitude, double longitude) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        double cosLat = Math.cos(lat);
+        return new double[]{cosLat * Math.cos(lon), cosLat * Math.sin(lon), Math.sin(lat)};
+    }
+
+    /**
+     * Balanced k-d tree stored in arrays: the node of the range [lo, hi) is at the middle of the range, its
+     * left subtree is [lo, mid) and its right subtree (mid, hi). The split axis cycles through x, y and z.
+     */
+    private static final class Tree {
+
+        private final long version;
+
+        private final ClinicDTO[] clinics;
+
+        // x, y, z of every node, 3 values per node
+        private final double[] points;
+
+        Tree(List<ClinicDTO> located, long version) {
+            this.version = version;
+            int size = located.size();
+            clinics = located.toArray(new ClinicDTO[0]);
+            points = new double[size * 3];
+            for (int i = 0; i < size; i++) {
+                System.arraycopy(toUnitVector(clinics[i].getLatitude(), clinics[i].getLongitude()), 0,
+                        points, i * 3, 3);
+            }
+            build(0, size, 0);
+        }
+
+        private void build(int lo, int hi, int axis) {
+            if (hi - lo <= 1) {
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            select(lo, hi - 1, mid, axis);
+            build(lo, mid, (axis + 1) % 3);
+            build(mid + 1, hi, (axis + 1) % 3);
+        }
+
+        /**
+         * Quickselect: moves the node with the k-th smallest coordinate on the axis to k, the smaller ones
+         * before it and the larger ones after it.
+         */
+        private void select(int lo, int hi, int k, int axis) {
+            while (lo < hi) {
+                double pivot = points[((lo + hi) >>> 1) * 3 + axis];
+                int i = lo;
+                int j = hi;
+                while (i <= j) {
+                    while (points[i * 3 + axis] < pivot) {
+                        i++;
+                    }
+                    while (points[j * 3 + axis] > pivot) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        swap(i++, j--);
+                    }
+                }
+                if (k <= j) {
+                    hi = j;
+                } else if (k >= i) {
+                    lo = i;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private void swap(int a, int b) {
+            ClinicDTO clinic = clinics[a];
+            clinics[a] = clinics[b];
+            clinics[b] = clinic;
+            for (int axis = 0; axis < 3; axis++) {
+                double coordinate = points[a * 3 + axis];
+                points[a * 3 + axis] = points[b * 3 + axis];
+                points[b * 3 + axis] = coordinate;
+            }
+        }
+
+        List<NearbyClinicDTO> findNearest(double[] location, int count, double maxDistance2) {
+            Candidates candidates = new Candidates(count, maxDistance2);
+            search(0, clinics.length, 0, location, candidates);
+
+            List<NearbyClinicDTO> nearest = new ArrayList<>(candidates.size);
+            for (int node : candidates.sorted()) {
+                ClinicDTO clinic = clinics[node];
+                double chord = Math.sqrt(distance2(node, location));
+                double distanceKm = 2 * Math.asin(Math.min(1, chord / 2)) * EARTH_RADIUS_KM;
+                nearest.add(new NearbyClinicDTO(clinic.getId(), clinic.getName(), clinic.getAddress(),
+                        clinic.getLatitude(), clinic.getLongitude(), distanceKm));
+            }
+            return nearest;
+        }
+
+        private void search(int lo, int hi, int axis, double[] location, Candidates candidates) {
+            if (lo >= hi) {
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            candidates.offer(mid, distance2(mid, location));
+
+            double toSplit = location[axis] - points[mid * 3 + axis];
+            int nextAxis = (axis + 1) % 3;
+            if (toSplit < 0) {
+                search(lo, mid, nextAxis, location, candidates);
+                if (toSplit * toSplit <= candidates.bound()) {
+                    search(mid + 1, hi, nextAxis, location, candidates);
+                }
+            } else {
+                search(mid + 1, hi, nextAxis, location, candidates);
+                if (toSplit * toSplit <= candidates.bound()) {
+                    search(lo, mid, nextAxis, location, candidates);
+                }
+            }
+        }
+
+        private double distance2(int node, double[] location) {
+            double dx = points[node * 3] - location[0];
+            double dy = points[node * 3 + 1] - location[1];
+            double dz = points[node * 3 + 2] - location[2];
+            return dx * dx + dy * dy + dz * dz;
+        }
+    }
+
+    /**
+     * The nearest nodes found so far, in a max-heap on the squared distance, so the farthest is replaced first.
+     */
+    private static final class Candidates {
+
+        private final int[] nodes;
+
+        private final double[] distances;
+
+        private final double maxDistance2;
+
+        private int size;
+
+        Candidates(int count, double maxDistance2) {
+            this.nodes = new int[count];
+            this.distances = new double[count];
+            this.maxDistance2 = maxDistance2;
+        }
+
+        /**
+         * @return the squared distance a node must not exceed to become a candidate
+         */
+        double bound() {
+            return size < nodes.length ? maxDistance2 : Math.min(maxDistance2, distances[0]);
+        }
+
+        void offer(int node, double distance2) {
+            if (distance2 > bound()) {
+                return;
+            }
+            if (size < nodes.length) {
+                nodes[size] = node;
+                distances[size] = distance2;
+                siftUp(size++);
+            } else {
+                nodes[0] = node;
+                distances[0] = distance2;
+                siftDown(0);
+            }
+        }
+
+        /**
+         * Empties the heap.
+         * @return the nodes, nearest first
+         */
+        int[] sorted() {
+            int[] sorted = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                sorted[i] = nodes[0];
+                size--;
+                nodes[0] = nodes[size];
+                distances[0] = distances[size];
+                siftDown(0);
+            }
+            return sorted;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (distances[parent] >= distances[i]) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int largest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && distances[left] > distances[largest]) {
+                    largest = left;
+                }
+                if (right < size && distances[right] > distances[largest]) {
+                    largest = right;
+                }
+                if (largest == i) {
+                    return;
+                }
+                swap(i, largest);
+                i = largest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int node = nodes[a];
+            nodes[a] = nodes[b];
+            nodes[b] = node;
+            double distance = distances[a];
+            distances[a] = distances[b];
+            distances[b] = distance;
+        }
+    }
+}
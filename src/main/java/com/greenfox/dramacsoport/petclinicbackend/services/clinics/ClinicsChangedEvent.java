@@ -0,0 +1,19 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.clinics;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.ClinicDTO;
+
+/**
+ * Published in the transaction that added or deleted a clinic.
+ * @param added     the added clinic, <code>null</code> for a deletion
+ * @param deletedId id of the deleted clinic, <code>null</code> for an addition
+ */
+public record ClinicsChangedEvent(ClinicDTO added, Long deletedId) {
+
+    public static ClinicsChangedEvent added(ClinicDTO clinic) {
+        return new ClinicsChangedEvent(clinic, null);
+    }
+
+    public static ClinicsChangedEvent deleted(Long id) {
+        return new ClinicsChangedEvent(null, id);
+    }
+}
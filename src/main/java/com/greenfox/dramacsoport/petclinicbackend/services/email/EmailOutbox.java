@@ -0,0 +1,37 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.email;
+
+import com.greenfox.dramacsoport.petclinicbackend.models.OutboxEmail;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.OutboxEmailRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * <h2>Queues emails instead of sending them during the request.</h2>
+ * The email is written to the outbox table in the transaction of the caller, so it is stored if and only if
+ * the change it reports is committed. {@link OutboxDispatcher} delivers it in the background.
+ */
+@Service
+@RequiredArgsConstructor
+public class EmailOutbox {
+
+    private final OutboxEmailRepository outboxEmailRepository;
+
+    /**
+     * Must be called inside the transaction of the change the email is about.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String recipient, String subject, String body) {
+        Instant now = Instant.now();
+        outboxEmailRepository.save(OutboxEmail.builder()
+                .recipient(recipient)
+                .subject(subject)
+                .body(body)
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build());
+    }
+}
@@ -0,0 +1,271 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.email;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMailMessage;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <h2>Sends emails over a small pool of long-lived SMTP connections.</h2>
+ * {@link JavaMailSenderImpl} connects, authenticates (and negotiates TLS) for every send call. This engine keeps
+ * the connections open and sends whole batches over them instead.
+ * <ul>
+ *     <li>A batch is split between the pooled connections, and the slices are sent in parallel.</li>
+ *     <li>A connection is reopened when it has been idle too long, has sent its quota of messages,
+ *     or breaks while sending. The message that hit the broken connection is retried once.</li>
+ *     <li>A rejected recipient only fails its own message, the connection is reused for the rest.</li>
+ *     <li>Sent and failed messages, opened connections and batch durations are published as metrics
+ *     under <code>mail.delivery.*</code>.</li>
+ * </ul>
+ */
+@Component
+public class MailDeliveryEngine implements AutoCloseable {
+
+    private final JavaMailSenderImpl mailSender;
+
+    private final int poolSize;
+
+    private final long maxIdleNanos;
+
+    private final int maxMessagesPerConnection;
+
+    private final BlockingQueue<PooledConnection> idleConnections;
+
+    private final ExecutorService senders;
+
+    private final Counter sentMessages;
+
+    private final Counter failedMessages;
+
+    private final Counter openedConnections;
+
+    private final Timer batchTimer;
+
+    private final Logger logger = LoggerFactory.getLogger(MailDeliveryEngine.class);
+
+    public MailDeliveryEngine(JavaMailSenderImpl mailSender,
+                              @Value("${mail.delivery.pool-size:2}") int poolSize,
+                              @Value("${mail.delivery.max-idle:PT30S}") Duration maxIdle,
+                              @Value("${mail.delivery.max-messages-per-connection:100}") int maxMessagesPerConnection,
+                              MeterRegistry meterRegistry) {
+        this.mailSender = mailSender;
+        this.poolSize = Math.max(1, poolSize);
+        this.maxIdleNanos = maxIdle.toNanos();
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.idleConnections = new ArrayBlockingQueue<>(this.poolSize);
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(this.poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "mail-delivery-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.sentMessages = Counter.builder("mail.delivery.messages")
+                .description("Emails handed over to the SMTP server")
+                .tag("result", "sent")
+                .register(meterRegistry);
+        this.failedMessages = Counter.builder("mail.delivery.messages")
+                .description("Emails handed over to the SMTP server")
+                .tag("result", "failed")
+                .register(meterRegistry);
+        this.openedConnections = Counter.builder("mail.delivery.connections.opened")
+                .description("SMTP connections opened, including reconnects")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("mail.delivery.batch")
+                .description("Time spent sending a batch of emails")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sends the messages over the pooled connections.
+     * @return the messages that could not be sent, with the reason. The keys are the message objects passed in.
+     */
+    public Map<SimpleMailMessage, Exception> send(List<SimpleMailMessage> messages) {
+        if (messages.isEmpty()) {
+            return Map.of();
+        }
+        return batchTimer.record(() -> {
+            int slices = Math.min(poolSize, messages.size());
+            int sliceSize = (messages.size() + slices - 1) / slices;
+            List<Future<Map<SimpleMailMessage, Exception>>> results = new ArrayList<>();
+            for (int start = 0; start < messages.size(); start += sliceSize) {
+                List<SimpleMailMessage> slice = messages.subList(start, Math.min(messages.size(), start + sliceSize));
+                results.add(senders.submit(() -> sendSlice(slice)));
+            }
+
+            Map<SimpleMailMessage, Exception> failures = new IdentityHashMap<>();
+            for (Future<Map<SimpleMailMessage, Exception>> result : results) {
+                failures.putAll(await(result));
+            }
+            return failures;
+        });
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        senders.shutdown();
+        PooledConnection connection;
+        while ((connection = idleConnections.poll()) != null) {
+            connection.close();
+        }
+    }
+
+    private Map<SimpleMailMessage, Exception> sendSlice(List<SimpleMailMessage> slice) {
+        Map<SimpleMailMessage, Exception> failures = new IdentityHashMap<>();
+        PooledConnection connection = null;
+        try {
+            for (int i = 0; i < slice.size(); i++) {
+                SimpleMailMessage message = slice.get(i);
+                MimeMessage mimeMessage;
+                try {
+                    mimeMessage = toMimeMessage(message);
+                } catch (MessagingException e) {
+                    failures.put(message, e);
+                    continue;
+                }
+
+                boolean retried = false;
+                while (true) {
+                    try {
+                        connection = usable(connection);
+                        connection.send(mimeMessage);
+                        break;
+                    } catch (MessagingException e) {
+                        if (e instanceof SendFailedException && connection != null && connection.isAlive()) {
+                            // the server refused this message, the connection itself is fine
+                            failures.put(message, e);
+                            break;
+                        }
+                        if (connection == null) {
+                            // could not even connect, the rest of the slice would fail the same way
+                            slice.subList(i, slice.size()).forEach(failed -> failures.put(failed, e));
+                            return failures;
+                        }
+                        connection.close();
+                        connection = null;
+                        if (retried) {
+                            failures.put(message, e);
+                            break;
+                        }
+                        logger.debug("SMTP connection broke, reconnecting: {}", e.getMessage());
+                        retried = true;
+                    }
+                }
+            }
+            return failures;
+        } finally {
+            release(connection);
+            failedMessages.increment(failures.size());
+            sentMessages.increment(slice.size() - failures.size());
+        }
+    }
+
+    /**
+     * @return the given connection, a pooled one or a new one, that is open and not stale
+     */
+    private PooledConnection usable(PooledConnection connection) throws MessagingException {
+        if (connection == null) {
+            connection = idleConnections.poll();
+        }
+        if (connection != null && connection.isStale(System.nanoTime())) {
+            connection.close();
+            connection = null;
+        }
+        if (connection == null) {
+            Transport transport = mailSender.getSession().getTransport(mailSender.getProtocol());
+            transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(),
+                    mailSender.getPassword());
+            openedConnections.increment();
+            connection = new PooledConnection(transport);
+        }
+        return connection;
+    }
+
+    private void release(PooledConnection connection) {
+        if (connection != null && (senders.isShutdown() || !idleConnections.offer(connection))) {
+            connection.close();
+        }
+    }
+
+    private MimeMessage toMimeMessage(SimpleMailMessage message) throws MessagingException {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        message.copyTo(new MimeMailMessage(mimeMessage));
+        if (mimeMessage.getSentDate() == null) {
+            mimeMessage.setSentDate(new Date());
+        }
+        mimeMessage.saveChanges();
+        return mimeMessage;
+    }
+
+    private static Map<SimpleMailMessage, Exception> await(Future<Map<SimpleMailMessage, Exception>> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Interrupted while sending emails", e);
+        } catch (ExecutionException e) {
+            throw new MailSendException("Sending emails failed", e.getCause());
+        }
+    }
+
+    private final class PooledConnection {
+
+        private final Transport transport;
+
+        private long lastUsedAt = System.nanoTime();
+
+        private int messagesSent;
+
+        PooledConnection(Transport transport) {
+            this.transport = transport;
+        }
+
+        void send(MimeMessage message) throws MessagingException {
+            transport.sendMessage(message, message.getAllRecipients());
+            messagesSent++;
+            lastUsedAt = System.nanoTime();
+        }
+
+        /**
+         * Does not ask the server (Transport.isConnected() would cost a NOOP round trip). A connection closed
+         * by the server before the idle limit fails on the next send and is reopened then.
+         */
+        boolean isStale(long now) {
+            return now - lastUsedAt > maxIdleNanos || messagesSent >= maxMessagesPerConnection;
+        }
+
+        /**
+         * Asks the server with a NOOP, so only used after a failure. A closed connection can also surface
+         * as a refused message, as JavaMail reports any unexpected reply that way.
+         */
+        boolean isAlive() {
+            return transport.isConnected();
+        }
+
+        void close() {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                logger.debug("Failed to close SMTP connection: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.email;
+
+import com.greenfox.dramacsoport.petclinicbackend.models.OutboxEmail;
+import com.greenfox.dramacsoport.petclinicbackend.models.OutboxStatus;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.OutboxEmailRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.mail.MailException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <h2>Delivers the emails of the outbox in the background.</h2>
+ * <ul>
+ *     <li>Due emails are sent in batches, over the pooled connections of {@link MailDeliveryEngine}.</li>
+ *     <li>Each email is claimed before sending, so several instances can run the dispatcher side by side.</li>
+ *     <li>A failed email is retried with exponential backoff, and given up after the maximum number of
+ *     attempts.</li>
+ *     <li>Sent emails are deleted after the retention period.</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxDispatcher {
+
+    private final OutboxEmailRepository outboxEmailRepository;
+
+    private final MailDeliveryEngine mailDeliveryEngine;
+
+    private final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    @Value("${spring.mail.username}")
+    private String petClinicEmail;
+
+    @Value("${mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${mail.outbox.base-backoff:PT30S}")
+    private Duration baseBackoff;
+
+    @Value("${mail.outbox.max-backoff:PT1H}")
+    private Duration maxBackoff;
+
+    @Value("${mail.outbox.lease:PT5M}")
+    private Duration lease;
+
+    @Value("${mail.outbox.retention:P7D}")
+    private Duration retention;
+
+    /**
+     * Sends every due email, one batch after the other.
+     */
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval:PT5S}",
+            initialDelayString = "${mail.outbox.poll-interval:PT5S}")
+    public void dispatch() {
+        int claimed;
+        do {
+            claimed = dispatchBatch(Instant.now());
+        } while (claimed == batchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${mail.outbox.purge-interval:PT1H}",
+            initialDelayString = "${mail.outbox.purge-interval:PT1H}")
+    public void purgeSent() {
+        outboxEmailRepository.deleteAllByStatusAndSentAtBefore(OutboxStatus.SENT, Instant.now().minus(retention));
+    }
+
+    /**
+     * @return the number of emails claimed by this batch
+     */
+    private int dispatchBatch(Instant now) {
+        List<OutboxEmail> claimed = new ArrayList<>();
+        for (OutboxEmail email : outboxEmailRepository.findAllByStatusAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                OutboxStatus.PENDING, now, Limit.of(batchSize))) {
+            if (outboxEmailRepository.claim(email.getId(), email.getAttempts(), now.plus(lease)) == 1) {
+                email.setAttempts(email.getAttempts() + 1);
+                claimed.add(email);
+            }
+        }
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+
+        // SimpleMailMessage equality is based on its content, so identical emails are told apart by identity
+        Map<SimpleMailMessage, OutboxEmail> messages = new IdentityHashMap<>();
+        for (OutboxEmail email : claimed) {
+            messages.put(toMessage(email), email);
+        }
+        Map<SimpleMailMessage, Exception> failures = send(new ArrayList<>(messages.keySet()));
+
+        Instant finishedAt = Instant.now();
+        messages.forEach((message, email) -> {
+            Exception failure = failures.get(message);
+            if (failure == null) {
+                email.setStatus(OutboxStatus.SENT);
+                email.setSentAt(finishedAt);
+                email.setLastError(null);
+            } else {
+                reschedule(email, failure, finishedAt);
+            }
+        });
+        outboxEmailRepository.saveAll(claimed);
+        logger.info("Outbox batch finished: {} sent, {} failed", claimed.size() - failures.size(), failures.size());
+        return claimed.size();
+    }
+
+    /**
+     * @return the messages that could not be sent, with the reason
+     */
+    private Map<SimpleMailMessage, Exception> send(List<SimpleMailMessage> messages) {
+        try {
+            return mailDeliveryEngine.send(messages);
+        } catch (MailException e) {
+            Map<SimpleMailMessage, Exception> failures = new IdentityHashMap<>();
+            for (SimpleMailMessage message : messages) {
+                failures.put(message, e);
+            }
+            return failures;
+        }
+    }
+
+    private void reschedule(OutboxEmail email, Exception failure, Instant now) {
+        email.setLastError(abbreviate(failure.getMessage()));
+        if (email.getAttempts() >= maxAttempts) {
+            email.setStatus(OutboxStatus.FAILED);
+            logger.error("Giving up on email {} to {} after {} attempts: {}",
+                    email.getId(), email.getRecipient(), email.getAttempts(), failure.getMessage());
+            return;
+        }
+        email.setNextAttemptAt(now.plus(backoff(email.getAttempts())));
+        logger.warn("Failed to send email {} (attempt {}): {}", email.getId(), email.getAttempts(), failure.getMessage());
+    }
+
+    /**
+     * @return base backoff doubled after every failed attempt, capped at the maximum backoff
+     */
+    private Duration backoff(int attempts) {
+        Duration backoff = baseBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    private SimpleMailMessage toMessage(OutboxEmail email) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(petClinicEmail);
+        message.setTo(email.getRecipient());
+        message.setSubject(email.getSubject());
+        message.setText(email.getBody());
+        return message;
+    }
+
+    private static String abbreviate(String text) {
+        if (text == null || text.length() <= 1000) {
+            return text;
+        }
+        return text.substring(0, 1000);
+    }
+}
@@ -0,0 +1,132 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.password;
+
+import com.greenfox.dramacsoport.petclinicbackend.exceptions.HashingCapacityExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <h2>Runs the password hashing of a delegate encoder on a dedicated, bounded thread pool.</h2>
+ * BCrypt is deliberately slow, so a burst of logins would otherwise keep every request thread busy and
+ * starve the cheap endpoints.
+ * <ul>
+ *     <li>At most <code>threads</code> hashes are computed at the same time.</li>
+ *     <li>At most <code>queueCapacity</code> hashes wait for a free thread, any further call is rejected
+ *     immediately with a {@link HashingCapacityExceededException}.</li>
+ *     <li>Queue depth, active hashes, hash latency and rejections are published as metrics
+ *     under <code>password.hashing.*</code>.</li>
+ * </ul>
+ */
+public class BulkheadPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+    private final PasswordEncoder delegate;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Duration retryAfter;
+
+    private final Timer encodeTimer;
+
+    private final Timer matchesTimer;
+
+    private final Counter rejections;
+
+    private final Logger logger = LoggerFactory.getLogger(BulkheadPasswordEncoder.class);
+
+    /**
+     * @param threads       size of the hashing pool, a value below 1 means half of the available processors
+     * @param queueCapacity number of hashes allowed to wait for a free thread
+     * @param retryAfter    returned to rejected clients as the time to wait before the next attempt
+     */
+    public BulkheadPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity,
+                                   Duration retryAfter, MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.delegate = delegate;
+        this.retryAfter = retryAfter;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), new HashingThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder("password.hashing.duration")
+                .description("Time spent computing a password hash")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("password.hashing.duration")
+                .description("Time spent computing a password hash")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        this.rejections = Counter.builder("password.hashing.rejected")
+                .description("Hashing requests rejected because the pool and its queue were full")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Hashing requests waiting for a free thread")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hashes being computed right now")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private <T> T submit(Timer timer, Callable<T> hashing) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timer.recordCallable(hashing));
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            logger.warn("Password hashing pool is saturated, request rejected");
+            throw new HashingCapacityExceededException(retryAfter);
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private static class HashingThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
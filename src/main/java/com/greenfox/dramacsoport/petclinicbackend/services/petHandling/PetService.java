@@ -2,13 +2,41 @@ package com.greenfox.dramacsoport.petclinicbackend.services.petHandling;
 
 import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.PetDTO;
 import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.PetListResponse;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.bulk.SavePetsResponse;
 import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.update.EditPetResponse;
 
+import java.util.List;
+
 public interface PetService {
 
-    PetListResponse getUserPets(String email);
+    /**
+     * @param pageSize  number of pets on the page, the configured default if <code>null</code>
+     * @param pageToken the <code>nextPageToken</code> of the previous page, <code>null</code> for the first page
+     */
+    PetListResponse getUserPets(String email, Integer pageSize, String pageToken);
+
+    /**
+     * @return strong ETag of the user's pet list, changed by every change of the user's pets.
+     * Computed without reading the pets.
+     */
+    String getUserPetsETag(String email, Integer pageSize, String pageToken);
+
+    /**
+     * Finds the pets of every user whose name, breed or special condition contains the query
+     * (case-insensitive), in id order.
+     * @param query     at least 3 characters
+     * @param pageSize  number of pets on the page, the configured default if <code>null</code>
+     * @param pageToken the <code>nextPageToken</code> of the previous page, <code>null</code> for the first page
+     */
+    PetListResponse searchPets(String query, Integer pageSize, String pageToken);
 
     PetDTO addPet(String email, PetDTO petDTO);
 
+    /**
+     * Creates the pets without id and updates the ones with id, in one transaction.
+     * Fails without saving anything if a pet with id does not belong to the user.
+     */
+    SavePetsResponse savePets(String email, List<PetDTO> petDTOs);
+
     EditPetResponse changePetData(String email, PetDTO PetDTO);
 }
@@ -2,18 +2,33 @@ package com.greenfox.dramacsoport.petclinicbackend.services.petHandling;
 
 import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.PetDTO;
 import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.PetListResponse;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.bulk.SavePetsResponse;
 import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.update.EditPetResponse;
+import com.greenfox.dramacsoport.petclinicbackend.errors.AppServiceErrors;
 import com.greenfox.dramacsoport.petclinicbackend.exceptions.UnauthorizedActionException;
+import com.greenfox.dramacsoport.petclinicbackend.exceptions.ValidationException;
+import com.greenfox.dramacsoport.petclinicbackend.mappers.PetMapper;
 import com.greenfox.dramacsoport.petclinicbackend.models.Pet;
+import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
+import com.greenfox.dramacsoport.petclinicbackend.models.PetChange;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.AppUserRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.PetChangeRepository;
 import com.greenfox.dramacsoport.petclinicbackend.repositories.PetRepository;
 import com.greenfox.dramacsoport.petclinicbackend.services.appUser.AppUserService;
+import com.greenfox.dramacsoport.petclinicbackend.services.petHandling.search.PetSearchIndex;
+import com.greenfox.dramacsoport.petclinicbackend.services.petHandling.search.PetsSavedEvent;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,30 +37,147 @@ public class PetServiceImpl implements PetService{
 
     private final AppUserService appUserService;
     private final PetRepository petRepository;
-    private final ModelMapper modelMapper = new ModelMapper();
+    private final AppUserRepository appUserRepository;
+    private final PetChangeRepository petChangeRepository;
+    private final PetMapper petMapper;
+    private final PetSearchIndex petSearchIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     Logger logger = LoggerFactory.getLogger(PetServiceImpl.class);
 
+    @Value("${pets.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${pets.page.max-size:100}")
+    private int maxPageSize;
+
+    /**
+     * <h3>Returns one page of the user's pets.</h3>
+     * <ul>
+     *     <li>Pets are listed in id order, so pages are stable while pets are added.</li>
+     *     <li>The page token holds the id of the last pet of the page, and the next page starts after it.
+     *     This keeps every page an index range scan on <code>(owner_id, id)</code>, however deep it is.</li>
+     *     <li>Page sizes above the configured maximum are capped to it.</li>
+     *     <li>The page is read with a single query, joined to the owner by email. An unknown email gets an
+     *     empty page.</li>
+     * </ul>
+     */
+    @Override
+    public PetListResponse getUserPets(String email, Integer pageSize, String pageToken) {
+        int size = pageSize(pageSize);
+        long afterId = pageToken == null ? 0 : decodePageToken(pageToken);
+
+        // one extra row tells whether there is a next page
+        List<PetDTO> petDTOList = petRepository.findPetPageByOwnerEmail(email, afterId, Limit.of(size + 1));
+        boolean hasNextPage = petDTOList.size() > size;
+        if (hasNextPage) {
+            petDTOList = petDTOList.subList(0, size);
+        }
+
+        String nextPageToken = hasNextPage ? encodePageToken(petDTOList.get(size - 1).getId()) : null;
+        return new PetListResponse(petDTOList, nextPageToken);
+    }
+
+    /**
+     * The version is read before the page, so a pet saved in between can only make the ETag older than the
+     * content, never newer. The client then just downloads the list once more.
+     */
     @Override
-    public PetListResponse getUserPets(String email) {
-        List<Pet> petList = petRepository.findAllByOwnerId(appUserService.loadUserByEmail(email).getId());
+    public String getUserPetsETag(String email, Integer pageSize, String pageToken) {
+        String page = pageSize(pageSize) + "-" + (pageToken == null ? 0 : decodePageToken(pageToken));
+        return appUserRepository.findPetListVersionByEmail(email)
+                .map(version -> "\"pets-%d-%d-%s\"".formatted(version.ownerId(), version.version(), page))
+                .orElse("\"pets-none-%s\"".formatted(page));
+    }
+
+    /**
+     * <h3>Searches every pet through the in-memory trigram index.</h3>
+     * <ul>
+     *     <li>The index returns the ids of one page, the pets of the page are read with one query by id.</li>
+     *     <li>Paginated like the user's pet list: the page token holds the id of the last pet of the page.</li>
+     * </ul>
+     */
+    @Override
+    public PetListResponse searchPets(String query, Integer pageSize, String pageToken) {
+        if (query == null || query.strip().length() < PetSearchIndex.GRAM_LENGTH) {
+            throw new ValidationException(AppServiceErrors.SEARCH_QUERY_TOO_SHORT);
+        }
+        int size = pageSize(pageSize);
+        long afterId = pageToken == null ? 0 : decodePageToken(pageToken);
 
-        List<PetDTO> petDTOList = petList.stream()
-                .map(pet -> modelMapper.map(pet, PetDTO.class))
-                .collect(Collectors.toList());
+        // one extra id tells whether there is a next page
+        List<Long> ids = petSearchIndex.search(query, afterId, size + 1);
+        boolean hasNextPage = ids.size() > size;
+        if (hasNextPage) {
+            ids = ids.subList(0, size);
+        }
 
-        return new PetListResponse(petDTOList);
+        List<PetDTO> petDTOList = ids.isEmpty() ? List.of() : petRepository.findPetDTOsByIdIn(ids);
+        String nextPageToken = hasNextPage ? encodePageToken(ids.get(size - 1)) : null;
+        return new PetListResponse(petDTOList, nextPageToken);
     }
 
     @Override
+    @Transactional
     public PetDTO addPet(String email, PetDTO petDTO) {
-        Pet pet = modelMapper.map(petDTO, Pet.class);
-        pet.setOwner(appUserService.loadUserByEmail(email));
+        Pet pet = petMapper.toEntity(petDTO);
+        AppUser owner = appUserService.loadUserByEmail(email);
+        pet.setOwner(owner);
         petRepository.save(pet);
-        return modelMapper.map(pet, PetDTO.class);
+        appUserRepository.incrementPetListVersion(owner.getId());
+        recordPetsSaved(List.of(pet));
+        return petMapper.toDto(pet);
+    }
+
+    /**
+     * <h3>Saves many pets of the user at once.</h3>
+     * <ul>
+     *     <li>The owner and the pets to update are loaded with one query each, whatever the number of pets.</li>
+     *     <li>The inserts and updates are sent in JDBC batches when the transaction commits
+     *     (<code>hibernate.jdbc.batch_size</code>).</li>
+     * </ul>
+     */
+    @Override
+    @Transactional
+    public SavePetsResponse savePets(String email, List<PetDTO> petDTOs) {
+        AppUser owner = appUserService.loadUserByEmail(email);
+
+        Set<Long> ids = petDTOs.stream()
+                .map(PetDTO::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Pet> existingPets = ids.isEmpty()
+                ? Map.of()
+                : petRepository.findAllByOwnerIdAndIdIn(owner.getId(), ids).stream()
+                        .collect(Collectors.toMap(Pet::getId, Function.identity()));
+        if (existingPets.size() != ids.size()) {
+            logger.error("Some of the pets are NOT related to this user. No pet is saved.");
+            throw new UnauthorizedActionException(
+                    "Some of the pets are NOT related to this user...not allowed to update pet details");
+        }
+
+        List<Pet> pets = new ArrayList<>(petDTOs.size());
+        for (PetDTO petDTO : petDTOs) {
+            Pet pet;
+            if (petDTO.getId() == null) {
+                pet = petMapper.toEntity(petDTO);
+                pet.setOwner(owner);
+            } else {
+                pet = existingPets.get(petDTO.getId());
+                petMapper.update(petDTO, pet);
+            }
+            pets.add(pet);
+        }
+        petRepository.saveAll(pets);
+        appUserRepository.incrementPetListVersion(owner.getId());
+        recordPetsSaved(pets);
+        logger.info("{} pets saved in bulk.", pets.size());
+
+        return new SavePetsResponse(pets.stream().map(petMapper::toDto).toList());
     }
 
     @Override
+    @Transactional
     public EditPetResponse changePetData(String email, PetDTO petDTO) {
         Pet actualPet = petRepository.findPetById(petDTO.getId());
 
@@ -54,11 +186,51 @@ public class PetServiceImpl implements PetService{
             throw new UnauthorizedActionException("This pet is NOT related to this user...not allowed to update pet details");
         }
 
-        modelMapper.map(petDTO, actualPet);
+        petMapper.update(petDTO, actualPet);
         petRepository.save(actualPet);
+        appUserRepository.incrementPetListVersion(actualPet.getOwner().getId());
+        recordPetsSaved(List.of(actualPet));
 
         logger.info("Pet entity mapped and updated.");
 
         return new EditPetResponse("Updated pet data saved.");
     }
+
+    /**
+     * Must be called in the transaction that saved the pets. Logs the ids of the pets, so the search index of
+     * every instance re-reads them once the change commits (see {@link PetSearchIndex#catchUp}). Appending to the
+     * log takes no shared lock, so concurrent pet saves do not wait for each other.
+     */
+    private void recordPetsSaved(List<Pet> pets) {
+        petChangeRepository.save(new PetChange(null, pets.stream().map(Pet::getId).toList(), null));
+        eventPublisher.publishEvent(new PetsSavedEvent());
+    }
+
+    private int pageSize(Integer requested) {
+        if (requested == null) {
+            return Math.min(defaultPageSize, maxPageSize);
+        }
+        if (requested < 1) {
+            throw new ValidationException(AppServiceErrors.INVALID_PAGE_SIZE);
+        }
+        return Math.min(requested, maxPageSize);
+    }
+
+    private static String encodePageToken(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static long decodePageToken(String pageToken) {
+        try {
+            long lastId = Long.parseLong(
+                    new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.US_ASCII));
+            if (lastId < 0) {
+                throw new ValidationException(AppServiceErrors.INVALID_PAGE_TOKEN);
+            }
+            return lastId;
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException(AppServiceErrors.INVALID_PAGE_TOKEN);
+        }
+    }
 }
@@ -0,0 +1,383 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.petHandling.search;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.search.PetSearchDocument;
+import com.greenfox.dramacsoport.petclinicbackend.models.PetChange;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.PetChangeRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.PetRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <h2>In-memory trigram index over the name, breed and special condition of every pet.</h2>
+ * <ul>
+ *     <li>Every trigram (3 consecutive characters, case-insensitive) of the fields points to the sorted ids of
+ *     the pets containing it.</li>
+ *     <li>A query walks the shortest list of its trigrams from the last id of the previous page, and keeps the
+ *     pets that really contain the whole query, until the page is full. No query touches the database.</li>
+ *     <li>Every pet save logs a {@link PetChange} in its transaction. The index replays the log in id order and
+ *     re-reads only the changed pets: on a background thread when a save of this instance commits, and on a
+ *     timer for the saves of other instances. A rolled back save is never logged, so it is never found.</li>
+ *     <li>Built from the database once at startup, in chunks. The changes logged meanwhile are replayed over it.</li>
+ * </ul>
+ * Until the startup build is finished, no pet is found.
+ */
+@Component
+public class PetSearchIndex {
+
+    public static final int GRAM_LENGTH = 3;
+
+    // never part of a query, so a match cannot span two fields
+    private static final char FIELD_SEPARATOR = '\u0000';
+
+    private static final int REPLAY_CHUNK = 1000;
+
+    // pets read with one query while replaying
+    private static final int DOCUMENT_CHUNK = 1000;
+
+    private final PetRepository petRepository;
+
+    private final PetChangeRepository petChangeRepository;
+
+    private final int rebuildChunkSize;
+
+    private final Duration gapTimeout;
+
+    private final Duration changeRetention;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // one replay (or build) at a time; searches only wait while a chunk is applied
+    private final ReentrantLock replay = new ReentrantLock();
+
+    // replays the changes of this instance, off the threads of the requests that committed them
+    private final ExecutorService replayer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pet-search-replay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // set while a replay is queued, so the commits until it starts are replayed together
+    private final AtomicBoolean replayQueued = new AtomicBoolean();
+
+    private final Logger logger = LoggerFactory.getLogger(PetSearchIndex.class);
+
+    private Trigrams trigrams = new Trigrams();
+
+    // every change up to this id is in the index, guarded by the replay lock; -1 until the startup build
+    private volatile long appliedUpTo = -1;
+
+    public PetSearchIndex(PetRepository petRepository,
+                          PetChangeRepository petChangeRepository,
+                          @Value("${pets.search.rebuild-chunk-size:10000}") int rebuildChunkSize,
+                          @Value("${pets.search.gap-timeout:PT1M}") Duration gapTimeout,
+                          @Value("${pets.search.change-retention:P1D}") Duration changeRetention) {
+        this.petRepository = petRepository;
+        this.petChangeRepository = petChangeRepository;
+        this.rebuildChunkSize = rebuildChunkSize;
+        this.gapTimeout = gapTimeout;
+        this.changeRetention = changeRetention;
+    }
+
+    /**
+     * Reads every pet, in id order, one chunk at a time, into a new index, and swaps it in. The changes older
+     * than the gap timeout have committed (or never will), so the pets read include them. Every newer change is
+     * replayed over the index afterwards, as its pets may have been read before it committed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long started = System.nanoTime();
+        int pets;
+        int grams;
+        long upTo;
+        replay.lock();
+        try {
+            upTo = petChangeRepository.findMaxIdCreatedBefore(
+                    petChangeRepository.currentTime().minus(gapTimeout)).orElse(0L);
+            Trigrams built = new Trigrams();
+            long afterId = 0;
+            List<PetSearchDocument> chunk;
+            do {
+                chunk = petRepository.findSearchDocuments(afterId, Limit.of(rebuildChunkSize));
+                chunk.forEach(built::index);
+                if (!chunk.isEmpty()) {
+                    afterId = chunk.get(chunk.size() - 1).id();
+                }
+            } while (chunk.size() == rebuildChunkSize);
+
+            lock.writeLock().lock();
+            try {
+                trigrams = built;
+                appliedUpTo = upTo;
+                pets = built.documents.size();
+                grams = built.postings.size();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            replay.unlock();
+        }
+        logger.info("Pet search index built: {} pets, {} trigrams, replaying changes after {} in {} ms", pets, grams,
+                upTo, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        catchUp();
+    }
+
+    /**
+     * Queues a replay, unless one is queued and not started yet: that one reads this change too.
+     */
+    @TransactionalEventListener
+    public void onPetsSaved(PetsSavedEvent event) {
+        if (replayQueued.compareAndSet(false, true)) {
+            replayer.execute(this::replayQueued);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        replayer.shutdownNow();
+    }
+
+    /**
+     * <h3>Re-reads the pets changed since the last replay, in the id order of their changes.</h3>
+     * <ul>
+     *     <li>The current fields of the pets are read, not the ones of the change, so replaying a change again or
+     *     late never brings back an older state.</li>
+     *     <li>Ids are taken before commit, so a change can commit after changes with bigger ids. Replay stops
+     *     counting at the first missing id, and the next replay reads (and applies again) every change after it.
+     *     A missing id is given up as rolled back once the change after it is older than the gap timeout. Both
+     *     times come from the database clock, so the clocks of the instances do not matter.</li>
+     * </ul>
+     */
+    @Scheduled(fixedDelayString = "${pets.search.refresh-interval:PT5S}",
+            initialDelayString = "${pets.search.refresh-interval:PT5S}")
+    public void catchUp() {
+        if (appliedUpTo < 0) {
+            return;
+        }
+        replay.lock();
+        try {
+            Instant gapDeadline = petChangeRepository.currentTime().minus(gapTimeout);
+            long afterId = appliedUpTo;
+            long contiguous = appliedUpTo;
+            boolean gap = false;
+            List<PetChange> changes;
+            do {
+                changes = petChangeRepository.findByIdGreaterThanOrderById(afterId, Limit.of(REPLAY_CHUNK));
+                Set<Long> petIds = new TreeSet<>();
+                for (PetChange change : changes) {
+                    Arrays.stream(change.getPetIds()).forEach(petIds::add);
+                    if (!gap && (change.getId() == contiguous + 1 || change.getCreatedAt().isBefore(gapDeadline))) {
+                        contiguous = change.getId();
+                    } else {
+                        gap = true;
+                    }
+                    afterId = change.getId();
+                }
+                List<Long> ids = new ArrayList<>(petIds);
+                for (int from = 0; from < ids.size(); from += DOCUMENT_CHUNK) {
+                    List<PetSearchDocument> pets = petRepository.findSearchDocumentsByIdIn(
+                            ids.subList(from, Math.min(from + DOCUMENT_CHUNK, ids.size())));
+                    lock.writeLock().lock();
+                    try {
+                        pets.forEach(trigrams::index);
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                }
+                appliedUpTo = contiguous;
+            } while (changes.size() == REPLAY_CHUNK);
+        } finally {
+            replay.unlock();
+        }
+    }
+
+    /**
+     * Deletes the replayed changes older than the retention. An instance that has not replayed them yet has been
+     * behind for the whole retention, and rebuilds when it restarts.
+     */
+    @Scheduled(fixedDelayString = "${pets.search.purge-interval:PT1H}",
+            initialDelayString = "${pets.search.purge-interval:PT1H}")
+    public void purgeReplayed() {
+        long upTo = appliedUpTo;
+        if (upTo <= 0) {
+            return;
+        }
+        int deleted = petChangeRepository.deleteReplayed(upTo,
+                petChangeRepository.currentTime().minus(changeRetention));
+        logger.debug("{} replayed pet changes deleted", deleted);
+    }
+
+    private void replayQueued() {
+        // cleared before reading, so a change committed during the replay queues the next one
+        replayQueued.set(false);
+        try {
+            catchUp();
+        } catch (RuntimeException e) {
+            logger.warn("Replay of the pet changes failed, the timer retries it", e);
+        }
+    }
+
+    /**
+     * @param query   at least {@link #GRAM_LENGTH} characters, matched case-insensitively anywhere in any of the
+     *                fields
+     * @param afterId the last id of the previous page, 0 for the first page
+     * @return the ids of at most <code>limit</code> matching pets after <code>afterId</code>, in id order
+     */
+    public List<Long> search(String query, long afterId, int limit) {
+        String needle = normalize(query);
+        Set<String> grams = new HashSet<>();
+        addGrams(needle, grams);
+        if (grams.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            PostingList rarest = null;
+            for (String gram : grams) {
+                PostingList postingList = trigrams.postings.get(gram);
+                if (postingList == null) {
+                    return List.of();
+                }
+                if (rarest == null || postingList.size < rarest.size) {
+                    rarest = postingList;
+                }
+            }
+
+            List<Long> ids = new ArrayList<>(Math.min(limit, rarest.size));
+            for (int i = rarest.indexAfter(afterId); i < rarest.size && ids.size() < limit; i++) {
+                long id = rarest.ids[i];
+                // the trigrams only narrow the candidates, the document must contain them in the query's order
+                if (trigrams.documents.get(id).contains(needle)) {
+                    ids.add(id);
+                }
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static Set<String> grams(String document) {
+        Set<String> grams = new HashSet<>();
+        int start = 0;
+        for (int end = document.indexOf(FIELD_SEPARATOR); end >= 0; end = document.indexOf(FIELD_SEPARATOR, start)) {
+            addGrams(document.substring(start, end), grams);
+            start = end + 1;
+        }
+        addGrams(document.substring(start), grams);
+        return grams;
+    }
+
+    private static void addGrams(String text, Set<String> grams) {
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.strip().toLowerCase(Locale.ROOT).replace(FIELD_SEPARATOR, ' ');
+    }
+
+    /**
+     * The indexed documents and their trigrams. The one in use is only touched under the write lock, a new one is
+     * only touched by the startup build building it.
+     */
+    private static final class Trigrams {
+
+        private final Map<Long, String> documents = new HashMap<>();
+
+        private final Map<String, PostingList> postings = new HashMap<>();
+
+        /**
+         * Moves the pet from the trigrams it lost to the ones it gained.
+         */
+        void index(PetSearchDocument pet) {
+            String document = normalize(pet.petName()) + FIELD_SEPARATOR + normalize(pet.petBreed())
+                    + FIELD_SEPARATOR + normalize(pet.specialCondition());
+            String previous = documents.put(pet.id(), document);
+            if (document.equals(previous)) {
+                return;
+            }
+
+            Set<String> grams = grams(document);
+            if (previous != null) {
+                for (String gram : grams(previous)) {
+                    if (!grams.contains(gram)) {
+                        PostingList postingList = postings.get(gram);
+                        postingList.remove(pet.id());
+                        if (postingList.size == 0) {
+                            postings.remove(gram);
+                        }
+                    }
+                }
+            }
+            for (String gram : grams) {
+                postings.computeIfAbsent(gram, key -> new PostingList()).add(pet.id());
+            }
+        }
+    }
+
+    /**
+     * Sorted pet ids. New pets get the highest ids, so adding one is usually an append.
+     */
+    static final class PostingList {
+
+        private long[] ids = new long[4];
+
+        private int size;
+
+        void add(long id) {
+            int index;
+            if (size == 0 || ids[size - 1] < id) {
+                index = size;
+            } else {
+                index = Arrays.binarySearch(ids, 0, size, id);
+                if (index >= 0) {
+                    return;
+                }
+                index = -index - 1;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+
+        void remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+                size--;
+            }
+        }
+
+        /**
+         * @return the position of the first id greater than the given one
+         */
+        int indexAfter(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+    }
+}
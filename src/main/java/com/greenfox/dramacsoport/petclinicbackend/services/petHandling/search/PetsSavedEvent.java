@@ -0,0 +1,7 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.petHandling.search;
+
+/**
+ * Published with every logged pet change, so the search index replays the log once the change commits.
+ */
+public record PetsSavedEvent() {
+}
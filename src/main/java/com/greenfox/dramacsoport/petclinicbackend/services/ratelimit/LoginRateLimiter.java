@@ -0,0 +1,198 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.ratelimit;
+
+import com.greenfox.dramacsoport.petclinicbackend.exceptions.TooManyLoginAttemptsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <h2>Throttles login attempts before any password is hashed.</h2>
+ * Every attempt takes a token from the bucket of the client IP and from the bucket of the email address.
+ * A rejected attempt costs two map lookups and a compare-and-set, instead of a BCrypt comparison.
+ * <ul>
+ *     <li>Buckets are lock-free, concurrent attempts for the same key only retry a compare-and-set.</li>
+ *     <li>A bucket that has been idle long enough to be full again is evicted by the scheduled sweep, as it
+ *     carries no information.</li>
+ *     <li>The buckets of each type are capped. Once the cap is reached (e.g. a spray of distinct emails), a new key
+ *     makes room by evicting the buckets within one attempt of being full (idle keys and the one-off keys of the
+ *     spray), so a legitimate user is never refused for lack of room. The nearly empty buckets of the accounts
+ *     under attack are kept for as long as possible.</li>
+ *     <li>Rejections are counted under <code>login.throttle.rejected</code>, tagged with the bucket type.</li>
+ * </ul>
+ */
+@Component
+public class LoginRateLimiter {
+
+    private final Limit emailLimit;
+
+    private final Limit ipLimit;
+
+    private final int maxBuckets;
+
+    private final Map<String, TokenBucket> emailBuckets = new ConcurrentHashMap<>();
+
+    private final Map<String, TokenBucket> ipBuckets = new ConcurrentHashMap<>();
+
+    private final Counter emailRejections;
+
+    private final Counter ipRejections;
+
+    private final Logger logger = LoggerFactory.getLogger(LoginRateLimiter.class);
+
+    public LoginRateLimiter(@Value("${security.login-throttle.email.capacity:5}") int emailCapacity,
+                            @Value("${security.login-throttle.email.refill-period:PT5M}") Duration emailRefillPeriod,
+                            @Value("${security.login-throttle.ip.capacity:50}") int ipCapacity,
+                            @Value("${security.login-throttle.ip.refill-period:PT1M}") Duration ipRefillPeriod,
+                            @Value("${security.login-throttle.max-buckets:100000}") int maxBuckets,
+                            MeterRegistry meterRegistry) {
+        this.emailLimit = new Limit(emailCapacity, emailRefillPeriod);
+        this.ipLimit = new Limit(ipCapacity, ipRefillPeriod);
+        this.maxBuckets = maxBuckets;
+        this.emailRejections = Counter.builder("login.throttle.rejected")
+                .description("Login attempts rejected before checking the password")
+                .tag("bucket", "email")
+                .register(meterRegistry);
+        this.ipRejections = Counter.builder("login.throttle.rejected")
+                .description("Login attempts rejected before checking the password")
+                .tag("bucket", "ip")
+                .register(meterRegistry);
+        Gauge.builder("login.throttle.buckets", () -> emailBuckets.size() + ipBuckets.size())
+                .description("Token buckets currently kept in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes one login attempt from the allowance of the client IP and of the email address.
+     * @throws TooManyLoginAttemptsException if either allowance is used up
+     */
+    public void acquire(String email, String clientIp) throws TooManyLoginAttemptsException {
+        acquire(email, clientIp, System.nanoTime());
+    }
+
+    void acquire(String email, String clientIp, long now) {
+        long waitNanos = tryConsume(ipBuckets, clientIp, ipLimit, now);
+        if (waitNanos > 0) {
+            ipRejections.increment();
+            logger.warn("Too many login attempts from IP: {}", clientIp);
+            throw new TooManyLoginAttemptsException(Duration.ofNanos(waitNanos));
+        }
+        waitNanos = tryConsume(emailBuckets, email.trim().toLowerCase(Locale.ROOT), emailLimit, now);
+        if (waitNanos > 0) {
+            emailRejections.increment();
+            logger.warn("Too many login attempts for email: {}", email);
+            throw new TooManyLoginAttemptsException(Duration.ofNanos(waitNanos));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${security.login-throttle.eviction-interval:PT1M}")
+    public void evictIdle() {
+        evictIdle(System.nanoTime());
+    }
+
+    void evictIdle(long now) {
+        emailBuckets.values().removeIf(bucket -> bucket.isFull(now, emailLimit));
+        ipBuckets.values().removeIf(bucket -> bucket.isFull(now, ipLimit));
+    }
+
+    int size() {
+        return emailBuckets.size() + ipBuckets.size();
+    }
+
+    /**
+     * The cap is checked before inserting, so concurrent attempts can overshoot it by at most the number of
+     * threads logging in at that moment.
+     * @return <code>0</code> if a token was taken, otherwise the nanoseconds until the next token
+     */
+    private long tryConsume(Map<String, TokenBucket> buckets, String key, Limit limit, long now) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxBuckets) {
+                makeRoom(buckets, limit, now);
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(limit, now));
+        }
+        return bucket.tryConsume(now, limit);
+    }
+
+    /**
+     * Evicts the buckets that are within one attempt of being full, as they carry almost no information. If every
+     * bucket is in active use, the fullest one is evicted, so the new key always gets a bucket. Runs only at the
+     * cap, and one thread at a time per bucket type.
+     */
+    private void makeRoom(Map<String, TokenBucket> buckets, Limit limit, long now) {
+        synchronized (buckets) {
+            if (buckets.size() < maxBuckets) {
+                return;
+            }
+            buckets.values().removeIf(bucket -> bucket.tokens(now, limit) >= limit.capacity() - 1);
+            if (buckets.size() < maxBuckets) {
+                return;
+            }
+            logger.warn("Login throttle is at its cap of {} buckets, evicting the fullest one", maxBuckets);
+            buckets.entrySet().stream()
+                    .max(Comparator.comparingDouble(entry -> entry.getValue().tokens(now, limit)))
+                    .ifPresent(entry -> buckets.remove(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    /**
+     * @param capacity     attempts allowed in a burst
+     * @param refillPeriod time needed to refill an empty bucket
+     */
+    private record Limit(int capacity, Duration refillPeriod) {
+
+        double tokensPerNano() {
+            return (double) capacity / refillPeriod.toNanos();
+        }
+    }
+
+    private static final class TokenBucket {
+
+        private record State(double tokens, long updatedAt) {
+        }
+
+        private final AtomicReference<State> state;
+
+        TokenBucket(Limit limit, long now) {
+            this.state = new AtomicReference<>(new State(limit.capacity(), now));
+        }
+
+        long tryConsume(long now, Limit limit) {
+            while (true) {
+                State current = state.get();
+                double tokens = refilled(current, now, limit);
+                if (tokens < 1) {
+                    return Math.max(1, (long) Math.ceil((1 - tokens) / limit.tokensPerNano()));
+                }
+                if (state.compareAndSet(current, new State(tokens - 1, Math.max(now, current.updatedAt())))) {
+                    return 0;
+                }
+            }
+        }
+
+        boolean isFull(long now, Limit limit) {
+            return tokens(now, limit) >= limit.capacity();
+        }
+
+        double tokens(long now, Limit limit) {
+            return refilled(state.get(), now, limit);
+        }
+
+        private static double refilled(State state, long now, Limit limit) {
+            long elapsed = Math.max(0, now - state.updatedAt());
+            return Math.min(limit.capacity(), state.tokens() + elapsed * limit.tokensPerNano());
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.reminders;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.reminder.DueCheckUp;
+import com.greenfox.dramacsoport.petclinicbackend.models.JobCheckpoint;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.JobCheckpointRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.StagedCheckUpRepository;
+import com.greenfox.dramacsoport.petclinicbackend.services.email.EmailOutbox;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.List;
+
+/**
+ * <h2>Reminds owners of the upcoming check-ups of their pets.</h2>
+ * <ul>
+ *     <li>Every run covers the days that came into the reminder window since the last run, so a check-up is
+ *     reminded once, when it gets closer than the window.</li>
+ *     <li>The due pets are staged once, when the run starts. They are read back in chunks of a fixed size,
+ *     ordered by owner, and each owner gets one email (through the outbox) listing all of their pets. Only one
+ *     chunk is held in memory at a time.</li>
+ *     <li>Every chunk is committed together with its emails and a checkpoint, so a restarted run continues
+ *     after the last committed chunk.</li>
+ * </ul>
+ * A check-up moved to a day that was already covered is not reminded.
+ */
+@Component
+@RequiredArgsConstructor
+public class CheckUpReminderJob {
+
+    private final StagedCheckUpRepository stagedCheckUpRepository;
+
+    private final JobCheckpointRepository jobCheckpointRepository;
+
+    private final EmailOutbox emailOutbox;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Logger logger = LoggerFactory.getLogger(CheckUpReminderJob.class);
+
+    @Value("${pets.check-up-reminders.window:P7D}")
+    private Period window;
+
+    @Value("${pets.check-up-reminders.chunk-size:500}")
+    private int chunkSize;
+
+    @Scheduled(cron = "${pets.check-up-reminders.cron:0 0 6 * * *}")
+    public void remind() {
+        remind(LocalDate.now());
+    }
+
+    void remind(LocalDate today) {
+        if (!Boolean.TRUE.equals(transactionTemplate.execute(status -> startRun(today)))) {
+            return;
+        }
+        int emails = 0;
+        Integer queued;
+        while ((queued = transactionTemplate.execute(status -> remindChunk())) != null) {
+            emails += queued;
+        }
+        logger.info("Check-up reminders queued: {}", emails);
+    }
+
+    /**
+     * Starts a new run, unless one was interrupted: then that one is finished first, with the pets staged when
+     * it started.
+     * @return false if there is nothing to do
+     */
+    private boolean startRun(LocalDate today) {
+        JobCheckpoint checkpoint = jobCheckpointRepository.findById(JobCheckpoint.CHECK_UP_REMINDERS)
+                .orElseGet(() -> new JobCheckpoint(JobCheckpoint.CHECK_UP_REMINDERS));
+        if (checkpoint.isRunInProgress()) {
+            logger.info("Resuming check-up reminders after owner {}", checkpoint.getLastOwnerId());
+            return true;
+        }
+
+        LocalDate from = checkpoint.getCoveredUntil() == null || checkpoint.getCoveredUntil().isBefore(today)
+                ? today
+                : checkpoint.getCoveredUntil().plusDays(1);
+        LocalDate until = today.plus(window);
+        if (from.isAfter(until)) {
+            return false;
+        }
+        checkpoint.setRunFrom(from);
+        checkpoint.setRunUntil(until);
+        checkpoint.setLastOwnerId(0L);
+        checkpoint.setLastPetId(0L);
+        jobCheckpointRepository.save(checkpoint);
+        stagedCheckUpRepository.deleteAllInBatch();
+        int staged = stagedCheckUpRepository.stage(from, until);
+        logger.info("Check-up reminders from {} to {}: {} pets due", from, until, staged);
+        return true;
+    }
+
+    /**
+     * @return the number of emails queued, or null if the run is finished
+     */
+    private Integer remindChunk() {
+        JobCheckpoint checkpoint = jobCheckpointRepository.findById(JobCheckpoint.CHECK_UP_REMINDERS).orElseThrow();
+        List<DueCheckUp> chunk = stagedCheckUpRepository.findChunk(checkpoint.getRunFrom(), checkpoint.getRunUntil(),
+                checkpoint.getLastOwnerId(), checkpoint.getLastPetId(), Limit.of(chunkSize));
+        if (chunk.isEmpty()) {
+            finishRun(checkpoint);
+            return null;
+        }
+
+        boolean lastChunk = chunk.size() < chunkSize;
+        if (!lastChunk) {
+            // the pets of the last owner may go on in the next chunk, so that owner is left for the next chunk,
+            // unless the whole chunk is one owner (who then gets more than one email)
+            Long lastOwnerId = chunk.get(chunk.size() - 1).ownerId();
+            int end = chunk.size();
+            while (end > 0 && chunk.get(end - 1).ownerId().equals(lastOwnerId)) {
+                end--;
+            }
+            if (end > 0) {
+                chunk = chunk.subList(0, end);
+            }
+        }
+
+        int emails = 0;
+        int start = 0;
+        for (int i = 1; i <= chunk.size(); i++) {
+            if (i == chunk.size() || !chunk.get(i).ownerId().equals(chunk.get(start).ownerId())) {
+                enqueueReminder(chunk.subList(start, i));
+                emails++;
+                start = i;
+            }
+        }
+
+        if (lastChunk) {
+            finishRun(checkpoint);
+        } else {
+            DueCheckUp last = chunk.get(chunk.size() - 1);
+            checkpoint.setLastOwnerId(last.ownerId());
+            checkpoint.setLastPetId(last.petId());
+            jobCheckpointRepository.save(checkpoint);
+        }
+        return emails;
+    }
+
+    private void finishRun(JobCheckpoint checkpoint) {
+        checkpoint.setCoveredUntil(checkpoint.getRunUntil());
+        checkpoint.setRunFrom(null);
+        checkpoint.setRunUntil(null);
+        checkpoint.setLastOwnerId(null);
+        checkpoint.setLastPetId(null);
+        jobCheckpointRepository.save(checkpoint);
+        stagedCheckUpRepository.deleteAllInBatch();
+    }
+
+    /**
+     * @param pets the due pets of one owner
+     */
+    private void enqueueReminder(List<DueCheckUp> pets) {
+        DueCheckUp first = pets.get(0);
+        String name = first.ownerDisplayName() != null ? first.ownerDisplayName() : first.ownerEmail();
+        StringBuilder body = new StringBuilder()
+                .append("Dear ").append(name).append(",\n\n")
+                .append("The following pets are due for a check-up soon:\n");
+        for (DueCheckUp pet : pets) {
+            body.append("- ").append(pet.petName()).append(": ").append(pet.nextCheckUp()).append('\n');
+        }
+        body.append("\nBest regards,\nPet Clinic Team");
+        emailOutbox.enqueue(first.ownerEmail(), "Upcoming check-up - Pet Clinic", body.toString());
+    }
+}
@@ -0,0 +1,79 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.token;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <h2>A thread-safe Bloom filter of strings.</h2>
+ * Answers "definitely not added" or "maybe added" in constant time, without storing the strings themselves.
+ * Entries cannot be removed, so the owner rebuilds the filter when entries should go away.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+
+    private final int bitCount;
+
+    private final int hashCount;
+
+    /**
+     * @param expectedEntries   the number of entries the filter is sized for
+     * @param falsePositiveRate the wanted probability of a "maybe" for an entry that was never added
+     */
+    public BloomFilter(int expectedEntries, double falsePositiveRate) {
+        int entries = Math.max(1, expectedEntries);
+        double optimalBits = -entries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        this.bitCount = (int) Math.min(Integer.MAX_VALUE - 64, Math.max(64, Math.ceil(optimalBits)));
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / entries * Math.log(2)));
+        this.words = new AtomicLongArray((bitCount + 63) / 64);
+    }
+
+    public void add(String value) {
+        long hash = hash64(value);
+        int firstHash = (int) hash;
+        int secondHash = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = bitIndex(firstHash + i * secondHash);
+            long mask = 1L << (bit & 63);
+            int word = bit >>> 6;
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long hash = hash64(value);
+        int firstHash = (int) hash;
+        int secondHash = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = bitIndex(firstHash + i * secondHash);
+            if ((words.get(bit >>> 6) & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int bitIndex(int combinedHash) {
+        return (combinedHash & Integer.MAX_VALUE) % bitCount;
+    }
+
+    /**
+     * 64-bit FNV-1a, followed by the MurmurHash3 finalizer to spread the bits of short inputs.
+     */
+    private static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,138 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.token;
+
+import com.greenfox.dramacsoport.petclinicbackend.models.SigningKey;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.SigningKeyRepository;
+import com.greenfox.dramacsoport.petclinicbackend.services.JwtService;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * <h2>Key ring shared by every instance through the database.</h2>
+ * Every instance signs with the same key and can verify every token still in circulation, so a token issued by
+ * one node is accepted by all the others and survives a redeploy.
+ * <ul>
+ *     <li>Tokens carry the id of their key in the kid header.</li>
+ *     <li>A successor key is published ahead of its activation, so every node knows it before it is used.</li>
+ *     <li>A retired key stays verifiable until the last token signed with it expires.</li>
+ *     <li>The keys are kept in memory (in the SigningContext of JwtService), so verifying a token never needs
+ *     a lookup. The ring is only re-read from the database on the scheduled refresh.</li>
+ * </ul>
+ */
+@Component
+public class JwtKeyRing {
+
+    private final SigningKeyRepository signingKeyRepository;
+
+    private final JwtService jwtService;
+
+    private final Duration rotationPeriod;
+
+    private final Duration publishAhead;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final Logger logger = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    private volatile SigningContext installedContext;
+
+    private volatile Set<String> installedKeyIds = Set.of();
+
+    public JwtKeyRing(SigningKeyRepository signingKeyRepository,
+                      JwtService jwtService,
+                      @Value("${jwt.key-ring.rotation-period:PT24H}") Duration rotationPeriod,
+                      @Value("${jwt.key-ring.publish-ahead:PT10M}") Duration publishAhead) {
+        this.signingKeyRepository = signingKeyRepository;
+        this.jwtService = jwtService;
+        this.rotationPeriod = rotationPeriod;
+        this.publishAhead = publishAhead;
+    }
+
+    @PostConstruct
+    public void init() {
+        refresh();
+    }
+
+    /**
+     * Publishes a successor key when the current one is about to retire, and installs the keys of the ring
+     * into JwtService if they have changed since the last refresh.
+     * The refresh interval has to be shorter than the publish-ahead period.
+     */
+    @Scheduled(fixedDelayString = "${jwt.key-ring.refresh-interval:PT1M}",
+            initialDelayString = "${jwt.key-ring.refresh-interval:PT1M}")
+    public synchronized void refresh() {
+        Instant now = Instant.now();
+        List<SigningKey> keys = new ArrayList<>(signingKeyRepository.findAllByExpiresAtAfter(now));
+
+        Optional<SigningKey> signingKey = currentSigningKey(keys, now);
+        if (signingKey.isEmpty()) {
+            // first start, or every node was down for longer than a rotation period
+            signingKey = Optional.of(publishKey(now));
+            keys.add(signingKey.get());
+        } else if (needsSuccessor(keys, now)) {
+            keys.add(publishKey(now.plus(publishAhead)));
+        }
+
+        Set<String> keyIds = keys.stream().map(SigningKey::getKeyId).collect(Collectors.toSet());
+        String signingKeyId = signingKey.get().getKeyId();
+        SigningContext currentContext = jwtService.getSigningContext();
+        if (currentContext == installedContext && signingKeyId.equals(currentContext.keyId())
+                && keyIds.equals(installedKeyIds)) {
+            return;
+        }
+
+        Map<String, SecretKey> verificationKeys = keys.stream()
+                .collect(Collectors.toMap(SigningKey::getKeyId, key -> SigningContext.decodeKey(key.getSecret())));
+        installedContext = SigningContext.forKeyRing(signingKeyId, verificationKeys);
+        installedKeyIds = keyIds;
+        jwtService.install(installedContext);
+        logger.info("JWT key ring installed, signing with key {} ({} verification keys)", signingKeyId, keyIds.size());
+
+        signingKeyRepository.deleteAllByExpiresAtBefore(now);
+    }
+
+    /**
+     * @return the newest key that is already active and not yet retired
+     */
+    private Optional<SigningKey> currentSigningKey(List<SigningKey> keys, Instant now) {
+        return keys.stream()
+                .filter(key -> !key.getActivatesAt().isAfter(now) && key.getRetiresAt().isAfter(now))
+                .max(Comparator.comparing(SigningKey::getActivatesAt).thenComparing(SigningKey::getKeyId));
+    }
+
+    /**
+     * A successor is needed when even the newest key of the ring retires within two publish-ahead periods.
+     * The successor activates one publish-ahead period from now, before the current key retires.
+     */
+    private boolean needsSuccessor(List<SigningKey> keys, Instant now) {
+        Instant latestRetirement = keys.stream()
+                .map(SigningKey::getRetiresAt)
+                .max(Comparator.naturalOrder())
+                .orElse(now);
+        return latestRetirement.isBefore(now.plus(publishAhead.multipliedBy(2)));
+    }
+
+    private SigningKey publishKey(Instant activatesAt) {
+        byte[] secret = new byte[32]; // 256 bits
+        random.nextBytes(secret);
+        Instant retiresAt = activatesAt.plus(rotationPeriod);
+        SigningKey key = new SigningKey(
+                UUID.randomUUID().toString(),
+                Base64.getEncoder().encodeToString(secret),
+                activatesAt,
+                retiresAt,
+                retiresAt.plusMillis(JwtService.VALIDITY));
+        logger.info("Publishing JWT signing key {} active from {}", key.getKeyId(), activatesAt);
+        return signingKeyRepository.save(key);
+    }
+}
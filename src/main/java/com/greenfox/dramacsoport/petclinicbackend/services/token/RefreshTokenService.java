@@ -0,0 +1,124 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.token;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.user.login.LoginCredentials;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.user.login.LoginResponseDTO;
+import com.greenfox.dramacsoport.petclinicbackend.exceptions.InvalidRefreshTokenException;
+import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
+import com.greenfox.dramacsoport.petclinicbackend.models.RefreshToken;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.AppUserRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.RefreshTokenRepository;
+import com.greenfox.dramacsoport.petclinicbackend.services.JwtService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * <h2>Issues and rotates refresh tokens.</h2>
+ * Renewing a session costs one SHA-256 hash and an indexed lookup instead of a BCrypt check.
+ * <ul>
+ *     <li>Refresh tokens are random 256-bit values, only their SHA-256 hash is stored.</li>
+ *     <li>Every refresh uses up the presented token and issues a new one in the same family.</li>
+ *     <li>Presenting a token that has already been used means it has leaked, so the whole family is revoked.</li>
+ *     <li>A password change (token version change) makes every refresh token of the user useless.</li>
+ *     <li>Logging out revokes every refresh token of the user, so a stolen one cannot outlive the session.</li>
+ * </ul>
+ */
+@Service
+public class RefreshTokenService {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    private final AppUserRepository appUserRepository;
+
+    private final JwtService jwtService;
+
+    private final Duration validity;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               AppUserRepository appUserRepository,
+                               JwtService jwtService,
+                               @Value("${jwt.refresh-token.validity:P14D}") Duration validity) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.appUserRepository = appUserRepository;
+        this.jwtService = jwtService;
+        this.validity = validity;
+    }
+
+    /**
+     * Starts a new token family for a fresh login.
+     * The user is only referenced by its id, so no further query is needed to issue the token.
+     * @return the raw refresh token, to be handed to the client only
+     */
+    public String issue(LoginCredentials user) {
+        return issue(appUserRepository.getReferenceById(user.id()), user.tokenVersion(), UUID.randomUUID().toString());
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and a new refresh token.
+     * The transaction is not rolled back on an invalid token, so a detected reuse still revokes the family.
+     * @param rawToken the refresh token sent by the client
+     * @throws InvalidRefreshTokenException if the token is unknown, expired, revoked or already used
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public LoginResponseDTO refresh(String rawToken) throws InvalidRefreshTokenException {
+        Instant now = Instant.now();
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHashWithUser(VerifiedTokenCache.digest(rawToken))
+                .orElseThrow(InvalidRefreshTokenException::new);
+
+        if (refreshToken.isRevoked() || refreshToken.getUsedAt() != null
+                || refreshTokenRepository.markUsed(refreshToken.getId(), now) == 0) {
+            refreshTokenRepository.revokeFamily(refreshToken.getFamilyId());
+            logger.warn("Reuse of refresh token detected, token family revoked: {}", refreshToken.getFamilyId());
+            throw new InvalidRefreshTokenException();
+        }
+
+        AppUser user = refreshToken.getUser();
+        if (!refreshToken.getExpiresAt().isAfter(now) || refreshToken.getTokenVersion() != user.getTokenVersion()) {
+            throw new InvalidRefreshTokenException();
+        }
+
+        String newRefreshToken = issue(user, user.getTokenVersion(), refreshToken.getFamilyId());
+        return new LoginResponseDTO(jwtService.generateToken(user), newRefreshToken);
+    }
+
+    /**
+     * Revokes every refresh token of the user.
+     */
+    public void revokeAll(Long userId) {
+        refreshTokenRepository.revokeAllByUserId(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.refresh-token.purge-interval:PT1H}",
+            initialDelayString = "${jwt.refresh-token.purge-interval:PT1H}")
+    public void purgeExpired() {
+        refreshTokenRepository.deleteAllByExpiresAtBefore(Instant.now());
+    }
+
+    private String issue(AppUser user, int tokenVersion, String familyId) {
+        byte[] secret = new byte[32]; // 256 bits
+        random.nextBytes(secret);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(secret);
+
+        refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(VerifiedTokenCache.digest(rawToken))
+                .familyId(familyId)
+                .user(user)
+                .tokenVersion(tokenVersion)
+                .expiresAt(Instant.now().plus(validity))
+                .build());
+        return rawToken;
+    }
+}
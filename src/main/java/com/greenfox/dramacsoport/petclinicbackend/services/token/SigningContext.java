@@ -0,0 +1,71 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.token;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Keys;
+
+import javax.crypto.SecretKey;
+import java.security.Key;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * <h2>Everything needed to sign and verify tokens.</h2>
+ * Built once per key set and never modified, so a single instance can be shared by every request thread.
+ * The JwtParser is immutable and thread-safe. A JwtBuilder is not, so a new one is started from this
+ * template for every token.
+ *
+ * @param keyId  the id written into the kid header of new tokens (<code>null</code> for a single local key)
+ * @param key    the HMAC-SHA key new tokens are signed with
+ * @param parser a parser that verifies signatures with the key (or with the key ring)
+ */
+public record SigningContext(String keyId, SecretKey key, JwtParser parser) {
+
+    /**
+     * @param base64Secret a Base64 encoded secret of at least 256 bits
+     * @return a new context with the decoded key and a parser built for it
+     */
+    public static SigningContext fromSecret(String base64Secret) {
+        SecretKey key = decodeKey(base64Secret);
+        return new SigningContext(null, key, Jwts.parser().verifyWith(key).build());
+    }
+
+    /**
+     * @param keyId            the id of the key new tokens are signed with
+     * @param verificationKeys every key a token may still be signed with, by key id
+     * @return a new context that signs with the given key and verifies with the key named by the kid header
+     */
+    public static SigningContext forKeyRing(String keyId, Map<String, SecretKey> verificationKeys) {
+        Map<String, SecretKey> keys = Map.copyOf(verificationKeys);
+        JwtParser parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        String kid = header.getKeyId();
+                        SecretKey key = kid == null ? null : keys.get(kid);
+                        if (key == null) {
+                            throw new UnsupportedJwtException("Unknown signing key: " + kid);
+                        }
+                        return key;
+                    }
+                })
+                .build();
+        return new SigningContext(keyId, keys.get(keyId), parser);
+    }
+
+    public static SecretKey decodeKey(String base64Secret) {
+        return Keys.hmacShaKeyFor(Base64.getDecoder().decode(base64Secret));
+    }
+
+    public JwtBuilder newBuilder() {
+        JwtBuilder builder = Jwts.builder();
+        if (keyId != null) {
+            builder.header().keyId(keyId);
+        }
+        return builder.signWith(key);
+    }
+}
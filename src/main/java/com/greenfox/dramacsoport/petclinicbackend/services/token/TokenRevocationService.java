@@ -0,0 +1,141 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.token;
+
+import com.greenfox.dramacsoport.petclinicbackend.models.RevokedToken;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.RevokedTokenRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <h2>Denylist of revoked tokens.</h2>
+ * The revoked token ids are persisted, so every instance knows about them, and kept in memory for the
+ * per-request check:
+ * <ul>
+ *     <li>A Bloom filter answers "not revoked" for almost every token without touching the exact set.</li>
+ *     <li>The exact set (token id to expiration) resolves the rare "maybe" of the Bloom filter.</li>
+ *     <li>Entries are dropped when their token expires, and the Bloom filter is rebuilt from the remaining
+ *     entries, so memory only grows with the number of revoked tokens that are still valid.</li>
+ *     <li>Revocations made on other instances are pulled in by a scheduled synchronization.</li>
+ * </ul>
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    private final int expectedEntries;
+
+    private final Map<String, Instant> revokedTokens = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter bloomFilter;
+
+    private volatile int bloomFilterCapacity;
+
+    private volatile Instant lastSynchronization = Instant.EPOCH;
+
+    private final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  @Value("${jwt.revocation.expected-entries:100000}") int expectedEntries) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedEntries = expectedEntries;
+        rebuildBloomFilter();
+    }
+
+    @PostConstruct
+    public void init() {
+        synchronize();
+    }
+
+    /**
+     * Hot path of every authenticated request. Never touches the database.
+     * @return <code>true</code> if the token has been revoked
+     */
+    public boolean isRevoked(VerifiedToken token) {
+        String tokenId = token.tokenId();
+        if (tokenId == null || !bloomFilter.mightContain(tokenId)) {
+            return false;
+        }
+        return revokedTokens.containsKey(tokenId);
+    }
+
+    /**
+     * Revokes the token for every instance of the application until it expires.
+     */
+    public void revoke(VerifiedToken token) {
+        String tokenId = token.tokenId();
+        if (tokenId == null || revokedTokens.containsKey(tokenId)) {
+            return;
+        }
+        revokedTokenRepository.save(new RevokedToken(tokenId, token.expiresAt(), Instant.now()));
+        remember(tokenId, token.expiresAt());
+        logger.info("Token revoked: {}", tokenId);
+    }
+
+    /**
+     * Pulls in the tokens revoked by other instances since the last synchronization.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval:PT10S}",
+            initialDelayString = "${jwt.revocation.sync-interval:PT10S}")
+    public synchronized void synchronize() {
+        Instant now = Instant.now();
+        // overlap the windows a little, so a revocation committed late on another node is not missed
+        Instant since = lastSynchronization.minusSeconds(5);
+        Collection<RevokedToken> newRevocations = Instant.EPOCH.equals(lastSynchronization)
+                ? revokedTokenRepository.findAllByExpiresAtAfter(now)
+                : revokedTokenRepository.findAllByRevokedAtAfterAndExpiresAtAfter(since, now);
+        newRevocations.forEach(revokedToken -> remember(revokedToken.getTokenId(), revokedToken.getExpiresAt()));
+        lastSynchronization = now;
+    }
+
+    /**
+     * Drops the expired entries from memory and from the database, then rebuilds the Bloom filter.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval:PT5M}",
+            initialDelayString = "${jwt.revocation.purge-interval:PT5M}")
+    public synchronized void purgeExpired() {
+        Instant now = Instant.now();
+        revokedTokens.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+        rebuildBloomFilter();
+        revokedTokenRepository.deleteAllByExpiresAtBefore(now);
+    }
+
+    /**
+     * Runs under the same monitor as the rebuild: otherwise a rebuild could copy the entries before the put,
+     * the id would go into the old filter only, and the new filter would report the token as not revoked.
+     * Revocations are rare (logouts), so the lock is not on any hot path.
+     */
+    private synchronized void remember(String tokenId, Instant expiresAt) {
+        if (!expiresAt.isAfter(Instant.now())) {
+            return;
+        }
+        revokedTokens.put(tokenId, expiresAt);
+        bloomFilter.add(tokenId);
+        if (revokedTokens.size() > bloomFilterCapacity) {
+            rebuildBloomFilter();
+        }
+    }
+
+    /**
+     * Builds a new filter with room for at least twice the current entries, then swaps it in. The entries are
+     * added to the new filter before it is published, so a revoked token is never reported as not revoked.
+     * Callers hold the monitor (the constructor aside), so no entry is added while the new filter is built.
+     */
+    private void rebuildBloomFilter() {
+        int capacity = Math.max(expectedEntries, revokedTokens.size() * 2);
+        BloomFilter newFilter = new BloomFilter(capacity, FALSE_POSITIVE_RATE);
+        revokedTokens.keySet().forEach(newFilter::add);
+        bloomFilterCapacity = capacity;
+        bloomFilter = newFilter;
+    }
+}
@@ -0,0 +1,73 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.token;
+
+import com.greenfox.dramacsoport.petclinicbackend.repositories.AppUserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>In-memory copy of the current token version of each user.</h2>
+ * Used by the stateless authentication mode, so a token can be checked against the latest password or role
+ * change without loading the whole user on every request.
+ * <ul>
+ *     <li>A version is read from the database the first time a user is seen, then kept for the configured TTL.</li>
+ *     <li>Changes made on this node are applied immediately with {@link #update(Long, int)}.</li>
+ *     <li>Changes made on another node are picked up at the latest when the TTL runs out.</li>
+ * </ul>
+ */
+@Component
+public class TokenVersionRegistry {
+
+    private static final int MAX_ENTRIES = 100_000;
+
+    private final AppUserRepository appUserRepository;
+
+    private final long ttlNanos;
+
+    private final Map<Long, Stamp> versions = new ConcurrentHashMap<>();
+
+    private record Stamp(int version, long loadedAt) {
+    }
+
+    public TokenVersionRegistry(AppUserRepository appUserRepository,
+                                @Value("${jwt.token-version.ttl-seconds:60}") long ttlSeconds) {
+        this.appUserRepository = appUserRepository;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    /**
+     * @param userId       the id claim of the token
+     * @param tokenVersion the version claim of the token
+     * @return <code>true</code> if the user still exists and the token carries its current version
+     */
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        if (userId == null) {
+            return false;
+        }
+        long now = System.nanoTime();
+        Stamp stamp = versions.get(userId);
+        if (stamp == null || now - stamp.loadedAt() > ttlNanos) {
+            Integer version = appUserRepository.findTokenVersionById(userId).orElse(null);
+            if (version == null) {
+                versions.remove(userId);
+                return false;
+            }
+            if (versions.size() >= MAX_ENTRIES) {
+                versions.values().removeIf(entry -> now - entry.loadedAt() > ttlNanos);
+            }
+            stamp = new Stamp(version, now);
+            versions.put(userId, stamp);
+        }
+        return stamp.version() == tokenVersion;
+    }
+
+    /**
+     * Records a new token version of a user that has just been saved on this node.
+     */
+    public void update(Long userId, int tokenVersion) {
+        versions.put(userId, new Stamp(tokenVersion, System.nanoTime()));
+    }
+}
@@ -0,0 +1,57 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.token;
+
+import com.greenfox.dramacsoport.petclinicbackend.models.Role;
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+
+/**
+ * <h2>A JWT whose signature and expiration have already been checked.</h2>
+ * Created once per distinct token by {@code JwtService.verify(String)} and passed along,
+ * so the rest of the request never has to parse the raw token again.
+ *
+ * @param username  the subject of the token (the email of the user)
+ * @param expiresAt the moment the token stops being valid
+ * @param claims    every claim of the verified token
+ */
+public record VerifiedToken(String username, Instant expiresAt, Claims claims) {
+
+    public static final String TOKEN_VERSION_CLAIM = "ver";
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+
+    /**
+     * @return the unique id (jti) of the token, or <code>null</code> for tokens issued without one
+     */
+    public String tokenId() {
+        return claims.getId();
+    }
+
+    /**
+     * @return the id of the user, or <code>null</code> if the token does not carry a valid one
+     */
+    public Long userId() {
+        try {
+            return Long.valueOf(claims.get("id", String.class));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the role stored (in lowercase) in the token
+     */
+    public Role role() {
+        return Role.fromString(claims.get("role", String.class).toUpperCase());
+    }
+
+    /**
+     * @return the token version of the user at the time the token was issued (0 if the token has no such claim)
+     */
+    public int tokenVersion() {
+        String version = claims.get(TOKEN_VERSION_CLAIM, String.class);
+        return version == null ? 0 : Integer.parseInt(version);
+    }
+}
@@ -0,0 +1,91 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.token;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <h2>Bounded cache of already verified tokens.</h2>
+ * The entries are keyed by the SHA-256 digest of the raw token, so a hit costs one hash instead of a full
+ * signature check and JSON parse. Entries are dropped when their token expires.
+ * <ul>
+ *     <li>An expired entry is removed when it is looked up.</li>
+ *     <li>When the cache is full, expired entries are swept (at most once per second).</li>
+ *     <li>If the cache is still full after the sweep, the new token is simply not cached.</li>
+ * </ul>
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final long SWEEP_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    private final int maxEntries;
+
+    private final Map<String, VerifiedToken> tokens = new ConcurrentHashMap<>();
+
+    private final AtomicLong nextSweep = new AtomicLong(System.nanoTime());
+
+    public VerifiedTokenCache(@Value("${jwt.cache.max-entries:10000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @return the cached token, or <code>null</code> if it is not cached or has already expired
+     */
+    public VerifiedToken get(String digest, Instant now) {
+        VerifiedToken token = tokens.get(digest);
+        if (token != null && token.isExpired(now)) {
+            tokens.remove(digest, token);
+            return null;
+        }
+        return token;
+    }
+
+    public void put(String digest, VerifiedToken token, Instant now) {
+        if (tokens.size() >= maxEntries) {
+            evictExpired(now);
+            if (tokens.size() >= maxEntries) {
+                return;
+            }
+        }
+        tokens.put(digest, token);
+    }
+
+    public void evictExpired(Instant now) {
+        long sweepAt = nextSweep.get();
+        if (System.nanoTime() - sweepAt < 0 || !nextSweep.compareAndSet(sweepAt, System.nanoTime() + SWEEP_INTERVAL)) {
+            return;
+        }
+        tokens.values().removeIf(token -> token.isExpired(now));
+    }
+
+    public void clear() {
+        tokens.clear();
+    }
+
+    public int size() {
+        return tokens.size();
+    }
+
+    /**
+     * @param jwt the raw token without the Bearer prefix
+     * @return the hex encoded SHA-256 digest of the token
+     */
+    public static String digest(String jwt) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(jwt.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
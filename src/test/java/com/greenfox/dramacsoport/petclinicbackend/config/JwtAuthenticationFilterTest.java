@@ -4,6 +4,10 @@ import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
 import com.greenfox.dramacsoport.petclinicbackend.models.Role;
 import com.greenfox.dramacsoport.petclinicbackend.repositories.AppUserRepository;
 import com.greenfox.dramacsoport.petclinicbackend.services.JwtService;
+import com.greenfox.dramacsoport.petclinicbackend.services.token.TokenRevocationService;
+import com.greenfox.dramacsoport.petclinicbackend.services.token.TokenVersionRegistry;
+import com.greenfox.dramacsoport.petclinicbackend.services.token.VerifiedToken;
+import io.jsonwebtoken.Jwts;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import org.junit.jupiter.api.Assertions;
@@ -21,8 +25,11 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -45,6 +52,12 @@ class JwtAuthenticationFilterTest {
     @Mock
     AppUserRepository repository;
 
+    @Mock
+    TokenVersionRegistry tokenVersionRegistry;
+
+    @Mock
+    TokenRevocationService tokenRevocationService;
+
     @Mock
     FilterChain filterChain;
 
@@ -67,6 +80,20 @@ class JwtAuthenticationFilterTest {
                 .build();
     }
 
+    private VerifiedToken verifiedToken(String username) {
+        return verifiedToken(username, 0);
+    }
+
+    private VerifiedToken verifiedToken(String username, int tokenVersion) {
+        return new VerifiedToken(username, Instant.now().plus(30, ChronoUnit.MINUTES),
+                Jwts.claims()
+                        .subject(username)
+                        .add("id", "1")
+                        .add("role", "user")
+                        .add(VerifiedToken.TOKEN_VERSION_CLAIM, String.valueOf(tokenVersion))
+                        .build());
+    }
+
     /**
      * <h2>Authorization on HAPPY PATH</h2>
      * <h3>When the user is not yet authorized AND has a valid token</h3>
@@ -87,8 +114,7 @@ class JwtAuthenticationFilterTest {
         request.addHeader("Authorization", "Bearer " + token);
 
         //MOCK CALLS
-        when(jwtService.isTokenValid(anyString())).thenReturn(true);
-        when(jwtService.extractUsername(anyString())).thenReturn(appUser.getUsername());
+        when(jwtService.verify(anyString())).thenReturn(Optional.of(verifiedToken(appUser.getUsername())));
         when(repository.findByEmail(anyString())).thenReturn(Optional.of(appUser));
         //WHEN
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
@@ -160,7 +186,7 @@ class JwtAuthenticationFilterTest {
         request.addHeader("Authorization", "Bearer " + token);
 
         //MOCK CALLS
-        when(jwtService.isTokenValid(anyString())).thenReturn(false);
+        when(jwtService.verify(anyString())).thenReturn(Optional.empty());
 
         //WHEN
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
@@ -184,7 +210,7 @@ class JwtAuthenticationFilterTest {
         request.addHeader("Authorization", "Bearer " + token);
 
         //MOCK CALLS
-        when(jwtService.isTokenValid(anyString())).thenReturn(true);
+        when(jwtService.verify(anyString())).thenReturn(Optional.of(verifiedToken(appUser.getUsername())));
 
         // Simulate a non-null authentication object in the SecurityContextHolder
         UsernamePasswordAuthenticationToken firstAuthentication = new UsernamePasswordAuthenticationToken(
@@ -229,8 +255,7 @@ class JwtAuthenticationFilterTest {
         request.addHeader("Authorization", "Bearer " + token);
 
         //MOCK CALLS
-        when(jwtService.isTokenValid(anyString())).thenReturn(true);
-        when(jwtService.extractUsername(anyString())).thenReturn(null);
+        when(jwtService.verify(anyString())).thenReturn(Optional.of(verifiedToken(null)));
 
         //ACT and ASSERT
         assertThrows(UsernameNotFoundException.class, () ->
@@ -257,8 +282,7 @@ class JwtAuthenticationFilterTest {
         request.addHeader("Authorization", "Bearer " + token);
 
         //MOCK CALLS
-        when(jwtService.isTokenValid(anyString())).thenReturn(true);
-        when(jwtService.extractUsername(anyString())).thenReturn(appUser.getUsername());
+        when(jwtService.verify(anyString())).thenReturn(Optional.of(verifiedToken(appUser.getUsername())));
 
         //ACT and ASSERT
         assertThrows(UsernameNotFoundException.class,
@@ -270,4 +294,101 @@ class JwtAuthenticationFilterTest {
         assertNull(securityContextAuthNow);
     }
 
-}
\ No newline at end of file
+    /**
+     * <h3>Token issued before a password change</h3>
+     * Doesn't update SecurityContext when the token version is older than the one of the user
+     */
+    @Test
+    @DisplayName("Outdated token version")
+    public void shouldNotUpdateSecurityContextWhenTokenVersionIsOutdated() throws ServletException, IOException {
+        //GIVEN
+        appUser.setTokenVersion(1);
+        request.addHeader("Authorization", "Bearer OUTDATED_TOKEN");
+
+        //MOCK CALLS
+        when(jwtService.verify(anyString())).thenReturn(Optional.of(verifiedToken(appUser.getUsername(), 0)));
+        when(repository.findByEmail(anyString())).thenReturn(Optional.of(appUser));
+
+        //WHEN
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        //THEN
+        verify(filterChain).doFilter(request, response);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    /**
+     * <h2>Stateless mode</h2>
+     * Authorizes the user from the claims of the token, without loading the user from the database
+     */
+    @Test
+    @DisplayName("Stateless mode authorizes from claims")
+    public void shouldAuthorizeFromClaimsInStatelessMode() throws ServletException, IOException {
+        //GIVEN
+        ReflectionTestUtils.setField(jwtAuthenticationFilter, "statelessAuth", true);
+        request.addHeader("Authorization", "Bearer STATELESS_TOKEN");
+
+        //MOCK CALLS
+        when(jwtService.verify(anyString())).thenReturn(Optional.of(verifiedToken(appUser.getUsername(), 0)));
+        when(tokenVersionRegistry.isCurrent(1L, 0)).thenReturn(true);
+
+        //WHEN
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        //THEN
+        verify(repository, never()).findByEmail(anyString());
+        verify(filterChain).doFilter(request, response);
+        Authentication securityContextAuthNow = SecurityContextHolder.getContext().getAuthentication();
+        Assertions.assertNotNull(securityContextAuthNow);
+        Assertions.assertEquals(appUser.getUsername(), securityContextAuthNow.getName());
+        Assertions.assertArrayEquals(appUser.getAuthorities().toArray(), securityContextAuthNow.getAuthorities().toArray());
+    }
+
+    /**
+     * <h3>Stateless mode with an outdated token version</h3>
+     * Doesn't update SecurityContext when the token was issued before the last password change
+     */
+    @Test
+    @DisplayName("Stateless mode rejects outdated token version")
+    public void shouldNotUpdateSecurityContextInStatelessModeWhenTokenVersionIsOutdated() throws ServletException,
+            IOException {
+        //GIVEN
+        ReflectionTestUtils.setField(jwtAuthenticationFilter, "statelessAuth", true);
+        request.addHeader("Authorization", "Bearer OUTDATED_TOKEN");
+
+        //MOCK CALLS
+        when(jwtService.verify(anyString())).thenReturn(Optional.of(verifiedToken(appUser.getUsername(), 0)));
+        when(tokenVersionRegistry.isCurrent(1L, 0)).thenReturn(false);
+
+        //WHEN
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        //THEN
+        verify(filterChain).doFilter(request, response);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    /**
+     * <h3>Revoked token</h3>
+     * Doesn't update SecurityContext when the token has been revoked (e.g. after logout)
+     */
+    @Test
+    @DisplayName("Revoked token")
+    public void shouldNotUpdateSecurityContextWhenTokenIsRevoked() throws ServletException, IOException {
+        //GIVEN
+        request.addHeader("Authorization", "Bearer REVOKED_TOKEN");
+
+        //MOCK CALLS
+        when(jwtService.verify(anyString())).thenReturn(Optional.of(verifiedToken(appUser.getUsername())));
+        when(tokenRevocationService.isRevoked(any(VerifiedToken.class))).thenReturn(true);
+
+        //WHEN
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        //THEN
+        verify(repository, never()).findByEmail(anyString());
+        verify(filterChain).doFilter(request, response);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+}
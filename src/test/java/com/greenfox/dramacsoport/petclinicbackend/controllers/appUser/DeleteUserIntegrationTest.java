@@ -0,0 +1,89 @@
+package com.greenfox.dramacsoport.petclinicbackend.controllers.appUser;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.user.login.LoginRequestDTO;
+import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
+import com.greenfox.dramacsoport.petclinicbackend.models.RefreshToken;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.AppUserRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.RefreshTokenRepository;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Not transactional: the deletion has to commit, so a foreign key still pointing at the user fails the test.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class DeleteUserIntegrationTest {
+
+    private static final String EMAIL = "leaving@example.com";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private AppUserRepository appUserRepository;
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @AfterEach
+    public void tearDown() {
+        appUserRepository.findByEmail(EMAIL).ifPresent(user -> {
+            refreshTokenRepository.deleteAll(refreshTokensOf(user.getId()));
+            appUserRepository.delete(user);
+        });
+    }
+
+    private List<RefreshToken> refreshTokensOf(Long userId) {
+        return refreshTokenRepository.findAll().stream()
+                .filter(token -> token.getUser().getId().equals(userId))
+                .toList();
+    }
+
+    @Test
+    public void shouldDeleteUserWhoHasLoggedIn() throws Exception {
+        AppUser user = appUserRepository.save(AppUser.builder()
+                .email(EMAIL)
+                .displayName("leaving")
+                .password(passwordEncoder.encode("Password1"))
+                .build());
+
+        // two logins, two refresh tokens
+        String token = null;
+        for (int i = 0; i < 2; i++) {
+            String response = mockMvc.perform(post("/api/v1/auth/login")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new LoginRequestDTO(EMAIL, "Password1"))))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            token = JsonPath.read(response, "$.token");
+        }
+        assertEquals(2, refreshTokensOf(user.getId()).size());
+
+        mockMvc.perform(delete("/api/v1/user/{id}", user.getId())
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+
+        assertTrue(appUserRepository.findByEmail(EMAIL).isEmpty());
+        assertTrue(refreshTokensOf(user.getId()).isEmpty());
+    }
+}
@@ -1,20 +1,22 @@
 package com.greenfox.dramacsoport.petclinicbackend.controllers.appUser.auth;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.user.login.LoginCredentials;
 import com.greenfox.dramacsoport.petclinicbackend.dtos.user.login.LoginRequestDTO;
 import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
 import com.greenfox.dramacsoport.petclinicbackend.repositories.AppUserRepository;
-import com.greenfox.dramacsoport.petclinicbackend.services.appUser.AppUserService;
+import com.greenfox.dramacsoport.petclinicbackend.services.token.RefreshTokenService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.Optional;
+
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -27,7 +29,7 @@ public class LoginControllerTest {
     @MockBean
     AppUserRepository appUserRepository;
     @MockBean
-    AppUserService appUserService;
+    RefreshTokenService refreshTokenService;
     @Autowired
     private ObjectMapper objectMapper;
     @Autowired
@@ -40,7 +42,9 @@ public class LoginControllerTest {
         mockUser.setEmail("xy@example.com");
         mockUser.setPassword(passwordEncoder.encode("ValidPassword1"));
 
-        when(appUserService.loadUserByEmail("xy@example.com")).thenReturn(mockUser);
+        LoginCredentials credentials = LoginCredentials.from(mockUser);
+        when(appUserRepository.findLoginCredentialsByEmail("xy@example.com")).thenReturn(Optional.of(credentials));
+        when(refreshTokenService.issue(credentials)).thenReturn("refreshToken");
 
         LoginRequestDTO loginRequest = new LoginRequestDTO("xy@example.com", "ValidPassword1");
 
@@ -50,12 +54,13 @@ public class LoginControllerTest {
                 .andExpectAll(
                         status().isOk(),
                         content().contentType(MediaType.APPLICATION_JSON),
-                        jsonPath("$.token").isString());
+                        jsonPath("$.token").isString(),
+                        jsonPath("$.refreshToken").value("refreshToken"));
     }
 
     @Test
     public void responseShouldBeForbiddenIfUserNotFound() throws Exception {
-        when(appUserService.loadUserByEmail("aaa@example.com")).thenThrow(UsernameNotFoundException.class);
+        when(appUserRepository.findLoginCredentialsByEmail("aaa@example.com")).thenReturn(Optional.empty());
 
         LoginRequestDTO loginRequest = new LoginRequestDTO("aaa@example.com", "password");
 
@@ -73,7 +78,8 @@ public class LoginControllerTest {
         mockUser.setEmail("xy@example.com");
         mockUser.setPassword(passwordEncoder.encode("ValidPassword1"));
 
-        when(appUserService.loadUserByEmail("xy@example.com")).thenReturn(mockUser);
+        when(appUserRepository.findLoginCredentialsByEmail("xy@example.com"))
+                .thenReturn(Optional.of(LoginCredentials.from(mockUser)));
 
         LoginRequestDTO loginRequest = new LoginRequestDTO("xy@example.com", "wrongPassword");
 
@@ -85,6 +91,27 @@ public class LoginControllerTest {
 
     }
 
+    @Test
+    public void responseShouldBeTooManyRequestsIfLoginAttemptsExceeded() throws Exception {
+        when(appUserRepository.findLoginCredentialsByEmail("throttled@example.com")).thenReturn(Optional.empty());
+
+        LoginRequestDTO loginRequest = new LoginRequestDTO("throttled@example.com", "password");
+
+        for (int i = 0; i < 5; i++) {
+            this.mockMvc.perform(post("/api/v1/auth/login")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(loginRequest)))
+                    .andExpect(status().isForbidden());
+        }
+
+        this.mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpectAll(
+                        status().isTooManyRequests(),
+                        header().exists("Retry-After"));
+    }
+
     @Test
     public void responseShouldBeBadRequestIfEmptyPasswordProvided() throws Exception {
 
@@ -92,7 +119,8 @@ public class LoginControllerTest {
         mockUser.setEmail("xy@example.com");
         mockUser.setPassword(passwordEncoder.encode("ValidPassword1"));
 
-        when(appUserService.loadUserByEmail("xy@example.com")).thenReturn(mockUser);
+        when(appUserRepository.findLoginCredentialsByEmail("xy@example.com"))
+                .thenReturn(Optional.of(LoginCredentials.from(mockUser)));
 
         LoginRequestDTO loginRequest = new LoginRequestDTO("xy@example.com", "");
 
@@ -111,7 +139,8 @@ public class LoginControllerTest {
         mockUser.setEmail("xy@example.com");
         mockUser.setPassword(passwordEncoder.encode("ValidPassword1"));
 
-        when(appUserService.loadUserByEmail("xy@example.com")).thenReturn(mockUser);
+        when(appUserRepository.findLoginCredentialsByEmail("xy@example.com"))
+                .thenReturn(Optional.of(LoginCredentials.from(mockUser)));
 
         LoginRequestDTO loginRequest = new LoginRequestDTO("xy@example.com", null);
 
@@ -130,7 +159,8 @@ public class LoginControllerTest {
         mockUser.setEmail("xy@example.com");
         mockUser.setPassword(passwordEncoder.encode("ValidPassword1"));
 
-        when(appUserService.loadUserByEmail("xy@example.com")).thenReturn(mockUser);
+        when(appUserRepository.findLoginCredentialsByEmail("xy@example.com"))
+                .thenReturn(Optional.of(LoginCredentials.from(mockUser)));
 
         LoginRequestDTO loginRequest = new LoginRequestDTO("", "password");
 
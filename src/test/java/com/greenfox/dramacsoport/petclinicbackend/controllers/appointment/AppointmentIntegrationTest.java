@@ -0,0 +1,224 @@
+package com.greenfox.dramacsoport.petclinicbackend.controllers.appointment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.BookAppointmentRequest;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.RescheduleAppointmentRequest;
+import com.greenfox.dramacsoport.petclinicbackend.errors.AppServiceErrors;
+import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
+import com.greenfox.dramacsoport.petclinicbackend.models.Clinic;
+import com.greenfox.dramacsoport.petclinicbackend.models.Pet;
+import com.greenfox.dramacsoport.petclinicbackend.models.Role;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.AppUserRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.ClinicRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.PetRepository;
+import com.greenfox.dramacsoport.petclinicbackend.services.appointments.AppointmentSchedule;
+import com.greenfox.dramacsoport.petclinicbackend.services.appointments.AvailabilityCalendar;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+public class AppointmentIntegrationTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(1);
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private AppUserRepository appUserRepository;
+    @Autowired
+    private ClinicRepository clinicRepository;
+    @Autowired
+    private PetRepository petRepository;
+    @Autowired
+    private AvailabilityCalendar availabilityCalendar;
+    @Autowired
+    private AppointmentSchedule appointmentSchedule;
+
+    private Clinic clinic;
+    private AppUser vet;
+    private AppUser otherVet;
+    private Pet pet;
+    private Pet otherOwnersPet;
+
+    private AppUser user(String email, Role role, Clinic clinic) {
+        AppUser user = new AppUser();
+        user.setEmail(email);
+        user.setDisplayName(email.substring(0, email.indexOf('@')));
+        user.setPassword("Password");
+        user.setRole(role);
+        user.setClinic(clinic);
+        return appUserRepository.save(user);
+    }
+
+    @BeforeEach
+    public void setUp() {
+        clinic = clinicRepository.save(new Clinic(null, "Booked Clinic", "1 Main Street", null, null));
+        vet = user("vet.one@example.com", Role.VET, clinic);
+        otherVet = user("vet.two@example.com", Role.VET, clinic);
+        AppUser owner = user("owner@example.com", Role.USER, null);
+        AppUser otherOwner = user("other.owner@example.com", Role.USER, null);
+        pet = petRepository.save(new Pet(null, "Rex", "dog", "Male", null, null, null, null, owner));
+        otherOwnersPet = petRepository.save(new Pet(null, "Tom", "cat", "Male", null, null, null, null, otherOwner));
+    }
+
+    private ResultActions book(Long petId, Long vetId, LocalDateTime startsAt) throws Exception {
+        return mockMvc.perform(post("/api/v1/user/appointment")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new BookAppointmentRequest(petId, vetId, startsAt))));
+    }
+
+    @Test
+    @WithMockUser(username = "owner@example.com", roles = {"USER"})
+    public void shouldBookFreeSlotOnlyOnce() throws Exception {
+        book(pet.getId(), vet.getId(), DAY.atTime(10, 0))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.clinicName").value("Booked Clinic"))
+                .andExpect(jsonPath("$.vetName").value("vet.one"))
+                .andExpect(jsonPath("$.petName").value("Rex"))
+                .andExpect(jsonPath("$.status").value("BOOKED"));
+
+        book(pet.getId(), vet.getId(), DAY.atTime(10, 0))
+                .andExpect(status().isConflict());
+        // the same time at another vet is another slot
+        book(pet.getId(), otherVet.getId(), DAY.atTime(10, 0))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/user/appointments"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.appointments", hasSize(2)));
+    }
+
+    @Test
+    @WithMockUser(username = "owner@example.com", roles = {"USER"})
+    public void shouldListFreeSlotsOfEveryVet() throws Exception {
+        book(pet.getId(), vet.getId(), DAY.atTime(8, 30)).andExpect(status().isOk());
+        // the test transaction never commits, so the calendar reads the change log in it
+        availabilityCalendar.catchUp();
+
+        mockMvc.perform(get("/api/v1/user/clinics/{clinicId}/slots", clinic.getId())
+                        .param("date", DAY.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.vets", hasSize(2)))
+                .andExpect(jsonPath("$.vets[0].vetId").value(vet.getId()))
+                .andExpect(jsonPath("$.vets[0].freeSlots", hasSize(19)))
+                .andExpect(jsonPath("$.vets[0].freeSlots[0]").value(DAY.atTime(8, 0).toString() + ":00"))
+                .andExpect(jsonPath("$.vets[0].freeSlots[1]").value(DAY.atTime(9, 0).toString() + ":00"))
+                .andExpect(jsonPath("$.vets[1].freeSlots", hasSize(20)));
+    }
+
+    @Test
+    @WithMockUser(username = "owner@example.com", roles = {"USER"})
+    public void shouldFindFirstFreeSlotOfClinic() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        for (LocalDateTime slot : appointmentSchedule.slotsOf(now.toLocalDate())) {
+            if (slot.isAfter(now.plusMinutes(1))) {
+                book(pet.getId(), vet.getId(), slot).andExpect(status().isOk());
+                book(pet.getId(), otherVet.getId(), slot).andExpect(status().isOk());
+            }
+        }
+        book(pet.getId(), vet.getId(), DAY.atTime(8, 0)).andExpect(status().isOk());
+        availabilityCalendar.catchUp();
+
+        mockMvc.perform(get("/api/v1/user/clinics/{clinicId}/first-free-slot", clinic.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.vetId").value(otherVet.getId()))
+                .andExpect(jsonPath("$.vetName").value("vet.two"))
+                .andExpect(jsonPath("$.startsAt").value(DAY.atTime(8, 0).toString() + ":00"));
+        // today is full
+        mockMvc.perform(get("/api/v1/user/clinics/{clinicId}/first-free-slot", clinic.getId())
+                        .param("days", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.vetId").doesNotExist())
+                .andExpect(jsonPath("$.startsAt").doesNotExist());
+        mockMvc.perform(get("/api/v1/user/clinics/{clinicId}/first-free-slot", clinic.getId())
+                        .param("days", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "owner@example.com", roles = {"USER"})
+    public void shouldRejectInvalidBookings() throws Exception {
+        // not the start of a slot
+        book(pet.getId(), vet.getId(), DAY.atTime(10, 10)).andExpect(status().isBadRequest());
+        // after closing time
+        book(pet.getId(), vet.getId(), DAY.atTime(18, 0)).andExpect(status().isBadRequest());
+        book(pet.getId(), vet.getId(), DAY.plusYears(1).atTime(10, 0)).andExpect(status().isBadRequest());
+        // a slot that has already started
+        book(pet.getId(), vet.getId(), DAY.minusDays(2).atTime(10, 0))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(AppServiceErrors.APPOINTMENT_IN_THE_PAST));
+        book(pet.getId(), pet.getOwner().getId(), DAY.atTime(10, 0)).andExpect(status().isNotFound());
+        book(otherOwnersPet.getId(), vet.getId(), DAY.atTime(10, 0)).andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(username = "owner@example.com", roles = {"USER"})
+    public void shouldFreeSlotOnCancel() throws Exception {
+        String booked = book(pet.getId(), vet.getId(), DAY.atTime(11, 0))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Integer id = JsonPath.read(booked, "$.id");
+
+        mockMvc.perform(delete("/api/v1/user/appointment/{id}", id))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/v1/user/appointment/{id}", id))
+                .andExpect(status().isBadRequest());
+
+        book(pet.getId(), vet.getId(), DAY.atTime(11, 0)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/user/appointments"))
+                .andExpect(jsonPath("$.appointments", hasSize(1)));
+    }
+
+    @Test
+    @WithMockUser(username = "owner@example.com", roles = {"USER"})
+    public void shouldRescheduleToFreeSlotOnly() throws Exception {
+        String first = book(pet.getId(), vet.getId(), DAY.atTime(12, 0))
+                .andReturn().getResponse().getContentAsString();
+        book(pet.getId(), vet.getId(), DAY.atTime(13, 0)).andExpect(status().isOk());
+        Integer id = JsonPath.read(first, "$.id");
+
+        mockMvc.perform(patch("/api/v1/user/appointment/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new RescheduleAppointmentRequest(null, DAY.atTime(13, 0)))))
+                .andExpect(status().isConflict());
+        mockMvc.perform(patch("/api/v1/user/appointment/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new RescheduleAppointmentRequest(otherVet.getId(), DAY.atTime(13, 0)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.vetId").value(otherVet.getId()));
+
+        // the old slot is free again
+        book(pet.getId(), vet.getId(), DAY.atTime(12, 0)).andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser(username = "vet.one@example.com", roles = {"VET"})
+    public void shouldListVetsDay() throws Exception {
+        mockMvc.perform(get("/api/v1/vet/appointments").param("date", DAY.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.appointments", hasSize(0)));
+    }
+}
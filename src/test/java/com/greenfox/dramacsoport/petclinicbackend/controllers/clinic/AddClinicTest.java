@@ -2,11 +2,11 @@ package com.greenfox.dramacsoport.petclinicbackend.controllers.clinic;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.ClinicDTO;
+import com.greenfox.dramacsoport.petclinicbackend.mappers.ClinicMapper;
 import com.greenfox.dramacsoport.petclinicbackend.models.Clinic;
 import com.greenfox.dramacsoport.petclinicbackend.services.clinics.ClinicService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -30,7 +30,8 @@ public class AddClinicTest {
     private ClinicService clinicService;
     @Autowired
     private ObjectMapper objectMapper;
-    private final ModelMapper modelMapper = new ModelMapper();
+    @Autowired
+    private ClinicMapper clinicMapper;
     private ClinicDTO clinicDTO;
     private Clinic clinic;
 
@@ -39,14 +40,14 @@ public class AddClinicTest {
         clinicDTO = new ClinicDTO();
         clinicDTO.setName("Clinic 1");
         clinicDTO.setAddress("Address 1");
-        clinic = modelMapper.map(clinicDTO, Clinic.class);
+        clinic = clinicMapper.toEntity(clinicDTO);
     }
 
     @Test
     @WithMockUser(username = "admin@example.com", roles = "ADMIN")
     void shouldAddClinicSuccessfullyForAdmin() throws Exception {
 
-        when(clinicService.addClinic(anyString(), any(ClinicDTO.class))).thenReturn(modelMapper.map(clinic, ClinicDTO.class));
+        when(clinicService.addClinic(anyString(), any(ClinicDTO.class))).thenReturn(clinicMapper.toDto(clinic));
 
         mockMvc.perform(post("/api/v1/admin/clinic")
                         .contentType("application/json")
@@ -0,0 +1,83 @@
+package com.greenfox.dramacsoport.petclinicbackend.controllers.clinic;
+
+import com.greenfox.dramacsoport.petclinicbackend.models.Clinic;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.ClinicRepository;
+import com.greenfox.dramacsoport.petclinicbackend.services.clinics.ClinicAutocompleteIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+public class ClinicAutocompleteIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ClinicRepository clinicRepository;
+    @Autowired
+    private ClinicAutocompleteIndex clinicAutocompleteIndex;
+
+    @BeforeEach
+    public void setUp() {
+        clinicRepository.saveAll(Arrays.asList(
+                new Clinic(null, "Szent Ferenc Állatkórház", "Budapest, Fő utca 1", null, null),
+                new Clinic(null, "Ferencvárosi Rendelő", "Budapest, Ráday utca 2", null, null),
+                new Clinic(null, "Pet Corner", "Szeged, Ferenc körút 3", null, null)));
+        // the clinics are not committed, so the index is rebuilt inside the test transaction
+        clinicAutocompleteIndex.rebuild();
+    }
+
+    @Test
+    @WithMockUser(username = "user@example.com", roles = {"USER"})
+    public void shouldSuggestClinicsNameMatchesFirst() throws Exception {
+        mockMvc.perform(get("/api/v1/user/clinics/autocomplete")
+                        .param("query", "feren"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.clinics", hasSize(3)))
+                .andExpect(jsonPath("$.clinics[0].name").value("Ferencvárosi Rendelő"))
+                .andExpect(jsonPath("$.clinics[1].name").value("Szent Ferenc Állatkórház"))
+                .andExpect(jsonPath("$.clinics[2].name").value("Pet Corner"));
+    }
+
+    @Test
+    @WithMockUser(username = "user@example.com", roles = {"USER"})
+    public void shouldIgnoreAccentsAndLimitSuggestions() throws Exception {
+        mockMvc.perform(get("/api/v1/user/clinics/autocomplete")
+                        .param("query", "ALLATKOR")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.clinics", hasSize(1)))
+                .andExpect(jsonPath("$.clinics[0].address").value("Budapest, Fő utca 1"));
+        mockMvc.perform(get("/api/v1/user/clinics/autocomplete")
+                        .param("query", "budapest")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.clinics", hasSize(1)));
+    }
+
+    @Test
+    @WithMockUser(username = "user@example.com", roles = {"USER"})
+    public void shouldRejectEmptyQuery() throws Exception {
+        mockMvc.perform(get("/api/v1/user/clinics/autocomplete")
+                        .param("query", " - "))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/user/clinics/autocomplete")
+                        .param("query", "pet")
+                        .param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+}
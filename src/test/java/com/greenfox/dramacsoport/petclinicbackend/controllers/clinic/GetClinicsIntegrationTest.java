@@ -5,11 +5,17 @@ import com.greenfox.dramacsoport.petclinicbackend.models.Clinic;
 import com.greenfox.dramacsoport.petclinicbackend.models.Role;
 import com.greenfox.dramacsoport.petclinicbackend.repositories.AppUserRepository;
 import com.greenfox.dramacsoport.petclinicbackend.repositories.ClinicRepository;
+import com.greenfox.dramacsoport.petclinicbackend.services.clinics.ClinicDirectoryCache;
+import com.greenfox.dramacsoport.petclinicbackend.services.clinics.ClinicService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -17,7 +23,10 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Arrays;
 
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -32,9 +41,18 @@ public class GetClinicsIntegrationTest {
     private ClinicRepository clinicRepository;
     @Autowired
     private AppUserRepository appUserRepository;
+    @Autowired
+    private ClinicService clinicService;
+    @Autowired
+    private ClinicDirectoryCache clinicDirectoryCache;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
 
     @BeforeEach
     public void setUp() {
+        // the clinics of every test are saved without changing the clinic list version
+        clinicDirectoryCache.invalidate();
+
         AppUser user = new AppUser();
         user.setEmail("user@example.com");
         user.setPassword("Password");
@@ -51,8 +69,11 @@ public class GetClinicsIntegrationTest {
         Clinic clinic2 = new Clinic();
         clinic2.setName("Clinic 2");
         clinic2.setAddress("Test Address 2");
+        Clinic clinic3 = new Clinic();
+        clinic3.setName("Animal Clinic");
+        clinic3.setAddress("Test Address 3");
 
-        clinicRepository.saveAll(Arrays.asList(clinic1,clinic2));
+        clinicRepository.saveAll(Arrays.asList(clinic1,clinic2,clinic3));
     }
 
     @Test
@@ -63,7 +84,88 @@ public class GetClinicsIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.clinics[0].name").value("Clinic 1"))
                 .andExpect(jsonPath("$.clinics[1].name").value("Clinic 2"))
-                .andExpect(jsonPath("$.clinics.length()").value(clinicRepository.count()));
+                .andExpect(jsonPath("$.clinics.length()").value(clinicRepository.count()))
+                .andExpect(jsonPath("$.totalClinics").value(clinicRepository.count()));
+    }
+
+    @Test
+    @WithMockUser(username = "admin@example.com", roles = {"ADMIN"})
+    public void testIfClinicListPagedAndSorted() throws Exception {
+        mockMvc.perform(get("/api/v1/admin/clinics")
+                        .param("page", "0")
+                        .param("size", "2")
+                        .param("sort", "name,desc")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.clinics.length()").value(2))
+                .andExpect(jsonPath("$.clinics[0].name").value("Clinic 2"))
+                .andExpect(jsonPath("$.clinics[1].name").value("Clinic 1"))
+                .andExpect(jsonPath("$.page").value(0))
+                .andExpect(jsonPath("$.size").value(2))
+                .andExpect(jsonPath("$.totalClinics").value(3))
+                .andExpect(jsonPath("$.totalPages").value(2));
+
+        mockMvc.perform(get("/api/v1/admin/clinics")
+                        .param("page", "1")
+                        .param("size", "2")
+                        .param("sort", "name,desc")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.clinics.length()").value(1))
+                .andExpect(jsonPath("$.clinics[0].name").value("Animal Clinic"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin@example.com", roles = {"ADMIN"})
+    public void testIfCachedPageServedWithoutReadingClinics() throws Exception {
+        String firstBody = mockMvc.perform(get("/api/v1/admin/clinics").param("sort", "name"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        String secondBody = mockMvc.perform(get("/api/v1/admin/clinics").param("sort", "name,asc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.clinics[0].name").value("Animal Clinic"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(firstBody, secondBody);
+        // only the clinic list version, for the ETag and for the cache
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @WithMockUser(username = "admin@example.com", roles = {"ADMIN"})
+    public void testIfInvalidSortRejected() throws Exception {
+        mockMvc.perform(get("/api/v1/admin/clinics").param("sort", "password"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/admin/clinics").param("sort", "name,sideways"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/admin/clinics").param("page", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "admin@example.com", roles = {"ADMIN"})
+    public void testIfUnchangedClinicListAnsweredWithNotModified() throws Exception {
+        String eTag = mockMvc.perform(get("/api/v1/admin/clinics")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/v1/admin/clinics")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified());
+
+        clinicService.deleteClinic(clinicRepository.findByName("Clinic 1").getId());
+
+        mockMvc.perform(get("/api/v1/admin/clinics")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+                .andExpect(jsonPath("$.clinics[0].name").value("Clinic 2"));
     }
 
     @Test
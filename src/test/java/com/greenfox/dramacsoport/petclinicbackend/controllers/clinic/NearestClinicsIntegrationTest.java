@@ -0,0 +1,86 @@
+package com.greenfox.dramacsoport.petclinicbackend.controllers.clinic;
+
+import com.greenfox.dramacsoport.petclinicbackend.models.Clinic;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.ClinicRepository;
+import com.greenfox.dramacsoport.petclinicbackend.services.clinics.ClinicSpatialIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+public class NearestClinicsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ClinicRepository clinicRepository;
+    @Autowired
+    private ClinicSpatialIndex clinicSpatialIndex;
+
+    @BeforeEach
+    public void setUp() {
+        clinicRepository.saveAll(Arrays.asList(
+                new Clinic(null, "Buda Vet", "Budapest, Krisztina krt. 1", 47.4979, 19.0402),
+                new Clinic(null, "Gyor Vet", "Gyor, Baross ut 1", 47.6875, 17.6504),
+                new Clinic(null, "Vienna Vet", "Wien, Ring 1", 48.2082, 16.3738),
+                new Clinic(null, "Unknown Vet", "Somewhere", null, null)));
+        // the clinics are not committed, so the index is rebuilt inside the test transaction
+        clinicSpatialIndex.rebuild();
+    }
+
+    @Test
+    @WithMockUser(username = "user@example.com", roles = {"USER"})
+    public void shouldReturnNearestClinicsClosestFirst() throws Exception {
+        mockMvc.perform(get("/api/v1/user/clinics/nearest")
+                        .param("latitude", "47.5")
+                        .param("longitude", "19.0")
+                        .param("count", "2")
+                        .param("radiusKm", "500"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.clinics", hasSize(2)))
+                .andExpect(jsonPath("$.clinics[0].name").value("Buda Vet"))
+                .andExpect(jsonPath("$.clinics[0].distanceKm").value(closeTo(3.0, 0.5)))
+                .andExpect(jsonPath("$.clinics[1].name").value("Gyor Vet"));
+    }
+
+    @Test
+    @WithMockUser(username = "user@example.com", roles = {"USER"})
+    public void shouldLeaveOutClinicsBeyondRadius() throws Exception {
+        mockMvc.perform(get("/api/v1/user/clinics/nearest")
+                        .param("latitude", "47.5")
+                        .param("longitude", "19.0")
+                        .param("radiusKm", "150"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.clinics", hasSize(2)))
+                .andExpect(jsonPath("$.clinics[1].name").value("Gyor Vet"));
+    }
+
+    @Test
+    @WithMockUser(username = "user@example.com", roles = {"USER"})
+    public void shouldRejectInvalidLocation() throws Exception {
+        mockMvc.perform(get("/api/v1/user/clinics/nearest")
+                        .param("latitude", "91")
+                        .param("longitude", "19.0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/user/clinics/nearest")
+                        .param("latitude", "47.5")
+                        .param("longitude", "19.0")
+                        .param("radiusKm", "0"))
+                .andExpect(status().isBadRequest());
+    }
+}
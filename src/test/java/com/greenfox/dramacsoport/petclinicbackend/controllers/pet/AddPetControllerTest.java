@@ -2,11 +2,11 @@ package com.greenfox.dramacsoport.petclinicbackend.controllers.pet;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.PetDTO;
+import com.greenfox.dramacsoport.petclinicbackend.mappers.PetMapper;
 import com.greenfox.dramacsoport.petclinicbackend.models.Pet;
 import com.greenfox.dramacsoport.petclinicbackend.services.petHandling.PetService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -31,7 +31,8 @@ public class AddPetControllerTest {
     private PetService petService;
     @Autowired
     private ObjectMapper objectMapper;
-    private final ModelMapper modelMapper = new ModelMapper();
+    @Autowired
+    private PetMapper petMapper;
     private PetDTO petDTO;
     private Pet pet;
 
@@ -42,14 +43,14 @@ public class AddPetControllerTest {
         petDTO.setPetBreed("dog");
         petDTO.setPetSex("Male");
         petDTO.setPetBirthDate(LocalDate.of(2024, 1, 1));
-        pet = modelMapper.map(petDTO, Pet.class);
+        pet = petMapper.toEntity(petDTO);
     }
 
     @Test
     @WithMockUser(username = "xy@example.com")
     void shouldAddPetSuccessfully() throws Exception {
 
-        when(petService.addPet(anyString(), any(PetDTO.class))).thenReturn(modelMapper.map(pet, PetDTO.class));
+        when(petService.addPet(anyString(), any(PetDTO.class))).thenReturn(petMapper.toDto(pet));
 
         mockMvc.perform(post("/api/v1/user/pet")
                         .contentType("application/json")
@@ -1,22 +1,37 @@
 package com.greenfox.dramacsoport.petclinicbackend.controllers.pet;
 
+import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.PetDTO;
 import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
 import com.greenfox.dramacsoport.petclinicbackend.models.Pet;
 import com.greenfox.dramacsoport.petclinicbackend.repositories.AppUserRepository;
 import com.greenfox.dramacsoport.petclinicbackend.repositories.PetRepository;
+import com.greenfox.dramacsoport.petclinicbackend.services.petHandling.PetService;
+import com.jayway.jsonpath.JsonPath;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -35,6 +50,15 @@ public class GetPetsIntegrationTest {
     @Autowired
     private AppUserRepository appUserRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PetService petService;
+
+    @Value("${pets.page.max-size:100}")
+    private int maxPageSize;
+
     @BeforeEach
     public void setUp() {
         // Set up mock data
@@ -64,7 +88,112 @@ public class GetPetsIntegrationTest {
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.pets[0].petName").value("Buddy"))
-                .andExpect(jsonPath("$.pets[1].petName").value("Max"));
+                .andExpect(jsonPath("$.pets[1].petName").value("Max"))
+                .andExpect(jsonPath("$.nextPageToken").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = "userWithPets@example.com")
+    public void shouldListPetsWithOnePetQuery() throws Exception {
+        // the test data is written now, so only the statements of the request are counted
+        petRepository.flush();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get("/api/v1/user/pets")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pets", hasSize(2)));
+
+        // the version of the pet list (for the ETag), then the page itself
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    @WithMockUser(username = "userWithPets@example.com")
+    public void shouldAnswerUnchangedPetListWithNotModified() throws Exception {
+        String eTag = mockMvc.perform(get("/api/v1/user/pets")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        petRepository.flush();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get("/api/v1/user/pets")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+        // only the version of the pet list is read
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        PetDTO newPet = new PetDTO();
+        newPet.setPetName("Rex");
+        petService.addPet("userWithPets@example.com", newPet);
+
+        mockMvc.perform(get("/api/v1/user/pets")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pets", hasSize(3)));
+    }
+
+    @Test
+    @WithMockUser(username = "userWithPets@example.com")
+    public void shouldPageThroughPetsWithNextPageToken() throws Exception {
+        MvcResult firstPage = mockMvc.perform(get("/api/v1/user/pets")
+                        .param("pageSize", "1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pets", hasSize(1)))
+                .andExpect(jsonPath("$.pets[0].petName").value("Buddy"))
+                .andExpect(jsonPath("$.nextPageToken").isString())
+                .andReturn();
+        String nextPageToken = JsonPath.read(firstPage.getResponse().getContentAsString(), "$.nextPageToken");
+
+        mockMvc.perform(get("/api/v1/user/pets")
+                        .param("pageSize", "1")
+                        .param("pageToken", nextPageToken)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pets", hasSize(1)))
+                .andExpect(jsonPath("$.pets[0].petName").value("Max"))
+                .andExpect(jsonPath("$.nextPageToken").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = "userWithPets@example.com")
+    public void shouldCapPageSize() throws Exception {
+        AppUser owner = appUserRepository.findByEmail("userWithPets@example.com").orElseThrow();
+        List<Pet> pets = new ArrayList<>();
+        for (int i = 0; i < maxPageSize; i++) {
+            Pet pet = new Pet();
+            pet.setPetName("Pet" + i);
+            pet.setOwner(owner);
+            pets.add(pet);
+        }
+        petRepository.saveAllAndFlush(pets);
+
+        mockMvc.perform(get("/api/v1/user/pets")
+                        .param("pageSize", "100000")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pets", hasSize(maxPageSize)))
+                .andExpect(jsonPath("$.nextPageToken").isString());
+    }
+
+    @Test
+    @WithMockUser(username = "userWithPets@example.com")
+    public void shouldRejectInvalidPageToken() throws Exception {
+        mockMvc.perform(get("/api/v1/user/pets")
+                        .param("pageToken", "not-a-token")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid Request"));
     }
 
     @Test
@@ -0,0 +1,141 @@
+package com.greenfox.dramacsoport.petclinicbackend.controllers.pet;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.PetDTO;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.bulk.SavePetsRequest;
+import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
+import com.greenfox.dramacsoport.petclinicbackend.models.Pet;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.AppUserRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.PetRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+public class SavePetsIntegrationTest {
+
+    private static final int NEW_PETS = 120;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Pet existingPet;
+
+    private Pet otherUsersPet;
+
+    @BeforeEach
+    public void setUp() {
+        AppUser breeder = new AppUser();
+        breeder.setEmail("breeder@example.com");
+        breeder.setPassword("Password");
+        AppUser otherUser = new AppUser();
+        otherUser.setEmail("other@example.com");
+        otherUser.setPassword("Password");
+        appUserRepository.saveAll(List.of(breeder, otherUser));
+
+        existingPet = new Pet();
+        existingPet.setPetName("Mother");
+        existingPet.setOwner(breeder);
+        otherUsersPet = new Pet();
+        otherUsersPet.setPetName("Stranger");
+        otherUsersPet.setOwner(otherUser);
+        petRepository.saveAll(List.of(existingPet, otherUsersPet));
+        petRepository.flush();
+    }
+
+    private static PetDTO petDTO(Long id, String name) {
+        PetDTO petDTO = new PetDTO();
+        petDTO.setId(id);
+        petDTO.setPetName(name);
+        petDTO.setPetBreed("dog");
+        petDTO.setPetSex("Female");
+        return petDTO;
+    }
+
+    @Test
+    @WithMockUser(username = "breeder@example.com")
+    public void shouldCreateAndUpdatePetsInBatches() throws Exception {
+        List<PetDTO> pets = new ArrayList<>();
+        pets.add(petDTO(existingPet.getId(), "Mama"));
+        for (int i = 0; i < NEW_PETS; i++) {
+            pets.add(petDTO(null, "Puppy" + i));
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(post("/api/v1/user/pets")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new SavePetsRequest(pets))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pets", hasSize(NEW_PETS + 1)))
+                .andExpect(jsonPath("$.pets[0].petName").value("Mama"))
+                .andExpect(jsonPath("$.pets[1].id").isNumber());
+        // the test transaction is never committed, so the batches are sent here
+        petRepository.flush();
+
+        // the new pets, and one change log row for all of them
+        assertEquals(NEW_PETS + 1, statistics.getEntityInsertCount());
+        assertEquals(1, statistics.getEntityUpdateCount());
+        // owner, pets to update, a few sequence blocks, the pet change and the batches, not one per pet
+        assertTrue(statistics.getPrepareStatementCount() < 20,
+                "statements: " + statistics.getPrepareStatementCount());
+        assertEquals("Mama", petRepository.findPetById(existingPet.getId()).getPetName());
+    }
+
+    @Test
+    @WithMockUser(username = "breeder@example.com")
+    public void shouldRejectWholeRequestWithSomeoneElsesPet() throws Exception {
+        List<PetDTO> pets = List.of(petDTO(null, "Puppy"), petDTO(otherUsersPet.getId(), "Stolen"));
+
+        mockMvc.perform(post("/api/v1/user/pets")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new SavePetsRequest(pets))))
+                .andExpect(status().isForbidden());
+
+        assertEquals("Stranger", petRepository.findPetById(otherUsersPet.getId()).getPetName());
+    }
+
+    @Test
+    @WithMockUser(username = "breeder@example.com")
+    public void shouldValidateEveryPet() throws Exception {
+        List<PetDTO> pets = List.of(petDTO(null, "Puppy"), petDTO(null, ""));
+
+        mockMvc.perform(post("/api/v1/user/pets")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new SavePetsRequest(pets))))
+                .andExpect(status().isBadRequest());
+    }
+}
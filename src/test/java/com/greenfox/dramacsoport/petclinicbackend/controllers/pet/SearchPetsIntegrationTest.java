@@ -0,0 +1,114 @@
+package com.greenfox.dramacsoport.petclinicbackend.controllers.pet;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.PetDTO;
+import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.AppUserRepository;
+import com.greenfox.dramacsoport.petclinicbackend.services.petHandling.PetService;
+import com.greenfox.dramacsoport.petclinicbackend.services.petHandling.search.PetSearchIndex;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Not transactional: the search index only replays the pet changes that have committed.
+ * The pets are saved once for all tests, as the index keeps the ids of deleted pets.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class SearchPetsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @Autowired
+    private PetService petService;
+
+    @Autowired
+    private PetSearchIndex petSearchIndex;
+
+    private AppUser owner;
+
+    @BeforeAll
+    public void setUp() {
+        owner = new AppUser();
+        owner.setEmail("searched.owner@example.com");
+        owner.setPassword("Password");
+        appUserRepository.save(owner);
+
+        petService.addPet(owner.getEmail(), new PetDTO(null, "Zorbaflop", "Xolotrier", "Male", null, null, null, null));
+        petService.addPet(owner.getEmail(), new PetDTO(null, "Quux", "Xolotrier mix", "Female", null, null, null,
+                "Allergic to zorbaflowers"));
+        petService.addPet(owner.getEmail(), new PetDTO(null, "Plain", "Beagle", "Male", null, null, null, null));
+        // the commits queued a replay in the background, this one has read them when it returns
+        petSearchIndex.catchUp();
+    }
+
+    @AfterAll
+    public void tearDown() {
+        appUserRepository.deleteById(owner.getId());
+    }
+
+    @Test
+    @WithMockUser(username = "vet@example.com", roles = "VET")
+    public void shouldFindPetsByFragmentOfAnyField() throws Exception {
+        mockMvc.perform(get("/api/v1/vet/pets/search").param("query", "ZORBAFL"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pets", hasSize(2)))
+                .andExpect(jsonPath("$.pets[0].petName").value("Zorbaflop"))
+                .andExpect(jsonPath("$.pets[1].petName").value("Quux"))
+                .andExpect(jsonPath("$.nextPageToken").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = "vet@example.com", roles = "VET")
+    public void shouldPaginateSearchResults() throws Exception {
+        MvcResult firstPage = mockMvc.perform(get("/api/v1/vet/pets/search")
+                        .param("query", "xolotri")
+                        .param("pageSize", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pets", hasSize(1)))
+                .andExpect(jsonPath("$.pets[0].petName").value("Zorbaflop"))
+                .andReturn();
+        String nextPageToken = JsonPath.read(firstPage.getResponse().getContentAsString(), "$.nextPageToken");
+
+        mockMvc.perform(get("/api/v1/vet/pets/search")
+                        .param("query", "xolotri")
+                        .param("pageSize", "1")
+                        .param("pageToken", nextPageToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pets", hasSize(1)))
+                .andExpect(jsonPath("$.pets[0].petName").value("Quux"))
+                .andExpect(jsonPath("$.nextPageToken").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = "vet@example.com", roles = "VET")
+    public void shouldRejectTooShortQuery() throws Exception {
+        mockMvc.perform(get("/api/v1/vet/pets/search").param("query", "zo"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "user@example.com", roles = "USER")
+    public void shouldNotLetUsersSearch() throws Exception {
+        mockMvc.perform(get("/api/v1/vet/pets/search").param("query", "zorbaflop"))
+                .andExpect(status().isForbidden());
+    }
+}
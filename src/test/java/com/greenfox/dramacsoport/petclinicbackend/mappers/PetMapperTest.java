@@ -0,0 +1,48 @@
+package com.greenfox.dramacsoport.petclinicbackend.mappers;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.PetDTO;
+import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
+import com.greenfox.dramacsoport.petclinicbackend.models.Pet;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PetMapperTest {
+
+    private final PetMapper petMapper = new PetMapperImpl();
+
+    @Test
+    public void shouldCopyEveryFieldExceptOwner() {
+        Pet pet = new Pet(1L, "Max", "dog", "Male", LocalDate.of(2020, 1, 1), LocalDate.of(2024, 1, 1),
+                LocalDate.of(2025, 1, 1), "allergic", new AppUser());
+
+        PetDTO petDTO = petMapper.toDto(pet);
+        Pet copy = petMapper.toEntity(petDTO);
+
+        assertEquals(1L, petDTO.getId());
+        assertEquals("Max", petDTO.getPetName());
+        assertEquals(LocalDate.of(2025, 1, 1), petDTO.getNextCheckUp());
+        assertEquals("allergic", copy.getSpecialCondition());
+        assertEquals(LocalDate.of(2020, 1, 1), copy.getPetBirthDate());
+        assertNull(copy.getOwner());
+    }
+
+    @Test
+    public void updateShouldOverwriteFieldsAndKeepOwner() {
+        AppUser owner = new AppUser();
+        Pet pet = new Pet(1L, "Max", "dog", "Male", null, null, null, "allergic", owner);
+        PetDTO petDTO = new PetDTO();
+        petDTO.setId(1L);
+        petDTO.setPetName("Buddy");
+        petDTO.setPetBreed("dog");
+        petDTO.setPetSex("Male");
+
+        petMapper.update(petDTO, pet);
+
+        assertEquals("Buddy", pet.getPetName());
+        assertNull(pet.getSpecialCondition());
+        assertSame(owner, pet.getOwner());
+    }
+}
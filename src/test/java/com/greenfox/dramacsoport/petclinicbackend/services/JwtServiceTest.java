@@ -2,6 +2,7 @@ package com.greenfox.dramacsoport.petclinicbackend.services;
 
 import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
 import com.greenfox.dramacsoport.petclinicbackend.models.Role;
+import com.greenfox.dramacsoport.petclinicbackend.services.token.VerifiedToken;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -37,6 +38,61 @@ public class JwtServiceTest {
         assertTrue(jwtService.isTokenValid(token));
     }
 
+    @Test
+    public void shouldVerifyTokenOnlyOnce() {
+        AppUser userDetails = AppUser.builder()
+                .email("test@user.com")
+                .displayName("testUser")
+                .password("password")
+                .role(Role.USER)
+                .build();
+
+        String token = jwtService.generateToken(userDetails);
+
+        VerifiedToken firstVerification = jwtService.verify(token).orElseThrow();
+        VerifiedToken secondVerification = jwtService.verify(token).orElseThrow();
+
+        assertEquals("test@user.com", firstVerification.username());
+        assertSame(firstVerification, secondVerification);
+    }
+
+    @Test
+    public void shouldNotVerifyTamperedToken() {
+        AppUser userDetails = AppUser.builder()
+                .email("test@user.com")
+                .displayName("testUser")
+                .password("password")
+                .role(Role.USER)
+                .build();
+
+        String token = jwtService.generateToken(userDetails);
+        int signatureStart = token.lastIndexOf('.') + 1;
+        char tamperedChar = token.charAt(signatureStart) == 'A' ? 'B' : 'A';
+        String tamperedToken = token.substring(0, signatureStart) + tamperedChar + token.substring(signatureStart + 1);
+
+        assertTrue(jwtService.verify(tamperedToken).isEmpty());
+        assertFalse(jwtService.isTokenValid("not.a.token"));
+    }
+
+    @Test
+    public void shouldRejectTokensOfReplacedKey() {
+        AppUser userDetails = AppUser.builder()
+                .email("test@user.com")
+                .displayName("testUser")
+                .password("password")
+                .role(Role.USER)
+                .build();
+
+        String oldToken = jwtService.generateToken(userDetails);
+        assertTrue(jwtService.isTokenValid(oldToken));
+
+        jwtService.updateSigningKey("onZ84nm7InrmSKgjFKhWE/e3fVCkdqvTunznhIoYHGo=");
+        String newToken = jwtService.generateToken(userDetails);
+
+        assertFalse(jwtService.isTokenValid(oldToken));
+        assertTrue(jwtService.isTokenValid(newToken));
+    }
+
     @Test
     public void shouldGetUsername() {
         AppUser userDetails = AppUser.builder()
@@ -4,11 +4,16 @@ import com.greenfox.dramacsoport.petclinicbackend.dtos.user.delete.DeleteUserRes
 import com.greenfox.dramacsoport.petclinicbackend.dtos.user.update.EditUserRequestDTO;
 import com.greenfox.dramacsoport.petclinicbackend.exceptions.DeletionException;
 import com.greenfox.dramacsoport.petclinicbackend.exceptions.UnauthorizedActionException;
+import com.greenfox.dramacsoport.petclinicbackend.mappers.AppUserMapper;
+import com.greenfox.dramacsoport.petclinicbackend.mappers.AppUserMapperImpl;
 import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
 import com.greenfox.dramacsoport.petclinicbackend.models.Pet;
 import com.greenfox.dramacsoport.petclinicbackend.models.Role;
 import com.greenfox.dramacsoport.petclinicbackend.repositories.AppUserRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.AppointmentRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.RefreshTokenRepository;
 import com.greenfox.dramacsoport.petclinicbackend.services.JwtService;
+import com.greenfox.dramacsoport.petclinicbackend.services.token.TokenVersionRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -16,6 +21,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
@@ -36,6 +42,12 @@ public class AppUserServiceTest {
     @Mock
     private AppUserRepository repository;
 
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+
     @Mock
     private AppUser appUser;
 
@@ -48,6 +60,12 @@ public class AppUserServiceTest {
     @Mock
     private JwtService jwtService;
 
+    @Mock
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Spy
+    private AppUserMapper appUserMapper = new AppUserMapperImpl();
+
     @Test
     public void shouldNotAllowDeletionIfUserHasPets() {
         // Given
@@ -64,6 +82,23 @@ public class AppUserServiceTest {
         verify(repository, never()).delete(appUserCaptor.capture());
     }
 
+    @Test
+    public void shouldNotAllowDeletionOfVetWithAppointments() {
+        // Given
+        String userEmail = "vet@example.com";
+        when(repository.findByEmail(anyString())).thenReturn(Optional.of(appUser));
+        when(appUser.getId()).thenReturn(1L);
+        when(appointmentRepository.existsByVetId(1L)).thenReturn(true);
+
+        // When
+        DeletionException deletionException = assertThrows(DeletionException.class, () -> appUserService.deleteUser(userEmail, 1L));
+
+        // Then
+        assertEquals("Unable to delete your profile. Appointments were booked with you as a vet.", deletionException.getMessage());
+        verify(refreshTokenRepository, never()).deleteAllByUser(any());
+        verify(repository, never()).delete(appUserCaptor.capture());
+    }
+
     @Test
     public void shouldAllowDeletionIfUserHasNoPets() throws DeletionException {
         // Given
@@ -77,6 +112,7 @@ public class AppUserServiceTest {
 
         // Then
         assertEquals("Your profile has been successfully deleted.", deleteUserResponse.message());
+        verify(refreshTokenRepository).deleteAllByUser(appUser);
         verify(repository).delete(appUserCaptor.capture());
         assertEquals(appUser, appUserCaptor.getValue());
     }
@@ -150,6 +186,9 @@ public class AppUserServiceTest {
         assertEquals(request.email(), appUserCaptor.getValue().getEmail());
         assertEquals(passwordEncoder.encode(request.password()), appUserCaptor.getValue().getPassword());
         assertEquals(request.displayName(), appUserCaptor.getValue().getDisplayName());
+        assertEquals(1, appUserCaptor.getValue().getTokenVersion());
+        verify(tokenVersionRegistry).update(1L, 1);
+        verify(refreshTokenRepository).revokeAllByUserId(1L);
     }
 
     @Test
@@ -204,5 +243,40 @@ public class AppUserServiceTest {
         assertEquals(request.email(), appUserCaptor.getValue().getEmail());
         assertEquals(oldUser.getPassword(), appUserCaptor.getValue().getPassword());
         assertEquals(request.displayName(), appUserCaptor.getValue().getDisplayName());
+        // the email changed, so the old tokens are invalid too
+        assertEquals(1, appUserCaptor.getValue().getTokenVersion());
+        verify(tokenVersionRegistry).update(1L, 1);
+        verify(refreshTokenRepository).revokeAllByUserId(1L);
+    }
+
+    @Test
+    @DisplayName("Update user - display name only keeps the tokens")
+    public void changeUserDataKeepsTokenVersionWhenOnlyDisplayNameChanges() throws NameAlreadyBoundException {
+        EditUserRequestDTO request = new EditUserRequestDTO(
+                "test@example.com",
+                "Pr3v_p4ssw0rd",
+                null,
+                "Edited_N3w-N4me");
+
+        AppUser dbUser = AppUser.builder()
+                .id(1L)
+                .displayName("Test User")
+                .email("test@example.com")
+                .password("encodedPassword")
+                .role(Role.USER)
+                .pets(List.of())
+                .build();
+
+        when(repository.findByEmail(anyString())).thenReturn(Optional.of(dbUser));
+        when(repository.existsByEmail(request.email())).thenReturn(true);
+        when(passwordEncoder.matches(request.originalPassword(), dbUser.getPassword())).thenReturn(true);
+
+        appUserService.changeUserData(dbUser.getEmail(), request);
+
+        verify(repository).save(appUserCaptor.capture());
+        assertEquals(request.displayName(), appUserCaptor.getValue().getDisplayName());
+        assertEquals(0, appUserCaptor.getValue().getTokenVersion());
+        verify(tokenVersionRegistry).update(1L, 0);
+        verify(refreshTokenRepository, never()).revokeAllByUserId(any());
     }
 }
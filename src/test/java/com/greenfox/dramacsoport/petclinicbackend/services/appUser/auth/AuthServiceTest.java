@@ -1,31 +1,38 @@
 package com.greenfox.dramacsoport.petclinicbackend.services.appUser.auth;
 
+import com.greenfox.dramacsoport.petclinicbackend.dtos.user.login.LoginCredentials;
 import com.greenfox.dramacsoport.petclinicbackend.dtos.user.login.LoginRequestDTO;
 import com.greenfox.dramacsoport.petclinicbackend.dtos.user.login.LoginResponseDTO;
 import com.greenfox.dramacsoport.petclinicbackend.dtos.user.register.RegisterRequestDTO;
+import com.greenfox.dramacsoport.petclinicbackend.mappers.AppUserMapper;
+import com.greenfox.dramacsoport.petclinicbackend.mappers.AppUserMapperImpl;
 import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
+import com.greenfox.dramacsoport.petclinicbackend.models.Role;
 import com.greenfox.dramacsoport.petclinicbackend.repositories.AppUserRepository;
 import com.greenfox.dramacsoport.petclinicbackend.services.JwtService;
-import com.greenfox.dramacsoport.petclinicbackend.services.appUser.AppUserService;
+import com.greenfox.dramacsoport.petclinicbackend.services.email.EmailOutbox;
+import com.greenfox.dramacsoport.petclinicbackend.services.token.RefreshTokenService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.naming.NameAlreadyBoundException;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,20 +45,26 @@ public class AuthServiceTest {
     @Mock
     private AppUserRepository appUserRepository;
 
-    @Mock
-    private AppUserService appUserService;
-
     @Mock
     private PasswordEncoder passwordEncoder;
 
     @Mock
-    private JavaMailSender javaMailSender;
+    private EmailOutbox emailOutbox;
 
     @Mock
     private JwtService jwtService;
 
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    @Spy
+    private AppUserMapper appUserMapper = new AppUserMapperImpl();
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
     @Captor
-    private ArgumentCaptor<SimpleMailMessage> captor;
+    private ArgumentCaptor<String> captor;
 
     private RegisterRequestDTO registerRequestDTO;
 
@@ -71,25 +84,35 @@ public class AuthServiceTest {
 
     @Test
     public void registerMethodIsSuccessfullyCalled() throws NameAlreadyBoundException {
+        when(passwordEncoder.encode(registerRequestDTO.getPassword())).thenReturn("encodedPassword");
 
         appUserAuthService.registerUser(registerRequestDTO);
 
         verify(passwordEncoder, times(1)).encode(registerRequestDTO.getPassword());
-        verify(appUserRepository, times(1)).save(any(AppUser.class));
-        verify(javaMailSender, times(1)).send(any(SimpleMailMessage.class));
+        ArgumentCaptor<AppUser> userCaptor = ArgumentCaptor.forClass(AppUser.class);
+        verify(appUserRepository, times(1)).save(userCaptor.capture());
+        AppUser savedUser = userCaptor.getValue();
+        assertEquals("test@example.com", savedUser.getEmail());
+        assertEquals("testUser", savedUser.getDisplayName());
+        assertEquals("encodedPassword", savedUser.getPassword());
+        assertEquals(Role.USER, savedUser.getRole());
+        verify(emailOutbox, times(1)).enqueue(eq("test@example.com"), anyString(), anyString());
+        // the password is hashed before the first database access
+        InOrder inOrder = inOrder(passwordEncoder, appUserRepository, transactionTemplate);
+        inOrder.verify(appUserRepository).existsByEmail("test@example.com");
+        inOrder.verify(passwordEncoder).encode(registerRequestDTO.getPassword());
+        inOrder.verify(transactionTemplate).execute(any());
 
     }
 
     @Test
-    void sendEmailAfterRegistration_shouldSendEmailWhenNewUserIsRegistered() {
+    void sendEmailAfterRegistration_shouldQueueEmailWhenNewUserIsRegistered() {
         RegisterRequestDTO testUser = new RegisterRequestDTO("testUser", "test@example.com", "password");
         appUserAuthService.sendEmailAfterRegistration(testUser);
 
-        verify(javaMailSender).send(captor.capture());
-        SimpleMailMessage actualMessage = captor.getValue();
+        verify(emailOutbox).enqueue(eq("test@example.com"), eq("Registration successful - Pet Clinic"),
+                captor.capture());
 
-        assertEquals("test@example.com", actualMessage.getTo()[0]);
-        assertEquals("Registration successful - Pet Clinic", actualMessage.getSubject());
         assertEquals("""
                         Dear testUser,
 
@@ -97,23 +120,22 @@ public class AuthServiceTest {
 
                         Best regards,
                         Pet Clinic Team""",
-                actualMessage.getText());
+                captor.getValue());
     }
 
     @Test
     public void loginMethodIsSuccessfullyCalled() throws UsernameNotFoundException {
-        // Arrange: Mock user details and token generation
-        AppUser appUser = new AppUser();
-        appUser.setEmail("test@example.com"); // Ensure this matches the loginRequestDTO
-        appUser.setPassword("encodedPassword");
+        // Arrange: Mock user credentials and token generation
+        LoginCredentials credentials = new LoginCredentials(1L, "test@example.com", "encodedPassword",
+                "testUser", Role.USER, 0);
 
         // Mock the behavior of finding a user by email
-        when(appUserService.loadUserByEmail(loginRequestDTO.email())).thenReturn(appUser);
+        when(appUserRepository.findLoginCredentialsByEmail(loginRequestDTO.email())).thenReturn(Optional.of(credentials));
         // Mock the behavior of password matching
-        when(passwordEncoder.matches(loginRequestDTO.password(), appUser.getPassword())).thenReturn(true);
+        when(passwordEncoder.matches(loginRequestDTO.password(), credentials.password())).thenReturn(true);
         // Mock the behavior of JWT token generation
-        when(jwtService.generateToken(any(AppUser.class))).thenReturn("mockedJwtToken");
-        // Mock the behavior of role extraction
+        when(jwtService.generateToken(credentials)).thenReturn("mockedJwtToken");
+        when(refreshTokenService.issue(credentials)).thenReturn("mockedRefreshToken");
 
         // Act: Call the login method
         LoginResponseDTO token = appUserAuthService.login(loginRequestDTO);
@@ -121,7 +143,8 @@ public class AuthServiceTest {
         // Assert: Verify the token and interactions
         assertNotNull(token);
         assertEquals("mockedJwtToken", token.token()); // Ensure you're accessing the correct field
-        verify(jwtService, times(1)).generateToken(any(AppUser.class));
+        assertEquals("mockedRefreshToken", token.refreshToken());
+        verify(jwtService, times(1)).generateToken(credentials);
     }
 
 }
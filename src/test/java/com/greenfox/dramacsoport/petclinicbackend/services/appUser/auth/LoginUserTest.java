@@ -1,20 +1,24 @@
 package com.greenfox.dramacsoport.petclinicbackend.services.appUser.auth;
 
+import com.greenfox.dramacsoport.petclinicbackend.dtos.user.login.LoginCredentials;
 import com.greenfox.dramacsoport.petclinicbackend.dtos.user.login.LoginRequestDTO;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.user.login.LoginResponseDTO;
 import com.greenfox.dramacsoport.petclinicbackend.errors.AppServiceErrors;
 import com.greenfox.dramacsoport.petclinicbackend.exceptions.IncorrectLoginCredentialsException;
-import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
+import com.greenfox.dramacsoport.petclinicbackend.models.Role;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.AppUserRepository;
 import com.greenfox.dramacsoport.petclinicbackend.services.JwtService;
-import com.greenfox.dramacsoport.petclinicbackend.services.appUser.AppUserService;
+import com.greenfox.dramacsoport.petclinicbackend.services.token.RefreshTokenService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.Optional;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
@@ -24,7 +28,7 @@ import static org.mockito.Mockito.*;
 public class LoginUserTest {
 
     @Mock
-    private AppUserService appUserService;
+    private AppUserRepository appUserRepository;
 
     @Mock
     private PasswordEncoder passwordEncoder;
@@ -32,38 +36,58 @@ public class LoginUserTest {
     @Mock
     private JwtService jwtService;
 
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
     @InjectMocks
     private AuthServiceImpl authService;
 
     private LoginRequestDTO loginRequestDTO;
 
+    private LoginCredentials credentials;
+
     @BeforeEach
     public void setup() {
         // Initialize test data
         loginRequestDTO = new LoginRequestDTO("test@example.com", "password");
+        credentials = new LoginCredentials(1L, "test@example.com", "encodedPassword", "Test User", Role.USER, 0);
+    }
+
+    @Test
+    public void loginMethodLoadsUserOnlyOnce() {
+        // Arrange: Mock a user with matching credentials
+        when(appUserRepository.findLoginCredentialsByEmail(loginRequestDTO.email())).thenReturn(Optional.of(credentials));
+        when(passwordEncoder.matches(loginRequestDTO.password(), credentials.password())).thenReturn(true);
+        when(jwtService.generateToken(credentials)).thenReturn("token");
+        when(refreshTokenService.issue(credentials)).thenReturn("refreshToken");
+
+        // Act
+        LoginResponseDTO response = authService.login(loginRequestDTO);
+
+        // Assert: a single query is enough to check the password and build the token
+        assertEquals("token", response.token());
+        verify(appUserRepository, times(1)).findLoginCredentialsByEmail(loginRequestDTO.email());
+        verifyNoMoreInteractions(appUserRepository);
     }
 
     @Test
     public void loginMethodFailsWithWrongEmail() {
         // Arrange: Set up a non-matching email scenario
-        when(appUserService.loadUserByEmail(loginRequestDTO.email())).thenThrow(UsernameNotFoundException.class);
+        when(appUserRepository.findLoginCredentialsByEmail(loginRequestDTO.email())).thenReturn(Optional.empty());
 
         // Act & Assert: Expect an exception due to email mismatch
         assertThrows(IncorrectLoginCredentialsException.class, () -> authService.login(loginRequestDTO));
 
-        // Verify no token is generated since login should fail
-        verify(jwtService, never()).generateToken(any(AppUser.class));
+        // Verify no password is checked and no token is generated since login should fail
+        verify(passwordEncoder, never()).matches(any(), any());
+        verify(jwtService, never()).generateToken(any(LoginCredentials.class));
     }
 
     @Test
     public void loginMethodFailsWithWrongPassword() {
         // Arrange: Mock user with correct email but wrong password
-        AppUser appUser = new AppUser();
-        appUser.setEmail("test@example.com");
-        appUser.setPassword("encodedPassword");
-
-        when(appUserService.loadUserByEmail(loginRequestDTO.email())).thenReturn(appUser);
-        when(passwordEncoder.matches(loginRequestDTO.password(), appUser.getPassword())).thenReturn(false);
+        when(appUserRepository.findLoginCredentialsByEmail(loginRequestDTO.email())).thenReturn(Optional.of(credentials));
+        when(passwordEncoder.matches(loginRequestDTO.password(), credentials.password())).thenReturn(false);
 
         // Act & Assert: Expect an exception due to password mismatch
         IncorrectLoginCredentialsException exception = assertThrows(IncorrectLoginCredentialsException.class,
@@ -72,6 +96,7 @@ public class LoginUserTest {
         assertEquals(AppServiceErrors.AUTHENTICATION_FAILED_BAD_CREDENTIALS, exception.getMessage());
 
         // Verify no token is generated since login should fail
-        verify(jwtService, never()).generateToken(any(AppUser.class));
+        verify(jwtService, never()).generateToken(any(LoginCredentials.class));
+        verify(appUserRepository, times(1)).findLoginCredentialsByEmail(loginRequestDTO.email());
     }
 }
@@ -5,14 +5,14 @@ import com.greenfox.dramacsoport.petclinicbackend.errors.AppServiceErrors;
 import com.greenfox.dramacsoport.petclinicbackend.exceptions.InvalidPasswordException;
 import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
 import com.greenfox.dramacsoport.petclinicbackend.repositories.AppUserRepository;
+import com.greenfox.dramacsoport.petclinicbackend.services.email.EmailOutbox;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 import javax.naming.NameAlreadyBoundException;
 
@@ -29,7 +29,10 @@ public class RegistratingUserTest {
     private AppUserRepository appUserRepository;
 
     @Mock
-    private JavaMailSender javaMailSender;
+    private EmailOutbox emailOutbox;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
 
     @InjectMocks
     private AuthServiceImpl authService;
@@ -53,10 +56,12 @@ public class RegistratingUserTest {
         // Assert that the message matches the expected message
         assertEquals(AppServiceErrors.USERNAME_ALREADY_EXISTS, exception.getMessage());
 
-        // Verify that the repository's save method and the email sender's send method are never called
+        // Verify that the password is not hashed, and the repository's save method and the email sender's send
+        // method are never called
         verify(appUserRepository, times(1)).existsByEmail("test@example.com");
+        verify(passwordEncoder, never()).encode(anyString());
         verify(appUserRepository, never()).save(any(AppUser.class));
-        verify(javaMailSender, never()).send(any(SimpleMailMessage.class));
+        verify(emailOutbox, never()).enqueue(anyString(), anyString(), anyString());
     }
 
     @Test
@@ -73,7 +78,7 @@ public class RegistratingUserTest {
 
         // Verify that no user is saved and no email is sent
         verify(appUserRepository, never()).save(any(AppUser.class));
-        verify(javaMailSender, never()).send(any(SimpleMailMessage.class));
+        verify(emailOutbox, never()).enqueue(anyString(), anyString(), anyString());
     }
 
 }
@@ -0,0 +1,179 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.appointments;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.BookAppointmentRequest;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.slots.BookedSlot;
+import com.greenfox.dramacsoport.petclinicbackend.exceptions.SlotAlreadyBookedException;
+import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
+import com.greenfox.dramacsoport.petclinicbackend.models.Appointment;
+import com.greenfox.dramacsoport.petclinicbackend.models.Clinic;
+import com.greenfox.dramacsoport.petclinicbackend.models.Pet;
+import com.greenfox.dramacsoport.petclinicbackend.models.Role;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.AppUserRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.AppointmentRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.ClinicRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.PetRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hundreds of owners race for a few slots. Not transactional: every booking commits on its own, like in
+ * production.
+ */
+@SpringBootTest
+public class AppointmentConcurrencyTest {
+
+    private static final int OWNERS = 40;
+
+    private static final int BOOKINGS = 400;
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(2);
+
+    @Autowired
+    private AppointmentService appointmentService;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private AppUserRepository appUserRepository;
+    @Autowired
+    private PetRepository petRepository;
+    @Autowired
+    private ClinicRepository clinicRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Clinic clinic;
+    private final List<AppUser> vets = new ArrayList<>();
+    private final List<Pet> pets = new ArrayList<>();
+
+    private AppUser user(String email, Role role) {
+        AppUser user = new AppUser();
+        user.setEmail(email);
+        user.setPassword("Password");
+        user.setRole(role);
+        user.setClinic(role == Role.VET ? clinic : null);
+        return appUserRepository.save(user);
+    }
+
+    @BeforeEach
+    public void setUp() {
+        clinic = clinicRepository.save(new Clinic(null, "Popular Clinic", "1 Busy Street", null, null));
+        vets.add(user("popular.vet.one@example.com", Role.VET));
+        vets.add(user("popular.vet.two@example.com", Role.VET));
+        for (int i = 0; i < OWNERS; i++) {
+            AppUser owner = user("racing.owner" + i + "@example.com", Role.USER);
+            pets.add(petRepository.save(new Pet(null, "Racer" + i, "dog", "Female", null, null, null, null, owner)));
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        appointmentRepository.deleteAll();
+        pets.forEach(pet -> appUserRepository.deleteById(pet.getOwner().getId()));
+        vets.forEach(vet -> appUserRepository.deleteById(vet.getId()));
+        clinicRepository.deleteById(clinic.getId());
+        pets.clear();
+        vets.clear();
+    }
+
+    /**
+     * Runs the tasks on many threads, all released at the same moment.
+     * @return what each task threw, <code>null</code> for the ones that succeeded
+     */
+    private static List<Throwable> race(List<Callable<?>> tasks) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Throwable>> results = new ArrayList<>();
+        for (Callable<?> task : tasks) {
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    task.call();
+                    return null;
+                } catch (Exception e) {
+                    return e;
+                }
+            }));
+        }
+        start.countDown();
+        List<Throwable> outcomes = new ArrayList<>();
+        for (Future<Throwable> result : results) {
+            try {
+                outcomes.add(result.get(1, TimeUnit.MINUTES));
+            } catch (ExecutionException | TimeoutException e) {
+                fail(e);
+            }
+        }
+        executor.shutdown();
+        return outcomes;
+    }
+
+    @Test
+    public void shouldBookEverySlotExactlyOnce() throws InterruptedException {
+        List<LocalDateTime> slots = List.of(DAY.atTime(9, 0), DAY.atTime(9, 30), DAY.atTime(10, 0));
+        List<Callable<?>> bookings = new ArrayList<>();
+        for (int i = 0; i < BOOKINGS; i++) {
+            Pet pet = pets.get(i % OWNERS);
+            AppUser vet = vets.get(i % vets.size());
+            LocalDateTime slot = slots.get(i % slots.size());
+            bookings.add(() -> appointmentService.bookAppointment(pet.getOwner().getEmail(),
+                    new BookAppointmentRequest(pet.getId(), vet.getId(), slot)));
+        }
+
+        List<Throwable> outcomes = race(bookings);
+
+        // 2 vets x 3 slots
+        assertEquals(6, outcomes.stream().filter(outcome -> outcome == null).count());
+        assertTrue(outcomes.stream().filter(outcome -> outcome != null)
+                .allMatch(outcome -> outcome instanceof SlotAlreadyBookedException), () -> outcomes.toString());
+        assertNoSlotBookedTwice(6);
+    }
+
+    /**
+     * The unique constraint alone, without the locks in front of it, as when the racing owners are served by
+     * different instances.
+     */
+    @Test
+    public void shouldRejectDoubleBookingInDatabase() throws InterruptedException {
+        LocalDateTime slot = DAY.atTime(14, 0);
+        List<Callable<?>> inserts = new ArrayList<>();
+        for (int i = 0; i < OWNERS; i++) {
+            Pet pet = pets.get(i);
+            inserts.add(() -> transactionTemplate.execute(status -> appointmentRepository.saveAndFlush(
+                    Appointment.builder()
+                            .clinic(clinic)
+                            .vet(vets.get(0))
+                            .pet(pet)
+                            .startsAt(slot)
+                            .activeSlot(slot)
+                            .build())));
+        }
+
+        List<Throwable> outcomes = race(inserts);
+
+        assertEquals(1, outcomes.stream().filter(outcome -> outcome == null).count());
+        assertTrue(outcomes.stream().filter(outcome -> outcome != null)
+                .allMatch(outcome -> outcome instanceof DataAccessException), () -> outcomes.toString());
+        assertNoSlotBookedTwice(1);
+    }
+
+    private void assertNoSlotBookedTwice(int expectedBooked) {
+        List<BookedSlot> booked = appointmentRepository.findBookedSlots(
+                vets.stream().map(AppUser::getId).toList(), DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay());
+        assertEquals(expectedBooked, booked.size());
+        assertEquals(expectedBooked, new HashSet<>(booked).size(), booked::toString);
+    }
+}
@@ -0,0 +1,268 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.appointments;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.slots.BookedSlot;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.appointment.slots.FreeSlot;
+import com.greenfox.dramacsoport.petclinicbackend.models.AvailabilitySnapshot;
+import com.greenfox.dramacsoport.petclinicbackend.models.SlotChange;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.AppointmentRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.AvailabilitySnapshotRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.SlotChangeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class AvailabilityCalendarTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private final AppointmentSchedule schedule = new AppointmentSchedule("08:00", "18:00", Duration.ofMinutes(30),
+            Period.ofDays(60));
+
+    @Mock
+    private AppointmentRepository appointmentRepository;
+
+    @Mock
+    private SlotChangeRepository slotChangeRepository;
+
+    @Mock
+    private AvailabilitySnapshotRepository availabilitySnapshotRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private AvailabilityCalendar availabilityCalendar;
+
+    @BeforeEach
+    public void setUp() {
+        availabilityCalendar = newCalendar();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        availabilityCalendar.close();
+    }
+
+    private AvailabilityCalendar newCalendar() {
+        return new AvailabilityCalendar(appointmentRepository, slotChangeRepository, availabilitySnapshotRepository,
+                schedule, new TransactionTemplate(transactionManager), eventPublisher, Duration.ofMinutes(1),
+                Duration.ofDays(1));
+    }
+
+    private void build(List<BookedSlot> booked, List<SlotChange> changes) {
+        when(slotChangeRepository.currentTime()).thenReturn(Instant.now());
+        when(availabilitySnapshotRepository.findById(AvailabilitySnapshot.APPOINTMENTS)).thenReturn(Optional.empty());
+        when(slotChangeRepository.findMaxIdCreatedBefore(any())).thenReturn(Optional.of(0L));
+        when(appointmentRepository.findAllBookedSlots(any(), any())).thenReturn(booked);
+        when(slotChangeRepository.findByIdGreaterThanOrderById(any(), any())).thenReturn(changes);
+        availabilityCalendar.load();
+    }
+
+    private static SlotChange change(long id, long vetId, LocalDateTime slot, boolean booked, Instant createdAt) {
+        return new SlotChange(id, vetId, slot, booked, createdAt);
+    }
+
+    private long freeSlots(long vetId, LocalDate day) {
+        return availabilityCalendar.freeSlots(vetId, day, TODAY.atStartOfDay());
+    }
+
+    @Test
+    public void shouldFindEarliestSlotFreeAtAnyVet() {
+        Random random = new Random(42);
+        List<Long> vetIds = List.of(7L, 3L, 5L, 11L);
+        boolean[][][] taken = new boolean[vetIds.size()][10][schedule.getSlotsPerDay()];
+        List<BookedSlot> booked = new ArrayList<>();
+        for (int vet = 0; vet < vetIds.size(); vet++) {
+            for (int day = 0; day < 10; day++) {
+                for (int slot = 0; slot < schedule.getSlotsPerDay(); slot++) {
+                    // mostly booked, so the first free slot is a few days ahead
+                    taken[vet][day][slot] = random.nextInt(100) < 97;
+                    if (taken[vet][day][slot]) {
+                        booked.add(new BookedSlot(vetIds.get(vet), schedule.slotStart(TODAY.plusDays(day), slot)));
+                    }
+                }
+            }
+        }
+        build(booked, List.of());
+
+        FreeSlot expected = null;
+        search:
+        for (int day = 0; day < 10; day++) {
+            for (int slot = 0; slot < schedule.getSlotsPerDay(); slot++) {
+                for (int vet = 0; vet < vetIds.size(); vet++) {
+                    if (!taken[vet][day][slot]) {
+                        expected = new FreeSlot(vetIds.get(vet), schedule.slotStart(TODAY.plusDays(day), slot));
+                        break search;
+                    }
+                }
+            }
+        }
+        assertEquals(expected, availabilityCalendar.firstFree(vetIds, 10, TODAY.atStartOfDay()));
+        // the days before it are full
+        assertNull(availabilityCalendar.firstFree(vetIds,
+                (int) ChronoUnit.DAYS.between(TODAY, expected.startsAt().toLocalDate()), TODAY.atStartOfDay()));
+        // nothing booked, but every slot of today has started
+        assertEquals(new FreeSlot(99L, TODAY.plusDays(1).atTime(8, 0)),
+                availabilityCalendar.firstFree(List.of(99L), 10, TODAY.atTime(18, 0)));
+    }
+
+    @Test
+    public void shouldLeaveOutStartedSlots() {
+        build(List.of(new BookedSlot(1L, TODAY.atTime(11, 0))), List.of());
+
+        long free = availabilityCalendar.freeSlots(1L, TODAY, TODAY.atTime(10, 10));
+        // 10:30 onwards, without 11:00
+        assertEquals(5, Long.numberOfTrailingZeros(free));
+        assertEquals(14, Long.bitCount(free));
+        assertEquals(0, availabilityCalendar.freeSlots(1L, TODAY, TODAY.atTime(17, 30)));
+        assertEquals(20, Long.bitCount(availabilityCalendar.freeSlots(1L, TODAY.plusDays(1), TODAY.atTime(17, 30))));
+        // after the booking horizon
+        assertEquals(0, freeSlots(1L, schedule.lastBookableDay(TODAY).plusDays(5)));
+    }
+
+    @Test
+    public void shouldReplayChangesAfterTheLastMissingId() {
+        LocalDateTime nine = TODAY.plusDays(1).atTime(9, 0);
+        LocalDateTime ten = TODAY.plusDays(1).atTime(10, 0);
+        Instant now = Instant.now();
+        build(List.of(), List.of());
+        when(slotChangeRepository.findByIdGreaterThanOrderById(any(), any())).thenReturn(
+                // 2 has not committed yet
+                List.of(change(1, 1L, nine, true, now), change(3, 1L, ten, true, now)),
+                // 2 frees the slot booked by 1, 3 is applied again
+                List.of(change(2, 1L, nine, false, now), change(3, 1L, ten, true, now)),
+                List.of());
+
+        availabilityCalendar.catchUp();
+        assertEquals(18, Long.bitCount(freeSlots(1L, TODAY.plusDays(1))));
+        availabilityCalendar.catchUp();
+        assertEquals(19, Long.bitCount(freeSlots(1L, TODAY.plusDays(1))));
+        availabilityCalendar.catchUp();
+
+        ArgumentCaptor<Long> afterIds = ArgumentCaptor.forClass(Long.class);
+        verify(slotChangeRepository, times(4)).findByIdGreaterThanOrderById(afterIds.capture(), any(Limit.class));
+        assertEquals(List.of(0L, 0L, 1L, 3L), afterIds.getAllValues());
+    }
+
+    @Test
+    public void shouldSkipMissingIdOnceItTimedOut() {
+        Instant old = Instant.now().minus(Duration.ofMinutes(2));
+        build(List.of(), List.of());
+        when(slotChangeRepository.findByIdGreaterThanOrderById(any(), any())).thenReturn(
+                List.of(change(1, 1L, TODAY.plusDays(1).atTime(9, 0), true, old),
+                        change(3, 1L, TODAY.plusDays(1).atTime(10, 0), true, old)),
+                List.of());
+
+        availabilityCalendar.catchUp();
+        availabilityCalendar.catchUp();
+
+        ArgumentCaptor<Long> afterIds = ArgumentCaptor.forClass(Long.class);
+        verify(slotChangeRepository, times(3)).findByIdGreaterThanOrderById(afterIds.capture(), any(Limit.class));
+        assertEquals(List.of(0L, 0L, 3L), afterIds.getAllValues());
+    }
+
+    @Test
+    public void shouldReplayCommittedChangesInTheBackgroundTogether() throws InterruptedException {
+        build(List.of(), List.of());
+        CountDownLatch slowDatabase = new CountDownLatch(1);
+        List<String> replayThreads = new CopyOnWriteArrayList<>();
+        when(slotChangeRepository.findByIdGreaterThanOrderById(any(), any())).thenAnswer(invocation -> {
+            replayThreads.add(Thread.currentThread().getName());
+            slowDatabase.await();
+            return List.of();
+        });
+
+        // returns while the first replay still waits for the database
+        for (int i = 0; i < 5; i++) {
+            availabilityCalendar.onSlotsChanged(new SlotsChangedEvent());
+        }
+        slowDatabase.countDown();
+
+        // the load, the first replay, and at most one more for the commits queued behind it
+        verify(slotChangeRepository, timeout(1000).atLeast(2)).findByIdGreaterThanOrderById(any(), any());
+        verify(slotChangeRepository, after(200).atMost(3)).findByIdGreaterThanOrderById(any(), any());
+        assertTrue(replayThreads.stream().allMatch("availability-replay"::equals));
+    }
+
+    @Test
+    public void shouldTimeMissingIdsByTheDatabaseClock() {
+        // the clock of this instance runs 90 seconds ahead of the database
+        Instant databaseNow = Instant.now().minus(Duration.ofSeconds(90));
+        build(List.of(), List.of());
+        when(slotChangeRepository.currentTime()).thenReturn(databaseNow);
+        when(slotChangeRepository.findByIdGreaterThanOrderById(any(), any())).thenReturn(
+                List.of(change(1, 1L, TODAY.plusDays(1).atTime(9, 0), true, databaseNow.minusSeconds(30)),
+                        change(3, 1L, TODAY.plusDays(1).atTime(10, 0), true, databaseNow.minusSeconds(30))));
+
+        availabilityCalendar.catchUp();
+        availabilityCalendar.catchUp();
+
+        // 2 is only 30 seconds late, so it is still waited for
+        ArgumentCaptor<Long> afterIds = ArgumentCaptor.forClass(Long.class);
+        verify(slotChangeRepository, times(3)).findByIdGreaterThanOrderById(afterIds.capture(), any(Limit.class));
+        assertEquals(List.of(0L, 0L, 1L), afterIds.getAllValues());
+    }
+
+    @Test
+    public void shouldLoadSnapshotWithoutReadingAppointments() {
+        List<BookedSlot> booked = List.of(
+                new BookedSlot(1L, TODAY.plusDays(1).atTime(8, 0)),
+                new BookedSlot(1L, TODAY.plusDays(30).atTime(17, 30)),
+                new BookedSlot(2L, TODAY.plusDays(2).atTime(12, 0)));
+        build(booked, List.of(change(1, 2L, TODAY.plusDays(2).atTime(12, 30), true, Instant.now())));
+        availabilityCalendar.saveSnapshot();
+        ArgumentCaptor<AvailabilitySnapshot> saved = ArgumentCaptor.forClass(AvailabilitySnapshot.class);
+        verify(availabilitySnapshotRepository).save(saved.capture());
+        assertEquals(1L, saved.getValue().getLastChangeId());
+
+        AvailabilityCalendar original = availabilityCalendar;
+        availabilityCalendar = newCalendar();
+        when(availabilitySnapshotRepository.findById(AvailabilitySnapshot.APPOINTMENTS))
+                .thenReturn(Optional.of(saved.getValue()));
+        when(slotChangeRepository.findByIdGreaterThanOrderById(any(), any())).thenReturn(List.of());
+        availabilityCalendar.load();
+
+        verify(appointmentRepository, times(1)).findAllBookedSlots(any(), any());
+        for (long vetId = 1; vetId <= 3; vetId++) {
+            for (int day = 0; day < 40; day++) {
+                assertEquals(original.freeSlots(vetId, TODAY.plusDays(day), TODAY.atStartOfDay()),
+                        freeSlots(vetId, TODAY.plusDays(day)), "vet " + vetId + ", day " + day);
+            }
+        }
+        assertEquals(18, Long.bitCount(freeSlots(2L, TODAY.plusDays(2))));
+    }
+}
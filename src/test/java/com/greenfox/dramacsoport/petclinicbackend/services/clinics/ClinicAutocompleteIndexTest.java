@@ -0,0 +1,193 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.clinics;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.ClinicDTO;
+import com.greenfox.dramacsoport.petclinicbackend.models.ListVersion;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.ClinicRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.ListVersionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ClinicAutocompleteIndexTest {
+
+    @Mock
+    private ClinicRepository clinicRepository;
+
+    @Mock
+    private ListVersionRepository listVersionRepository;
+
+    private ClinicAutocompleteIndex clinicAutocompleteIndex;
+
+    @BeforeEach
+    public void setUp() {
+        // short keys, so the tests also cover queries longer than the trie
+        clinicAutocompleteIndex = new ClinicAutocompleteIndex(clinicRepository, listVersionRepository, 3, 6);
+    }
+
+    private void index(long version, List<ClinicDTO> clinics) {
+        when(listVersionRepository.findVersionByName(ListVersion.CLINICS)).thenReturn(Optional.of(version));
+        when(clinicRepository.findAllClinicDTOs()).thenReturn(clinics);
+        clinicAutocompleteIndex.rebuild();
+    }
+
+    private static ClinicDTO clinic(long id, String name, String address) {
+        return new ClinicDTO(id, name, address, null, null);
+    }
+
+    private List<Long> suggest(String query) {
+        return clinicAutocompleteIndex.suggest(query, 3).stream().map(ClinicDTO::getId).toList();
+    }
+
+    @Test
+    public void shouldIgnoreCaseAndAccents() {
+        index(1, List.of(
+                clinic(1L, "Állatorvosi Rendelő", "Győr, Baross út 1"),
+                clinic(2L, "Paws", "Pécs, Király utca 3")));
+
+        assertEquals(List.of(1L), suggest("allat"));
+        assertEquals(List.of(1L), suggest("RENDELO"));
+        assertEquals(List.of(1L), suggest("gyor"));
+        assertEquals(List.of(2L), suggest("  Kiraly  UT"));
+        assertEquals(List.of(), suggest("kutya"));
+    }
+
+    @Test
+    public void shouldRankNameMatchesFirstThenShorterNames() {
+        index(1, List.of(
+                clinic(1L, "Oak Street Animal Hospital", "1 Main Street"),
+                clinic(2L, "Main Street Vet", "2 Oak Street"),
+                clinic(3L, "Happy Paws", "3 Main Street"),
+                clinic(4L, "Mainland Vet Clinic", "4 Elm Street")));
+
+        // name matches by name length, then address matches by name length
+        assertEquals(List.of(2L, 4L, 3L), suggest("main"));
+        assertEquals(List.of(1L, 2L), suggest("oak"));
+    }
+
+    @Test
+    public void shouldMatchQueriesLongerThanTheKeys() {
+        index(1, List.of(
+                clinic(1L, "Riverside Vet", "1 River Road"),
+                clinic(2L, "Riverbank Clinic", "2 River Road")));
+
+        assertEquals(List.of(1L, 2L), suggest("river"));
+        assertEquals(List.of(1L), suggest("riverside v"));
+        assertEquals(List.of(2L), suggest("riverbank"));
+        assertEquals(List.of(), suggest("riversides"));
+    }
+
+    @Test
+    public void shouldApplyAddedAndDeletedClinicsLikeRebuild() {
+        Random random = new Random(11);
+        String[] words = {"alpha", "alps", "beta", "bet", "gamma", "game", "delta", "del", "vet", "veterinary"};
+        List<ClinicDTO> clinics = new ArrayList<>();
+        long version = 1;
+        index(version, List.of());
+
+        for (long id = 1; id <= 300; id++) {
+            if (!clinics.isEmpty() && random.nextInt(3) == 0) {
+                ClinicDTO deleted = clinics.remove(random.nextInt(clinics.size()));
+                when(listVersionRepository.findVersionByName(ListVersion.CLINICS)).thenReturn(Optional.of(++version));
+                clinicAutocompleteIndex.onClinicsChanged(ClinicsChangedEvent.deleted(deleted.getId()));
+            }
+            ClinicDTO added = clinic(id, words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)],
+                    id + " " + words[random.nextInt(words.length)] + " street");
+            clinics.add(added);
+            when(listVersionRepository.findVersionByName(ListVersion.CLINICS)).thenReturn(Optional.of(++version));
+            clinicAutocompleteIndex.onClinicsChanged(ClinicsChangedEvent.added(added));
+        }
+
+        for (String query : List.of("a", "al", "alp", "bet", "beta", "del", "delta a", "veteri", "veterinary",
+                "game s", "street", "1", "12")) {
+            List<Long> expected = bruteForce(clinics, query);
+            assertEquals(expected, suggest(query), query);
+        }
+        // only the startup build, every change was applied in place
+        verify(clinicRepository, times(1)).findAllClinicDTOs();
+    }
+
+    @Test
+    public void shouldRebuildWhenAnotherInstanceChangedClinics() {
+        index(1, List.of(clinic(1L, "Paws", "1 Main Street")));
+        when(clinicRepository.findAllClinicDTOs()).thenReturn(List.of(
+                clinic(1L, "Paws", "1 Main Street"),
+                clinic(2L, "Claws", "2 Main Street"),
+                clinic(3L, "Paws and Claws", "3 Main Street")));
+        when(listVersionRepository.findVersionByName(ListVersion.CLINICS)).thenReturn(Optional.of(3L));
+
+        clinicAutocompleteIndex.onClinicsChanged(ClinicsChangedEvent.added(clinic(3L, "Paws and Claws", "3 Main Street")));
+
+        assertEquals(List.of(2L, 3L), suggest("claws"));
+        verify(clinicRepository, times(2)).findAllClinicDTOs();
+    }
+
+    @Test
+    public void shouldDropBuildThatMissesAChangeAppliedInPlace() {
+        index(1, List.of(clinic(1L, "Paws", "1 Main Street")));
+        // read by the rebuild, then by the change committed while the rebuild reads the clinics
+        when(listVersionRepository.findVersionByName(ListVersion.CLINICS))
+                .thenReturn(Optional.of(1L), Optional.of(2L));
+        when(clinicRepository.findAllClinicDTOs()).thenAnswer(invocation -> {
+            clinicAutocompleteIndex.onClinicsChanged(ClinicsChangedEvent.added(clinic(2L, "Claws", "2 Main Street")));
+            return List.of(clinic(1L, "Paws", "1 Main Street"));
+        });
+
+        clinicAutocompleteIndex.rebuild();
+        clinicAutocompleteIndex.refreshIfChanged();
+
+        assertEquals(List.of(2L), suggest("claws"));
+        // the startup build and the dropped one, the refresh found the index up to date
+        verify(clinicRepository, times(2)).findAllClinicDTOs();
+    }
+
+    /**
+     * The same ranking as the index, over every word start of the name and the address.
+     */
+    private static List<Long> bruteForce(List<ClinicDTO> clinics, String query) {
+        String prefix = ClinicAutocompleteIndex.normalize(query);
+        record Match(ClinicDTO clinic, int field, boolean fieldStart) {
+        }
+        List<Match> matches = new ArrayList<>();
+        for (ClinicDTO clinic : clinics) {
+            String[] fields = {ClinicAutocompleteIndex.normalize(clinic.getName()),
+                    ClinicAutocompleteIndex.normalize(clinic.getAddress())};
+            for (int field = 0; field < 2; field++) {
+                String text = fields[field];
+                Match best = null;
+                for (int i = 0; i < text.length() && best == null; i++) {
+                    boolean wordStart = i == 0 || text.charAt(i - 1) == ' ';
+                    if (wordStart && text.startsWith(prefix, i)) {
+                        best = new Match(clinic, field, i == 0);
+                    }
+                }
+                if (best != null) {
+                    matches.add(best);
+                    break;
+                }
+            }
+        }
+        return matches.stream()
+                .sorted(Comparator.comparingInt(Match::field)
+                        .thenComparing(match -> !match.fieldStart())
+                        .thenComparingInt(match -> match.clinic().getName().length())
+                        .thenComparing(match -> match.clinic().getName(), String.CASE_INSENSITIVE_ORDER)
+                        .thenComparing(match -> match.clinic().getId()))
+                .limit(3)
+                .map(match -> match.clinic().getId())
+                .toList();
+    }
+}
@@ -0,0 +1,74 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.clinics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ClinicDirectoryCacheTest {
+
+    private ClinicDirectoryCache clinicDirectoryCache;
+
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        clinicDirectoryCache = new ClinicDirectoryCache(new ObjectMapper(), 2, new SimpleMeterRegistry());
+        loads = new AtomicInteger();
+    }
+
+    private Supplier<?> loader(String content) {
+        return () -> {
+            loads.incrementAndGet();
+            return List.of(content);
+        };
+    }
+
+    private String get(long version, String page, String content) {
+        return new String(clinicDirectoryCache.get(version, page, loader(content)), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void shouldServeSameVersionFromCache() {
+        assertEquals("[\"first\"]", get(1, "0-50-id,asc", "first"));
+        assertEquals("[\"first\"]", get(1, "0-50-id,asc", "changed"));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void shouldReloadNewerVersionAndNotCacheOlderOne() {
+        get(1, "0-50-id,asc", "first");
+        assertEquals("[\"second\"]", get(2, "0-50-id,asc", "second"));
+
+        // a request that read the version just before the change
+        assertEquals("[\"late\"]", get(1, "0-50-id,asc", "late"));
+        assertEquals("[\"second\"]", get(2, "0-50-id,asc", "other"));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void shouldReloadAfterInvalidation() {
+        get(1, "0-50-id,asc", "first");
+        clinicDirectoryCache.onClinicsChanged(ClinicsChangedEvent.deleted(1L));
+
+        assertEquals("[\"reloaded\"]", get(1, "0-50-id,asc", "reloaded"));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldNotCacheMorePagesThanTheLimit() {
+        get(1, "0-50-id,asc", "first");
+        get(1, "1-50-id,asc", "second");
+        get(1, "2-50-id,asc", "third");
+        get(1, "2-50-id,asc", "third");
+
+        assertEquals(4, loads.get());
+    }
+}
@@ -0,0 +1,113 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.clinics;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.ClinicDTO;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.clinic.nearest.NearbyClinicDTO;
+import com.greenfox.dramacsoport.petclinicbackend.models.ListVersion;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.ClinicRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.ListVersionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ClinicSpatialIndexTest {
+
+    @Mock
+    private ClinicRepository clinicRepository;
+
+    @Mock
+    private ListVersionRepository listVersionRepository;
+
+    @InjectMocks
+    private ClinicSpatialIndex clinicSpatialIndex;
+
+    private static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.pow(Math.sin(dLat / 2), 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.pow(Math.sin(dLon / 2), 2);
+        return 2 * Math.asin(Math.sqrt(a)) * ClinicSpatialIndex.EARTH_RADIUS_KM;
+    }
+
+    private void index(List<ClinicDTO> clinics) {
+        when(listVersionRepository.findVersionByName(ListVersion.CLINICS)).thenReturn(Optional.of(1L));
+        when(clinicRepository.findLocatedClinicDTOs()).thenReturn(clinics);
+        clinicSpatialIndex.rebuild();
+    }
+
+    @Test
+    public void shouldFindSameClinicsAsFullScan() {
+        Random random = new Random(7);
+        List<ClinicDTO> clinics = new ArrayList<>();
+        for (long id = 1; id <= 5000; id++) {
+            clinics.add(new ClinicDTO(id, "Clinic " + id, id + " Main Street",
+                    random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180));
+        }
+        index(clinics);
+
+        for (int query = 0; query < 200; query++) {
+            double latitude = random.nextDouble() * 180 - 90;
+            double longitude = random.nextDouble() * 360 - 180;
+            double radiusKm = 100 + random.nextDouble() * 2000;
+            List<Long> expected = clinics.stream()
+                    .filter(clinic -> haversineKm(latitude, longitude, clinic.getLatitude(), clinic.getLongitude())
+                            <= radiusKm)
+                    .sorted(Comparator.comparingDouble(clinic ->
+                            haversineKm(latitude, longitude, clinic.getLatitude(), clinic.getLongitude())))
+                    .limit(5)
+                    .map(ClinicDTO::getId)
+                    .toList();
+
+            List<NearbyClinicDTO> nearest = clinicSpatialIndex.findNearest(latitude, longitude, 5, radiusKm);
+
+            assertEquals(expected, nearest.stream().map(NearbyClinicDTO::id).toList());
+        }
+    }
+
+    @Test
+    public void shouldMeasureAcrossTheAntimeridian() {
+        index(List.of(new ClinicDTO(1L, "Fiji", "Suva", -18.1416, 178.4419),
+                new ClinicDTO(2L, "Samoa", "Apia", -13.8333, -171.7667),
+                new ClinicDTO(3L, "Budapest", "Budapest", 47.4979, 19.0402)));
+
+        List<NearbyClinicDTO> nearest = clinicSpatialIndex.findNearest(-16, 179.9, 3, 2000);
+
+        assertEquals(List.of(1L, 2L), nearest.stream().map(NearbyClinicDTO::id).toList());
+        assertEquals(haversineKm(-16, 179.9, -18.1416, 178.4419), nearest.get(0).distanceKm(), 0.001);
+    }
+
+    @Test
+    public void shouldRebuildOnlyWhenVersionChanged() {
+        index(List.of(new ClinicDTO(1L, "Budapest", "Budapest", 47.4979, 19.0402)));
+
+        clinicSpatialIndex.refreshIfChanged();
+        verify(clinicRepository, times(1)).findLocatedClinicDTOs();
+
+        when(listVersionRepository.findVersionByName(ListVersion.CLINICS)).thenReturn(Optional.of(2L));
+        when(clinicRepository.findLocatedClinicDTOs()).thenReturn(List.of());
+        clinicSpatialIndex.refreshIfChanged();
+
+        verify(clinicRepository, times(2)).findLocatedClinicDTOs();
+        assertEquals(List.of(), clinicSpatialIndex.findNearest(47.4979, 19.0402, 5, 10));
+    }
+
+    @Test
+    public void shouldFindNothingBeforeBuild() {
+        assertEquals(List.of(), clinicSpatialIndex.findNearest(0, 0, 5, 20_000));
+        verify(clinicRepository, never()).findLocatedClinicDTOs();
+    }
+}
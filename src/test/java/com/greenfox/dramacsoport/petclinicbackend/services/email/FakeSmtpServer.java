@@ -0,0 +1,180 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.email;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal in-process SMTP server for tests. Accepts every message, except the ones addressed to a rejected
+ * recipient, and keeps them in memory. It does not support any ESMTP extension (no AUTH, no STARTTLS).
+ */
+public class FakeSmtpServer implements AutoCloseable {
+
+    public record ReceivedMessage(String from, List<String> recipients, String data) {
+    }
+
+    private final ServerSocket serverSocket;
+
+    private final List<ReceivedMessage> messages = new CopyOnWriteArrayList<>();
+
+    private final Set<String> rejectedRecipients = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+
+    private FakeSmtpServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptConnections, "fake-smtp-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public static FakeSmtpServer start() {
+        try {
+            return new FakeSmtpServer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public List<ReceivedMessage> messages() {
+        return List.copyOf(messages);
+    }
+
+    public int connectionCount() {
+        return connections.get();
+    }
+
+    public void rejectRecipient(String address) {
+        rejectedRecipients.add(address.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Closes every open client connection, like a server that times out idle clients.
+     */
+    public void disconnectAll() {
+        for (Socket socket : openSockets) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // closing anyway
+            }
+        }
+    }
+
+    public void reset() {
+        messages.clear();
+        rejectedRecipients.clear();
+        connections.set(0);
+    }
+
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+            // closing anyway
+        }
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                openSockets.add(socket);
+                Thread handler = new Thread(() -> handle(socket), "fake-smtp-session");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             OutputStream out = socket.getOutputStream()) {
+            reply(out, "220 localhost fake SMTP");
+            String from = null;
+            List<String> recipients = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.toUpperCase(Locale.ROOT);
+                if (command.startsWith("EHLO") || command.startsWith("HELO")) {
+                    reply(out, "250 localhost");
+                } else if (command.startsWith("MAIL FROM:")) {
+                    from = address(line);
+                    recipients.clear();
+                    reply(out, "250 OK");
+                } else if (command.startsWith("RCPT TO:")) {
+                    String recipient = address(line);
+                    if (rejectedRecipients.contains(recipient.toLowerCase(Locale.ROOT))) {
+                        reply(out, "550 Mailbox unavailable");
+                    } else {
+                        recipients.add(recipient);
+                        reply(out, "250 OK");
+                    }
+                } else if (command.equals("DATA")) {
+                    reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                    messages.add(new ReceivedMessage(from, List.copyOf(recipients), readData(in)));
+                    reply(out, "250 OK");
+                } else if (command.equals("RSET")) {
+                    from = null;
+                    recipients.clear();
+                    reply(out, "250 OK");
+                } else if (command.equals("NOOP")) {
+                    reply(out, "250 OK");
+                } else if (command.equals("QUIT")) {
+                    reply(out, "221 Bye");
+                    return;
+                } else {
+                    reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException ignored) {
+            // client went away
+        } finally {
+            openSockets.remove(socket);
+        }
+    }
+
+    private static String readData(BufferedReader in) throws IOException {
+        StringBuilder data = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null && !line.equals(".")) {
+            data.append(line.startsWith("..") ? line.substring(1) : line).append("\r\n");
+        }
+        return data.toString();
+    }
+
+    private static String address(String line) {
+        int start = line.indexOf('<');
+        int end = line.indexOf('>');
+        return start >= 0 && end > start ? line.substring(start + 1, end) : line.substring(line.indexOf(':') + 1).trim();
+    }
+
+    private static void reply(OutputStream out, String response) throws IOException {
+        out.write((response + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+}
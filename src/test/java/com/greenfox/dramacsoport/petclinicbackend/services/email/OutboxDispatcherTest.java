@@ -0,0 +1,128 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.email;
+
+import com.greenfox.dramacsoport.petclinicbackend.models.OutboxEmail;
+import com.greenfox.dramacsoport.petclinicbackend.models.OutboxStatus;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.OutboxEmailRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"mail.outbox.max-attempts=2", "mail.delivery.pool-size=1"})
+public class OutboxDispatcherTest {
+
+    private static final FakeSmtpServer smtpServer = FakeSmtpServer.start();
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private OutboxEmailRepository outboxEmailRepository;
+
+    @DynamicPropertySource
+    static void mailProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.mail.host", () -> "localhost");
+        registry.add("spring.mail.port", smtpServer::getPort);
+        registry.add("spring.mail.properties.mail.smtp.auth", () -> "false");
+        registry.add("spring.mail.properties.mail.smtp.starttls.enable", () -> "false");
+    }
+
+    @AfterAll
+    static void stopSmtpServer() {
+        smtpServer.close();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        outboxEmailRepository.deleteAll();
+        // connections pooled by an earlier test are dropped, so every test starts counting from zero
+        smtpServer.disconnectAll();
+        smtpServer.reset();
+    }
+
+    private OutboxEmail queue(String recipient) {
+        Instant now = Instant.now();
+        return outboxEmailRepository.save(OutboxEmail.builder()
+                .recipient(recipient)
+                .subject("Registration successful - Pet Clinic")
+                .body("Dear " + recipient)
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build());
+    }
+
+    @Test
+    public void shouldSendQueuedEmailsOverOneConnection() {
+        queue("first@example.com");
+        queue("second@example.com");
+        queue("third@example.com");
+
+        outboxDispatcher.dispatch();
+
+        assertEquals(3, smtpServer.messages().size());
+        assertEquals(1, smtpServer.connectionCount());
+        assertTrue(smtpServer.messages().get(0).data().contains("Subject: Registration successful - Pet Clinic"));
+        assertTrue(outboxEmailRepository.findAll().stream()
+                .allMatch(email -> email.getStatus() == OutboxStatus.SENT && email.getSentAt() != null));
+    }
+
+    @Test
+    public void shouldReuseConnectionAndReconnectWhenItBreaks() {
+        queue("first@example.com");
+        outboxDispatcher.dispatch();
+        queue("second@example.com");
+        outboxDispatcher.dispatch();
+        assertEquals(1, smtpServer.connectionCount());
+
+        smtpServer.disconnectAll();
+        queue("third@example.com");
+        outboxDispatcher.dispatch();
+
+        assertEquals(3, smtpServer.messages().size());
+        assertEquals(2, smtpServer.connectionCount());
+        assertTrue(outboxEmailRepository.findAll().stream()
+                .allMatch(email -> email.getStatus() == OutboxStatus.SENT));
+    }
+
+    @Test
+    public void shouldRetryRejectedEmailLaterWithoutBlockingOthers() {
+        smtpServer.rejectRecipient("rejected@example.com");
+        OutboxEmail accepted = queue("accepted@example.com");
+        OutboxEmail rejected = queue("rejected@example.com");
+
+        outboxDispatcher.dispatch();
+
+        assertEquals(OutboxStatus.SENT, outboxEmailRepository.findById(accepted.getId()).orElseThrow().getStatus());
+        OutboxEmail retried = outboxEmailRepository.findById(rejected.getId()).orElseThrow();
+        assertEquals(OutboxStatus.PENDING, retried.getStatus());
+        assertEquals(1, retried.getAttempts());
+        assertTrue(retried.getNextAttemptAt().isAfter(Instant.now()));
+        assertNotNull(retried.getLastError());
+
+        // not due yet, so it is not attempted again
+        outboxDispatcher.dispatch();
+        assertEquals(1, outboxEmailRepository.findById(rejected.getId()).orElseThrow().getAttempts());
+    }
+
+    @Test
+    public void shouldGiveUpAfterMaxAttempts() {
+        smtpServer.rejectRecipient("rejected@example.com");
+        OutboxEmail rejected = queue("rejected@example.com");
+        rejected.setAttempts(1);
+        outboxEmailRepository.save(rejected);
+
+        outboxDispatcher.dispatch();
+
+        OutboxEmail failed = outboxEmailRepository.findById(rejected.getId()).orElseThrow();
+        assertEquals(OutboxStatus.FAILED, failed.getStatus());
+        assertEquals(2, failed.getAttempts());
+        assertTrue(smtpServer.messages().isEmpty());
+    }
+}
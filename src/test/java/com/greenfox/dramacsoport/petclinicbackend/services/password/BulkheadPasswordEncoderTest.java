@@ -0,0 +1,83 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.password;
+
+import com.greenfox.dramacsoport.petclinicbackend.exceptions.HashingCapacityExceededException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkheadPasswordEncoderTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private BulkheadPasswordEncoder passwordEncoder;
+
+    /**
+     * Hashes only after the test releases it, so the pool can be filled up deterministically.
+     */
+    private final PasswordEncoder blockingEncoder = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "hashed-" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    };
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        passwordEncoder.close();
+    }
+
+    @Test
+    public void shouldDelegateHashing() {
+        release.countDown();
+        passwordEncoder = new BulkheadPasswordEncoder(blockingEncoder, 1, 1, Duration.ofSeconds(1), meterRegistry);
+
+        assertEquals("hashed-password", passwordEncoder.encode("password"));
+        assertTrue(passwordEncoder.matches("password", "hashed-password"));
+        assertEquals(2, meterRegistry.find("password.hashing.duration").timers().stream()
+                .mapToLong(Timer::count).sum());
+    }
+
+    @Test
+    public void shouldRejectImmediatelyWhenPoolAndQueueAreFull() throws Exception {
+        passwordEncoder = new BulkheadPasswordEncoder(blockingEncoder, 1, 1, Duration.ofSeconds(2), meterRegistry);
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> passwordEncoder.encode("first"));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> passwordEncoder.encode("second"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("password.hashing.queue.depth").gauge().value() < 1 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+
+        HashingCapacityExceededException exception = assertThrows(HashingCapacityExceededException.class,
+                () -> passwordEncoder.encode("third"));
+        assertEquals(Duration.ofSeconds(2), exception.getRetryAfter());
+        assertEquals(1, meterRegistry.get("password.hashing.rejected").counter().count());
+
+        release.countDown();
+        assertEquals("hashed-first", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hashed-second", queued.get(5, TimeUnit.SECONDS));
+    }
+}
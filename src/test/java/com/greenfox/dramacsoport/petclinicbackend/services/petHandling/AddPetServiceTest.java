@@ -1,8 +1,13 @@
 package com.greenfox.dramacsoport.petclinicbackend.services.petHandling;
 
 import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.PetDTO;
+import com.greenfox.dramacsoport.petclinicbackend.mappers.PetMapper;
+import com.greenfox.dramacsoport.petclinicbackend.mappers.PetMapperImpl;
 import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
 import com.greenfox.dramacsoport.petclinicbackend.models.Pet;
+import com.greenfox.dramacsoport.petclinicbackend.models.PetChange;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.AppUserRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.PetChangeRepository;
 import com.greenfox.dramacsoport.petclinicbackend.repositories.PetRepository;
 import com.greenfox.dramacsoport.petclinicbackend.services.appUser.AppUserService;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,8 +16,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDate;
 
@@ -32,10 +38,21 @@ public class AddPetServiceTest {
     @Mock
     private AppUserService appUserService;
 
+    @Mock
+    private AppUserRepository appUserRepository;
+
+    @Mock
+    private PetChangeRepository petChangeRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private PetMapper petMapper = new PetMapperImpl();
+
     @InjectMocks
     private PetServiceImpl petService;
 
-    private ModelMapper modelMapper = new ModelMapper();
     private PetDTO petDTO;
     private Pet pet;
     private AppUser appUser;
@@ -52,7 +69,7 @@ public class AddPetServiceTest {
         appUser.setEmail("xy@example.com");
         appUser.setPassword("password");
 
-        pet = modelMapper.map(petDTO, Pet.class);
+        pet = petMapper.toEntity(petDTO);
         pet.setOwner(appUser);
     }
 
@@ -60,7 +77,12 @@ public class AddPetServiceTest {
     void shouldAddPetSuccessfully() {
 
         when(appUserService.loadUserByEmail(anyString())).thenReturn(appUser);
-        when(petRepository.save(any(Pet.class))).thenReturn(pet);
+        // the id is taken from the sequence when the pet is persisted
+        when(petRepository.save(any(Pet.class))).thenAnswer(invocation -> {
+            Pet saved = invocation.getArgument(0);
+            saved.setId(1L);
+            return saved;
+        });
 
         PetDTO savedPetDTO = petService.addPet("xy@example.com", petDTO);
 
@@ -76,6 +98,7 @@ public class AddPetServiceTest {
         assertEquals(petDTO.getPetName(), actualPet.getPetName());
         assertEquals(petDTO.getPetBreed(), actualPet.getPetBreed());
         assertEquals(appUser, actualPet.getOwner());
+        verify(petChangeRepository).save(any(PetChange.class));
 
     }
 
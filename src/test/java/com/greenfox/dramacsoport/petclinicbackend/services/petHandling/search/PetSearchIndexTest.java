@@ -0,0 +1,218 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.petHandling.search;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.pet.search.PetSearchDocument;
+import com.greenfox.dramacsoport.petclinicbackend.models.PetChange;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.PetChangeRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.PetRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PetSearchIndexTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T12:00:00Z");
+
+    @Mock
+    private PetRepository petRepository;
+
+    @Mock
+    private PetChangeRepository petChangeRepository;
+
+    private PetSearchIndex petSearchIndex;
+
+    // the pets table and the change log, as the database holds them
+    private final Map<Long, PetSearchDocument> pets = new TreeMap<>();
+
+    private final List<PetChange> changes = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        petSearchIndex = new PetSearchIndex(petRepository, petChangeRepository, 2, Duration.ofMinutes(1),
+                Duration.ofDays(1));
+        lenient().when(petChangeRepository.currentTime()).thenReturn(NOW);
+        lenient().when(petChangeRepository.findMaxIdCreatedBefore(any())).thenAnswer(invocation -> changes.stream()
+                .filter(change -> change.getCreatedAt().isBefore(invocation.getArgument(0)))
+                .map(PetChange::getId)
+                .max(Long::compare));
+        lenient().when(petChangeRepository.findByIdGreaterThanOrderById(anyLong(), any())).thenAnswer(invocation ->
+                changes.stream()
+                        .filter(change -> change.getId() > invocation.<Long>getArgument(0))
+                        .limit(invocation.<Limit>getArgument(1).max())
+                        .toList());
+        lenient().when(petRepository.findSearchDocuments(anyLong(), any())).thenAnswer(invocation ->
+                pets.values().stream()
+                        .filter(pet -> pet.id() > invocation.<Long>getArgument(0))
+                        .limit(invocation.<Limit>getArgument(1).max())
+                        .toList());
+        lenient().when(petRepository.findSearchDocumentsByIdIn(anyCollection())).thenAnswer(invocation ->
+                invocation.<Collection<Long>>getArgument(0).stream()
+                        .map(pets::get)
+                        .toList());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        petSearchIndex.close();
+    }
+
+    private void store(long changeId, Instant createdAt, PetSearchDocument... saved) {
+        Arrays.stream(saved).forEach(pet -> pets.put(pet.id(), pet));
+        changes.add(new PetChange(changeId, Arrays.stream(saved).map(PetSearchDocument::id).toList(), createdAt));
+    }
+
+    private void save(PetSearchDocument... saved) {
+        store(changes.size() + 1, NOW, saved);
+        petSearchIndex.catchUp();
+    }
+
+    @Test
+    public void shouldFindFragmentsOfEveryFieldIgnoringCase() {
+        petSearchIndex.build();
+        save(new PetSearchDocument(1L, "Bella", "Golden Retriever", null),
+                new PetSearchDocument(2L, "Max", "Beagle", "Diabetes"),
+                new PetSearchDocument(3L, "Isabella", "Persian", "Allergic to fish"));
+
+        assertEquals(List.of(1L, 3L), petSearchIndex.search("BELL", 0, 10));
+        assertEquals(List.of(1L), petSearchIndex.search("retri", 0, 10));
+        assertEquals(List.of(2L), petSearchIndex.search("diabet", 0, 10));
+        assertEquals(List.of(3L), petSearchIndex.search(" to fi ", 0, 10));
+        assertEquals(List.of(), petSearchIndex.search("siamese", 0, 10));
+    }
+
+    @Test
+    public void shouldNotMatchAcrossFieldsOrOutOfOrderTrigrams() {
+        petSearchIndex.build();
+        save(new PetSearchDocument(1L, "Abc", "Def", null),
+                new PetSearchDocument(2L, "bcdxab", "dog", null));
+
+        assertEquals(List.of(), petSearchIndex.search("abcdef", 0, 10));
+        // both trigrams of "abcd" are in pet 2, but not next to each other
+        assertEquals(List.of(), petSearchIndex.search("abcd", 0, 10));
+    }
+
+    @Test
+    public void shouldReindexChangedPet() {
+        petSearchIndex.build();
+        save(new PetSearchDocument(1L, "Rex", "Boxer", null));
+        save(new PetSearchDocument(1L, "Rex", "Poodle", null));
+
+        assertEquals(List.of(), petSearchIndex.search("boxer", 0, 10));
+        assertEquals(List.of(1L), petSearchIndex.search("poodle", 0, 10));
+        assertEquals(List.of(1L), petSearchIndex.search("rex", 0, 10));
+    }
+
+    @Test
+    public void shouldPageInIdOrder() {
+        petSearchIndex.build();
+        save(new PetSearchDocument(7L, "Luna", "Husky", null),
+                new PetSearchDocument(2L, "Luna", "Husky", null),
+                new PetSearchDocument(5L, "Lunar", "Husky", null));
+
+        assertEquals(List.of(2L, 5L), petSearchIndex.search("luna", 0, 2));
+        assertEquals(List.of(7L), petSearchIndex.search("luna", 5, 2));
+    }
+
+    @Test
+    public void shouldReplayTheChangesLoggedWhileBuilding() {
+        store(1, NOW.minusSeconds(120), new PetSearchDocument(1L, "Milo", "Corgi", null),
+                new PetSearchDocument(2L, "Nala", "Boxer", null));
+        when(petRepository.findSearchDocuments(eq(0L), eq(Limit.of(2)))).thenAnswer(invocation -> {
+            List<PetSearchDocument> chunk = List.copyOf(pets.values());
+            // saved while the index was being built, after the build had read its old breed
+            store(2, NOW, new PetSearchDocument(2L, "Nala", "Corgi", null),
+                    new PetSearchDocument(3L, "Oreo", "Corgi", null));
+            return chunk;
+        });
+
+        petSearchIndex.build();
+
+        assertEquals(List.of(1L, 2L, 3L), petSearchIndex.search("corgi", 0, 10));
+        assertEquals(List.of(), petSearchIndex.search("boxer", 0, 10));
+    }
+
+    @Test
+    public void shouldReadOnlyThePetsOfNewChanges() {
+        store(1, NOW.minusSeconds(120), new PetSearchDocument(1L, "Milo", "Corgi", null));
+        petSearchIndex.build();
+
+        // a save of another instance, found by the timer
+        store(2, NOW, new PetSearchDocument(2L, "Nala", "Boxer", null));
+        petSearchIndex.catchUp();
+        petSearchIndex.catchUp();
+
+        assertEquals(List.of(2L), petSearchIndex.search("boxer", 0, 10));
+        verify(petRepository, times(1)).findSearchDocuments(eq(0L), any());
+        verify(petRepository, times(1)).findSearchDocumentsByIdIn(List.of(2L));
+    }
+
+    @Test
+    public void shouldReplayAChangeThatCommitsAfterANewerOne() {
+        petSearchIndex.build();
+        // change 1 is not committed yet, change 2 is
+        store(2, NOW, new PetSearchDocument(2L, "Nala", "Boxer", null));
+        petSearchIndex.catchUp();
+        assertEquals(List.of(2L), petSearchIndex.search("boxer", 0, 10));
+
+        changes.add(0, new PetChange(1L, List.of(1L), NOW));
+        pets.put(1L, new PetSearchDocument(1L, "Milo", "Boxer", null));
+        petSearchIndex.catchUp();
+
+        assertEquals(List.of(1L, 2L), petSearchIndex.search("boxer", 0, 10));
+    }
+
+    @Test
+    public void shouldGiveUpAMissingChangeAfterTheGapTimeout() {
+        petSearchIndex.build();
+        // change 1 was rolled back long ago
+        store(2, NOW.minusSeconds(120), new PetSearchDocument(2L, "Nala", "Boxer", null));
+        petSearchIndex.catchUp();
+        petSearchIndex.catchUp();
+
+        // the second replay started after change 2, so it read nothing again
+        verify(petRepository, times(1)).findSearchDocumentsByIdIn(any());
+        verify(petChangeRepository).findByIdGreaterThanOrderById(eq(2L), any());
+    }
+
+    @Test
+    public void shouldNotFindPetsBeforeTheStartupBuild() {
+        store(1, NOW, new PetSearchDocument(1L, "Milo", "Corgi", null));
+        petSearchIndex.catchUp();
+
+        assertEquals(List.of(), petSearchIndex.search("corgi", 0, 10));
+        verify(petChangeRepository, times(0)).findByIdGreaterThanOrderById(anyLong(), any());
+    }
+
+    @Test
+    public void shouldDeleteOnlyReplayedChanges() {
+        store(1, NOW.minusSeconds(120), new PetSearchDocument(1L, "Milo", "Corgi", null));
+        petSearchIndex.build();
+
+        petSearchIndex.purgeReplayed();
+
+        verify(petChangeRepository).deleteReplayed(1L, NOW.minus(Duration.ofDays(1)));
+    }
+}
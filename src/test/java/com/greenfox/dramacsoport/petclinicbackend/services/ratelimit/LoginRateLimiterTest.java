@@ -0,0 +1,104 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.ratelimit;
+
+import com.greenfox.dramacsoport.petclinicbackend.exceptions.TooManyLoginAttemptsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoginRateLimiterTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private LoginRateLimiter loginRateLimiter;
+
+    @BeforeEach
+    public void setUp() {
+        loginRateLimiter = new LoginRateLimiter(3, Duration.ofMinutes(3), 5, Duration.ofMinutes(1), 4, meterRegistry);
+    }
+
+    @Test
+    public void shouldRejectEmailAfterItsAllowanceIsUsedUp() {
+        for (int i = 0; i < 3; i++) {
+            loginRateLimiter.acquire("user@example.com", "10.0.0." + i, 0);
+        }
+
+        TooManyLoginAttemptsException exception = assertThrows(TooManyLoginAttemptsException.class,
+                () -> loginRateLimiter.acquire("USER@example.com ", "10.0.0.9", 0));
+        assertEquals(60, exception.getRetryAfter().toSeconds());
+        assertEquals(1, meterRegistry.get("login.throttle.rejected").tag("bucket", "email").counter().count());
+        assertDoesNotThrow(() -> loginRateLimiter.acquire("other@example.com", "10.0.0.9", 0));
+    }
+
+    @Test
+    public void shouldRejectIpAfterItsAllowanceIsUsedUp() {
+        for (int i = 0; i < 5; i++) {
+            loginRateLimiter.acquire("user" + i + "@example.com", "10.0.0.1", 0);
+        }
+
+        assertThrows(TooManyLoginAttemptsException.class,
+                () -> loginRateLimiter.acquire("new@example.com", "10.0.0.1", 0));
+        assertEquals(1, meterRegistry.get("login.throttle.rejected").tag("bucket", "ip").counter().count());
+        assertDoesNotThrow(() -> loginRateLimiter.acquire("new@example.com", "10.0.0.2", 0));
+    }
+
+    @Test
+    public void shouldRefillAllowanceOverTime() {
+        for (int i = 0; i < 3; i++) {
+            loginRateLimiter.acquire("user@example.com", "10.0.0.1", 0);
+        }
+        assertThrows(TooManyLoginAttemptsException.class,
+                () -> loginRateLimiter.acquire("user@example.com", "10.0.0.1", 0));
+
+        assertDoesNotThrow(() -> loginRateLimiter.acquire("user@example.com", "10.0.0.1", MINUTE));
+        assertThrows(TooManyLoginAttemptsException.class,
+                () -> loginRateLimiter.acquire("user@example.com", "10.0.0.1", MINUTE));
+    }
+
+    @Test
+    public void shouldEvictOnlyBucketsThatAreFullAgain() {
+        loginRateLimiter.acquire("user@example.com", "10.0.0.1", 0);
+        assertEquals(2, loginRateLimiter.size());
+
+        loginRateLimiter.evictIdle(MINUTE / 2);
+        assertEquals(1, loginRateLimiter.size());
+
+        loginRateLimiter.evictIdle(3 * MINUTE);
+        assertEquals(0, loginRateLimiter.size());
+    }
+
+    @Test
+    public void shouldMakeRoomForNewKeysByEvictingBucketsThatAreNearlyFull() {
+        for (int i = 0; i < 4; i++) {
+            loginRateLimiter.acquire("user" + i + "@example.com", "10.0.0." + i % 2, 0);
+        }
+        assertEquals(6, loginRateLimiter.size());
+
+        // every email was tried once, so their buckets are evicted, the IPs were tried twice and are kept
+        assertDoesNotThrow(() -> loginRateLimiter.acquire("new@example.com", "10.0.0.0", 0));
+        assertEquals(3, loginRateLimiter.size());
+    }
+
+    @Test
+    public void shouldKeepUsedUpBucketsWhenNoBucketIsNearlyFull() {
+        for (int i = 0; i < 3; i++) {
+            loginRateLimiter.acquire("user0@example.com", "10.0.0.0", 0);
+        }
+        for (int i = 1; i < 4; i++) {
+            loginRateLimiter.acquire("user" + i + "@example.com", "10.0.0." + (i == 1 ? 0 : 1), 0);
+            loginRateLimiter.acquire("user" + i + "@example.com", "10.0.0.1", 0);
+        }
+
+        // the fullest email bucket gives way, the used up one still throttles its account
+        assertDoesNotThrow(() -> loginRateLimiter.acquire("new@example.com", "10.0.0.0", 0));
+        assertThrows(TooManyLoginAttemptsException.class,
+                () -> loginRateLimiter.acquire("user0@example.com", "10.0.0.2", 0));
+    }
+}
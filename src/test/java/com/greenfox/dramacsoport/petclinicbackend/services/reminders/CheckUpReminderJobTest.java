@@ -0,0 +1,180 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.reminders;
+
+import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
+import com.greenfox.dramacsoport.petclinicbackend.models.JobCheckpoint;
+import com.greenfox.dramacsoport.petclinicbackend.models.OutboxEmail;
+import com.greenfox.dramacsoport.petclinicbackend.models.Pet;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.AppUserRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.JobCheckpointRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.OutboxEmailRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.PetRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.StagedCheckUpRepository;
+import com.greenfox.dramacsoport.petclinicbackend.services.email.EmailOutbox;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doCallRealMethod;
+
+/**
+ * Not transactional: every chunk commits on its own, like in production, so a failed chunk really rolls back.
+ */
+@SpringBootTest(properties = {"pets.check-up-reminders.chunk-size=3", "pets.check-up-reminders.window=P7D"})
+public class CheckUpReminderJobTest {
+
+    // far from the check-ups of the other tests
+    private static final LocalDate TODAY = LocalDate.of(2100, 1, 1);
+
+    @Autowired
+    private CheckUpReminderJob checkUpReminderJob;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @Autowired
+    private JobCheckpointRepository jobCheckpointRepository;
+
+    @Autowired
+    private OutboxEmailRepository outboxEmailRepository;
+
+    @Autowired
+    private StagedCheckUpRepository stagedCheckUpRepository;
+
+    @SpyBean
+    private EmailOutbox emailOutbox;
+
+    private AppUser breeder;
+
+    private AppUser neighbour;
+
+    @BeforeEach
+    public void setUp() {
+        jobCheckpointRepository.deleteAll();
+        breeder = owner("reminded.breeder@example.com", "Breeder");
+        neighbour = owner("reminded.neighbour@example.com", null);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        outboxEmailRepository.deleteAll(reminders(breeder));
+        outboxEmailRepository.deleteAll(reminders(neighbour));
+        stagedCheckUpRepository.deleteAllInBatch();
+        jobCheckpointRepository.deleteAll();
+        petRepository.deleteAll(petRepository.findAllByOwnerId(breeder.getId()));
+        petRepository.deleteAll(petRepository.findAllByOwnerId(neighbour.getId()));
+        appUserRepository.deleteAll(List.of(breeder, neighbour));
+    }
+
+    private AppUser owner(String email, String displayName) {
+        AppUser owner = new AppUser();
+        owner.setEmail(email);
+        owner.setDisplayName(displayName);
+        owner.setPassword("Password");
+        return appUserRepository.save(owner);
+    }
+
+    private void pet(AppUser owner, String name, LocalDate nextCheckUp) {
+        Pet pet = new Pet();
+        pet.setPetName(name);
+        pet.setNextCheckUp(nextCheckUp);
+        pet.setOwner(owner);
+        petRepository.save(pet);
+    }
+
+    private List<OutboxEmail> reminders(AppUser owner) {
+        return outboxEmailRepository.findAll().stream()
+                .filter(email -> email.getRecipient().equals(owner.getEmail()))
+                .toList();
+    }
+
+    @Test
+    public void shouldQueueOneReminderPerOwnerAcrossChunks() {
+        pet(breeder, "Rex", TODAY.plusDays(1));
+        pet(breeder, "Bella", TODAY.plusDays(7));
+        pet(breeder, "Later", TODAY.plusDays(8));
+        pet(neighbour, "Overdue", TODAY.minusDays(1));
+        // the first chunk ends with Tom, so the neighbour is left for the second chunk
+        pet(neighbour, "Tom", TODAY);
+        pet(neighbour, "Kitty", TODAY.plusDays(3));
+
+        checkUpReminderJob.remind(TODAY);
+
+        List<OutboxEmail> breederReminders = reminders(breeder);
+        assertEquals(1, breederReminders.size());
+        String body = breederReminders.get(0).getBody();
+        assertTrue(body.startsWith("Dear Breeder,"));
+        assertTrue(body.contains("- Rex: 2100-01-02") && body.contains("- Bella: 2100-01-08"));
+        assertFalse(body.contains("Later"));
+
+        List<OutboxEmail> neighbourReminders = reminders(neighbour);
+        assertEquals(1, neighbourReminders.size());
+        assertTrue(neighbourReminders.get(0).getBody().startsWith("Dear reminded.neighbour@example.com,"));
+        assertTrue(neighbourReminders.get(0).getBody().contains("- Tom: 2100-01-01")
+                && neighbourReminders.get(0).getBody().contains("- Kitty: 2100-01-04"));
+        assertFalse(neighbourReminders.get(0).getBody().contains("Overdue"));
+
+        JobCheckpoint checkpoint = jobCheckpointRepository.findById(JobCheckpoint.CHECK_UP_REMINDERS).orElseThrow();
+        assertEquals(TODAY.plusDays(7), checkpoint.getCoveredUntil());
+        assertFalse(checkpoint.isRunInProgress());
+    }
+
+    @Test
+    public void shouldOnlyRemindOfDaysNotCoveredYet() {
+        pet(breeder, "Rex", TODAY.plusDays(2));
+        pet(breeder, "Later", TODAY.plusDays(8));
+
+        checkUpReminderJob.remind(TODAY);
+        checkUpReminderJob.remind(TODAY);
+        assertEquals(1, reminders(breeder).size());
+
+        checkUpReminderJob.remind(TODAY.plusDays(1));
+
+        List<OutboxEmail> breederReminders = reminders(breeder);
+        assertEquals(2, breederReminders.size());
+        assertTrue(breederReminders.stream().anyMatch(email ->
+                email.getBody().contains("Later") && !email.getBody().contains("Rex")));
+    }
+
+    @Test
+    public void shouldResumeFailedRunAfterTheLastCommittedChunk() {
+        pet(breeder, "Rex", TODAY.plusDays(1));
+        pet(breeder, "Bella", TODAY.plusDays(2));
+        pet(neighbour, "Tom", TODAY.plusDays(2));
+        pet(neighbour, "Kitty", TODAY.plusDays(3));
+        // the breeder's chunk commits, the neighbour's chunk fails
+        doCallRealMethod().doThrow(new IllegalStateException("Outbox unavailable"))
+                .when(emailOutbox).enqueue(anyString(), anyString(), anyString());
+
+        assertThrows(IllegalStateException.class, () -> checkUpReminderJob.remind(TODAY));
+
+        assertEquals(1, reminders(breeder).size());
+        assertTrue(reminders(neighbour).isEmpty());
+        JobCheckpoint interrupted = jobCheckpointRepository.findById(JobCheckpoint.CHECK_UP_REMINDERS).orElseThrow();
+        assertTrue(interrupted.isRunInProgress());
+        assertEquals(breeder.getId(), interrupted.getLastOwnerId());
+
+        doCallRealMethod().when(emailOutbox).enqueue(anyString(), anyString(), anyString());
+        checkUpReminderJob.remind(TODAY.plusDays(1));
+
+        assertEquals(1, reminders(breeder).size());
+        List<OutboxEmail> neighbourReminders = reminders(neighbour);
+        assertEquals(1, neighbourReminders.size());
+        assertTrue(neighbourReminders.get(0).getBody().contains("- Tom: 2100-01-03")
+                && neighbourReminders.get(0).getBody().contains("- Kitty: 2100-01-04"));
+        JobCheckpoint checkpoint = jobCheckpointRepository.findById(JobCheckpoint.CHECK_UP_REMINDERS).orElseThrow();
+        assertFalse(checkpoint.isRunInProgress());
+        assertEquals(TODAY.plusDays(7), checkpoint.getCoveredUntil());
+        assertEquals(0, stagedCheckUpRepository.count());
+    }
+}
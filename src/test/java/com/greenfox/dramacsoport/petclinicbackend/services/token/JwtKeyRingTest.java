@@ -0,0 +1,93 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.token;
+
+import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
+import com.greenfox.dramacsoport.petclinicbackend.models.Role;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.SigningKeyRepository;
+import com.greenfox.dramacsoport.petclinicbackend.services.JwtService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class JwtKeyRingTest {
+
+    @Autowired
+    private SigningKeyRepository signingKeyRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private JwtKeyRing jwtKeyRing;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    private AppUser user;
+
+    @BeforeEach
+    public void setUp() {
+        user = AppUser.builder()
+                .id(1L)
+                .email("user@example.com")
+                .displayName("user")
+                .password("password")
+                .role(Role.USER)
+                .build();
+    }
+
+    /**
+     * Simulates a second instance of the application started on the same database.
+     */
+    private JwtService startOtherNode() {
+        JwtService otherJwtService = new JwtService(new VerifiedTokenCache(100), tokenRevocationService);
+        new JwtKeyRing(signingKeyRepository, otherJwtService, Duration.ofHours(24), Duration.ofMinutes(10)).refresh();
+        return otherJwtService;
+    }
+
+    @Test
+    public void shouldWriteKeyIdIntoTokenHeader() throws Exception {
+        jwtKeyRing.refresh();
+        String token = jwtService.generateToken(user);
+
+        String header = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))));
+        String keyId = new ObjectMapper().readTree(header).get("kid").asText();
+
+        assertTrue(signingKeyRepository.existsById(keyId));
+    }
+
+    @Test
+    public void tokenFromOneNodeShouldBeValidOnAnother() {
+        jwtKeyRing.refresh();
+        String token = jwtService.generateToken(user);
+
+        JwtService otherNode = startOtherNode();
+
+        assertEquals("user@example.com", otherNode.verify(token).orElseThrow().username());
+        assertTrue(jwtService.verify(otherNode.generateToken(user)).isPresent());
+    }
+
+    @Test
+    public void shouldPublishSuccessorBeforeCurrentKeyRetires() {
+        jwtKeyRing.refresh();
+        Instant now = Instant.now();
+        long keysBefore = signingKeyRepository.findAllByExpiresAtAfter(now).size();
+
+        // a ring with a short rotation period needs a successor right away
+        JwtService otherJwtService = new JwtService(new VerifiedTokenCache(100), tokenRevocationService);
+        JwtKeyRing shortLivedRing = new JwtKeyRing(signingKeyRepository, otherJwtService, Duration.ofMinutes(1),
+                Duration.ofDays(365));
+        shortLivedRing.refresh();
+
+        assertTrue(signingKeyRepository.findAllByExpiresAtAfter(now).size() > keysBefore);
+        assertTrue(jwtService.isTokenValid(jwtService.generateToken(user)));
+    }
+}
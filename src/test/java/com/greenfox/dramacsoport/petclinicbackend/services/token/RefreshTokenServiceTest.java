@@ -0,0 +1,129 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.token;
+
+import com.greenfox.dramacsoport.petclinicbackend.dtos.user.login.LoginCredentials;
+import com.greenfox.dramacsoport.petclinicbackend.dtos.user.login.LoginResponseDTO;
+import com.greenfox.dramacsoport.petclinicbackend.exceptions.InvalidRefreshTokenException;
+import com.greenfox.dramacsoport.petclinicbackend.models.AppUser;
+import com.greenfox.dramacsoport.petclinicbackend.models.RefreshToken;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.AppUserRepository;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.RefreshTokenRepository;
+import com.greenfox.dramacsoport.petclinicbackend.services.JwtService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RefreshTokenServiceTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private AppUserRepository appUserRepository;
+
+    @Mock
+    private JwtService jwtService;
+
+    @Captor
+    private ArgumentCaptor<RefreshToken> refreshTokenCaptor;
+
+    private RefreshTokenService refreshTokenService;
+
+    private final AppUser appUser = AppUser.builder().id(1L).email("test@example.com").build();
+
+    @BeforeEach
+    public void setUp() {
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, appUserRepository, jwtService,
+                Duration.ofDays(14));
+    }
+
+    private RefreshToken storedToken(String rawToken) {
+        return RefreshToken.builder()
+                .id(1L)
+                .tokenHash(VerifiedTokenCache.digest(rawToken))
+                .familyId("family")
+                .user(appUser)
+                .tokenVersion(appUser.getTokenVersion())
+                .expiresAt(Instant.now().plus(1, ChronoUnit.DAYS))
+                .build();
+    }
+
+    @Test
+    public void shouldStoreOnlyTheHashOfIssuedToken() {
+        when(appUserRepository.getReferenceById(1L)).thenReturn(appUser);
+
+        String rawToken = refreshTokenService.issue(LoginCredentials.from(appUser));
+
+        verify(refreshTokenRepository).save(refreshTokenCaptor.capture());
+        assertSame(appUser, refreshTokenCaptor.getValue().getUser());
+        assertEquals(VerifiedTokenCache.digest(rawToken), refreshTokenCaptor.getValue().getTokenHash());
+        assertNotEquals(rawToken, refreshTokenCaptor.getValue().getTokenHash());
+    }
+
+    @Test
+    public void shouldRotateTokenInSameFamily() {
+        String rawToken = "rawRefreshToken";
+        when(refreshTokenRepository.findByTokenHashWithUser(VerifiedTokenCache.digest(rawToken)))
+                .thenReturn(Optional.of(storedToken(rawToken)));
+        when(refreshTokenRepository.markUsed(eq(1L), any(Instant.class))).thenReturn(1);
+        when(jwtService.generateToken(appUser)).thenReturn("newAccessToken");
+
+        LoginResponseDTO response = refreshTokenService.refresh(rawToken);
+
+        assertEquals("newAccessToken", response.token());
+        assertNotEquals(rawToken, response.refreshToken());
+        verify(refreshTokenRepository).save(refreshTokenCaptor.capture());
+        assertEquals("family", refreshTokenCaptor.getValue().getFamilyId());
+        verify(refreshTokenRepository, never()).revokeFamily(anyString());
+    }
+
+    @Test
+    public void shouldRevokeFamilyIfUsedTokenIsPresentedAgain() {
+        String rawToken = "rawRefreshToken";
+        RefreshToken usedToken = storedToken(rawToken);
+        usedToken.setUsedAt(Instant.now().minus(1, ChronoUnit.MINUTES));
+        when(refreshTokenRepository.findByTokenHashWithUser(VerifiedTokenCache.digest(rawToken)))
+                .thenReturn(Optional.of(usedToken));
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.refresh(rawToken));
+
+        verify(refreshTokenRepository).revokeFamily("family");
+        verify(refreshTokenRepository, never()).save(any(RefreshToken.class));
+        verify(jwtService, never()).generateToken(any(AppUser.class));
+    }
+
+    @Test
+    public void shouldRejectTokenIssuedBeforePasswordChange() {
+        String rawToken = "rawRefreshToken";
+        RefreshToken outdatedToken = storedToken(rawToken);
+        outdatedToken.setUser(AppUser.builder().id(1L).tokenVersion(1).build());
+        when(refreshTokenRepository.findByTokenHashWithUser(VerifiedTokenCache.digest(rawToken)))
+                .thenReturn(Optional.of(outdatedToken));
+        when(refreshTokenRepository.markUsed(eq(1L), any(Instant.class))).thenReturn(1);
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.refresh(rawToken));
+
+        verify(jwtService, never()).generateToken(any(AppUser.class));
+    }
+
+    @Test
+    public void shouldRejectUnknownToken() {
+        when(refreshTokenRepository.findByTokenHashWithUser(anyString())).thenReturn(Optional.empty());
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.refresh("unknown"));
+    }
+}
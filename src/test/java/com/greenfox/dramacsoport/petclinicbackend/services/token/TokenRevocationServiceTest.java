@@ -0,0 +1,114 @@
+package com.greenfox.dramacsoport.petclinicbackend.services.token;
+
+import com.greenfox.dramacsoport.petclinicbackend.models.RevokedToken;
+import com.greenfox.dramacsoport.petclinicbackend.repositories.RevokedTokenRepository;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TokenRevocationServiceTest {
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private TokenRevocationService tokenRevocationService;
+
+    @BeforeEach
+    public void setUp() {
+        tokenRevocationService = new TokenRevocationService(revokedTokenRepository, 1000);
+    }
+
+    private VerifiedToken token(String tokenId, Instant expiresAt) {
+        return new VerifiedToken("user@example.com", expiresAt, Jwts.claims().id(tokenId).build());
+    }
+
+    @Test
+    public void shouldRejectRevokedTokenOnly() {
+        Instant expiresAt = Instant.now().plus(30, ChronoUnit.MINUTES);
+        VerifiedToken revoked = token("revoked-token", expiresAt);
+        VerifiedToken other = token("other-token", expiresAt);
+
+        tokenRevocationService.revoke(revoked);
+
+        assertTrue(tokenRevocationService.isRevoked(revoked));
+        assertFalse(tokenRevocationService.isRevoked(other));
+        verify(revokedTokenRepository).save(any(RevokedToken.class));
+    }
+
+    @Test
+    public void shouldPickUpTokensRevokedOnOtherNodes() {
+        Instant expiresAt = Instant.now().plus(30, ChronoUnit.MINUTES);
+        when(revokedTokenRepository.findAllByExpiresAtAfter(any(Instant.class)))
+                .thenReturn(List.of(new RevokedToken("remote-token", expiresAt, Instant.now())));
+
+        tokenRevocationService.synchronize();
+
+        assertTrue(tokenRevocationService.isRevoked(token("remote-token", expiresAt)));
+        verify(revokedTokenRepository, never()).save(any(RevokedToken.class));
+    }
+
+    @Test
+    public void shouldForgetTokensWhenTheyExpire() {
+        VerifiedToken expiringToken = token("expiring-token", Instant.now().plusMillis(50));
+        tokenRevocationService.revoke(expiringToken);
+        assertTrue(tokenRevocationService.isRevoked(expiringToken));
+
+        await(100);
+        tokenRevocationService.purgeExpired();
+
+        assertFalse(tokenRevocationService.isRevoked(expiringToken));
+        verify(revokedTokenRepository).deleteAllByExpiresAtBefore(any(Instant.class));
+    }
+
+    @Test
+    public void shouldKeepAllEntriesWhenGrowingBeyondExpectedSize() {
+        Instant expiresAt = Instant.now().plus(30, ChronoUnit.MINUTES);
+        for (int i = 0; i < 5000; i++) {
+            tokenRevocationService.revoke(token("token-" + i, expiresAt));
+        }
+
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(tokenRevocationService.isRevoked(token("token-" + i, expiresAt)));
+        }
+    }
+
+    @Test
+    public void shouldKeepTokensRevokedWhileTheFilterIsRebuilt() throws InterruptedException {
+        Instant expiresAt = Instant.now().plus(30, ChronoUnit.MINUTES);
+        Thread purger = new Thread(() -> {
+            for (int i = 0; i < 200; i++) {
+                tokenRevocationService.purgeExpired();
+            }
+        });
+        purger.start();
+        for (int i = 0; i < 5000; i++) {
+            tokenRevocationService.revoke(token("token-" + i, expiresAt));
+        }
+        purger.join();
+
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(tokenRevocationService.isRevoked(token("token-" + i, expiresAt)));
+        }
+    }
+
+    private void await(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}